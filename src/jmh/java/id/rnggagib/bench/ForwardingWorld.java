@@ -0,0 +1,1273 @@
+package id.rnggagib.bench;
+
+import org.bukkit.BlockChangeDelegate;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Difficulty;
+import org.bukkit.Effect;
+import org.bukkit.FeatureFlag;
+import org.bukkit.FluidCollisionMode;
+import org.bukkit.GameRule;
+import org.bukkit.HeightMap;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Particle;
+import org.bukkit.Raid;
+import org.bukkit.Sound;
+import org.bukkit.SoundCategory;
+import org.bukkit.StructureType;
+import org.bukkit.TreeType;
+import org.bukkit.World;
+import org.bukkit.WorldBorder;
+import org.bukkit.WorldType;
+import org.bukkit.block.Biome;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.boss.DragonBattle;
+import org.bukkit.entity.AbstractArrow;
+import org.bukkit.entity.Arrow;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.FallingBlock;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.LightningStrike;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.SpawnCategory;
+import org.bukkit.generator.BiomeProvider;
+import org.bukkit.generator.BlockPopulator;
+import org.bukkit.generator.ChunkGenerator;
+import org.bukkit.generator.structure.Structure;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.material.MaterialData;
+import org.bukkit.metadata.MetadataValue;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.util.BoundingBox;
+import org.bukkit.util.Consumer;
+import org.bukkit.util.RayTraceResult;
+import org.bukkit.util.StructureSearchResult;
+import org.bukkit.util.Vector;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * A World that passes every call on to another one.
+ * Stand-ins override the calls they answer on hot paths and leave the rest to the world they wrap.
+ */
+public class ForwardingWorld implements World {
+    private final World delegate;
+
+    public ForwardingWorld(World delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean addPluginChunkTicket(int x, int z, Plugin plugin) {
+        return delegate.addPluginChunkTicket(x, z, plugin);
+    }
+
+    @Override
+    public boolean canGenerateStructures() {
+        return delegate.canGenerateStructures();
+    }
+
+    @Override
+    public boolean createExplosion(Location location, float power, boolean setFire, boolean breakBlocks, Entity source) {
+        return delegate.createExplosion(location, power, setFire, breakBlocks, source);
+    }
+
+    @Override
+    public boolean createExplosion(Location location, float power, boolean setFire, boolean breakBlocks) {
+        return delegate.createExplosion(location, power, setFire, breakBlocks);
+    }
+
+    @Override
+    public boolean createExplosion(Location location, float power, boolean setFire) {
+        return delegate.createExplosion(location, power, setFire);
+    }
+
+    @Override
+    public boolean createExplosion(Location location, float power) {
+        return delegate.createExplosion(location, power);
+    }
+
+    @Override
+    public boolean createExplosion(double x, double y, double z, float power, boolean setFire, boolean breakBlocks, Entity source) {
+        return delegate.createExplosion(x, y, z, power, setFire, breakBlocks, source);
+    }
+
+    @Override
+    public boolean createExplosion(double x, double y, double z, float power, boolean setFire, boolean breakBlocks) {
+        return delegate.createExplosion(x, y, z, power, setFire, breakBlocks);
+    }
+
+    @Override
+    public boolean createExplosion(double x, double y, double z, float power, boolean setFire) {
+        return delegate.createExplosion(x, y, z, power, setFire);
+    }
+
+    @Override
+    public boolean createExplosion(double x, double y, double z, float power) {
+        return delegate.createExplosion(x, y, z, power);
+    }
+
+    @Override
+    public Item dropItemNaturally(Location location, ItemStack item, Consumer<Item> function) {
+        return delegate.dropItemNaturally(location, item, function);
+    }
+
+    @Override
+    public Item dropItemNaturally(Location location, ItemStack item) {
+        return delegate.dropItemNaturally(location, item);
+    }
+
+    @Override
+    public Item dropItem(Location location, ItemStack item, Consumer<Item> function) {
+        return delegate.dropItem(location, item, function);
+    }
+
+    @Override
+    public Item dropItem(Location location, ItemStack item) {
+        return delegate.dropItem(location, item);
+    }
+
+    @Override
+    public boolean generateTree(Location location, Random random, TreeType type, Predicate<BlockState> statePredicate) {
+        return delegate.generateTree(location, random, type, statePredicate);
+    }
+
+    @Override
+    public boolean generateTree(Location location, Random random, TreeType type, Consumer<BlockState> stateConsumer) {
+        return delegate.generateTree(location, random, type, stateConsumer);
+    }
+
+    @Override
+    public boolean generateTree(Location location, Random random, TreeType type) {
+        return delegate.generateTree(location, random, type);
+    }
+
+    @Override
+    public boolean generateTree(Location location, TreeType type, BlockChangeDelegate changeDelegate) {
+        return delegate.generateTree(location, type, changeDelegate);
+    }
+
+    @Override
+    public boolean generateTree(Location location, TreeType type) {
+        return delegate.generateTree(location, type);
+    }
+
+    @Override
+    public boolean getAllowAnimals() {
+        return delegate.getAllowAnimals();
+    }
+
+    @Override
+    public boolean getAllowMonsters() {
+        return delegate.getAllowMonsters();
+    }
+
+    @Override
+    public int getAmbientSpawnLimit() {
+        return delegate.getAmbientSpawnLimit();
+    }
+
+    @Override
+    public int getAnimalSpawnLimit() {
+        return delegate.getAnimalSpawnLimit();
+    }
+
+    @Override
+    public BiomeProvider getBiomeProvider() {
+        return delegate.getBiomeProvider();
+    }
+
+    @Override
+    public Biome getBiome(Location location) {
+        return delegate.getBiome(location);
+    }
+
+    @Override
+    public Biome getBiome(int x, int y, int z) {
+        return delegate.getBiome(x, y, z);
+    }
+
+    @Override
+    public Biome getBiome(int x, int z) {
+        return delegate.getBiome(x, z);
+    }
+
+    @Override
+    public Block getBlockAt(Location location) {
+        return delegate.getBlockAt(location);
+    }
+
+    @Override
+    public Block getBlockAt(int x, int y, int z) {
+        return delegate.getBlockAt(x, y, z);
+    }
+
+    @Override
+    public BlockData getBlockData(Location location) {
+        return delegate.getBlockData(location);
+    }
+
+    @Override
+    public BlockData getBlockData(int x, int y, int z) {
+        return delegate.getBlockData(x, y, z);
+    }
+
+    @Override
+    public BlockState getBlockState(Location location) {
+        return delegate.getBlockState(location);
+    }
+
+    @Override
+    public BlockState getBlockState(int x, int y, int z) {
+        return delegate.getBlockState(x, y, z);
+    }
+
+    @Override
+    public Chunk getChunkAt(Location location) {
+        return delegate.getChunkAt(location);
+    }
+
+    @Override
+    public Chunk getChunkAt(int x, int z, boolean generate) {
+        return delegate.getChunkAt(x, z, generate);
+    }
+
+    @Override
+    public Chunk getChunkAt(int x, int z) {
+        return delegate.getChunkAt(x, z);
+    }
+
+    @Override
+    public Chunk getChunkAt(Block block) {
+        return delegate.getChunkAt(block);
+    }
+
+    @Override
+    public int getClearWeatherDuration() {
+        return delegate.getClearWeatherDuration();
+    }
+
+    @Override
+    public Difficulty getDifficulty() {
+        return delegate.getDifficulty();
+    }
+
+    @Override
+    public ChunkSnapshot getEmptyChunkSnapshot(int x, int z, boolean includeBiome, boolean includeBiomeTemp) {
+        return delegate.getEmptyChunkSnapshot(x, z, includeBiome, includeBiomeTemp);
+    }
+
+    @Override
+    public DragonBattle getEnderDragonBattle() {
+        return delegate.getEnderDragonBattle();
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> getEntitiesByClass(Class<T>... classes) {
+        return delegate.getEntitiesByClass(classes);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> getEntitiesByClass(Class<T> clazz) {
+        return delegate.getEntitiesByClass(clazz);
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesByClasses(Class<?>... classes) {
+        return delegate.getEntitiesByClasses(classes);
+    }
+
+    @Override
+    public List<Entity> getEntities() {
+        return delegate.getEntities();
+    }
+
+    @Override
+    public World.Environment getEnvironment() {
+        return delegate.getEnvironment();
+    }
+
+    @Override
+    public Set<FeatureFlag> getFeatureFlags() {
+        return delegate.getFeatureFlags();
+    }
+
+    @Override
+    public Collection<Chunk> getForceLoadedChunks() {
+        return delegate.getForceLoadedChunks();
+    }
+
+    @Override
+    public long getFullTime() {
+        return delegate.getFullTime();
+    }
+
+    @Override
+    public <T> T getGameRuleDefault(GameRule<T> rule) {
+        return delegate.getGameRuleDefault(rule);
+    }
+
+    @Override
+    public String getGameRuleValue(String rule) {
+        return delegate.getGameRuleValue(rule);
+    }
+
+    @Override
+    public <T> T getGameRuleValue(GameRule<T> rule) {
+        return delegate.getGameRuleValue(rule);
+    }
+
+    @Override
+    public String[] getGameRules() {
+        return delegate.getGameRules();
+    }
+
+    @Override
+    public long getGameTime() {
+        return delegate.getGameTime();
+    }
+
+    @Override
+    public ChunkGenerator getGenerator() {
+        return delegate.getGenerator();
+    }
+
+    @Override
+    public Block getHighestBlockAt(Location location, HeightMap heightMap) {
+        return delegate.getHighestBlockAt(location, heightMap);
+    }
+
+    @Override
+    public Block getHighestBlockAt(Location location) {
+        return delegate.getHighestBlockAt(location);
+    }
+
+    @Override
+    public Block getHighestBlockAt(int x, int z, HeightMap heightMap) {
+        return delegate.getHighestBlockAt(x, z, heightMap);
+    }
+
+    @Override
+    public Block getHighestBlockAt(int x, int z) {
+        return delegate.getHighestBlockAt(x, z);
+    }
+
+    @Override
+    public int getHighestBlockYAt(Location location, HeightMap heightMap) {
+        return delegate.getHighestBlockYAt(location, heightMap);
+    }
+
+    @Override
+    public int getHighestBlockYAt(Location location) {
+        return delegate.getHighestBlockYAt(location);
+    }
+
+    @Override
+    public int getHighestBlockYAt(int x, int z, HeightMap heightMap) {
+        return delegate.getHighestBlockYAt(x, z, heightMap);
+    }
+
+    @Override
+    public int getHighestBlockYAt(int x, int z) {
+        return delegate.getHighestBlockYAt(x, z);
+    }
+
+    @Override
+    public double getHumidity(int x, int y, int z) {
+        return delegate.getHumidity(x, y, z);
+    }
+
+    @Override
+    public double getHumidity(int x, int z) {
+        return delegate.getHumidity(x, z);
+    }
+
+    @Override
+    public boolean getKeepSpawnInMemory() {
+        return delegate.getKeepSpawnInMemory();
+    }
+
+    @Override
+    public NamespacedKey getKey() {
+        return delegate.getKey();
+    }
+
+    @Override
+    public Set<String> getListeningPluginChannels() {
+        return delegate.getListeningPluginChannels();
+    }
+
+    @Override
+    public List<LivingEntity> getLivingEntities() {
+        return delegate.getLivingEntities();
+    }
+
+    @Override
+    public Chunk[] getLoadedChunks() {
+        return delegate.getLoadedChunks();
+    }
+
+    @Override
+    public int getLogicalHeight() {
+        return delegate.getLogicalHeight();
+    }
+
+    @Override
+    public int getMaxHeight() {
+        return delegate.getMaxHeight();
+    }
+
+    @Override
+    public List<MetadataValue> getMetadata(String metadataKey) {
+        return delegate.getMetadata(metadataKey);
+    }
+
+    @Override
+    public int getMinHeight() {
+        return delegate.getMinHeight();
+    }
+
+    @Override
+    public int getMonsterSpawnLimit() {
+        return delegate.getMonsterSpawnLimit();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Collection<Entity> getNearbyEntities(Location location, double x, double y, double z, Predicate<Entity> filter) {
+        return delegate.getNearbyEntities(location, x, y, z, filter);
+    }
+
+    @Override
+    public Collection<Entity> getNearbyEntities(Location location, double x, double y, double z) {
+        return delegate.getNearbyEntities(location, x, y, z);
+    }
+
+    @Override
+    public Collection<Entity> getNearbyEntities(BoundingBox boundingBox, Predicate<Entity> filter) {
+        return delegate.getNearbyEntities(boundingBox, filter);
+    }
+
+    @Override
+    public Collection<Entity> getNearbyEntities(BoundingBox boundingBox) {
+        return delegate.getNearbyEntities(boundingBox);
+    }
+
+    @Override
+    public boolean getPVP() {
+        return delegate.getPVP();
+    }
+
+    @Override
+    public PersistentDataContainer getPersistentDataContainer() {
+        return delegate.getPersistentDataContainer();
+    }
+
+    @Override
+    public List<Player> getPlayers() {
+        return delegate.getPlayers();
+    }
+
+    @Override
+    public Map<Plugin, Collection<Chunk>> getPluginChunkTickets() {
+        return delegate.getPluginChunkTickets();
+    }
+
+    @Override
+    public Collection<Plugin> getPluginChunkTickets(int x, int z) {
+        return delegate.getPluginChunkTickets(x, z);
+    }
+
+    @Override
+    public List<BlockPopulator> getPopulators() {
+        return delegate.getPopulators();
+    }
+
+    @Override
+    public List<Raid> getRaids() {
+        return delegate.getRaids();
+    }
+
+    @Override
+    public int getSeaLevel() {
+        return delegate.getSeaLevel();
+    }
+
+    @Override
+    public long getSeed() {
+        return delegate.getSeed();
+    }
+
+    @Override
+    public int getSimulationDistance() {
+        return delegate.getSimulationDistance();
+    }
+
+    @Override
+    public int getSpawnLimit(SpawnCategory spawnCategory) {
+        return delegate.getSpawnLimit(spawnCategory);
+    }
+
+    @Override
+    public Location getSpawnLocation() {
+        return delegate.getSpawnLocation();
+    }
+
+    @Override
+    public double getTemperature(int x, int y, int z) {
+        return delegate.getTemperature(x, y, z);
+    }
+
+    @Override
+    public double getTemperature(int x, int z) {
+        return delegate.getTemperature(x, z);
+    }
+
+    @Override
+    public int getThunderDuration() {
+        return delegate.getThunderDuration();
+    }
+
+    @Override
+    public long getTicksPerAmbientSpawns() {
+        return delegate.getTicksPerAmbientSpawns();
+    }
+
+    @Override
+    public long getTicksPerAnimalSpawns() {
+        return delegate.getTicksPerAnimalSpawns();
+    }
+
+    @Override
+    public long getTicksPerMonsterSpawns() {
+        return delegate.getTicksPerMonsterSpawns();
+    }
+
+    @Override
+    public long getTicksPerSpawns(SpawnCategory spawnCategory) {
+        return delegate.getTicksPerSpawns(spawnCategory);
+    }
+
+    @Override
+    public long getTicksPerWaterAmbientSpawns() {
+        return delegate.getTicksPerWaterAmbientSpawns();
+    }
+
+    @Override
+    public long getTicksPerWaterSpawns() {
+        return delegate.getTicksPerWaterSpawns();
+    }
+
+    @Override
+    public long getTicksPerWaterUndergroundCreatureSpawns() {
+        return delegate.getTicksPerWaterUndergroundCreatureSpawns();
+    }
+
+    @Override
+    public long getTime() {
+        return delegate.getTime();
+    }
+
+    @Override
+    public Material getType(Location location) {
+        return delegate.getType(location);
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        return delegate.getType(x, y, z);
+    }
+
+    @Override
+    public UUID getUID() {
+        return delegate.getUID();
+    }
+
+    @Override
+    public int getViewDistance() {
+        return delegate.getViewDistance();
+    }
+
+    @Override
+    public int getWaterAmbientSpawnLimit() {
+        return delegate.getWaterAmbientSpawnLimit();
+    }
+
+    @Override
+    public int getWaterAnimalSpawnLimit() {
+        return delegate.getWaterAnimalSpawnLimit();
+    }
+
+    @Override
+    public int getWaterUndergroundCreatureSpawnLimit() {
+        return delegate.getWaterUndergroundCreatureSpawnLimit();
+    }
+
+    @Override
+    public int getWeatherDuration() {
+        return delegate.getWeatherDuration();
+    }
+
+    @Override
+    public WorldBorder getWorldBorder() {
+        return delegate.getWorldBorder();
+    }
+
+    @Override
+    public File getWorldFolder() {
+        return delegate.getWorldFolder();
+    }
+
+    @Override
+    public WorldType getWorldType() {
+        return delegate.getWorldType();
+    }
+
+    @Override
+    public boolean hasCeiling() {
+        return delegate.hasCeiling();
+    }
+
+    @Override
+    public boolean hasMetadata(String metadataKey) {
+        return delegate.hasMetadata(metadataKey);
+    }
+
+    @Override
+    public boolean hasRaids() {
+        return delegate.hasRaids();
+    }
+
+    @Override
+    public boolean hasSkyLight() {
+        return delegate.hasSkyLight();
+    }
+
+    @Override
+    public boolean hasStorm() {
+        return delegate.hasStorm();
+    }
+
+    @Override
+    public boolean isAutoSave() {
+        return delegate.isAutoSave();
+    }
+
+    @Override
+    public boolean isBedWorks() {
+        return delegate.isBedWorks();
+    }
+
+    @Override
+    public boolean isChunkForceLoaded(int x, int z) {
+        return delegate.isChunkForceLoaded(x, z);
+    }
+
+    @Override
+    public boolean isChunkGenerated(int x, int z) {
+        return delegate.isChunkGenerated(x, z);
+    }
+
+    @Override
+    public boolean isChunkInUse(int x, int z) {
+        return delegate.isChunkInUse(x, z);
+    }
+
+    @Override
+    public boolean isChunkLoaded(int x, int z) {
+        return delegate.isChunkLoaded(x, z);
+    }
+
+    @Override
+    public boolean isChunkLoaded(Chunk chunk) {
+        return delegate.isChunkLoaded(chunk);
+    }
+
+    @Override
+    public boolean isClearWeather() {
+        return delegate.isClearWeather();
+    }
+
+    @Override
+    public boolean isGameRule(String rule) {
+        return delegate.isGameRule(rule);
+    }
+
+    @Override
+    public boolean isHardcore() {
+        return delegate.isHardcore();
+    }
+
+    @Override
+    public boolean isNatural() {
+        return delegate.isNatural();
+    }
+
+    @Override
+    public boolean isPiglinSafe() {
+        return delegate.isPiglinSafe();
+    }
+
+    @Override
+    public boolean isRespawnAnchorWorks() {
+        return delegate.isRespawnAnchorWorks();
+    }
+
+    @Override
+    public boolean isThundering() {
+        return delegate.isThundering();
+    }
+
+    @Override
+    public boolean isUltraWarm() {
+        return delegate.isUltraWarm();
+    }
+
+    @Override
+    public boolean loadChunk(int x, int z, boolean generate) {
+        return delegate.loadChunk(x, z, generate);
+    }
+
+    @Override
+    public void loadChunk(int x, int z) {
+        delegate.loadChunk(x, z);
+    }
+
+    @Override
+    public void loadChunk(Chunk chunk) {
+        delegate.loadChunk(chunk);
+    }
+
+    @Override
+    public Raid locateNearestRaid(Location location, int radius) {
+        return delegate.locateNearestRaid(location, radius);
+    }
+
+    @Override
+    public Location locateNearestStructure(Location origin, StructureType structureType, int radius, boolean findUnexplored) {
+        return delegate.locateNearestStructure(origin, structureType, radius, findUnexplored);
+    }
+
+    @Override
+    public StructureSearchResult locateNearestStructure(Location origin, Structure structure, int radius, boolean findUnexplored) {
+        return delegate.locateNearestStructure(origin, structure, radius, findUnexplored);
+    }
+
+    @Override
+    public StructureSearchResult locateNearestStructure(Location origin, org.bukkit.generator.structure.StructureType structureType, int radius, boolean findUnexplored) {
+        return delegate.locateNearestStructure(origin, structureType, radius, findUnexplored);
+    }
+
+    @Override
+    public <T> void playEffect(Location location, Effect effect, T data, int radius) {
+        delegate.playEffect(location, effect, data, radius);
+    }
+
+    @Override
+    public <T> void playEffect(Location location, Effect effect, T data) {
+        delegate.playEffect(location, effect, data);
+    }
+
+    @Override
+    public void playEffect(Location location, Effect effect, int data, int radius) {
+        delegate.playEffect(location, effect, data, radius);
+    }
+
+    @Override
+    public void playEffect(Location location, Effect effect, int data) {
+        delegate.playEffect(location, effect, data);
+    }
+
+    @Override
+    public void playSound(Location location, String sound, SoundCategory category, float volume, float pitch) {
+        delegate.playSound(location, sound, category, volume, pitch);
+    }
+
+    @Override
+    public void playSound(Location location, String sound, float volume, float pitch) {
+        delegate.playSound(location, sound, volume, pitch);
+    }
+
+    @Override
+    public void playSound(Location location, Sound sound, SoundCategory category, float volume, float pitch) {
+        delegate.playSound(location, sound, category, volume, pitch);
+    }
+
+    @Override
+    public void playSound(Location location, Sound sound, float volume, float pitch) {
+        delegate.playSound(location, sound, volume, pitch);
+    }
+
+    @Override
+    public void playSound(Entity entity, String sound, SoundCategory category, float volume, float pitch) {
+        delegate.playSound(entity, sound, category, volume, pitch);
+    }
+
+    @Override
+    public void playSound(Entity entity, String sound, float volume, float pitch) {
+        delegate.playSound(entity, sound, volume, pitch);
+    }
+
+    @Override
+    public void playSound(Entity entity, Sound sound, SoundCategory category, float volume, float pitch) {
+        delegate.playSound(entity, sound, category, volume, pitch);
+    }
+
+    @Override
+    public void playSound(Entity entity, Sound sound, float volume, float pitch) {
+        delegate.playSound(entity, sound, volume, pitch);
+    }
+
+    @Override
+    public RayTraceResult rayTraceBlocks(Location start, Vector direction, double maxDistance, FluidCollisionMode fluidCollisionMode, boolean ignorePassableBlocks) {
+        return delegate.rayTraceBlocks(start, direction, maxDistance, fluidCollisionMode, ignorePassableBlocks);
+    }
+
+    @Override
+    public RayTraceResult rayTraceBlocks(Location start, Vector direction, double maxDistance, FluidCollisionMode fluidCollisionMode) {
+        return delegate.rayTraceBlocks(start, direction, maxDistance, fluidCollisionMode);
+    }
+
+    @Override
+    public RayTraceResult rayTraceBlocks(Location start, Vector direction, double maxDistance) {
+        return delegate.rayTraceBlocks(start, direction, maxDistance);
+    }
+
+    @Override
+    public RayTraceResult rayTraceEntities(Location start, Vector direction, double maxDistance, double raySize, Predicate<Entity> filter) {
+        return delegate.rayTraceEntities(start, direction, maxDistance, raySize, filter);
+    }
+
+    @Override
+    public RayTraceResult rayTraceEntities(Location start, Vector direction, double maxDistance, double raySize) {
+        return delegate.rayTraceEntities(start, direction, maxDistance, raySize);
+    }
+
+    @Override
+    public RayTraceResult rayTraceEntities(Location start, Vector direction, double maxDistance, Predicate<Entity> filter) {
+        return delegate.rayTraceEntities(start, direction, maxDistance, filter);
+    }
+
+    @Override
+    public RayTraceResult rayTraceEntities(Location start, Vector direction, double maxDistance) {
+        return delegate.rayTraceEntities(start, direction, maxDistance);
+    }
+
+    @Override
+    public RayTraceResult rayTrace(Location start, Vector direction, double maxDistance, FluidCollisionMode fluidCollisionMode, boolean ignorePassableBlocks, double raySize, Predicate<Entity> filter) {
+        return delegate.rayTrace(start, direction, maxDistance, fluidCollisionMode, ignorePassableBlocks, raySize, filter);
+    }
+
+    @Override
+    public boolean refreshChunk(int x, int z) {
+        return delegate.refreshChunk(x, z);
+    }
+
+    @Override
+    public boolean regenerateChunk(int x, int z) {
+        return delegate.regenerateChunk(x, z);
+    }
+
+    @Override
+    public void removeMetadata(String metadataKey, Plugin owningPlugin) {
+        delegate.removeMetadata(metadataKey, owningPlugin);
+    }
+
+    @Override
+    public boolean removePluginChunkTicket(int x, int z, Plugin plugin) {
+        return delegate.removePluginChunkTicket(x, z, plugin);
+    }
+
+    @Override
+    public void removePluginChunkTickets(Plugin plugin) {
+        delegate.removePluginChunkTickets(plugin);
+    }
+
+    @Override
+    public void save() {
+        delegate.save();
+    }
+
+    @Override
+    public void sendPluginMessage(Plugin source, String channel, byte[] message) {
+        delegate.sendPluginMessage(source, channel, message);
+    }
+
+    @Override
+    public void setAmbientSpawnLimit(int limit) {
+        delegate.setAmbientSpawnLimit(limit);
+    }
+
+    @Override
+    public void setAnimalSpawnLimit(int limit) {
+        delegate.setAnimalSpawnLimit(limit);
+    }
+
+    @Override
+    public void setAutoSave(boolean value) {
+        delegate.setAutoSave(value);
+    }
+
+    @Override
+    public void setBiome(Location location, Biome biome) {
+        delegate.setBiome(location, biome);
+    }
+
+    @Override
+    public void setBiome(int x, int z, Biome biome) {
+        delegate.setBiome(x, z, biome);
+    }
+
+    @Override
+    public void setBiome(int x, int y, int z, Biome biome) {
+        delegate.setBiome(x, y, z, biome);
+    }
+
+    @Override
+    public void setBlockData(Location location, BlockData blockData) {
+        delegate.setBlockData(location, blockData);
+    }
+
+    @Override
+    public void setBlockData(int x, int y, int z, BlockData blockData) {
+        delegate.setBlockData(x, y, z, blockData);
+    }
+
+    @Override
+    public void setChunkForceLoaded(int x, int z, boolean forced) {
+        delegate.setChunkForceLoaded(x, z, forced);
+    }
+
+    @Override
+    public void setClearWeatherDuration(int duration) {
+        delegate.setClearWeatherDuration(duration);
+    }
+
+    @Override
+    public void setDifficulty(Difficulty difficulty) {
+        delegate.setDifficulty(difficulty);
+    }
+
+    @Override
+    public void setFullTime(long time) {
+        delegate.setFullTime(time);
+    }
+
+    @Override
+    public boolean setGameRuleValue(String rule, String value) {
+        return delegate.setGameRuleValue(rule, value);
+    }
+
+    @Override
+    public <T> boolean setGameRule(GameRule<T> rule, T newValue) {
+        return delegate.setGameRule(rule, newValue);
+    }
+
+    @Override
+    public void setHardcore(boolean hardcore) {
+        delegate.setHardcore(hardcore);
+    }
+
+    @Override
+    public void setKeepSpawnInMemory(boolean keepLoaded) {
+        delegate.setKeepSpawnInMemory(keepLoaded);
+    }
+
+    @Override
+    public void setMetadata(String metadataKey, MetadataValue newMetadataValue) {
+        delegate.setMetadata(metadataKey, newMetadataValue);
+    }
+
+    @Override
+    public void setMonsterSpawnLimit(int limit) {
+        delegate.setMonsterSpawnLimit(limit);
+    }
+
+    @Override
+    public void setPVP(boolean pvp) {
+        delegate.setPVP(pvp);
+    }
+
+    @Override
+    public void setSpawnFlags(boolean allowMonsters, boolean allowAnimals) {
+        delegate.setSpawnFlags(allowMonsters, allowAnimals);
+    }
+
+    @Override
+    public void setSpawnLimit(SpawnCategory spawnCategory, int limit) {
+        delegate.setSpawnLimit(spawnCategory, limit);
+    }
+
+    @Override
+    public boolean setSpawnLocation(Location location) {
+        return delegate.setSpawnLocation(location);
+    }
+
+    @Override
+    public boolean setSpawnLocation(int x, int y, int z, float angle) {
+        return delegate.setSpawnLocation(x, y, z, angle);
+    }
+
+    @Override
+    public boolean setSpawnLocation(int x, int y, int z) {
+        return delegate.setSpawnLocation(x, y, z);
+    }
+
+    @Override
+    public void setStorm(boolean hasStorm) {
+        delegate.setStorm(hasStorm);
+    }
+
+    @Override
+    public void setThunderDuration(int duration) {
+        delegate.setThunderDuration(duration);
+    }
+
+    @Override
+    public void setThundering(boolean thundering) {
+        delegate.setThundering(thundering);
+    }
+
+    @Override
+    public void setTicksPerAmbientSpawns(int ticksPerAmbientSpawns) {
+        delegate.setTicksPerAmbientSpawns(ticksPerAmbientSpawns);
+    }
+
+    @Override
+    public void setTicksPerAnimalSpawns(int ticksPerAnimalSpawns) {
+        delegate.setTicksPerAnimalSpawns(ticksPerAnimalSpawns);
+    }
+
+    @Override
+    public void setTicksPerMonsterSpawns(int ticksPerMonsterSpawns) {
+        delegate.setTicksPerMonsterSpawns(ticksPerMonsterSpawns);
+    }
+
+    @Override
+    public void setTicksPerSpawns(SpawnCategory spawnCategory, int ticksPerCategorySpawn) {
+        delegate.setTicksPerSpawns(spawnCategory, ticksPerCategorySpawn);
+    }
+
+    @Override
+    public void setTicksPerWaterAmbientSpawns(int ticksPerAmbientSpawns) {
+        delegate.setTicksPerWaterAmbientSpawns(ticksPerAmbientSpawns);
+    }
+
+    @Override
+    public void setTicksPerWaterSpawns(int ticksPerWaterSpawns) {
+        delegate.setTicksPerWaterSpawns(ticksPerWaterSpawns);
+    }
+
+    @Override
+    public void setTicksPerWaterUndergroundCreatureSpawns(int ticksPerWaterUndergroundCreatureSpawns) {
+        delegate.setTicksPerWaterUndergroundCreatureSpawns(ticksPerWaterUndergroundCreatureSpawns);
+    }
+
+    @Override
+    public void setTime(long time) {
+        delegate.setTime(time);
+    }
+
+    @Override
+    public void setType(Location location, Material material) {
+        delegate.setType(location, material);
+    }
+
+    @Override
+    public void setType(int x, int y, int z, Material material) {
+        delegate.setType(x, y, z, material);
+    }
+
+    @Override
+    public void setWaterAmbientSpawnLimit(int limit) {
+        delegate.setWaterAmbientSpawnLimit(limit);
+    }
+
+    @Override
+    public void setWaterAnimalSpawnLimit(int limit) {
+        delegate.setWaterAnimalSpawnLimit(limit);
+    }
+
+    @Override
+    public void setWaterUndergroundCreatureSpawnLimit(int limit) {
+        delegate.setWaterUndergroundCreatureSpawnLimit(limit);
+    }
+
+    @Override
+    public void setWeatherDuration(int duration) {
+        delegate.setWeatherDuration(duration);
+    }
+
+    @Override
+    public <T extends AbstractArrow> T spawnArrow(Location location, Vector direction, float speed, float spread, Class<T> clazz) {
+        return delegate.spawnArrow(location, direction, speed, spread, clazz);
+    }
+
+    @Override
+    public Arrow spawnArrow(Location location, Vector direction, float speed, float spread) {
+        return delegate.spawnArrow(location, direction, speed, spread);
+    }
+
+    @Override
+    public Entity spawnEntity(Location location, EntityType type, boolean randomizeData) {
+        return delegate.spawnEntity(location, type, randomizeData);
+    }
+
+    @Override
+    public Entity spawnEntity(Location location, EntityType type) {
+        return delegate.spawnEntity(location, type);
+    }
+
+    @Override
+    public FallingBlock spawnFallingBlock(Location location, Material material, byte data) throws IllegalArgumentException {
+        return delegate.spawnFallingBlock(location, material, data);
+    }
+
+    @Override
+    public FallingBlock spawnFallingBlock(Location location, MaterialData data) throws IllegalArgumentException {
+        return delegate.spawnFallingBlock(location, data);
+    }
+
+    @Override
+    public FallingBlock spawnFallingBlock(Location location, BlockData blockData) throws IllegalArgumentException {
+        return delegate.spawnFallingBlock(location, blockData);
+    }
+
+    @Override
+    public <T> void spawnParticle(Particle particle, Location location, int count, T data) {
+        delegate.spawnParticle(particle, location, count, data);
+    }
+
+    @Override
+    public <T> void spawnParticle(Particle particle, Location location, int count, double offsetX, double offsetY, double offsetZ, T data) {
+        delegate.spawnParticle(particle, location, count, offsetX, offsetY, offsetZ, data);
+    }
+
+    @Override
+    public <T> void spawnParticle(Particle particle, Location location, int count, double offsetX, double offsetY, double offsetZ, double extra, T data, boolean force) {
+        delegate.spawnParticle(particle, location, count, offsetX, offsetY, offsetZ, extra, data, force);
+    }
+
+    @Override
+    public <T> void spawnParticle(Particle particle, Location location, int count, double offsetX, double offsetY, double offsetZ, double extra, T data) {
+        delegate.spawnParticle(particle, location, count, offsetX, offsetY, offsetZ, extra, data);
+    }
+
+    @Override
+    public void spawnParticle(Particle particle, Location location, int count, double offsetX, double offsetY, double offsetZ, double extra) {
+        delegate.spawnParticle(particle, location, count, offsetX, offsetY, offsetZ, extra);
+    }
+
+    @Override
+    public void spawnParticle(Particle particle, Location location, int count, double offsetX, double offsetY, double offsetZ) {
+        delegate.spawnParticle(particle, location, count, offsetX, offsetY, offsetZ);
+    }
+
+    @Override
+    public void spawnParticle(Particle particle, Location location, int count) {
+        delegate.spawnParticle(particle, location, count);
+    }
+
+    @Override
+    public <T> void spawnParticle(Particle particle, double x, double y, double z, int count, T data) {
+        delegate.spawnParticle(particle, x, y, z, count, data);
+    }
+
+    @Override
+    public <T> void spawnParticle(Particle particle, double x, double y, double z, int count, double offsetX, double offsetY, double offsetZ, T data) {
+        delegate.spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ, data);
+    }
+
+    @Override
+    public <T> void spawnParticle(Particle particle, double x, double y, double z, int count, double offsetX, double offsetY, double offsetZ, double extra, T data, boolean force) {
+        delegate.spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data, force);
+    }
+
+    @Override
+    public <T> void spawnParticle(Particle particle, double x, double y, double z, int count, double offsetX, double offsetY, double offsetZ, double extra, T data) {
+        delegate.spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data);
+    }
+
+    @Override
+    public void spawnParticle(Particle particle, double x, double y, double z, int count, double offsetX, double offsetY, double offsetZ, double extra) {
+        delegate.spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra);
+    }
+
+    @Override
+    public void spawnParticle(Particle particle, double x, double y, double z, int count, double offsetX, double offsetY, double offsetZ) {
+        delegate.spawnParticle(particle, x, y, z, count, offsetX, offsetY, offsetZ);
+    }
+
+    @Override
+    public void spawnParticle(Particle particle, double x, double y, double z, int count) {
+        delegate.spawnParticle(particle, x, y, z, count);
+    }
+
+    @Override
+    public <T extends Entity> T spawn(Location location, Class<T> clazz, boolean randomizeData, Consumer<T> function) throws IllegalArgumentException {
+        return delegate.spawn(location, clazz, randomizeData, function);
+    }
+
+    @Override
+    public <T extends Entity> T spawn(Location location, Class<T> clazz, Consumer<T> function) throws IllegalArgumentException {
+        return delegate.spawn(location, clazz, function);
+    }
+
+    @Override
+    public <T extends Entity> T spawn(Location location, Class<T> clazz) throws IllegalArgumentException {
+        return delegate.spawn(location, clazz);
+    }
+
+    @Override
+    public World.Spigot spigot() {
+        return delegate.spigot();
+    }
+
+    @Override
+    public LightningStrike strikeLightningEffect(Location location) {
+        return delegate.strikeLightningEffect(location);
+    }
+
+    @Override
+    public LightningStrike strikeLightning(Location location) {
+        return delegate.strikeLightning(location);
+    }
+
+    @Override
+    public boolean unloadChunkRequest(int x, int z) {
+        return delegate.unloadChunkRequest(x, z);
+    }
+
+    @Override
+    public boolean unloadChunk(int x, int z, boolean save) {
+        return delegate.unloadChunk(x, z, save);
+    }
+
+    @Override
+    public boolean unloadChunk(int x, int z) {
+        return delegate.unloadChunk(x, z);
+    }
+
+    @Override
+    public boolean unloadChunk(Chunk chunk) {
+        return delegate.unloadChunk(chunk);
+    }
+}
@@ -0,0 +1,347 @@
+package id.rnggagib.bench;
+
+import org.bukkit.Chunk;
+import org.bukkit.FluidCollisionMode;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.PistonMoveReaction;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.metadata.MetadataValue;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.util.BoundingBox;
+import org.bukkit.util.RayTraceResult;
+import org.bukkit.util.Vector;
+import org.bukkit.util.VoxelShape;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A stand-in block at a position of a {@link GridWorld}, reading and writing the grid.
+ * A plain class rather than a proxy, as block scans call {@link #getType()} on thousands of these.
+ * Lighting, power, drops and the like read as empty.
+ */
+final class GridBlock implements Block {
+    private final GridWorld grid;
+    private final int x;
+    private final int y;
+    private final int z;
+
+    GridBlock(GridWorld grid, int x, int y, int z) {
+        this.grid = grid;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    @Override
+    public Material getType() {
+        Material type = grid.getType(x, y, z);
+        return type != null ? type : Material.VOID_AIR;
+    }
+
+    @Override
+    public int getX() {
+        return x;
+    }
+
+    @Override
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public int getZ() {
+        return z;
+    }
+
+    @Override
+    public World getWorld() {
+        return grid.getWorld();
+    }
+
+    @Override
+    public Chunk getChunk() {
+        return grid.getWorld().getChunkAt(x >> 4, z >> 4);
+    }
+
+    @Override
+    public Location getLocation() {
+        return new Location(grid.getWorld(), x, y, z);
+    }
+
+    @Override
+    public Location getLocation(Location location) {
+        if (location != null) {
+            location.setWorld(grid.getWorld());
+            location.setX(x);
+            location.setY(y);
+            location.setZ(z);
+            location.setYaw(0);
+            location.setPitch(0);
+        }
+        return location;
+    }
+
+    @Override
+    public Block getRelative(int modX, int modY, int modZ) {
+        return grid.block(x + modX, y + modY, z + modZ);
+    }
+
+    @Override
+    public Block getRelative(BlockFace face) {
+        return getRelative(face, 1);
+    }
+
+    @Override
+    public Block getRelative(BlockFace face, int distance) {
+        return getRelative(face.getModX() * distance, face.getModY() * distance, face.getModZ() * distance);
+    }
+
+    @Override
+    public BlockFace getFace(Block block) {
+        for (BlockFace face : BlockFace.values()) {
+            if (block.getX() == x + face.getModX() && block.getY() == y + face.getModY()
+                    && block.getZ() == z + face.getModZ()) {
+                return face;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public BlockState getState() {
+        return grid.state(this, grid.getType(x, y, z));
+    }
+
+    @Override
+    public BlockData getBlockData() {
+        return HeadlessServer.blockData(getType());
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public byte getData() {
+        return 0;
+    }
+
+    @Override
+    public void setType(Material type) {
+        grid.set(x, y, z, type);
+    }
+
+    @Override
+    public void setType(Material type, boolean applyPhysics) {
+        grid.set(x, y, z, type);
+    }
+
+    @Override
+    public void setBlockData(BlockData data) {
+        grid.set(x, y, z, data.getMaterial());
+    }
+
+    @Override
+    public void setBlockData(BlockData data, boolean applyPhysics) {
+        grid.set(x, y, z, data.getMaterial());
+    }
+
+    @Override
+    public boolean breakNaturally() {
+        grid.set(x, y, z, Material.AIR);
+        return true;
+    }
+
+    @Override
+    public boolean breakNaturally(ItemStack tool) {
+        return breakNaturally();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        Material type = grid.getType(x, y, z);
+        return type == null || type.isAir();
+    }
+
+    @Override
+    public boolean isLiquid() {
+        Material type = grid.getType(x, y, z);
+        return type == Material.WATER || type == Material.LAVA;
+    }
+
+    @Override
+    public boolean isPassable() {
+        Material type = grid.getType(x, y, z);
+        return type == null || !type.isSolid();
+    }
+
+    @Override
+    public byte getLightLevel() {
+        return 0;
+    }
+
+    @Override
+    public byte getLightFromSky() {
+        return 0;
+    }
+
+    @Override
+    public byte getLightFromBlocks() {
+        return 0;
+    }
+
+    @Override
+    public Biome getBiome() {
+        return null;
+    }
+
+    @Override
+    public void setBiome(Biome biome) {
+    }
+
+    @Override
+    public double getTemperature() {
+        return 0;
+    }
+
+    @Override
+    public double getHumidity() {
+        return 0;
+    }
+
+    @Override
+    public boolean isBlockPowered() {
+        return false;
+    }
+
+    @Override
+    public boolean isBlockIndirectlyPowered() {
+        return false;
+    }
+
+    @Override
+    public boolean isBlockFacePowered(BlockFace face) {
+        return false;
+    }
+
+    @Override
+    public boolean isBlockFaceIndirectlyPowered(BlockFace face) {
+        return false;
+    }
+
+    @Override
+    public int getBlockPower(BlockFace face) {
+        return 0;
+    }
+
+    @Override
+    public int getBlockPower() {
+        return 0;
+    }
+
+    @Override
+    public PistonMoveReaction getPistonMoveReaction() {
+        return null;
+    }
+
+    @Override
+    public boolean applyBoneMeal(BlockFace face) {
+        return false;
+    }
+
+    @Override
+    public Collection<ItemStack> getDrops() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<ItemStack> getDrops(ItemStack tool) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<ItemStack> getDrops(ItemStack tool, Entity entity) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isPreferredTool(ItemStack tool) {
+        return false;
+    }
+
+    @Override
+    public float getBreakSpeed(Player player) {
+        return 0;
+    }
+
+    @Override
+    public RayTraceResult rayTrace(Location start, Vector direction, double maxDistance,
+            FluidCollisionMode fluidCollisionMode) {
+        return null;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
+    @Override
+    public VoxelShape getCollisionShape() {
+        return null;
+    }
+
+    @Override
+    public boolean canPlace(BlockData data) {
+        return false;
+    }
+
+    @Override
+    public String getTranslationKey() {
+        return null;
+    }
+
+    @Override
+    public void setMetadata(String metadataKey, MetadataValue newMetadataValue) {
+    }
+
+    @Override
+    public List<MetadataValue> getMetadata(String metadataKey) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean hasMetadata(String metadataKey) {
+        return false;
+    }
+
+    @Override
+    public void removeMetadata(String metadataKey, Plugin owningPlugin) {
+    }
+
+    @Override
+    public int hashCode() {
+        return (x * 31 + y) * 31 + z;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Block)) {
+            return false;
+        }
+        Block block = (Block) other;
+        return block.getX() == x && block.getY() == y && block.getZ() == z;
+    }
+
+    @Override
+    public String toString() {
+        return "GridBlock{" + x + "," + y + "," + z + "}";
+    }
+}
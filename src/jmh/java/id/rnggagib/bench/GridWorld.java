@@ -0,0 +1,442 @@
+package id.rnggagib.bench;
+
+import id.rnggagib.entity.ai.pathfinding.BlockReader;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Barrel;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Chest;
+import org.bukkit.block.ShulkerBox;
+import org.bukkit.block.data.BlockData;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * A synthetic box of blocks standing in for a Bukkit world.
+ * Readable directly as a {@link BlockReader}, or through {@link #getWorld()} as a Bukkit World whose
+ * blocks and block states are stand-ins backed by the grid. Block lookups and blocks are plain classes,
+ * so scans measure the code scanning rather than proxy dispatch; rarer calls go through a proxy. Everything outside the box is air,
+ * unless the grid is tiled to repeat endlessly in x and z.
+ */
+public class GridWorld implements BlockReader {
+    /** Returned by {@link #handleWorldCall} for calls the grid should answer itself */
+    protected static final Object UNHANDLED = new Object();
+
+    private final String name;
+    private final UUID uid;
+    private final int sizeX;
+    private final int sizeZ;
+    private final int minHeight;
+    private final int maxHeight;
+    private final Material[] blocks;
+    private final World world;
+    private boolean tiled = false;
+
+    public GridWorld(String name, int sizeX, int sizeZ, int minHeight, int maxHeight) {
+        this.name = name;
+        this.uid = UUID.nameUUIDFromBytes(name.getBytes());
+        this.sizeX = sizeX;
+        this.sizeZ = sizeZ;
+        this.minHeight = minHeight;
+        this.maxHeight = maxHeight;
+        this.blocks = new Material[sizeX * sizeZ * (maxHeight - minHeight)];
+        Arrays.fill(blocks, Material.AIR);
+        this.world = new GridWorldView(createWorld());
+    }
+
+    /**
+     * Flat ground of stone with grass on top, air above
+     */
+    public static GridWorld flat(String name, int sizeX, int sizeZ, int groundY) {
+        GridWorld grid = new GridWorld(name, sizeX, sizeZ, 0, groundY + 32);
+        for (int x = 0; x < sizeX; x++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int y = 0; y < groundY; y++) {
+                    grid.set(x, y, z, Material.STONE);
+                }
+                grid.set(x, groundY, z, Material.GRASS_BLOCK);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Scatter two-block-high walls over the ground, about the given share of columns
+     */
+    public GridWorld withWalls(int groundY, double density, long seed) {
+        Random random = new Random(seed);
+        for (int x = 0; x < sizeX; x++) {
+            for (int z = 0; z < sizeZ; z++) {
+                if (random.nextDouble() < density) {
+                    set(x, groundY + 1, z, Material.COBBLESTONE);
+                    set(x, groundY + 2, z, Material.COBBLESTONE);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Replace about the given share of blocks of one type with another, such as ores in stone
+     */
+    public GridWorld scatter(Material from, Material to, double share, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < blocks.length; i++) {
+            if (blocks[i] == from && random.nextDouble() < share) {
+                blocks[i] = to;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Repeat the grid endlessly in x and z, for lookups spread far wider than the grid
+     */
+    public GridWorld tiled() {
+        this.tiled = true;
+        return this;
+    }
+
+    public void set(int x, int y, int z, Material type) {
+        int index = index(x, y, z);
+        if (index >= 0) {
+            blocks[index] = type;
+        }
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        if (y < minHeight || y >= maxHeight) {
+            return null;
+        }
+        int index = index(x, y, z);
+        return index >= 0 ? blocks[index] : Material.AIR;
+    }
+
+    @Override
+    public int getMinHeight() {
+        return minHeight;
+    }
+
+    @Override
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+
+    @Override
+    public World getWorld() {
+        return world;
+    }
+
+    @Override
+    public long getCaptureEpoch() {
+        return Long.MAX_VALUE;
+    }
+
+    public int getHighestBlockYAt(int x, int z) {
+        for (int y = maxHeight - 1; y >= minHeight; y--) {
+            if (!getType(x, y, z).isAir()) {
+                return y;
+            }
+        }
+        return minHeight;
+    }
+
+    private int index(int x, int y, int z) {
+        if (tiled) {
+            x = Math.floorMod(x, sizeX);
+            z = Math.floorMod(z, sizeZ);
+        }
+        if (x < 0 || x >= sizeX || z < 0 || z >= sizeZ || y < minHeight || y >= maxHeight) {
+            return -1;
+        }
+        return ((y - minHeight) * sizeZ + z) * sizeX + x;
+    }
+
+    /**
+     * Answer a call on the World before the grid does, for subclasses that add entities and the like.
+     * Block lookups, names and heights are answered directly and never get here.
+     * @return The result, or {@link #UNHANDLED} to let the grid answer
+     */
+    protected Object handleWorldCall(World world, Method method, Object[] args) {
+        return UNHANDLED;
+    }
+
+    private World createWorld() {
+        return (World) Proxy.newProxyInstance(GridWorld.class.getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> {
+                    Object handled = handleWorldCall(world, method, args);
+                    if (handled != UNHANDLED) {
+                        return handled;
+                    }
+                    switch (method.getName()) {
+                        case "getHighestBlockYAt":
+                            if (args.length >= 2 && args[0] instanceof Integer) {
+                                return getHighestBlockYAt((int) args[0], (int) args[1]);
+                            }
+                            Location column = (Location) args[0];
+                            return getHighestBlockYAt(column.getBlockX(), column.getBlockZ());
+                        case "isChunkLoaded":
+                        case "loadChunk":
+                            return method.getReturnType() == boolean.class ? true : null;
+                        case "getChunkAt":
+                            if (args.length == 2 && args[0] instanceof Integer) {
+                                return chunk((int) args[0], (int) args[1]);
+                            }
+                            if (args[0] instanceof Location) {
+                                Location in = (Location) args[0];
+                                return chunk(in.getBlockX() >> 4, in.getBlockZ() >> 4);
+                            }
+                            Block of = (Block) args[0];
+                            return chunk(of.getX() >> 4, of.getZ() >> 4);
+                        default:
+                            return HeadlessServer.emptyOrStandIn(method.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * The grid as a Bukkit World, answering block lookups itself
+     */
+    private class GridWorldView extends ForwardingWorld {
+        GridWorldView(World rest) {
+            super(rest);
+        }
+
+        @Override
+        public Block getBlockAt(int x, int y, int z) {
+            return block(x, y, z);
+        }
+
+        @Override
+        public Block getBlockAt(Location location) {
+            return block(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        }
+
+        @Override
+        public Material getType(int x, int y, int z) {
+            return GridWorld.this.getType(x, y, z);
+        }
+
+        @Override
+        public Material getType(Location location) {
+            return GridWorld.this.getType(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public UUID getUID() {
+            return uid;
+        }
+
+        @Override
+        public int getMinHeight() {
+            return minHeight;
+        }
+
+        @Override
+        public int getMaxHeight() {
+            return maxHeight;
+        }
+
+        @Override
+        public int hashCode() {
+            return uid.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public String toString() {
+            return "GridWorld{" + name + "}";
+        }
+    }
+
+    /**
+     * A stand-in block at a position, backed by the grid
+     */
+    public Block block(int x, int y, int z) {
+        return new GridBlock(this, x, y, z);
+    }
+
+    private Chunk chunk(int chunkX, int chunkZ) {
+        return (Chunk) Proxy.newProxyInstance(GridWorld.class.getClassLoader(), new Class<?>[]{Chunk.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getX":
+                            return chunkX;
+                        case "getZ":
+                            return chunkZ;
+                        case "getWorld":
+                            return world;
+                        case "isLoaded":
+                        case "load":
+                            return true;
+                        case "getBlock":
+                            return block((chunkX << 4) + (int) args[0], (int) args[1], (chunkZ << 4) + (int) args[2]);
+                        case "getChunkSnapshot":
+                            return snapshot(chunkX, chunkZ);
+                        case "getTileEntities":
+                            return tileEntities(chunkX, chunkZ);
+                        case "hashCode":
+                            return chunkX * 31 + chunkZ;
+                        case "equals":
+                            if (!(args[0] instanceof Chunk)) {
+                                return false;
+                            }
+                            Chunk other = (Chunk) args[0];
+                            return other.getX() == chunkX && other.getZ() == chunkZ && other.getWorld() == world;
+                        case "toString":
+                            return "GridChunk{" + chunkX + "," + chunkZ + "}";
+                        default:
+                            return HeadlessServer.emptyOrStandIn(method.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * States of the blocks in a chunk that would be tile entities on a server
+     */
+    private BlockState[] tileEntities(int chunkX, int chunkZ) {
+        List<BlockState> states = new ArrayList<>();
+        for (int y = minHeight; y < maxHeight; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    Material type = getType((chunkX << 4) + x, y, (chunkZ << 4) + z);
+                    if (stateType(type) != BlockState.class) {
+                        states.add(state(block((chunkX << 4) + x, y, (chunkZ << 4) + z), type));
+                    }
+                }
+            }
+        }
+        return states.toArray(new BlockState[0]);
+    }
+
+    private ChunkSnapshot snapshot(int chunkX, int chunkZ) {
+        // Copy the chunk out, as a real snapshot doesn't follow later changes
+        int height = maxHeight - minHeight;
+        Material[] copy = new Material[16 * 16 * height];
+        for (int y = 0; y < height; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    copy[(y * 16 + z) * 16 + x] = getType((chunkX << 4) + x, minHeight + y, (chunkZ << 4) + z);
+                }
+            }
+        }
+        return (ChunkSnapshot) Proxy.newProxyInstance(GridWorld.class.getClassLoader(), new Class<?>[]{ChunkSnapshot.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getX":
+                            return chunkX;
+                        case "getZ":
+                            return chunkZ;
+                        case "getWorldName":
+                            return name;
+                        case "getBlockType":
+                            int y = (int) args[1];
+                            if (y < minHeight || y >= maxHeight) {
+                                return Material.VOID_AIR;
+                            }
+                            return copy[((y - minHeight) * 16 + (int) args[2]) * 16 + (int) args[0]];
+                        case "getHighestBlockYAt":
+                            return getHighestBlockYAt((chunkX << 4) + (int) args[0], (chunkZ << 4) + (int) args[1]);
+                        case "isSectionEmpty":
+                            // Compared by hand, as Material.isAir is too large a method to be compiled
+                            int from = (int) args[0] * 16 * 16 * 16;
+                            for (int i = from; i < Math.min(from + 16 * 16 * 16, copy.length); i++) {
+                                Material type = copy[i];
+                                if (type != Material.AIR && type != Material.CAVE_AIR && type != Material.VOID_AIR) {
+                                    return false;
+                                }
+                            }
+                            return true;
+                        case "contains":
+                            if (!(args[0] instanceof BlockData)) {
+                                return false;
+                            }
+                            Material wanted = ((BlockData) args[0]).getMaterial();
+                            for (Material type : copy) {
+                                if (type == wanted) {
+                                    return true;
+                                }
+                            }
+                            return false;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return HeadlessServer.emptyOrStandIn(method.getReturnType());
+                    }
+                });
+    }
+
+    BlockState state(Block block, Material type) {
+        return (BlockState) Proxy.newProxyInstance(GridWorld.class.getClassLoader(), new Class<?>[]{stateType(type)},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getBlock":
+                            return block;
+                        case "getType":
+                            return type;
+                        case "getLocation":
+                            return args == null || args.length == 0 ? block.getLocation() : null;
+                        case "getX":
+                            return block.getX();
+                        case "getY":
+                            return block.getY();
+                        case "getZ":
+                            return block.getZ();
+                        case "getWorld":
+                            return world;
+                        case "hashCode":
+                            return block.hashCode();
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return HeadlessServer.emptyOrStandIn(method.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * Containers get their own state type so instanceof checks behave as on a server
+     */
+    private static Class<?> stateType(Material type) {
+        if (type == Material.CHEST || type == Material.TRAPPED_CHEST) {
+            return Chest.class;
+        }
+        if (type == Material.BARREL) {
+            return Barrel.class;
+        }
+        if (type != null && type.name().endsWith("SHULKER_BOX")) {
+            return ShulkerBox.class;
+        }
+        return BlockState.class;
+    }
+}
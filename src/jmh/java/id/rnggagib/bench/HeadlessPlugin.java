@@ -0,0 +1,235 @@
+package id.rnggagib.bench;
+
+import id.rnggagib.TownyRaider;
+import id.rnggagib.config.ConfigManager;
+import id.rnggagib.economy.EconomyManager;
+import id.rnggagib.effects.VisualEffectsManager;
+import id.rnggagib.entity.LootIndexManager;
+import id.rnggagib.entity.RaiderEntityManager;
+import id.rnggagib.entity.StealingManager;
+import id.rnggagib.entity.ai.FlowFieldManager;
+import id.rnggagib.entity.ai.PathfindingManager;
+import id.rnggagib.entity.ai.coordination.RaiderCoordinationManager;
+import id.rnggagib.entity.ai.pathfinding.AsyncPathService;
+import id.rnggagib.entity.ai.retreat.StrategicRetreatManager;
+import id.rnggagib.entity.tick.RaidTickEngine;
+import id.rnggagib.message.MessageManager;
+import id.rnggagib.persistence.PersistenceManager;
+import id.rnggagib.protection.ProtectionManager;
+import id.rnggagib.raid.RaidManager;
+import id.rnggagib.towny.TownyHandler;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * The plugin without a server: the default config.yml is loaded into a temporary data folder,
+ * and managers are only what a benchmark or simulation sets up. Nothing is enabled, scheduled or
+ * registered until the caller does it.
+ */
+public class HeadlessPlugin extends TownyRaider {
+    private final ConfigManager configManager;
+    private MessageManager messageManager;
+    private RaidManager raidManager;
+    private TownyHandler townyHandler;
+    private RaiderEntityManager raiderEntityManager;
+    private StealingManager stealingManager;
+    private VisualEffectsManager visualEffectsManager;
+    private ProtectionManager protectionManager;
+    private PersistenceManager persistenceManager;
+    private EconomyManager economyManager;
+    private PathfindingManager pathfindingManager;
+    private StrategicRetreatManager retreatManager;
+    private RaiderCoordinationManager coordinationManager;
+    private RaidTickEngine raidTickEngine;
+    private AsyncPathService pathService;
+    private FlowFieldManager flowFieldManager;
+    private LootIndexManager lootIndexManager;
+
+    private HeadlessPlugin(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder) {
+        super(loader, description, dataFolder, new File(dataFolder, "TownyRaider.jar"));
+        this.configManager = new ConfigManager(this);
+    }
+
+    @SuppressWarnings("deprecation")
+    public static HeadlessPlugin create() {
+        HeadlessServer.install();
+        try {
+            File dataFolder = Files.createTempDirectory("townyraider-bench").toFile();
+            dataFolder.deleteOnExit();
+            PluginDescriptionFile description = new PluginDescriptionFile("TownyRaider", "bench", TownyRaider.class.getName());
+            return new HeadlessPlugin(new JavaPluginLoader(Bukkit.getServer()), description, dataFolder);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create a data folder for the benchmark", e);
+        }
+    }
+
+    /**
+     * Mark the plugin enabled without running the real start-up, for code that checks isEnabled
+     */
+    public void enable() {
+        setEnabled(true);
+    }
+
+    @Override
+    public void onEnable() {
+        // Managers are set up by the caller
+    }
+
+    @Override
+    public void onDisable() {
+    }
+
+    @Override
+    public ConfigManager getConfigManager() {
+        return configManager;
+    }
+
+    public void setMessageManager(MessageManager messageManager) {
+        this.messageManager = messageManager;
+    }
+
+    @Override
+    public MessageManager getMessageManager() {
+        return messageManager;
+    }
+
+    public void setRaidManager(RaidManager raidManager) {
+        this.raidManager = raidManager;
+    }
+
+    @Override
+    public RaidManager getRaidManager() {
+        return raidManager;
+    }
+
+    public void setTownyHandler(TownyHandler townyHandler) {
+        this.townyHandler = townyHandler;
+    }
+
+    @Override
+    public TownyHandler getTownyHandler() {
+        return townyHandler;
+    }
+
+    public void setRaiderEntityManager(RaiderEntityManager raiderEntityManager) {
+        this.raiderEntityManager = raiderEntityManager;
+    }
+
+    @Override
+    public RaiderEntityManager getRaiderEntityManager() {
+        return raiderEntityManager;
+    }
+
+    public void setStealingManager(StealingManager stealingManager) {
+        this.stealingManager = stealingManager;
+    }
+
+    @Override
+    public StealingManager getStealingManager() {
+        return stealingManager;
+    }
+
+    public void setVisualEffectsManager(VisualEffectsManager visualEffectsManager) {
+        this.visualEffectsManager = visualEffectsManager;
+    }
+
+    @Override
+    public VisualEffectsManager getVisualEffectsManager() {
+        return visualEffectsManager;
+    }
+
+    public void setProtectionManager(ProtectionManager protectionManager) {
+        this.protectionManager = protectionManager;
+    }
+
+    @Override
+    public ProtectionManager getProtectionManager() {
+        return protectionManager;
+    }
+
+    public void setPersistenceManager(PersistenceManager persistenceManager) {
+        this.persistenceManager = persistenceManager;
+    }
+
+    @Override
+    public PersistenceManager getPersistenceManager() {
+        return persistenceManager;
+    }
+
+    public void setEconomyManager(EconomyManager economyManager) {
+        this.economyManager = economyManager;
+    }
+
+    @Override
+    public EconomyManager getEconomyManager() {
+        return economyManager;
+    }
+
+    public void setPathfindingManager(PathfindingManager pathfindingManager) {
+        this.pathfindingManager = pathfindingManager;
+    }
+
+    @Override
+    public PathfindingManager getPathfindingManager() {
+        return pathfindingManager;
+    }
+
+    public void setRetreatManager(StrategicRetreatManager retreatManager) {
+        this.retreatManager = retreatManager;
+    }
+
+    @Override
+    public StrategicRetreatManager getRetreatManager() {
+        return retreatManager;
+    }
+
+    public void setCoordinationManager(RaiderCoordinationManager coordinationManager) {
+        this.coordinationManager = coordinationManager;
+    }
+
+    @Override
+    public RaiderCoordinationManager getCoordinationManager() {
+        return coordinationManager;
+    }
+
+    public void setRaidTickEngine(RaidTickEngine raidTickEngine) {
+        this.raidTickEngine = raidTickEngine;
+    }
+
+    @Override
+    public RaidTickEngine getRaidTickEngine() {
+        return raidTickEngine;
+    }
+
+    public void setPathService(AsyncPathService pathService) {
+        this.pathService = pathService;
+    }
+
+    @Override
+    public AsyncPathService getPathService() {
+        return pathService;
+    }
+
+    public void setFlowFieldManager(FlowFieldManager flowFieldManager) {
+        this.flowFieldManager = flowFieldManager;
+    }
+
+    @Override
+    public FlowFieldManager getFlowFieldManager() {
+        return flowFieldManager;
+    }
+
+    public void setLootIndexManager(LootIndexManager lootIndexManager) {
+        this.lootIndexManager = lootIndexManager;
+    }
+
+    @Override
+    public LootIndexManager getLootIndexManager() {
+        return lootIndexManager;
+    }
+}
@@ -0,0 +1,266 @@
+package id.rnggagib.bench;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Keyed;
+import org.bukkit.Material;
+import org.bukkit.Registry;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Stand-in Bukkit server for running plugin code headless.
+ * Worlds and players registered here are returned by Bukkit's lookups, and a scheduler and plugin manager
+ * can be plugged in for code that schedules tasks or fires events. Every other call returns an empty value
+ * or a stand-in that does nothing, so code that only looks things up runs without a real server.
+ */
+public final class HeadlessServer {
+    private static final Map<String, World> worlds = new ConcurrentHashMap<>();
+    private static final Map<UUID, Player> players = new ConcurrentHashMap<>();
+    private static final Logger LOGGER = Logger.getLogger("townyraider-bench");
+    private static volatile BukkitScheduler scheduler;
+    private static volatile PluginManager pluginManager;
+    private static volatile Function<UUID, Entity> entityLookup = id -> null;
+
+    private HeadlessServer() {
+    }
+
+    /**
+     * Install the stand-in server, once per JVM
+     */
+    public static synchronized void install() {
+        if (Bukkit.getServer() == null) {
+            Bukkit.setServer(create());
+        }
+    }
+
+    public static void addWorld(World world) {
+        install();
+        worlds.put(world.getName(), world);
+    }
+
+    public static void removeWorld(World world) {
+        worlds.remove(world.getName());
+    }
+
+    public static void addPlayer(Player player) {
+        players.put(player.getUniqueId(), player);
+    }
+
+    public static void removePlayer(Player player) {
+        players.remove(player.getUniqueId());
+    }
+
+    /**
+     * Use a scheduler for Bukkit.getScheduler, or null for one that does nothing
+     */
+    public static void setScheduler(BukkitScheduler scheduler) {
+        HeadlessServer.scheduler = scheduler;
+    }
+
+    /**
+     * Use a plugin manager for Bukkit.getPluginManager, or null for one that does nothing
+     */
+    public static void setPluginManager(PluginManager pluginManager) {
+        HeadlessServer.pluginManager = pluginManager;
+    }
+
+    /**
+     * Answer Bukkit.getEntity with a lookup, such as over the entities of simulated worlds
+     */
+    public static void setEntityLookup(Function<UUID, Entity> entityLookup) {
+        HeadlessServer.entityLookup = entityLookup;
+    }
+
+    private static Server create() {
+        return (Server) Proxy.newProxyInstance(HeadlessServer.class.getClassLoader(), new Class<?>[]{Server.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return "HeadlessServer";
+                        case "getVersion":
+                        case "getBukkitVersion":
+                            return "bench";
+                        case "getLogger":
+                            return LOGGER;
+                        case "isPrimaryThread":
+                            return true;
+                        case "getWorlds":
+                            return new ArrayList<>(worlds.values());
+                        case "getWorld":
+                            if (args[0] instanceof String) {
+                                return worlds.get((String) args[0]);
+                            }
+                            for (World world : worlds.values()) {
+                                if (world.getUID().equals(args[0])) {
+                                    return world;
+                                }
+                            }
+                            return null;
+                        case "getOnlinePlayers":
+                            return Collections.unmodifiableCollection(players.values());
+                        case "getPlayer":
+                        case "getPlayerExact":
+                            if (args[0] instanceof UUID) {
+                                return players.get(args[0]);
+                            }
+                            for (Player player : players.values()) {
+                                if (player.getName().equalsIgnoreCase((String) args[0])) {
+                                    return player;
+                                }
+                            }
+                            return null;
+                        case "getEntity":
+                            return entityLookup.apply((UUID) args[0]);
+                        case "getScheduler":
+                            return scheduler != null ? scheduler : standIn(BukkitScheduler.class);
+                        case "getPluginManager":
+                            return pluginManager != null ? pluginManager : standIn(PluginManager.class);
+                        case "getRegistry":
+                            return emptyRegistry();
+                        case "createBlockData":
+                            if (args.length == 1 && args[0] instanceof Material) {
+                                return blockData((Material) args[0]);
+                            }
+                            return emptyOrStandIn(method.getReturnType());
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "HeadlessServer";
+                        default:
+                            // Managers and services do nothing rather than being missing
+                            return emptyOrStandIn(method.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * The block data of a material, without block states as simulated worlds only hold materials
+     */
+    public static BlockData blockData(Material material) {
+        String asString = material.getKey().toString();
+        return (BlockData) Proxy.newProxyInstance(HeadlessServer.class.getClassLoader(), new Class<?>[]{BlockData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getMaterial":
+                            return material;
+                        case "getAsString":
+                            return asString;
+                        case "matches":
+                            return args[0] instanceof BlockData && ((BlockData) args[0]).getMaterial() == material;
+                        case "clone":
+                            return proxy;
+                        case "hashCode":
+                            return material.hashCode();
+                        case "equals":
+                            return args[0] instanceof BlockData && ((BlockData) args[0]).getMaterial() == material;
+                        case "toString":
+                            return asString;
+                        default:
+                            return emptyOrStandIn(method.getReturnType());
+                    }
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Keyed> Registry<T> emptyRegistry() {
+        return (Registry<T>) Proxy.newProxyInstance(HeadlessServer.class.getClassLoader(), new Class<?>[]{Registry.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("iterator")) {
+                        return Collections.emptyIterator();
+                    }
+                    return empty(method.getReturnType());
+                });
+    }
+
+    /**
+     * An empty value of a type: zero, false, an empty collection or null
+     */
+    static Object empty(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class || type == long.class || type == short.class || type == byte.class) {
+            return defaultNumber(type);
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == float.class) {
+            return 0.0f;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == List.class || type == Collection.class) {
+            return Collections.emptyList();
+        }
+        if (type == Set.class) {
+            return Collections.emptySet();
+        }
+        if (type == Map.class) {
+            return Collections.emptyMap();
+        }
+        if (type == UUID.class) {
+            return new UUID(0, 0);
+        }
+        return null;
+    }
+
+    /**
+     * An empty value, or a stand-in for Bukkit interfaces such as managers, chunks and equipment
+     */
+    public static Object emptyOrStandIn(Class<?> type) {
+        return type.isInterface() && !type.getName().startsWith("java.") ? standIn(type) : empty(type);
+    }
+
+    /**
+     * An implementation of an interface whose methods all return empty values.
+     * Getters without arguments and factories return stand-ins in turn, such as the main scoreboard of the
+     * scoreboard manager or a new team, while lookups by key find nothing.
+     */
+    static Object standIn(Class<?> type) {
+        return Proxy.newProxyInstance(HeadlessServer.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    if (method.getName().equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    boolean lookup = method.getName().startsWith("get") && args != null && args.length > 0;
+                    return lookup ? empty(method.getReturnType()) : emptyOrStandIn(method.getReturnType());
+                });
+    }
+
+    private static Object defaultNumber(Class<?> type) {
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return 0;
+    }
+}
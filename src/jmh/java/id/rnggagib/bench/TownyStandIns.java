@@ -0,0 +1,236 @@
+package id.rnggagib.bench;
+
+import com.palmergames.bukkit.towny.exceptions.NotRegisteredException;
+import com.palmergames.bukkit.towny.object.Resident;
+import com.palmergames.bukkit.towny.object.Town;
+import com.palmergames.bukkit.towny.object.TownBlock;
+import com.palmergames.bukkit.towny.object.TownyWorld;
+import org.bukkit.Location;
+import org.bukkit.World;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Towny towns, town blocks and worlds without a running Towny.
+ * Towny's constructors reach for its settings and universe, so the stand-ins are allocated without
+ * running them and answer the lookups the plugin makes from their own fields.
+ */
+public final class TownyStandIns {
+    private static final Unsafe UNSAFE;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private TownyStandIns() {
+    }
+
+    /**
+     * Grow a town of the given number of claims outward from chunk 0,0 in a random blob
+     * @param world The world the claims are in, which must be named like a registered Bukkit world
+     */
+    public static StandInTown town(String name, StandInWorld world, int claims, long seed) {
+        StandInTown town = allocate(StandInTown.class);
+        town.name = name;
+        town.blocks = new ArrayList<>(claims);
+
+        Random random = new Random(seed);
+        Deque<long[]> frontier = new ArrayDeque<>();
+        frontier.add(new long[]{0, 0});
+        while (town.blocks.size() < claims && !frontier.isEmpty()) {
+            long[] next = random.nextBoolean() ? frontier.pollFirst() : frontier.pollLast();
+            int x = (int) next[0];
+            int z = (int) next[1];
+            if (world.blocks.containsKey(key(x, z))) {
+                continue;
+            }
+
+            StandInTownBlock block = allocate(StandInTownBlock.class);
+            block.x = x;
+            block.z = z;
+            block.world = world;
+            block.town = town;
+            world.blocks.put(key(x, z), block);
+            town.blocks.add(block);
+
+            frontier.add(new long[]{x + 1, z});
+            frontier.add(new long[]{x - 1, z});
+            frontier.add(new long[]{x, z + 1});
+            frontier.add(new long[]{x, z - 1});
+        }
+        return town;
+    }
+
+    public static StandInWorld world(String name) {
+        StandInWorld world = allocate(StandInWorld.class);
+        world.name = name;
+        world.blocks = new HashMap<>();
+        return world;
+    }
+
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T allocate(Class<T> type) {
+        try {
+            return (T) UNSAFE.allocateInstance(type);
+        } catch (InstantiationException e) {
+            throw new IllegalStateException("Could not create " + type.getSimpleName(), e);
+        }
+    }
+
+    public static class StandInWorld extends TownyWorld {
+        String name;
+        Map<Long, TownBlock> blocks;
+
+        // Never run, see allocate
+        private StandInWorld() {
+            super("stand-in");
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public TownBlock getTownBlock(int x, int z) throws NotRegisteredException {
+            TownBlock block = blocks.get(key(x, z));
+            if (block == null) {
+                throw new NotRegisteredException("Unclaimed");
+            }
+            return block;
+        }
+    }
+
+    public static class StandInTown extends Town {
+        String name;
+        List<TownBlock> blocks;
+        Location spawn;
+
+        private StandInTown() {
+            super("stand-in");
+        }
+
+        /**
+         * Set the town spawn, which also places the town in the spawn's world
+         */
+        public void setSpawn(Location spawn) {
+            this.spawn = spawn;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Collection<TownBlock> getTownBlocks() {
+            return Collections.unmodifiableList(blocks);
+        }
+
+        @Override
+        public List<Resident> getResidents() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int getNumResidents() {
+            return 0;
+        }
+
+        @Override
+        public long getRegistered() {
+            return 0L;
+        }
+
+        @Override
+        public Location getSpawn() {
+            return spawn == null ? null : spawn.clone();
+        }
+
+        @Override
+        public World getWorld() {
+            return spawn == null ? null : spawn.getWorld();
+        }
+    }
+
+    public static class StandInTownBlock extends TownBlock {
+        int x;
+        int z;
+        StandInWorld world;
+        StandInTown town;
+
+        private StandInTownBlock() {
+            super(0, 0, null);
+        }
+
+        @Override
+        public int getX() {
+            return x;
+        }
+
+        @Override
+        public int getZ() {
+            return z;
+        }
+
+        @Override
+        public TownyWorld getWorld() {
+            return world;
+        }
+
+        @Override
+        public boolean hasTown() {
+            return town != null;
+        }
+
+        @Override
+        public Town getTownOrNull() {
+            return town;
+        }
+
+        @Override
+        public Town getTown() throws NotRegisteredException {
+            if (town == null) {
+                throw new NotRegisteredException("Unclaimed");
+            }
+            return town;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StandInTownBlock)) {
+                return false;
+            }
+            StandInTownBlock other = (StandInTownBlock) o;
+            return x == other.x && z == other.z && world == other.world;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * x + z;
+        }
+    }
+}
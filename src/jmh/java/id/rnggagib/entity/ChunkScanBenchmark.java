@@ -0,0 +1,88 @@
+package id.rnggagib.entity;
+
+import id.rnggagib.bench.GridWorld;
+import id.rnggagib.bench.HeadlessPlugin;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning one town chunk of a full-height world for stealable blocks, reading every block
+ * against skipping by palette and empty section
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkScanBenchmark {
+    private static final int MIN_Y = -64;
+    private static final int MAX_Y = 320;
+    private static final int GROUND_Y = 64;
+
+    /** Whether the chunk holds stealable blocks, or is only stone, grass and air */
+    @Param({"true", "false"})
+    public boolean withValuables;
+
+    private Set<Material> stealable;
+    private ChunkMaterialScanner scanner;
+    private ChunkSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        HeadlessPlugin plugin = HeadlessPlugin.create();
+        stealable = EnumSet.copyOf(plugin.getConfigManager().getStealableBlocks());
+        scanner = new ChunkMaterialScanner(stealable);
+
+        GridWorld grid = new GridWorld("chunk-scan", 16, 16, MIN_Y, MAX_Y);
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int y = MIN_Y; y < GROUND_Y; y++) {
+                    grid.set(x, y, z, Material.STONE);
+                }
+                grid.set(x, GROUND_Y, z, Material.GRASS_BLOCK);
+            }
+        }
+        if (withValuables) {
+            grid.scatter(Material.STONE, Material.GOLD_BLOCK, 0.001, 7L);
+            grid.set(8, GROUND_Y + 1, 8, Material.DIAMOND_BLOCK);
+        }
+        snapshot = grid.getWorld().getChunkAt(0, 0).getChunkSnapshot(false, false, false);
+    }
+
+    @Benchmark
+    public int everyBlock() {
+        int found = 0;
+        for (int y = MIN_Y; y < MAX_Y; y++) {
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) {
+                    if (stealable.contains(snapshot.getBlockType(x, y, z))) {
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public long[] skippingSections() {
+        return scanner.scan(snapshot, MIN_Y, MAX_Y);
+    }
+}
@@ -0,0 +1,103 @@
+package id.rnggagib.entity;
+
+import id.rnggagib.bench.GridWorld;
+import id.rnggagib.bench.HeadlessPlugin;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.Container;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cubic block scans raiders run around themselves when looking for loot,
+ * and the same lookups answered by a town's valuable block index
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StealingScanBenchmark {
+    private static final int GROUND_Y = 64;
+
+    @Param({"3", "5", "8"})
+    public int radius;
+
+    /** Whether there is a chest to find, or every scan runs to the end */
+    @Param({"true", "false"})
+    public boolean withChest;
+
+    private StealingManager stealingManager;
+    private LootBlockIndex index;
+    private Location center;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        HeadlessPlugin plugin = HeadlessPlugin.create();
+        stealingManager = new StealingManager(plugin);
+
+        GridWorld grid = GridWorld.flat("loot", 64, 64, GROUND_Y)
+                .scatter(Material.STONE, Material.GOLD_BLOCK, 0.01, 7L)
+                .scatter(Material.STONE, Material.DIAMOND_BLOCK, 0.005, 11L);
+        if (withChest) {
+            // In the far corner of the scanned cube, so the scan still covers most of it
+            grid.set(32 + radius, GROUND_Y + 1, 32 + radius, Material.CHEST);
+        }
+        center = new Location(grid.getWorld(), 32, GROUND_Y + 1, 32);
+
+        index = new LootBlockIndex(grid.getWorld());
+        Set<Material> stealable = plugin.getConfigManager().getStealableBlocks();
+        for (int x = 0; x < grid.getSizeX(); x++) {
+            for (int z = 0; z < grid.getSizeZ(); z++) {
+                for (int y = grid.getMinHeight(); y < grid.getMaxHeight(); y++) {
+                    Material type = grid.getType(x, y, z);
+                    if (stealable.contains(type)) {
+                        index.put(x, y, z, type);
+                    }
+                }
+            }
+        }
+        index.rebuild();
+    }
+
+    @Benchmark
+    public Block findNearbyValuableBlock() {
+        return stealingManager.findNearbyValuableBlock(center, radius);
+    }
+
+    @Benchmark
+    public Container findNearbyContainer() {
+        return stealingManager.findNearbyContainer(center, radius);
+    }
+
+    @Benchmark
+    public Block findSpecificBlockNearby() {
+        return stealingManager.findSpecificBlockNearby(center, Material.DIAMOND_BLOCK, radius * 2);
+    }
+
+    @Benchmark
+    public List<Block> indexedValuableBlocks() {
+        return index.withinBox(center.getBlockX(), center.getBlockY(), center.getBlockZ(), radius, radius, radius);
+    }
+
+    @Benchmark
+    public Block indexedSpecificBlock() {
+        return index.nearest(center.getBlockX(), center.getBlockY(), center.getBlockZ(), radius * 2, Material.DIAMOND_BLOCK);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import id.rnggagib.bench.GridWorld;
+import id.rnggagib.bench.HeadlessServer;
+import id.rnggagib.entity.ai.waypoint.WaypointPath;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A* and jump point searches across a synthetic grid, with the walkability cache warm or cleared
+ * before every search
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathfinderBenchmark {
+    private static final int GROUND_Y = 64;
+
+    /** open: flat ground; walls: 15% of columns walled off */
+    @Param({"open", "walls"})
+    public String terrain;
+
+    /** Straight-line distance between start and goal */
+    @Param({"24", "64", "96"})
+    public int distance;
+
+    @Param({"STANDARD", "JUMP_POINT"})
+    public SearchMode mode;
+
+    @Param({"true", "false"})
+    public boolean warmCache;
+
+    private GridWorld grid;
+    private AStarPathfinder pathfinder;
+    private Location start;
+    private Location goal;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        HeadlessServer.install();
+        grid = GridWorld.flat("paths", 128, 128, GROUND_Y);
+        if (terrain.equals("walls")) {
+            grid.withWalls(GROUND_Y, 0.15, 42L);
+        }
+
+        // Diagonal across the grid, with the endpoints kept clear
+        int from = (128 - distance) / 2;
+        int offset = (int) Math.round(distance / Math.sqrt(2));
+        int to = from + offset;
+        for (int[] end : new int[][]{{from, from}, {to, to}}) {
+            grid.set(end[0], GROUND_Y + 1, end[1], Material.AIR);
+            grid.set(end[0], GROUND_Y + 2, end[1], Material.AIR);
+        }
+        start = new Location(grid.getWorld(), from, GROUND_Y + 1, from);
+        goal = new Location(grid.getWorld(), to, GROUND_Y + 1, to);
+
+        pathfinder = new AStarPathfinder(null, EnumSet.of(Material.WATER, Material.LAVA, Material.FIRE,
+                Material.SOUL_FIRE, Material.CAMPFIRE, Material.SOUL_CAMPFIRE, Material.CACTUS,
+                Material.SWEET_BERRY_BUSH, Material.COBWEB, Material.HONEY_BLOCK));
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCache() {
+        if (!warmCache) {
+            pathfinder.getWalkability().clear();
+        }
+    }
+
+    @Benchmark
+    public WaypointPath findPath() {
+        return pathfinder.findPath(grid, start, goal, mode);
+    }
+}
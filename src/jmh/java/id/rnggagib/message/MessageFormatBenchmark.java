@@ -0,0 +1,52 @@
+package id.rnggagib.message;
+
+import net.kyori.adventure.text.Component;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MiniMessage formatting of typical raid messages, with and without placeholders
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageFormatBenchmark {
+    private static final String PLAIN = "<gradient:red:gold><bold>RAID INCOMING!</bold></gradient> <gray>Defend your town!</gray>";
+    private static final String WITH_PLACEHOLDERS = "<red>Raiders are attacking <yellow>{town}</yellow>! "
+            + "<gray>{stolen} items stolen, {raiders} raiders left, {time} remaining.</gray>";
+
+    private MessageManager messageManager;
+    private Map<String, String> placeholders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Formatting doesn't need the plugin or an audience provider
+        messageManager = new MessageManager(null, null);
+        placeholders = MessageManager.createPlaceholders("town", "Riverside", "stolen", 42, "raiders", 7, "time", "3m 20s");
+    }
+
+    @Benchmark
+    public Component format() {
+        return messageManager.format(PLAIN);
+    }
+
+    @Benchmark
+    public Component formatWithPlaceholders() {
+        return messageManager.format(WITH_PLACEHOLDERS, placeholders);
+    }
+}
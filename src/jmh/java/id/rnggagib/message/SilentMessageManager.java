@@ -0,0 +1,60 @@
+package id.rnggagib.message;
+
+import id.rnggagib.TownyRaider;
+import net.kyori.adventure.text.Component;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Messages formatted as usual but never delivered, for running without a server to send them through.
+ * Counts what would have been sent.
+ */
+public class SilentMessageManager extends MessageManager {
+    private final TownyRaider plugin;
+    private long sent = 0;
+
+    public SilentMessageManager(TownyRaider plugin) {
+        super(plugin, null);
+        this.plugin = plugin;
+    }
+
+    /**
+     * Number of messages, titles and action bars that would have reached a player or the console
+     */
+    public long getSentCount() {
+        return sent;
+    }
+
+    @Override
+    public void send(CommandSender sender, String messageKey, Map<String, String> placeholders) {
+        deliver(getPrefixedMessage(messageKey, placeholders), 1);
+    }
+
+    @Override
+    public void broadcast(String messageKey, Map<String, String> placeholders) {
+        deliver(getPrefixedMessage(messageKey, placeholders), 1);
+    }
+
+    @Override
+    public void sendToPlayers(Collection<? extends Player> players, String messageKey, Map<String, String> placeholders) {
+        deliver(getPrefixedMessage(messageKey, placeholders), players.size());
+    }
+
+    @Override
+    public void sendTitle(Player player, String titleKey, String subtitleKey, Map<String, String> placeholders) {
+        format(plugin.getConfigManager().getMessage(titleKey), placeholders);
+        deliver(format(plugin.getConfigManager().getMessage(subtitleKey), placeholders), 1);
+    }
+
+    @Override
+    public void sendActionBar(Player player, String messageKey, Map<String, String> placeholders) {
+        deliver(format(plugin.getConfigManager().getMessage(messageKey), placeholders), 1);
+    }
+
+    private void deliver(Component message, int recipients) {
+        sent += recipients;
+    }
+}
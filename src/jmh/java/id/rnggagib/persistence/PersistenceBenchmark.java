@@ -0,0 +1,126 @@
+package id.rnggagib.persistence;
+
+import id.rnggagib.bench.GridWorld;
+import id.rnggagib.bench.HeadlessPlugin;
+import id.rnggagib.bench.HeadlessServer;
+import id.rnggagib.raid.ActiveRaid;
+import id.rnggagib.raid.RaidHistory;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading the data files at growing history sizes.
+ * Files go to a temporary data folder, so the numbers include the disk; saves and appends wait for the background
+ * writer. Opening the history journal reads its index, and rebuilding it rescans every segment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int historyRows;
+
+    /** Active raids saved alongside, each with a raider list and location metadata */
+    @Param({"20"})
+    public int activeRaids;
+
+    private PersistenceManager persistenceManager;
+    private List<RaidHistory> history;
+    private List<ActiveRaid> raids;
+    private File indexFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        HeadlessPlugin plugin = HeadlessPlugin.create();
+        GridWorld grid = new GridWorld("world", 16, 16, 0, 16);
+        HeadlessServer.addWorld(grid.getWorld());
+        persistenceManager = new PersistenceManager(plugin);
+
+        indexFile = new File(new File(plugin.getDataFolder(), "data"), "history/index.json");
+
+        // Spread over the last 300 days, inside the default retention period
+        Random random = new Random(42L);
+        LocalDateTime time = LocalDateTime.now().minusDays(300);
+        long stepSeconds = 300L * 24 * 60 * 60 / historyRows;
+        history = new ArrayList<>(historyRows);
+        for (int i = 0; i < historyRows; i++) {
+            LocalDateTime start = time.plusSeconds(i * stepSeconds);
+            history.add(new RaidHistory(UUID.randomUUID(), "town-" + random.nextInt(500), start.plusMinutes(10), start,
+                    random.nextInt(64), random.nextBoolean()));
+        }
+
+        raids = new ArrayList<>(activeRaids);
+        for (int i = 0; i < activeRaids; i++) {
+            ActiveRaid raid = new ActiveRaid(UUID.randomUUID(), "town-" + i, plugin);
+            raid.setStartTime(time);
+            raid.setLocation(new Location(grid.getWorld(), i * 16.5, 64, -i * 16.5));
+            for (int r = 0; r < 12; r++) {
+                raid.addRaiderEntity(UUID.randomUUID());
+            }
+            List<Location> chests = new ArrayList<>();
+            for (int c = 0; c < 64; c++) {
+                chests.add(new Location(grid.getWorld(), random.nextInt(256), 64, random.nextInt(256)));
+            }
+            raid.setMetadata("chests", chests);
+            raid.setMetadata("difficulty", "hard");
+            raid.setMetadata("defenders", 6);
+            raids.add(raid);
+        }
+
+        // Opening reads what the import wrote
+        persistenceManager.openRaidHistory();
+        persistenceManager.getRaidJournal().appendAll(history);
+        persistenceManager.saveRaidHistory();
+        persistenceManager.flush();
+    }
+
+    @Benchmark
+    public RaidJournal openRaidHistory() {
+        return persistenceManager.openRaidHistory();
+    }
+
+    @Benchmark
+    public RaidJournal rebuildRaidHistory() {
+        indexFile.delete();
+        RaidJournal journal = persistenceManager.openRaidHistory();
+        persistenceManager.saveRaidHistory();
+        persistenceManager.flush();
+        return journal;
+    }
+
+    @Benchmark
+    public void appendRaidHistory() {
+        LocalDateTime now = LocalDateTime.now();
+        persistenceManager.appendRaidHistory(new RaidHistory(UUID.randomUUID(), "town-0", now, now.minusMinutes(10), 3, true));
+        persistenceManager.flush();
+    }
+
+    @Benchmark
+    public void saveActiveRaids() {
+        persistenceManager.saveActiveRaids(raids);
+        persistenceManager.flush();
+    }
+}
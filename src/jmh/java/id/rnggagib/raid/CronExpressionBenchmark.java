@@ -0,0 +1,51 @@
+package id.rnggagib.raid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cron matching as the raid scheduler does it, once per expression per check
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CronExpressionBenchmark {
+    @Param({"0 */3 * * *", "*/15 9-17 * * 1-5", "0,15,30,45 0,6,12,18 1-28 * *"})
+    public String expression;
+
+    private LocalDateTime[] times;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // A week of minutes, so every field sees matching and non-matching values
+        times = new LocalDateTime[7 * 24 * 60];
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < times.length; i++) {
+            times[i] = time.plusMinutes(i);
+        }
+    }
+
+    @Benchmark
+    public boolean matches() {
+        LocalDateTime time = times[next];
+        next = next + 1 == times.length ? 0 : next + 1;
+        return CronExpression.matches(expression, time);
+    }
+}
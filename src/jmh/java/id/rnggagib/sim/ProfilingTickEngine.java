@@ -0,0 +1,27 @@
+package id.rnggagib.sim;
+
+import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.tick.RaidTickEngine;
+import id.rnggagib.entity.tick.RaiderTask;
+import id.rnggagib.entity.tick.TickPhase;
+import org.bukkit.entity.LivingEntity;
+
+/**
+ * The raid tick engine with every raider task timed under the subsystem that scheduled it,
+ * so the engine's own time is reported apart from the AI, movement and effects it drives
+ */
+public class ProfilingTickEngine extends RaidTickEngine {
+    private final SimProfiler profiler;
+
+    public ProfilingTickEngine(TownyRaider plugin, SimProfiler profiler) {
+        super(plugin);
+        this.profiler = profiler;
+    }
+
+    @Override
+    public void schedule(LivingEntity entity, TickPhase phase, String key, long delay, long period, RaiderTask raiderTask) {
+        String subsystem = SimProfiler.subsystemOf(raiderTask);
+        super.schedule(entity, phase, key, delay, period,
+                raider -> profiler.measure(subsystem, () -> raiderTask.tick(raider)));
+    }
+}
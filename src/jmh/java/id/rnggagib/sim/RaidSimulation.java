@@ -0,0 +1,460 @@
+package id.rnggagib.sim;
+
+import com.palmergames.bukkit.towny.object.TownBlock;
+import id.rnggagib.bench.HeadlessPlugin;
+import id.rnggagib.bench.HeadlessServer;
+import id.rnggagib.bench.TownyStandIns;
+import id.rnggagib.economy.EconomyManager;
+import id.rnggagib.effects.VisualEffectsManager;
+import id.rnggagib.entity.LootIndexManager;
+import id.rnggagib.entity.RaiderEntityListener;
+import id.rnggagib.entity.RaiderEntityManager;
+import id.rnggagib.entity.StealingManager;
+import id.rnggagib.entity.TownSurvey;
+import id.rnggagib.entity.ai.FlowFieldManager;
+import id.rnggagib.entity.ai.PathfindingManager;
+import id.rnggagib.entity.ai.coordination.RaiderCoordinationManager;
+import id.rnggagib.entity.ai.pathfinding.AsyncPathService;
+import id.rnggagib.entity.ai.pathfinding.BlockKey;
+import id.rnggagib.entity.ai.retreat.StrategicRetreatManager;
+import id.rnggagib.entity.tick.AiWorkBudget;
+import id.rnggagib.entity.tick.RaidTickEngine;
+import id.rnggagib.message.SilentMessageManager;
+import id.rnggagib.persistence.PersistenceManager;
+import id.rnggagib.protection.ProtectionManager;
+import id.rnggagib.raid.RaidManager;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Headless raid against a generated town, reporting the plugin's cost per server tick.
+ * Boots the managers the way the plugin does on a server, against a simulated scheduler, plugin manager,
+ * world and Towny town. The town is scouted as during a raid warning, then a raid is started on it and scripted
+ * defenders fight the raiders each tick.
+ * At the end the main-thread time and allocations of every subsystem are reported as per-tick percentiles,
+ * along with what was left on the scheduler.
+ *
+ * <pre>mvn -Pbenchmarks test-compile exec:exec@simulate -Dsim.args="--raiders 6 --defenders 4 --ticks 2400"</pre>
+ *
+ * Options: {@code --raiders} thieves spawned (each brings its configured guards), {@code --defenders}
+ * players defending the town, {@code --ticks} ticks to run, {@code --claims} town size in chunks,
+ * {@code --seed} for the town layout and defenders.
+ */
+public class RaidSimulation {
+    private static final String WORLD = "raid-sim";
+    private static final String SIMULATION = "Simulation";
+    private static final String ENGINE = RaidTickEngine.class.getSimpleName();
+    private static final String AI_BUDGET = "AiWorkBudget";
+    private static final int GROUND_Y = 64;
+    private static final double DEFENDER_REACH = 3.0;
+    private static final double DEFENDER_DAMAGE = 5.0;
+    private static final int DEFENDER_ATTACK_TICKS = 10;
+    private static final int DEFENDER_RESPAWN_TICKS = 100;
+    private static final double[] PERCENTILES = {50, 95, 99, 100};
+    private static final int MAX_SCOUTING_TICKS = 200;
+
+    private final int raiders;
+    private final int defenders;
+    private final int ticks;
+    private final int claims;
+    private final long seed;
+
+    private final SimProfiler profiler = new SimProfiler();
+    private SimScheduler scheduler;
+    private SimPluginManager pluginManager;
+    private SimWorld world;
+    private HeadlessPlugin plugin;
+    private SilentMessageManager messages;
+    private SimTownyHandler townyHandler;
+    private TownyStandIns.StandInTown town;
+    private final List<Defender> defenderList = new ArrayList<>();
+    private int raidersSpawned = 0;
+    private int scoutingTicks = 0;
+    private TownSurvey survey;
+    private int peakRaiders = 0;
+
+    public RaidSimulation(int raiders, int defenders, int ticks, int claims, long seed) {
+        this.raiders = raiders;
+        this.defenders = defenders;
+        this.ticks = ticks;
+        this.claims = claims;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) {
+        int raiders = 6;
+        int defenders = 4;
+        int ticks = 20 * 60 * 2;
+        int claims = 64;
+        long seed = 42L;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "--raiders":
+                    raiders = value;
+                    break;
+                case "--defenders":
+                    defenders = value;
+                    break;
+                case "--ticks":
+                    ticks = value;
+                    break;
+                case "--claims":
+                    claims = value;
+                    break;
+                case "--seed":
+                    seed = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        RaidSimulation simulation = new RaidSimulation(raiders, defenders, ticks, claims, seed);
+        simulation.setUp();
+        simulation.run();
+        simulation.report();
+        simulation.tearDown();
+        System.exit(0);
+    }
+
+    /**
+     * Build the town and boot the plugin's managers in the order the plugin enables them
+     */
+    public void setUp() {
+        HeadlessServer.install();
+        scheduler = new SimScheduler(profiler);
+        pluginManager = new SimPluginManager(profiler, "Towny");
+        HeadlessServer.setScheduler(scheduler.asScheduler());
+        HeadlessServer.setPluginManager(pluginManager.asPluginManager());
+
+        world = buildWorld();
+        HeadlessServer.addWorld(world.getWorld());
+        HeadlessServer.setEntityLookup(id -> {
+            SimEntity entity = world.getEntity(id);
+            return entity != null ? entity.getEntity() : null;
+        });
+
+        TownyStandIns.StandInWorld townyWorld = TownyStandIns.world(WORLD);
+        town = TownyStandIns.town("Simville", townyWorld, claims, seed);
+        town.setSpawn(new Location(world.getWorld(), 8.5, GROUND_Y + 1, 2.5));
+
+        plugin = HeadlessPlugin.create();
+        plugin.getConfigManager().getConfig().set("mobs.baby-zombie.count", raiders);
+        plugin.enable();
+        PluginManager manager = pluginManager.asPluginManager();
+
+        messages = new SilentMessageManager(plugin);
+        plugin.setMessageManager(messages);
+        plugin.setPersistenceManager(new PersistenceManager(plugin));
+        plugin.setRaidTickEngine(new ProfilingTickEngine(plugin, profiler));
+        plugin.setPathService(new AsyncPathService(plugin));
+        plugin.setRaiderEntityManager(new RaiderEntityManager(plugin));
+        plugin.setStealingManager(new StealingManager(plugin));
+        plugin.setVisualEffectsManager(new VisualEffectsManager(plugin));
+
+        townyHandler = new SimTownyHandler(plugin, town, townyWorld);
+        plugin.setTownyHandler(townyHandler);
+        plugin.setEconomyManager(new EconomyManager(plugin));
+        plugin.setProtectionManager(new ProtectionManager(plugin));
+        plugin.setRaidManager(new RaidManager(plugin));
+        manager.registerEvents(new RaiderEntityListener(plugin), plugin);
+        plugin.getStealingManager().startStealingTasks();
+
+        PathfindingManager pathfinding = new PathfindingManager(plugin);
+        plugin.setPathfindingManager(pathfinding);
+        manager.registerEvents(pathfinding.getPathfinder().getWalkability(), plugin);
+        FlowFieldManager flowFields = new FlowFieldManager(plugin, pathfinding.getPathfinder());
+        plugin.setFlowFieldManager(flowFields);
+        manager.registerEvents(flowFields, plugin);
+        LootIndexManager lootIndex = new LootIndexManager(plugin);
+        plugin.setLootIndexManager(lootIndex);
+        manager.registerEvents(lootIndex, plugin);
+        StrategicRetreatManager retreat = new StrategicRetreatManager(plugin, pathfinding);
+        plugin.setRetreatManager(retreat);
+        plugin.setCoordinationManager(new RaiderCoordinationManager(plugin, pathfinding, retreat));
+
+        Random random = new Random(seed);
+        for (int i = 0; i < defenders; i++) {
+            Location at = new Location(world.getWorld(), 2.5 + random.nextInt(12), GROUND_Y + 1, 1.5 + random.nextInt(3));
+            SimEntity player = world.spawnPlayer(at, "Defender" + (i + 1));
+            townyHandler.addMember((Player) player.getEntity());
+            defenderList.add(new Defender(player, random.nextInt(DEFENDER_ATTACK_TICKS)));
+        }
+    }
+
+    /**
+     * Scout the town, then start a raid on it and run it for the configured number of ticks
+     */
+    public void run() {
+        // Scouting ticks are measured too, as on a server they are ticks of the raid warning
+        plugin.getLootIndexManager().scoutTown(town);
+        while (survey == null && scoutingTicks < MAX_SCOUTING_TICKS) {
+            scheduler.tick();
+            profiler.run(SIMULATION, world::tick);
+            profiler.endTick();
+            scoutingTicks++;
+            survey = plugin.getLootIndexManager().getTownSurvey(town.getName());
+        }
+        if (survey != null) {
+            checkSurvey();
+        }
+
+        if (!plugin.getRaidManager().startRaidOnTown(town)) {
+            throw new IllegalStateException("The raid did not start");
+        }
+        raidersSpawned = countRaiders();
+
+        for (int tick = 0; tick < ticks; tick++) {
+            profiler.run(SIMULATION, () -> defendTown(scheduler.getCurrentTick()));
+            scheduler.tick();
+            // The AI jobs drained inside the engine's tick are reported on their own
+            AiWorkBudget budget = plugin.getRaidTickEngine().getAiBudget();
+            profiler.reattribute(ENGINE, AI_BUDGET, budget.getLastDrainNanos(), budget.getLastJobsRun());
+            profiler.run(SIMULATION, world::tick);
+            peakRaiders = Math.max(peakRaiders, countRaiders());
+            profiler.endTick();
+        }
+    }
+
+    public void report() {
+        int measured = profiler.getTicks();
+        System.out.printf(Locale.ROOT, "%nRaid simulation: %d thieves (%d raiders spawned), %d defenders, %d claims, %d ticks%n",
+                raiders, raidersSpawned, defenders, claims, measured);
+        if (survey != null) {
+            System.out.printf(Locale.ROOT, "Scouted in %d ticks: %d spawn points, %d exits, %d cover spots%n",
+                    scoutingTicks, survey.getSpawnPoints().size(), survey.getExitPoints().size(),
+                    survey.getCoverPoints().size());
+        } else {
+            System.out.printf(Locale.ROOT, "Scouting did not finish in %d ticks%n", scoutingTicks);
+        }
+        System.out.printf(Locale.ROOT, "Raiders alive at the end: %d (peak %d), deaths: %d%n",
+                countRaiders(), peakRaiders, world.getDeathCount());
+
+        System.out.printf(Locale.ROOT, "%nMain thread per tick, by subsystem (ms)%n");
+        System.out.printf(Locale.ROOT, "%-28s %9s %9s %9s %9s %9s %12s %10s%n",
+                "subsystem", "p50", "p95", "p99", "max", "mean", "bytes/tick", "runs");
+        List<SimProfiler.Subsystem> subsystems = profiler.getSubsystems();
+        subsystems.sort(Comparator.comparingDouble((SimProfiler.Subsystem s) -> s.getMeanMillis(measured)).reversed());
+        long[] pluginNanos = new long[measured];
+        double pluginBytes = 0;
+        for (SimProfiler.Subsystem subsystem : subsystems) {
+            printRow(subsystem.getName(), subsystem, measured);
+            if (!subsystem.getName().equals(SIMULATION)) {
+                for (int tick = 0; tick < measured; tick++) {
+                    pluginNanos[tick] += subsystem.getNanosAt(tick);
+                }
+                pluginBytes += subsystem.getBytesPerTick(measured);
+            }
+        }
+
+        long[] sorted = pluginNanos.clone();
+        Arrays.sort(sorted);
+        double mean = 0;
+        for (long nanos : pluginNanos) {
+            mean += nanos;
+        }
+        mean = measured == 0 ? 0 : mean / measured / 1_000_000.0;
+        System.out.printf(Locale.ROOT, "%-28s %9.3f %9.3f %9.3f %9.3f %9.3f %12.0f%n", "plugin total",
+                percentile(sorted, PERCENTILES[0]), percentile(sorted, PERCENTILES[1]),
+                percentile(sorted, PERCENTILES[2]), percentile(sorted, PERCENTILES[3]), mean, pluginBytes);
+        System.out.printf(Locale.ROOT, "(%s is the scripted defenders and entity movement, and is left out of the total;%n"
+                + " %s time is split out of %s, but its allocations are counted there)%n", SIMULATION, AI_BUDGET, ENGINE);
+
+        System.out.printf(Locale.ROOT, "%nAI work budget: %d jobs still queued, longest wait %d ticks%n",
+                plugin.getRaidTickEngine().getAiBudget().getQueuedJobs(),
+                plugin.getRaidTickEngine().getAiBudget().getMaxLatencyTicks());
+        System.out.printf(Locale.ROOT, "Path service: %d cache hits, %d coalesced requests%n",
+                plugin.getPathService().getCacheHits(), plugin.getPathService().getCoalescedRequests());
+
+        System.out.printf(Locale.ROOT, "%nScheduler: %d entries now, %d at peak, %d scheduled, %d runs%n",
+                scheduler.getEntryCount(), scheduler.getPeakEntryCount(), scheduler.getScheduledCount(),
+                scheduler.getExecutedCount());
+        for (Map.Entry<String, Integer> entry : scheduler.getEntriesBySubsystem().entrySet()) {
+            System.out.printf(Locale.ROOT, "  %-26s %d%n", entry.getKey(), entry.getValue());
+        }
+        System.out.printf(Locale.ROOT, "Events: %d fired to %d listeners%n",
+                pluginManager.getEventCount(), pluginManager.getListenerCount());
+        System.out.printf(Locale.ROOT, "Effects: %d particle calls, %d sounds, %d messages, %d town notifications%n",
+                world.getParticleCount(), world.getSoundCount(), messages.getSentCount(),
+                townyHandler.getNotificationCount());
+    }
+
+    public void tearDown() {
+        plugin.getRaidManager().shutdown();
+        plugin.getPersistenceManager().shutdown();
+        plugin.getProtectionManager().cleanup();
+        plugin.getVisualEffectsManager().cleanup();
+        plugin.getRaiderEntityManager().removeAllRaidMobs();
+        plugin.getRaidTickEngine().shutdown();
+        plugin.getPathService().shutdown();
+        plugin.getFlowFieldManager().clear();
+        plugin.getLootIndexManager().clear();
+    }
+
+    /**
+     * One chunk of town repeated across the world: a house with a chest and a valuable block inside,
+     * with its door facing the street along the chunk edge
+     */
+    private SimWorld buildWorld() {
+        SimWorld grid = new SimWorld(WORLD, 16, 16, 0, GROUND_Y + 32);
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int y = 0; y < GROUND_Y; y++) {
+                    grid.set(x, y, z, Material.STONE);
+                }
+                grid.set(x, GROUND_Y, z, Material.GRASS_BLOCK);
+            }
+        }
+        for (int x = 4; x <= 11; x++) {
+            for (int z = 5; z <= 12; z++) {
+                boolean wall = x == 4 || x == 11 || z == 5 || z == 12;
+                grid.set(x, GROUND_Y, z, Material.OAK_PLANKS);
+                for (int y = GROUND_Y + 1; y <= GROUND_Y + 3; y++) {
+                    grid.set(x, y, z, wall ? Material.COBBLESTONE : Material.AIR);
+                }
+                grid.set(x, GROUND_Y + 4, z, Material.OAK_PLANKS);
+            }
+        }
+        grid.set(7, GROUND_Y + 1, 5, Material.AIR);
+        grid.set(7, GROUND_Y + 2, 5, Material.AIR);
+        grid.set(9, GROUND_Y + 1, 10, Material.CHEST);
+        grid.set(6, GROUND_Y + 1, 10, Material.GOLD_BLOCK);
+        grid.tiled();
+        return grid;
+    }
+
+    /**
+     * Every defender walks to the nearest raider and hits it when in reach
+     */
+    private void defendTown(long tick) {
+        List<LivingEntity> targets = new ArrayList<>();
+        for (SimEntity entity : world.getSimEntities()) {
+            if (entity.isAlive() && plugin.getRaiderEntityManager().isRaider(entity.getEntity())) {
+                targets.add((LivingEntity) entity.getEntity());
+            }
+        }
+
+        for (Defender defender : defenderList) {
+            SimEntity player = defender.player;
+            if (player.dead) {
+                if (++defender.deadTicks >= DEFENDER_RESPAWN_TICKS) {
+                    // Back at the town spawn
+                    player.dead = false;
+                    player.health = 20.0;
+                    player.moveTo(town.getSpawn());
+                    defender.deadTicks = 0;
+                }
+                continue;
+            }
+
+            LivingEntity nearest = null;
+            double nearestDistance = Double.MAX_VALUE;
+            for (LivingEntity target : targets) {
+                double distance = target.getLocation().distanceSquared(player.location);
+                if (distance < nearestDistance) {
+                    nearest = target;
+                    nearestDistance = distance;
+                }
+            }
+            if (nearest == null) {
+                continue;
+            }
+
+            if (nearestDistance > DEFENDER_REACH * DEFENDER_REACH) {
+                Vector toward = nearest.getLocation().toVector().subtract(player.location.toVector()).setY(0);
+                player.velocity.add(toward.normalize().multiply(player.getSpeed() * 2.0));
+            } else if ((tick + defender.attackOffset) % DEFENDER_ATTACK_TICKS == 0) {
+                nearest.damage(DEFENDER_DAMAGE, player.getEntity());
+            }
+        }
+    }
+
+    /**
+     * Check the survey against the town's claims: spawn points and exits must be distinct and sit on
+     * a chunk edge with no claim of the town beyond it
+     */
+    private void checkSurvey() {
+        Set<Long> claimed = new HashSet<>();
+        for (TownBlock townBlock : town.getTownBlocks()) {
+            claimed.add(chunkKey(townBlock.getX(), townBlock.getZ()));
+        }
+        checkBorderPoints("spawn point", survey.getSpawnPoints(), claimed);
+        checkBorderPoints("exit", survey.getExitPoints(), claimed);
+    }
+
+    private static void checkBorderPoints(String what, List<Location> points, Set<Long> claimed) {
+        Set<Long> seen = new HashSet<>();
+        for (Location point : points) {
+            int x = point.getBlockX();
+            int z = point.getBlockZ();
+            if (!seen.add(BlockKey.pack(x, point.getBlockY(), z))) {
+                throw new IllegalStateException("Survey found the " + what + " at " + x + "," + z + " twice");
+            }
+            int chunkX = x >> 4;
+            int chunkZ = z >> 4;
+            boolean open = (z & 15) == 0 && !claimed.contains(chunkKey(chunkX, chunkZ - 1))
+                    || (z & 15) == 15 && !claimed.contains(chunkKey(chunkX, chunkZ + 1))
+                    || (x & 15) == 0 && !claimed.contains(chunkKey(chunkX - 1, chunkZ))
+                    || (x & 15) == 15 && !claimed.contains(chunkKey(chunkX + 1, chunkZ));
+            if (!claimed.contains(chunkKey(chunkX, chunkZ)) || !open) {
+                throw new IllegalStateException("Survey " + what + " at " + x + "," + z
+                        + " is not on an edge facing away from the town");
+            }
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private int countRaiders() {
+        int count = 0;
+        for (SimEntity entity : world.getSimEntities()) {
+            if (entity.isAlive() && plugin.getRaiderEntityManager().isRaider(entity.getEntity())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void printRow(String name, SimProfiler.Subsystem subsystem, int ticks) {
+        System.out.printf(Locale.ROOT, "%-28s %9.3f %9.3f %9.3f %9.3f %9.3f %12.0f %10d%n", name,
+                subsystem.getMillisAt(PERCENTILES[0], ticks), subsystem.getMillisAt(PERCENTILES[1], ticks),
+                subsystem.getMillisAt(PERCENTILES[2], ticks), subsystem.getMillisAt(PERCENTILES[3], ticks),
+                subsystem.getMeanMillis(ticks), subsystem.getBytesPerTick(ticks), subsystem.getTotalRuns());
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+    }
+
+    private static class Defender {
+        final SimEntity player;
+        final int attackOffset;
+        int deadTicks = 0;
+
+        Defender(SimEntity player, int attackOffset) {
+            this.player = player;
+            this.attackOffset = attackOffset;
+        }
+    }
+}
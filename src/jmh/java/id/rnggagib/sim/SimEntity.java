@@ -0,0 +1,369 @@
+package id.rnggagib.sim;
+
+import id.rnggagib.bench.GridWorld;
+import id.rnggagib.bench.HeadlessServer;
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.metadata.MetadataValue;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.util.BoundingBox;
+import org.bukkit.util.Vector;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A simulated entity behind a Bukkit entity interface.
+ * Keeps the state the plugin reads and writes: position, velocity, health, attributes, target,
+ * metadata and persistent data. Movement and combat are applied by {@link SimWorld} each tick.
+ */
+public class SimEntity implements InvocationHandler {
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(1);
+
+    final UUID uniqueId = UUID.randomUUID();
+    final int entityId = NEXT_ID.getAndIncrement();
+    final EntityType type;
+    final SimWorld world;
+    final Entity proxy;
+    final Location location;
+    Vector velocity = new Vector();
+    double health = 20.0;
+    boolean dead = false;
+    boolean removed = false;
+    boolean onGround = true;
+    String name;
+    String customName;
+    LivingEntity target;
+    Entity lastDamager;
+    GameMode gameMode = GameMode.SURVIVAL;
+
+    private final Map<Attribute, double[]> attributes = new EnumMap<>(Attribute.class);
+    private final Map<String, List<MetadataValue>> metadata = new HashMap<>();
+    private final Map<NamespacedKey, Object> persistentData = new HashMap<>();
+    private final Set<String> scoreboardTags = new HashSet<>();
+    private final Map<String, Object> flags = new HashMap<>();
+
+    SimEntity(SimWorld world, EntityType type, Class<? extends Entity> entityClass, Location location) {
+        this.world = world;
+        this.type = type;
+        this.location = location.clone();
+        this.name = type.name().toLowerCase();
+        this.proxy = (Entity) Proxy.newProxyInstance(SimEntity.class.getClassLoader(), new Class<?>[]{entityClass}, this);
+
+        setBase(Attribute.GENERIC_MAX_HEALTH, type == EntityType.PLAYER ? 20.0 : 20.0);
+        setBase(Attribute.GENERIC_MOVEMENT_SPEED, type == EntityType.PLAYER ? 0.1 : 0.23);
+        setBase(Attribute.GENERIC_ATTACK_DAMAGE, 2.0);
+        setBase(Attribute.GENERIC_KNOCKBACK_RESISTANCE, 0.0);
+        setBase(Attribute.GENERIC_FOLLOW_RANGE, 35.0);
+        setBase(Attribute.GENERIC_ARMOR, 0.0);
+    }
+
+    public Entity getEntity() {
+        return proxy;
+    }
+
+    public UUID getUniqueId() {
+        return uniqueId;
+    }
+
+    public Location getLocation() {
+        return location.clone();
+    }
+
+    public boolean isAlive() {
+        return !dead && !removed;
+    }
+
+    public double getSpeed() {
+        return getBase(Attribute.GENERIC_MOVEMENT_SPEED);
+    }
+
+    double getBase(Attribute attribute) {
+        double[] value = attributes.get(attribute);
+        return value == null ? 0.0 : value[0];
+    }
+
+    private void setBase(Attribute attribute, double value) {
+        attributes.computeIfAbsent(attribute, k -> new double[1])[0] = value;
+    }
+
+    @Override
+    public Object invoke(Object self, Method method, Object[] args) {
+        String methodName = method.getName();
+        int arity = args == null ? 0 : args.length;
+
+        switch (methodName) {
+            case "getUniqueId":
+                return uniqueId;
+            case "getEntityId":
+                return entityId;
+            case "getType":
+                return type;
+            case "getWorld":
+                return world.getWorld();
+            case "getServer":
+                return Bukkit.getServer();
+            case "getLocation":
+                if (arity == 1 && args[0] != null) {
+                    Location into = (Location) args[0];
+                    into.setWorld(location.getWorld());
+                    into.setX(location.getX());
+                    into.setY(location.getY());
+                    into.setZ(location.getZ());
+                    into.setYaw(location.getYaw());
+                    into.setPitch(location.getPitch());
+                    return into;
+                }
+                return location.clone();
+            case "getEyeLocation":
+                return location.clone().add(0, type == EntityType.PLAYER ? 1.62 : 1.74, 0);
+            case "teleport":
+                Location to = args[0] instanceof Entity ? ((Entity) args[0]).getLocation() : (Location) args[0];
+                moveTo(to);
+                return true;
+            case "getVelocity":
+                return velocity.clone();
+            case "setVelocity":
+                velocity = ((Vector) args[0]).clone();
+                return null;
+            case "isOnGround":
+                return onGround;
+            case "isValid":
+                return isAlive();
+            case "isDead":
+                return dead;
+            case "remove":
+                world.removeEntity(this);
+                return null;
+            case "getHealth":
+                return health;
+            case "setHealth":
+                health = Math.max(0.0, Math.min((double) args[0], getBase(Attribute.GENERIC_MAX_HEALTH)));
+                if (health <= 0.0) {
+                    world.kill(this, null);
+                }
+                return null;
+            case "getMaxHealth":
+                return getBase(Attribute.GENERIC_MAX_HEALTH);
+            case "damage":
+                world.damage(this, (double) args[0], arity > 1 ? (Entity) args[1] : null);
+                return null;
+            case "getAttribute":
+                return attribute((Attribute) args[0]);
+            case "setMetadata":
+                metadata.computeIfAbsent((String) args[0], k -> new ArrayList<>()).removeIf(
+                        value -> value.getOwningPlugin() == ((MetadataValue) args[1]).getOwningPlugin());
+                metadata.get((String) args[0]).add((MetadataValue) args[1]);
+                return null;
+            case "getMetadata":
+                return new ArrayList<>(metadata.getOrDefault((String) args[0], Collections.emptyList()));
+            case "hasMetadata":
+                return !metadata.getOrDefault((String) args[0], Collections.emptyList()).isEmpty();
+            case "removeMetadata":
+                List<MetadataValue> values = metadata.get((String) args[0]);
+                if (values != null) {
+                    values.removeIf(value -> value.getOwningPlugin() == (Plugin) args[1]);
+                }
+                return null;
+            case "getPersistentDataContainer":
+                return persistentDataContainer();
+            case "setTarget":
+                target = (LivingEntity) args[0];
+                return null;
+            case "getTarget":
+                return target != null && target.isValid() ? target : null;
+            case "getName":
+                return type == EntityType.PLAYER ? name : customName != null ? customName : name;
+            case "getDisplayName":
+            case "getPlayerListName":
+                return name;
+            case "getCustomName":
+                return customName;
+            case "setCustomName":
+                customName = (String) args[0];
+                return null;
+            case "getKiller":
+                return lastDamager instanceof Player ? lastDamager : null;
+            case "getGameMode":
+                return gameMode;
+            case "setGameMode":
+                gameMode = (GameMode) args[0];
+                return null;
+            case "isOnline":
+                return type == EntityType.PLAYER && !removed;
+            case "getPlayer":
+                return type == EntityType.PLAYER ? proxy : null;
+            case "getNearbyEntities":
+                return world.getNearbyEntities(location, (double) args[0], (double) args[1], (double) args[2], this);
+            case "hasLineOfSight":
+                return true;
+            case "getHeight":
+                return type == EntityType.PLAYER ? 1.8 : 1.95;
+            case "getWidth":
+                return 0.6;
+            case "getBoundingBox":
+                return BoundingBox.of(location, 0.3, 0.975, 0.3).shift(0, 0.975, 0);
+            case "getScoreboardTags":
+                return scoreboardTags;
+            case "addScoreboardTag":
+                return scoreboardTags.add((String) args[0]);
+            case "removeScoreboardTag":
+                return scoreboardTags.remove((String) args[0]);
+            case "getActivePotionEffects":
+                return Collections.emptyList();
+            case "addPotionEffect":
+                return true;
+            case "hasAI":
+            case "isAware":
+            case "isPersistent":
+            case "getRemoveWhenFarAway":
+            case "isCustomNameVisible":
+            case "isBaby":
+            case "isGlowing":
+            case "isSilent":
+            case "isInvulnerable":
+            case "hasGravity":
+            case "isCollidable":
+                return flag(methodName, method.getReturnType());
+            case "setAI":
+            case "setAware":
+            case "setPersistent":
+            case "setRemoveWhenFarAway":
+            case "setCustomNameVisible":
+            case "setBaby":
+            case "setGlowing":
+            case "setSilent":
+            case "setInvulnerable":
+            case "setGravity":
+            case "setCollidable":
+                flags.put(flagName(methodName), args[0]);
+                return null;
+            case "equals":
+                return args[0] instanceof Entity && ((Entity) args[0]).getUniqueId().equals(uniqueId);
+            case "hashCode":
+                return uniqueId.hashCode();
+            case "toString":
+                return "Sim" + type + "{" + entityId + " at " + location.getBlockX() + "," + location.getBlockY() + ","
+                        + location.getBlockZ() + "}";
+            default:
+                return HeadlessServer.emptyOrStandIn(method.getReturnType());
+        }
+    }
+
+    void moveTo(Location to) {
+        location.setX(to.getX());
+        location.setY(to.getY());
+        location.setZ(to.getZ());
+        location.setYaw(to.getYaw());
+        location.setPitch(to.getPitch());
+    }
+
+    private Object flag(String getter, Class<?> type) {
+        Object value = flags.get(flagName(getter));
+        if (value != null) {
+            return value;
+        }
+        // Mobs have AI and are aware unless told otherwise
+        return type == boolean.class ? (getter.equals("hasAI") || getter.equals("isAware")
+                || getter.equals("hasGravity") || getter.equals("isCollidable")) : null;
+    }
+
+    private static String flagName(String method) {
+        if (method.startsWith("set") || method.startsWith("has")) {
+            return method.substring(3);
+        }
+        if (method.startsWith("is")) {
+            return method.substring(2);
+        }
+        if (method.startsWith("get")) {
+            return method.substring(3);
+        }
+        return method;
+    }
+
+    private AttributeInstance attribute(Attribute attribute) {
+        double[] value = attributes.computeIfAbsent(attribute, k -> new double[]{0.0});
+        return (AttributeInstance) Proxy.newProxyInstance(SimEntity.class.getClassLoader(),
+                new Class<?>[]{AttributeInstance.class}, (self, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAttribute":
+                            return attribute;
+                        case "getBaseValue":
+                        case "getValue":
+                        case "getDefaultValue":
+                            return value[0];
+                        case "setBaseValue":
+                            value[0] = (double) args[0];
+                            if (attribute == Attribute.GENERIC_MAX_HEALTH) {
+                                health = Math.min(health, value[0]);
+                            }
+                            return null;
+                        case "getModifiers":
+                            return Collections.emptyList();
+                        case "hashCode":
+                            return System.identityHashCode(self);
+                        case "equals":
+                            return self == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private PersistentDataContainer persistentDataContainer() {
+        return (PersistentDataContainer) Proxy.newProxyInstance(SimEntity.class.getClassLoader(),
+                new Class<?>[]{PersistentDataContainer.class}, (self, method, args) -> {
+                    switch (method.getName()) {
+                        case "set":
+                            persistentData.put((NamespacedKey) args[0], args[2]);
+                            return null;
+                        case "get":
+                            return persistentData.get(args[0]);
+                        case "getOrDefault":
+                            return persistentData.getOrDefault(args[0], args[2]);
+                        case "has":
+                            return persistentData.containsKey(args[0]);
+                        case "remove":
+                            persistentData.remove(args[0]);
+                            return null;
+                        case "getKeys":
+                            return new HashSet<>(persistentData.keySet());
+                        case "isEmpty":
+                            return persistentData.isEmpty();
+                        case "hashCode":
+                            return System.identityHashCode(self);
+                        case "equals":
+                            return self == args[0];
+                        default:
+                            return HeadlessServer.emptyOrStandIn(method.getReturnType());
+                    }
+                });
+    }
+
+    /**
+     * The grid the entity stands in
+     */
+    GridWorld getGrid() {
+        return world;
+    }
+}
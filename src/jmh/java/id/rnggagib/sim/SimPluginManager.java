@@ -0,0 +1,119 @@
+package id.rnggagib.sim;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A plugin manager that delivers events to registered listeners, in priority order,
+ * measuring each handler against its listener's subsystem
+ */
+public class SimPluginManager implements InvocationHandler {
+    private final SimProfiler profiler;
+    private final PluginManager pluginManager;
+    private final List<Handler> handlers = new ArrayList<>();
+    private final Set<String> enabledPlugins = new HashSet<>();
+    private long eventCount = 0L;
+
+    public SimPluginManager(SimProfiler profiler, String... enabledPlugins) {
+        this.profiler = profiler;
+        this.enabledPlugins.addAll(List.of(enabledPlugins));
+        this.pluginManager = (PluginManager) Proxy.newProxyInstance(SimPluginManager.class.getClassLoader(),
+                new Class<?>[]{PluginManager.class}, this);
+    }
+
+    public PluginManager asPluginManager() {
+        return pluginManager;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    public int getListenerCount() {
+        return handlers.size();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "registerEvents":
+                register((Listener) args[0]);
+                return null;
+            case "callEvent":
+                call((Event) args[0]);
+                return null;
+            case "isPluginEnabled":
+                return args[0] instanceof String && enabledPlugins.contains(args[0]);
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "SimPluginManager";
+            default:
+                Class<?> returns = method.getReturnType();
+                return returns == boolean.class ? false : null;
+        }
+    }
+
+    private void register(Listener listener) {
+        for (Method method : listener.getClass().getMethods()) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation == null || method.getParameterCount() != 1
+                    || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                continue;
+            }
+            handlers.add(new Handler(listener, method, annotation));
+        }
+        handlers.sort(Comparator.comparingInt(handler -> handler.annotation.priority().getSlot()));
+    }
+
+    private void call(Event event) {
+        eventCount++;
+        for (Handler handler : new ArrayList<>(handlers)) {
+            if (!handler.eventType.isInstance(event)) {
+                continue;
+            }
+            if (handler.annotation.ignoreCancelled() && event instanceof Cancellable && ((Cancellable) event).isCancelled()) {
+                continue;
+            }
+            profiler.run(SimProfiler.subsystemOf(handler.listener), () -> {
+                try {
+                    handler.method.invoke(handler.listener, event);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                } catch (InvocationTargetException e) {
+                    System.err.println("Listener " + handler.method + " failed: " + e.getCause());
+                    e.getCause().printStackTrace();
+                }
+            });
+        }
+    }
+
+    private static class Handler {
+        final Listener listener;
+        final Method method;
+        final EventHandler annotation;
+        final Class<?> eventType;
+
+        Handler(Listener listener, Method method, EventHandler annotation) {
+            this.listener = listener;
+            this.method = method;
+            this.annotation = annotation;
+            this.eventType = method.getParameterTypes()[0];
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package id.rnggagib.sim;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Time and allocations per subsystem per tick.
+ * Measurements nest: work measured inside another measurement counts only for the inner subsystem,
+ * so the per-subsystem numbers of a tick add up to the whole tick.
+ */
+public class SimProfiler {
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<String, Subsystem> subsystems = new LinkedHashMap<>();
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private final Thread mainThread = Thread.currentThread();
+    private int ticks = 0;
+
+    /**
+     * Run work on the main thread as part of a subsystem's share of the tick
+     */
+    public void run(String subsystem, Runnable work) {
+        measure(subsystem, () -> {
+            work.run();
+            return true;
+        });
+    }
+
+    /**
+     * Run work on the main thread as part of a subsystem's share of the tick
+     * @return What the work returned
+     */
+    public boolean measure(String subsystem, BooleanSupplier work) {
+        if (Thread.currentThread() != mainThread) {
+            // Worker threads aren't part of the tick
+            return work.getAsBoolean();
+        }
+
+        Frame frame = new Frame(subsystem(subsystem), System.nanoTime(), threads.getCurrentThreadAllocatedBytes());
+        stack.push(frame);
+        try {
+            return work.getAsBoolean();
+        } finally {
+            stack.pop();
+            long nanos = System.nanoTime() - frame.startNanos;
+            long bytes = threads.getCurrentThreadAllocatedBytes() - frame.startBytes;
+            frame.subsystem.tickNanos += nanos - frame.childNanos;
+            frame.subsystem.tickBytes += bytes - frame.childBytes;
+            frame.subsystem.tickRuns++;
+
+            Frame parent = stack.peek();
+            if (parent != null) {
+                parent.childNanos += nanos;
+                parent.childBytes += bytes;
+            }
+        }
+    }
+
+    /**
+     * Move time already counted this tick from one subsystem to another, for work that is only timed
+     * from the inside, such as the AI budget draining its jobs within the tick engine
+     */
+    public void reattribute(String from, String to, long nanos, int runs) {
+        Subsystem source = subsystem(from);
+        long moved = Math.min(nanos, source.tickNanos);
+        source.tickNanos -= moved;
+        Subsystem target = subsystem(to);
+        target.tickNanos += moved;
+        target.tickRuns += runs;
+    }
+
+    /**
+     * Close the current tick, recording every subsystem's share of it
+     */
+    public void endTick() {
+        for (Subsystem subsystem : subsystems.values()) {
+            subsystem.record(ticks);
+        }
+        ticks++;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public List<Subsystem> getSubsystems() {
+        return new ArrayList<>(subsystems.values());
+    }
+
+    /**
+     * Name of the subsystem a piece of work belongs to: the top-level class that created it
+     */
+    public static String subsystemOf(Object work) {
+        String name = work.getClass().getName();
+        int nested = name.indexOf('$');
+        if (nested >= 0) {
+            name = name.substring(0, nested);
+        }
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private Subsystem subsystem(String name) {
+        return subsystems.computeIfAbsent(name, Subsystem::new);
+    }
+
+    private static class Frame {
+        final Subsystem subsystem;
+        final long startNanos;
+        final long startBytes;
+        long childNanos = 0L;
+        long childBytes = 0L;
+
+        Frame(Subsystem subsystem, long startNanos, long startBytes) {
+            this.subsystem = subsystem;
+            this.startNanos = startNanos;
+            this.startBytes = startBytes;
+        }
+    }
+
+    /**
+     * Per-tick history of one subsystem
+     */
+    public static class Subsystem {
+        private final String name;
+        private long[] nanos = new long[1024];
+        private long[] bytes = new long[1024];
+        private int recorded = 0;
+        private long totalRuns = 0L;
+        private long tickNanos = 0L;
+        private long tickBytes = 0L;
+        private long tickRuns = 0L;
+
+        Subsystem(String name) {
+            this.name = name;
+        }
+
+        void record(int tick) {
+            // Subsystems first seen late were idle in the ticks before
+            if (tick >= nanos.length) {
+                nanos = Arrays.copyOf(nanos, Math.max(nanos.length * 2, tick + 1));
+                bytes = Arrays.copyOf(bytes, nanos.length);
+            }
+            nanos[tick] = tickNanos;
+            bytes[tick] = tickBytes;
+            recorded = tick + 1;
+            totalRuns += tickRuns;
+            tickNanos = 0L;
+            tickBytes = 0L;
+            tickRuns = 0L;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Time in a tick at a percentile, over the given number of ticks
+         * @param percentile 0 to 100
+         */
+        public double getMillisAt(double percentile, int ticks) {
+            long[] sorted = Arrays.copyOf(nanos, ticks);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * ticks) - 1;
+            return sorted[Math.max(0, Math.min(ticks - 1, index))] / 1_000_000.0;
+        }
+
+        public double getMeanMillis(int ticks) {
+            long total = 0L;
+            for (int i = 0; i < Math.min(recorded, ticks); i++) {
+                total += nanos[i];
+            }
+            return total / 1_000_000.0 / ticks;
+        }
+
+        public double getBytesPerTick(int ticks) {
+            long total = 0L;
+            for (int i = 0; i < Math.min(recorded, ticks); i++) {
+                total += bytes[i];
+            }
+            return (double) total / ticks;
+        }
+
+        /**
+         * Time spent in one tick, in nanoseconds
+         */
+        public long getNanosAt(int tick) {
+            return tick < recorded ? nanos[tick] : 0L;
+        }
+
+        public long getTotalRuns() {
+            return totalRuns;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package id.rnggagib.sim;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A Bukkit scheduler driven one tick at a time by the simulation.
+ * Tasks run in the order they come due, each measured against the subsystem that scheduled it.
+ * Async tasks run on the main thread like sync ones, so their cost shows up in the tick.
+ */
+public class SimScheduler implements InvocationHandler {
+    private final SimProfiler profiler;
+    private final BukkitScheduler scheduler;
+    private final Map<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final PriorityQueue<Task> due = new PriorityQueue<>((a, b) -> a.nextTick != b.nextTick
+            ? Long.compare(a.nextTick, b.nextTick) : Integer.compare(a.id, b.id));
+    // Tasks scheduled from worker threads, moved onto the queue at the start of the next tick
+    private final ConcurrentLinkedQueue<Task> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private volatile long currentTick = 0L;
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private long executedCount = 0L;
+    private int peakEntries = 0;
+
+    public SimScheduler(SimProfiler profiler) {
+        this.profiler = profiler;
+        this.scheduler = (BukkitScheduler) Proxy.newProxyInstance(SimScheduler.class.getClassLoader(),
+                new Class<?>[]{BukkitScheduler.class}, this);
+    }
+
+    public BukkitScheduler asScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Run every task that is due this tick
+     */
+    public void tick() {
+        currentTick++;
+        Task added;
+        while ((added = incoming.poll()) != null) {
+            due.add(added);
+        }
+        peakEntries = Math.max(peakEntries, tasks.size());
+
+        while (!due.isEmpty() && due.peek().nextTick <= currentTick) {
+            Task task = due.poll();
+            if (task.cancelled) {
+                continue;
+            }
+
+            executedCount++;
+            try {
+                profiler.run(task.subsystem, task.work);
+            } catch (Exception e) {
+                System.err.println("Task " + task.id + " of " + task.subsystem + " failed: " + e);
+                e.printStackTrace();
+            }
+
+            if (task.period > 0 && !task.cancelled) {
+                task.nextTick = currentTick + task.period;
+                due.add(task);
+            } else {
+                task.cancelled = true;
+                tasks.remove(task.id);
+            }
+        }
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Number of tasks currently scheduled, repeating or waiting
+     */
+    public int getEntryCount() {
+        return tasks.size();
+    }
+
+    public int getPeakEntryCount() {
+        return peakEntries;
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    public long getExecutedCount() {
+        return executedCount;
+    }
+
+    /**
+     * Scheduled entries grouped by the subsystem that created them
+     */
+    public Map<String, Integer> getEntriesBySubsystem() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Task task : tasks.values()) {
+            counts.merge(task.subsystem, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        switch (name) {
+            case "runTask":
+            case "runTaskAsynchronously":
+                return schedule(method, (Plugin) args[0], args[1], 0L, -1L);
+            case "runTaskLater":
+            case "runTaskLaterAsynchronously":
+                return schedule(method, (Plugin) args[0], args[1], (long) args[2], -1L);
+            case "runTaskTimer":
+            case "runTaskTimerAsynchronously":
+                return schedule(method, (Plugin) args[0], args[1], (long) args[2], (long) args[3]);
+            case "scheduleSyncDelayedTask":
+            case "scheduleAsyncDelayedTask":
+                return schedule(method, (Plugin) args[0], args[1], args.length > 2 ? (long) args[2] : 0L, -1L);
+            case "scheduleSyncRepeatingTask":
+            case "scheduleAsyncRepeatingTask":
+                return schedule(method, (Plugin) args[0], args[1], (long) args[2], (long) args[3]);
+            case "callSyncMethod":
+                return call((Callable<?>) args[1]);
+            case "cancelTask":
+                cancel((int) args[0]);
+                return null;
+            case "cancelTasks":
+                for (Task task : new ArrayList<>(tasks.values())) {
+                    cancel(task.id);
+                }
+                return null;
+            case "isCurrentlyRunning":
+                return false;
+            case "isQueued":
+                Task queued = tasks.get((int) args[0]);
+                return queued != null && !queued.cancelled;
+            case "getPendingTasks":
+                List<BukkitTask> pending = new ArrayList<>();
+                for (Task task : tasks.values()) {
+                    pending.add(task.handle);
+                }
+                return pending;
+            case "getActiveWorkers":
+                return Collections.emptyList();
+            case "getMainThreadExecutor":
+                Plugin owner = (Plugin) args[0];
+                return (Executor) command -> schedule(method, owner, command, 0L, -1L);
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "SimScheduler";
+            default:
+                throw new UnsupportedOperationException("SimScheduler." + name);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object schedule(Method method, Plugin owner, Object work, long delay, long period) {
+        Task task = new Task(nextId.getAndIncrement(), owner, period);
+        if (work instanceof Runnable) {
+            task.work = (Runnable) work;
+            task.subsystem = SimProfiler.subsystemOf(work);
+        } else {
+            Consumer<BukkitTask> consumer = (Consumer<BukkitTask>) work;
+            task.work = () -> consumer.accept(task.handle);
+            task.subsystem = SimProfiler.subsystemOf(consumer);
+        }
+        // As on a server, nothing scheduled now runs before the next tick
+        task.nextTick = currentTick + Math.max(1L, delay);
+        task.handle = handle(task);
+
+        tasks.put(task.id, task);
+        incoming.add(task);
+        scheduledCount.incrementAndGet();
+
+        Class<?> returns = method.getReturnType();
+        if (returns == int.class) {
+            return task.id;
+        }
+        return returns == BukkitTask.class ? task.handle : null;
+    }
+
+    private void cancel(int id) {
+        Task task = tasks.remove(id);
+        if (task != null) {
+            task.cancelled = true;
+        }
+    }
+
+    private <T> CompletableFuture<T> call(Callable<T> callable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(callable.call());
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private BukkitTask handle(Task task) {
+        return (BukkitTask) Proxy.newProxyInstance(SimScheduler.class.getClassLoader(), new Class<?>[]{BukkitTask.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getTaskId":
+                            return task.id;
+                        case "getOwner":
+                            return task.owner;
+                        case "isSync":
+                            return true;
+                        case "isCancelled":
+                            return task.cancelled;
+                        case "cancel":
+                            cancel(task.id);
+                            return null;
+                        case "hashCode":
+                            return task.id;
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return "SimTask{" + task.id + ", " + task.subsystem + "}";
+                    }
+                });
+    }
+
+    private static class Task {
+        final int id;
+        final Plugin owner;
+        final long period;
+        Runnable work;
+        String subsystem;
+        BukkitTask handle;
+        volatile long nextTick;
+        volatile boolean cancelled = false;
+
+        Task(int id, Plugin owner, long period) {
+            this.id = id;
+            this.owner = owner;
+            this.period = period;
+        }
+    }
+}
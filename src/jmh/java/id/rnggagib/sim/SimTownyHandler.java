@@ -0,0 +1,94 @@
+package id.rnggagib.sim;
+
+import com.palmergames.bukkit.towny.exceptions.NotRegisteredException;
+import com.palmergames.bukkit.towny.object.Town;
+import com.palmergames.bukkit.towny.object.TownBlock;
+import id.rnggagib.TownyRaider;
+import id.rnggagib.bench.TownyStandIns;
+import id.rnggagib.towny.TownyHandler;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Towny lookups answered from a stand-in town and its claims, with the simulated defenders as the
+ * town's online members
+ */
+public class SimTownyHandler extends TownyHandler {
+    private final TownyStandIns.StandInTown town;
+    private final TownyStandIns.StandInWorld townyWorld;
+    private final List<Player> members = new ArrayList<>();
+    private long notifications = 0;
+
+    public SimTownyHandler(TownyRaider plugin, TownyStandIns.StandInTown town, TownyStandIns.StandInWorld townyWorld) {
+        super(plugin);
+        this.town = town;
+        this.townyWorld = townyWorld;
+    }
+
+    public void addMember(Player player) {
+        members.add(player);
+    }
+
+    public long getNotificationCount() {
+        return notifications;
+    }
+
+    @Override
+    public List<Town> getEligibleTownsForRaid() {
+        return Collections.singletonList(town);
+    }
+
+    @Override
+    public List<Player> getOnlineTownMembers(Town town) {
+        if (town != this.town) {
+            return Collections.emptyList();
+        }
+        List<Player> online = new ArrayList<>(members.size());
+        for (Player player : members) {
+            if (player.isValid()) {
+                online.add(player);
+            }
+        }
+        return online;
+    }
+
+    @Override
+    public void notifyTownMembers(Town town, String messageKey, Map<String, String> placeholders) {
+        notifications++;
+        super.notifyTownMembers(town, messageKey, placeholders);
+    }
+
+    @Override
+    public Town getTownByName(String townName) {
+        return town.getName().equalsIgnoreCase(townName) ? town : null;
+    }
+
+    @Override
+    public boolean isTownyEnabled() {
+        return true;
+    }
+
+    @Override
+    public Town getTownAt(Location location) {
+        return getTownAtLocation(location);
+    }
+
+    @Override
+    public Town getTownAtLocation(Location location) {
+        if (location == null || location.getWorld() == null
+                || !location.getWorld().getName().equals(townyWorld.getName())) {
+            return null;
+        }
+        try {
+            TownBlock block = townyWorld.getTownBlock(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+            return block.getTownOrNull();
+        } catch (NotRegisteredException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package id.rnggagib.sim;
+
+import id.rnggagib.bench.GridWorld;
+import id.rnggagib.bench.HeadlessServer;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.Consumer;
+import org.bukkit.util.Vector;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A grid world with entities in it.
+ * Spawning, entity lookups, damage and death go through here, and {@link #tick()} moves every entity the way
+ * the server roughly would: velocity is applied with friction, entities step up single blocks and stop at
+ * walls, and mobs with a target walk toward it.
+ */
+public class SimWorld extends GridWorld {
+    private final Map<UUID, SimEntity> entities = new LinkedHashMap<>();
+    private long particles = 0;
+    private long sounds = 0;
+    private long deaths = 0;
+
+    public SimWorld(String name, int sizeX, int sizeZ, int minHeight, int maxHeight) {
+        super(name, sizeX, sizeZ, minHeight, maxHeight);
+    }
+
+    /**
+     * Add an entity of a type, as World.spawnEntity does but without spawn events
+     */
+    public SimEntity spawn(Location location, EntityType type) {
+        Class<? extends Entity> entityClass = type.getEntityClass();
+        if (entityClass == null || !entityClass.isInterface()) {
+            entityClass = LivingEntity.class;
+        }
+        Location at = location.clone();
+        at.setWorld(getWorld());
+        SimEntity entity = new SimEntity(this, type, entityClass, at);
+        entities.put(entity.getUniqueId(), entity);
+        return entity;
+    }
+
+    /**
+     * Add a player, who is also made known to the server
+     */
+    public SimEntity spawnPlayer(Location location, String name) {
+        SimEntity player = spawn(location, EntityType.PLAYER);
+        player.name = name;
+        HeadlessServer.addPlayer((Player) player.getEntity());
+        return player;
+    }
+
+    public SimEntity getEntity(UUID id) {
+        return entities.get(id);
+    }
+
+    public Collection<SimEntity> getSimEntities() {
+        return Collections.unmodifiableCollection(entities.values());
+    }
+
+    public long getParticleCount() {
+        return particles;
+    }
+
+    public long getSoundCount() {
+        return sounds;
+    }
+
+    public long getDeathCount() {
+        return deaths;
+    }
+
+    /**
+     * Move every entity for one tick
+     */
+    public void tick() {
+        for (SimEntity entity : new ArrayList<>(entities.values())) {
+            if (!entity.isAlive()) {
+                continue;
+            }
+            Vector velocity = entity.velocity;
+            if (entity.type != EntityType.PLAYER && entity.target != null && entity.target.isValid()) {
+                // Walk toward the target the way the vanilla follow goal would
+                Vector toward = entity.target.getLocation().toVector().subtract(entity.location.toVector()).setY(0);
+                if (toward.lengthSquared() > 2.0) {
+                    velocity.add(toward.normalize().multiply(entity.getSpeed() * 0.5));
+                }
+            }
+            move(entity, velocity.getX(), velocity.getZ());
+            velocity.multiply(0.6);
+            if (velocity.lengthSquared() < 1.0E-4) {
+                velocity.zero();
+            }
+        }
+        entities.values().removeIf(entity -> entity.removed);
+    }
+
+    private void move(SimEntity entity, double dx, double dz) {
+        if (dx == 0 && dz == 0) {
+            return;
+        }
+        // Slide along walls by dropping the blocked part of the move
+        if (!step(entity, dx, dz) && !step(entity, dx, 0) && !step(entity, 0, dz)) {
+            entity.velocity.zero();
+            return;
+        }
+        entity.location.setYaw((float) Math.toDegrees(Math.atan2(-dx, dz)));
+        entity.onGround = true;
+    }
+
+    private boolean step(SimEntity entity, double dx, double dz) {
+        if (dx == 0 && dz == 0) {
+            return false;
+        }
+        Location from = entity.location;
+        double x = from.getX() + dx;
+        double z = from.getZ() + dz;
+        int feet = from.getBlockY();
+        int bx = Location.locToBlock(x);
+        int bz = Location.locToBlock(z);
+
+        int y;
+        if (isOpen(bx, feet, bz)) {
+            // Fall to the ground below
+            y = feet;
+            while (y > getMinHeight() + 1 && isOpen(bx, y - 1, bz)) {
+                y--;
+            }
+        } else if (isOpen(bx, feet + 1, bz)) {
+            // Step up one block
+            y = feet + 1;
+        } else {
+            return false;
+        }
+        from.setX(x);
+        from.setY(y);
+        from.setZ(z);
+        return true;
+    }
+
+    private boolean isOpen(int x, int y, int z) {
+        Material feet = getType(x, y, z);
+        Material head = getType(x, y + 1, z);
+        return feet != null && head != null && !feet.isSolid() && !head.isSolid();
+    }
+
+    /**
+     * Damage an entity, firing the damage event first and killing it if its health runs out
+     */
+    void damage(SimEntity entity, double amount, Entity damager) {
+        if (!entity.isAlive()) {
+            return;
+        }
+        EntityDamageEvent event = damager != null
+                ? new EntityDamageByEntityEvent(damager, entity.getEntity(), EntityDamageEvent.DamageCause.ENTITY_ATTACK, amount)
+                : new EntityDamageEvent(entity.getEntity(), EntityDamageEvent.DamageCause.CUSTOM, amount);
+        Bukkit.getPluginManager().callEvent(event);
+        if (event.isCancelled()) {
+            return;
+        }
+        entity.lastDamager = damager;
+        entity.health -= event.getFinalDamage();
+        if (damager != null) {
+            // A little knockback away from the attacker
+            Vector away = entity.location.toVector().subtract(damager.getLocation().toVector()).setY(0);
+            if (away.lengthSquared() > 0) {
+                entity.velocity.add(away.normalize().multiply(0.4
+                        * (1.0 - entity.getBase(Attribute.GENERIC_KNOCKBACK_RESISTANCE))));
+            }
+        }
+        if (entity.health <= 0) {
+            kill(entity, damager);
+        }
+    }
+
+    void kill(SimEntity entity, Entity killer) {
+        if (entity.dead) {
+            return;
+        }
+        entity.health = 0;
+        entity.dead = true;
+        deaths++;
+        if (killer != null) {
+            entity.lastDamager = killer;
+        }
+        if (entity.getEntity() instanceof LivingEntity && entity.type != EntityType.PLAYER) {
+            Bukkit.getPluginManager().callEvent(new EntityDeathEvent((LivingEntity) entity.getEntity(), new ArrayList<>()));
+        }
+        entity.removed = entity.type != EntityType.PLAYER;
+    }
+
+    void removeEntity(SimEntity entity) {
+        entity.removed = true;
+    }
+
+    /**
+     * Entities within a box around a location, except one
+     */
+    List<Entity> getNearbyEntities(Location center, double dx, double dy, double dz, SimEntity except) {
+        List<Entity> nearby = new ArrayList<>();
+        for (SimEntity entity : entities.values()) {
+            if (entity == except || !entity.isAlive()) {
+                continue;
+            }
+            Location at = entity.location;
+            if (Math.abs(at.getX() - center.getX()) <= dx && Math.abs(at.getY() - center.getY()) <= dy
+                    && Math.abs(at.getZ() - center.getZ()) <= dz) {
+                nearby.add(entity.getEntity());
+            }
+        }
+        return nearby;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Object handleWorldCall(World world, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "spawnEntity":
+                return spawn((Location) args[0], (EntityType) args[1]).getEntity();
+            case "spawn": {
+                EntityType type = typeOf((Class<? extends Entity>) args[1]);
+                Entity spawned = spawn((Location) args[0], type).getEntity();
+                if (args.length > 2 && args[2] instanceof Consumer) {
+                    ((Consumer<Entity>) args[2]).accept(spawned);
+                }
+                return spawned;
+            }
+            case "dropItem":
+            case "dropItemNaturally": {
+                SimEntity item = spawn((Location) args[0], EntityType.DROPPED_ITEM);
+                item.customName = ((ItemStack) args[1]).getType().name();
+                return item.getEntity();
+            }
+            case "getEntities":
+                return entitiesOf(Entity.class);
+            case "getLivingEntities":
+                return entitiesOf(LivingEntity.class);
+            case "getPlayers":
+                return entitiesOf(Player.class);
+            case "getEntitiesByClass":
+                return entitiesOf((Class<? extends Entity>) args[0]);
+            case "getNearbyEntities":
+                if (args.length >= 4 && args[0] instanceof Location) {
+                    return getNearbyEntities((Location) args[0], (double) args[1], (double) args[2], (double) args[3], null);
+                }
+                return UNHANDLED;
+            case "spawnParticle":
+                particles++;
+                return null;
+            case "playSound":
+                sounds++;
+                return null;
+            default:
+                return UNHANDLED;
+        }
+    }
+
+    private <T extends Entity> List<T> entitiesOf(Class<T> type) {
+        List<T> found = new ArrayList<>();
+        for (SimEntity entity : entities.values()) {
+            if (entity.isAlive() && type.isInstance(entity.getEntity())) {
+                found.add(type.cast(entity.getEntity()));
+            }
+        }
+        return found;
+    }
+
+    private static EntityType typeOf(Class<? extends Entity> entityClass) {
+        for (EntityType type : EntityType.values()) {
+            if (type.getEntityClass() == entityClass) {
+                return type;
+            }
+        }
+        return entityClass == Item.class ? EntityType.DROPPED_ITEM : EntityType.ZOMBIE;
+    }
+}
@@ -0,0 +1,58 @@
+package id.rnggagib.towny;
+
+import com.palmergames.bukkit.towny.object.Town;
+import id.rnggagib.bench.GridWorld;
+import id.rnggagib.bench.HeadlessPlugin;
+import id.rnggagib.bench.HeadlessServer;
+import id.rnggagib.bench.TownyStandIns;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Border detection and surface lookups over large synthetic towns
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TownBorderBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int claims;
+
+    private TownyHandler townyHandler;
+    private Town town;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        HeadlessPlugin plugin = HeadlessPlugin.create();
+
+        // One chunk of ground repeated under the whole town
+        GridWorld grid = GridWorld.flat("towns", 16, 16, 64).tiled();
+        HeadlessServer.addWorld(grid.getWorld());
+        town = TownyStandIns.town("Riverside", TownyStandIns.world("towns"), claims, 42L);
+
+        townyHandler = new TownyHandler(plugin);
+        plugin.setTownyHandler(townyHandler);
+    }
+
+    @Benchmark
+    public List<Location> getTownBorderPoints() {
+        return townyHandler.getTownBorderPoints(town, 1);
+    }
+}
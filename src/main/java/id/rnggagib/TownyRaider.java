@@ -1,7 +1,10 @@
 package id.rnggagib;
 
+import java.io.File;
 import java.util.logging.Logger;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
 
 import id.rnggagib.config.ConfigManager;
 import id.rnggagib.message.MessageManager;
@@ -10,14 +13,18 @@ import id.rnggagib.raid.RaidManager;
 import id.rnggagib.towny.TownyHandler;
 import id.rnggagib.entity.RaiderEntityManager;
 import id.rnggagib.entity.StealingManager;
+import id.rnggagib.entity.LootIndexManager;
 import id.rnggagib.entity.RaiderEntityListener;
 import id.rnggagib.effects.VisualEffectsManager;
 import id.rnggagib.protection.ProtectionManager;
 import id.rnggagib.persistence.PersistenceManager;
 import id.rnggagib.economy.EconomyManager;
 import id.rnggagib.entity.ai.coordination.RaiderCoordinationManager;
+import id.rnggagib.entity.ai.FlowFieldManager;
 import id.rnggagib.entity.ai.PathfindingManager;
+import id.rnggagib.entity.ai.pathfinding.AsyncPathService;
 import id.rnggagib.entity.ai.retreat.StrategicRetreatManager;
+import id.rnggagib.entity.tick.RaidTickEngine;
 
 public class TownyRaider extends JavaPlugin {
     private static final Logger LOGGER = Logger.getLogger("townyraider");
@@ -37,6 +44,21 @@ public class TownyRaider extends JavaPlugin {
     private PathfindingManager pathfindingManager;
     private StrategicRetreatManager retreatManager;
     private RaiderCoordinationManager coordinationManager;
+    private RaidTickEngine raidTickEngine;
+    private AsyncPathService pathService;
+    private FlowFieldManager flowFieldManager;
+    private LootIndexManager lootIndexManager;
+
+    public TownyRaider() {
+        super();
+    }
+    
+    /**
+     * Constructor for running outside a server, such as in the benchmarks
+     */
+    protected TownyRaider(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
 
     @Override
     public void onEnable() {
@@ -50,6 +72,12 @@ public class TownyRaider extends JavaPlugin {
         
         persistenceManager = new PersistenceManager(this);
         
+        // Single tick loop for all per-raider AI, movement and effects
+        raidTickEngine = new RaidTickEngine(this);
+        
+        // Worker pool for path searches over chunk snapshots
+        pathService = new AsyncPathService(this);
+        
         raiderEntityManager = new RaiderEntityManager(this);
         stealingManager = new StealingManager(this);
         visualEffectsManager = new VisualEffectsManager(this);
@@ -61,6 +89,7 @@ public class TownyRaider extends JavaPlugin {
             raidManager = new RaidManager(this);
             
             getServer().getPluginManager().registerEvents(new RaiderEntityListener(this), this);
+            getServer().getPluginManager().registerEvents(townyHandler.getClaimCache(), this);
             stealingManager.startStealingTasks();
             
             LOGGER.info("Towny found and hooked successfully");
@@ -71,6 +100,17 @@ public class TownyRaider extends JavaPlugin {
         // Initialize PathfindingManager
         pathfindingManager = new PathfindingManager(this);
         
+        // Keep the shared walkability cache in step with block changes
+        getServer().getPluginManager().registerEvents(pathfindingManager.getPathfinder().getWalkability(), this);
+        
+        // Shared per-raid flow fields toward chests, exits and squad leaders
+        flowFieldManager = new FlowFieldManager(this, pathfindingManager.getPathfinder());
+        getServer().getPluginManager().registerEvents(flowFieldManager, this);
+        
+        // Per-raid index of the stealable blocks in the raided town
+        lootIndexManager = new LootIndexManager(this);
+        getServer().getPluginManager().registerEvents(lootIndexManager, this);
+        
         // Initialize StrategicRetreatManager
         retreatManager = new StrategicRetreatManager(this, pathfindingManager);
         
@@ -90,10 +130,18 @@ public class TownyRaider extends JavaPlugin {
             raidManager.shutdown();
         }
         
+        if (persistenceManager != null) {
+            persistenceManager.shutdown();
+        }
+        
         if (protectionManager != null) {
             protectionManager.cleanup();
         }
         
+        if (townyHandler != null) {
+            townyHandler.getClaimCache().clear();
+        }
+        
         if (visualEffectsManager != null) {
             visualEffectsManager.cleanup();
         }
@@ -102,6 +150,26 @@ public class TownyRaider extends JavaPlugin {
             raiderEntityManager.removeAllRaidMobs();
         }
         
+        if (raidTickEngine != null) {
+            raidTickEngine.shutdown();
+        }
+        
+        if (pathService != null) {
+            pathService.shutdown();
+        }
+        
+        if (flowFieldManager != null) {
+            flowFieldManager.clear();
+        }
+        
+        if (lootIndexManager != null) {
+            lootIndexManager.clear();
+        }
+        
+        if (pathfindingManager != null) {
+            pathfindingManager.getPathfinder().getWalkability().clear();
+        }
+        
         if (economyManager != null) {
             economyManager.cleanup();
         }
@@ -177,9 +245,29 @@ public class TownyRaider extends JavaPlugin {
         return coordinationManager;
     }
     
+    public RaidTickEngine getRaidTickEngine() {
+        return raidTickEngine;
+    }
+    
+    public AsyncPathService getPathService() {
+        return pathService;
+    }
+    
+    public FlowFieldManager getFlowFieldManager() {
+        return flowFieldManager;
+    }
+    
+    public LootIndexManager getLootIndexManager() {
+        return lootIndexManager;
+    }
+    
     public void reloadPlugin() {
         configManager.reloadConfig();
         
+        if (protectionManager != null) {
+            protectionManager.refreshRaidZones();
+        }
+        
         if (raidManager != null) {
             raidManager.startRaidScheduler();
         }
@@ -333,6 +333,84 @@ public class ConfigManager {
         return defenderCompensationEnabled;
     }
 
+    /**
+     * Get the main-thread time budget for raider AI work per tick
+     * @return Budget in milliseconds
+     */
+    public double getAiTickBudgetMs() {
+        return Math.max(0.1, config.getDouble("performance.ai-tick-budget-ms", 2.0));
+    }
+
+    /**
+     * Get the number of worker threads used for asynchronous pathfinding
+     */
+    public int getPathWorkerThreads() {
+        return Math.max(1, config.getInt("performance.path-worker-threads", 2));
+    }
+
+    /**
+     * Get the number of recently found paths kept for reuse
+     */
+    public int getPathCacheSize() {
+        return Math.max(0, config.getInt("performance.path-cache-size", 256));
+    }
+
+    /**
+     * Get how long a found path may be reused, in milliseconds
+     */
+    public long getPathCacheTtlMs() {
+        return Math.max(0L, config.getLong("performance.path-cache-ttl-ms", 3000L));
+    }
+
+    /**
+     * Get the size at which a raid history segment is closed and a new one started, in kilobytes
+     */
+    public int getHistorySegmentMaxKb() {
+        return Math.max(1, config.getInt("raids.history.segment-max-kb", 1024));
+    }
+
+    /**
+     * Get how many days raid history is kept, or 0 to keep it forever
+     */
+    public int getHistoryRetentionDays() {
+        return Math.max(0, config.getInt("raids.history.retention-days", 365));
+    }
+
+    /**
+     * Check if distance-based AI level of detail is enabled
+     */
+    public boolean isAiLodEnabled() {
+        return config.getBoolean("performance.lod.enabled", true);
+    }
+
+    /**
+     * Get the distance to the nearest player within which raiders get full AI detail
+     */
+    public double getAiLodFullRange() {
+        return config.getDouble("performance.lod.full-range", 32.0);
+    }
+
+    /**
+     * Get the distance to the nearest player beyond which raiders go dormant
+     */
+    public double getAiLodReducedRange() {
+        return Math.max(getAiLodFullRange(), config.getDouble("performance.lod.reduced-range", 64.0));
+    }
+
+    /**
+     * Get how much task intervals are stretched for raiders at reduced detail
+     */
+    public int getAiLodReducedMultiplier() {
+        return Math.max(1, config.getInt("performance.lod.reduced-interval-multiplier", 2));
+    }
+
+    /**
+     * Get how much task intervals are stretched for dormant raiders
+     */
+    public int getAiLodDormantMultiplier() {
+        return Math.max(1, config.getInt("performance.lod.dormant-interval-multiplier", 8));
+    }
+
     /**
      * Check if bridge building is enabled
      */
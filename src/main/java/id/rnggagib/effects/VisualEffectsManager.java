@@ -24,6 +24,7 @@ import com.palmergames.bukkit.towny.object.Town;
 import net.kyori.adventure.text.Component;
 
 import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.tick.AiDetailLevel;
 import id.rnggagib.raid.ActiveRaid;
 
 public class VisualEffectsManager {
@@ -170,11 +171,16 @@ public class VisualEffectsManager {
         
         if (location == null || location.getWorld() == null) return;
         
+        // Skip or thin out particles nobody is close enough to see
+        AiDetailLevel level = plugin.getRaidTickEngine().getDetailLevel(location);
+        if (level == AiDetailLevel.DORMANT) return;
+        int density = level == AiDetailLevel.FULL ? 1 : 2;
+        
         // Dust particles in a circular pattern
         location.getWorld().spawnParticle(
             Particle.REDSTONE, 
             location.clone().add(0, 1, 0), 
-            30, 
+            30 / density, 
             0.5, 0.5, 0.5, 
             new Particle.DustOptions(Color.RED, 1.0f)
         );
@@ -183,7 +189,7 @@ public class VisualEffectsManager {
         location.getWorld().spawnParticle(
             Particle.SMOKE_NORMAL, 
             location.clone().add(0, 1, 0), 
-            20, 
+            20 / density, 
             0.3, 0.3, 0.3, 
             0.05
         );
@@ -213,6 +219,11 @@ public class VisualEffectsManager {
                 }
                 
                 for (Location point : borderPoints) {
+                    // Border segments with no player in view range are skipped
+                    if (plugin.getRaidTickEngine().getDetailLevel(point) == AiDetailLevel.DORMANT) {
+                        continue;
+                    }
+                    
                     // Using end rod particles instead of barrier which might not be available
                     point.getWorld().spawnParticle(
                         Particle.END_ROD,
@@ -0,0 +1,115 @@
+package id.rnggagib.entity;
+
+import id.rnggagib.entity.ai.pathfinding.BlockKey;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the blocks of a set of materials in chunk snapshots, skipping what can't hold any of them.
+ * A chunk whose block palettes hold none of the materials isn't read at all, and all-air sections are skipped
+ * in the rest. Only materials without block states can be looked up in the palettes, as a palette holds
+ * exact states; if any material has states, such as a chest's facing, every chunk is read, still skipping air.
+ * Create on the main thread; scanning is safe off it.
+ */
+public class ChunkMaterialScanner {
+    private static final int SECTION_HEIGHT = 16;
+
+    private final Set<Material> targets = EnumSet.noneOf(Material.class);
+    // The single state of each target without block states
+    private final List<BlockData> paletteTargets = new ArrayList<>();
+    private boolean checkPalettes = true;
+
+    public ChunkMaterialScanner(Set<Material> materials) {
+        for (Material material : materials) {
+            // Item-only materials are never placed
+            if (!material.isBlock() || material.isAir()) {
+                continue;
+            }
+            targets.add(material);
+            BlockData data = material.createBlockData();
+            if (data.getAsString().indexOf('[') >= 0) {
+                checkPalettes = false;
+            } else {
+                paletteTargets.add(data);
+            }
+        }
+    }
+
+    /**
+     * Whether there's nothing to find
+     */
+    public boolean isEmpty() {
+        return targets.isEmpty();
+    }
+
+    /**
+     * Whether a material is one of the scanned for
+     */
+    public boolean isTarget(Material material) {
+        return targets.contains(material);
+    }
+
+    /**
+     * Find the target blocks in one chunk
+     * @return Packed block positions, each followed by the block type's ordinal
+     */
+    public long[] scan(ChunkSnapshot snapshot, int minY, int maxY) {
+        Set<Material> present = presentTargets(snapshot);
+        if (present.isEmpty()) {
+            return new long[0];
+        }
+
+        long[] found = new long[32];
+        int count = 0;
+        int baseX = snapshot.getX() << 4;
+        int baseZ = snapshot.getZ() << 4;
+        int sections = (maxY - minY + SECTION_HEIGHT - 1) / SECTION_HEIGHT;
+        for (int section = 0; section < sections; section++) {
+            if (snapshot.isSectionEmpty(section)) {
+                continue;
+            }
+            int fromY = minY + section * SECTION_HEIGHT;
+            int toY = Math.min(fromY + SECTION_HEIGHT, maxY);
+            for (int y = fromY; y < toY; y++) {
+                for (int x = 0; x < 16; x++) {
+                    for (int z = 0; z < 16; z++) {
+                        Material type = snapshot.getBlockType(x, y, z);
+                        if (!present.contains(type)) {
+                            continue;
+                        }
+                        if (count + 2 > found.length) {
+                            found = Arrays.copyOf(found, found.length * 2);
+                        }
+                        found[count++] = BlockKey.pack(baseX + x, y, baseZ + z);
+                        found[count++] = type.ordinal();
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * The targets a chunk's palettes may hold, or all targets when the palettes can't tell
+     */
+    private Set<Material> presentTargets(ChunkSnapshot snapshot) {
+        if (!checkPalettes) {
+            return targets;
+        }
+        Set<Material> present = EnumSet.noneOf(Material.class);
+        for (BlockData data : paletteTargets) {
+            if (snapshot.contains(data)) {
+                present.add(data.getMaterial());
+            }
+        }
+        return present;
+    }
+}
@@ -0,0 +1,136 @@
+package id.rnggagib.entity;
+
+import id.rnggagib.entity.ai.pathfinding.BlockKey;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Positions of loot blocks in one world, such as stealable blocks or containers, for nearest and range queries
+ * without scanning blocks.
+ * The positions and their types are kept in a {@link PointIndex}, so queries stay logarithmic while the town
+ * changes under the raid, and raiders can claim a block so the others go for another. Main thread only.
+ */
+public class LootBlockIndex {
+    private final World world;
+    private final PointIndex<Material> points = new PointIndex<>();
+
+    public LootBlockIndex(World world) {
+        this.world = world;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Number of blocks indexed
+     */
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * Get the indexed type at a position
+     * @return The type, or null if nothing is indexed there
+     */
+    public Material getType(int x, int y, int z) {
+        return points.get(x, y, z);
+    }
+
+    /**
+     * Record a block at a position, replacing whatever was indexed there
+     */
+    public void put(int x, int y, int z, Material type) {
+        points.put(x, y, z, type);
+    }
+
+    /**
+     * Forget the block at a position, and any claim on it
+     */
+    public void remove(int x, int y, int z) {
+        points.remove(x, y, z);
+    }
+
+    /**
+     * Find the closest indexed blocks to a position
+     * @param k Most blocks to return
+     * @param maxDistance Ignore blocks further away than this
+     * @param types Only blocks of these types, or null for any indexed block
+     * @return Blocks ordered from nearest
+     */
+    public List<Block> nearest(int x, int y, int z, int k, double maxDistance, Set<Material> types) {
+        return toBlocks(points.nearest(x, y, z, k, maxDistance, types == null ? null : types::contains, null));
+    }
+
+    /**
+     * Find the closest indexed block of a type
+     * @return The block, or null if none is within range
+     */
+    public Block nearest(int x, int y, int z, double maxDistance, Material type) {
+        List<Block> found = nearest(x, y, z, 1, maxDistance, EnumSet.of(type));
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Find the closest block not claimed by another raider and claim it, giving up the raider's previous claim
+     * @return The block, or null if every block in range is claimed by others
+     */
+    public Block claimNearest(int x, int y, int z, double maxDistance, UUID claimant) {
+        long[] found = points.nearest(x, y, z, 1, maxDistance, null, claimant);
+        if (found.length == 0) {
+            return null;
+        }
+        Block block = toBlock(found[0]);
+        points.claim(block.getX(), block.getY(), block.getZ(), claimant);
+        return block;
+    }
+
+    /**
+     * Give up the block a raider has claimed, if any
+     */
+    public void release(UUID claimant) {
+        points.release(claimant);
+    }
+
+    /**
+     * Find every indexed block in a box around a position
+     * @param rx Half the width of the box along x, and likewise ry and rz
+     */
+    public List<Block> withinBox(int x, int y, int z, int rx, int ry, int rz) {
+        return toBlocks(points.withinBox(x, y, z, rx, ry, rz));
+    }
+
+    /**
+     * Find every indexed block within a distance of a position
+     */
+    public List<Block> withinRadius(int x, int y, int z, double radius) {
+        return toBlocks(points.withinRadius(x, y, z, radius));
+    }
+
+    /**
+     * Build the tree over every indexed position
+     */
+    public void rebuild() {
+        points.rebuild();
+    }
+
+    private List<Block> toBlocks(long[] keys) {
+        List<Block> result = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            result.add(toBlock(key));
+        }
+        return result;
+    }
+
+    private Block toBlock(long key) {
+        return world.getBlockAt(BlockKey.x(key), BlockKey.y(key), BlockKey.z(key));
+    }
+}
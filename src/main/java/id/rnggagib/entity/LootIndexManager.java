@@ -0,0 +1,530 @@
+package id.rnggagib.entity;
+
+import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.ai.pathfinding.BlockKey;
+import id.rnggagib.raid.ActiveRaid;
+
+import com.palmergames.bukkit.towny.object.Town;
+import com.palmergames.bukkit.towny.object.TownBlock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Keeps an index of the stealable blocks and the containers in each raided town, so raiders looking for loot
+ * query it instead of scanning the blocks around them.
+ * Stealable blocks are found in snapshots of the town's loaded chunks, a few per tick, scanned off the main thread;
+ * containers come from the same chunks' tile entities. Chunks that load later are added as they load,
+ * and block changes are applied as they happen.
+ * Until a raid's indexes are built, lookups return null and callers fall back to scanning.
+ * A town can be scouted before its raid starts, during the raid warning, which also surveys it for spawn points,
+ * exits and cover; the raid then takes over the scouted indexes.
+ */
+public class LootIndexManager implements Listener {
+    private static final int SNAPSHOTS_PER_TICK = 4;
+    private static final Set<Material> CONTAINER_TYPES = EnumSet.of(Material.CHEST, Material.TRAPPED_CHEST,
+        Material.BARREL, Material.SHULKER_BOX, Material.WHITE_SHULKER_BOX, Material.ORANGE_SHULKER_BOX,
+        Material.MAGENTA_SHULKER_BOX, Material.LIGHT_BLUE_SHULKER_BOX, Material.YELLOW_SHULKER_BOX,
+        Material.LIME_SHULKER_BOX, Material.PINK_SHULKER_BOX, Material.GRAY_SHULKER_BOX,
+        Material.LIGHT_GRAY_SHULKER_BOX, Material.CYAN_SHULKER_BOX, Material.PURPLE_SHULKER_BOX,
+        Material.BLUE_SHULKER_BOX, Material.BROWN_SHULKER_BOX, Material.GREEN_SHULKER_BOX,
+        Material.RED_SHULKER_BOX, Material.BLACK_SHULKER_BOX);
+
+    private final TownyRaider plugin;
+    private final Map<UUID, RaidLoot> raids = new HashMap<>();
+    // Towns scouted ahead of their raid, by lowercase name
+    private final Map<String, RaidLoot> scouted = new HashMap<>();
+
+    // Block changes are applied on the next tick, once the world reflects them
+    private final Map<World, Set<Long>> changedBlocks = new HashMap<>();
+    private boolean flushScheduled = false;
+
+    public LootIndexManager(TownyRaider plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Get the stealable blocks of a raid's town, starting to index them on first use
+     * @return The index, or null while it's still being built or if the town can't be resolved
+     */
+    public LootBlockIndex getValuableBlocks(ActiveRaid raid) {
+        RaidLoot loot = getRaidLoot(raid);
+        return loot.ready ? loot.index : null;
+    }
+
+    /**
+     * Get the chests, barrels and shulker boxes of a raid's town, starting to index them on first use
+     * @return The index, or null while it's still being built or if the town can't be resolved
+     */
+    public LootBlockIndex getContainers(ActiveRaid raid) {
+        RaidLoot loot = getRaidLoot(raid);
+        return loot.ready ? loot.containers : null;
+    }
+
+    /**
+     * Start indexing a raid's town, if that hasn't started yet
+     */
+    public void indexRaid(ActiveRaid raid) {
+        getRaidLoot(raid);
+    }
+
+    /**
+     * Start indexing and surveying a town whose raid is about to start, so the raid finds it done
+     */
+    public void scoutTown(Town town) {
+        String key = town.getName().toLowerCase();
+        if (!scouted.containsKey(key)) {
+            scouted.put(key, start(town, true));
+        }
+    }
+
+    /**
+     * Get the survey of a scouted town
+     * @return The survey, or null if the town wasn't scouted or is still being scouted
+     */
+    public TownSurvey getTownSurvey(String townName) {
+        RaidLoot loot = scouted.get(townName.toLowerCase());
+        return loot != null && loot.ready ? loot.survey : null;
+    }
+
+    /**
+     * Drop a scouted town whose raid won't start
+     */
+    public void discardTown(String townName) {
+        RaidLoot loot = scouted.remove(townName.toLowerCase());
+        if (loot != null) {
+            loot.stop();
+        }
+    }
+
+    /**
+     * Get the built index of whichever raided town claims a location
+     * @return The index, or null if no raided town with a built index claims it
+     */
+    public LootBlockIndex getValuableBlocksAt(Location location) {
+        RaidLoot loot = getRaidLootAt(location);
+        return loot != null ? loot.index : null;
+    }
+
+    /**
+     * Get the built container index of whichever raided town claims a location
+     * @return The index, or null if no raided town with a built index claims it
+     */
+    public LootBlockIndex getContainersAt(Location location) {
+        RaidLoot loot = getRaidLootAt(location);
+        return loot != null ? loot.containers : null;
+    }
+
+    /**
+     * Whether raiders loot a type of block: chests, barrels and shulker boxes
+     */
+    public static boolean isLootContainer(Material type) {
+        return CONTAINER_TYPES.contains(type);
+    }
+
+    /**
+     * Re-read a block the plugin changed itself, such as one a raider just stole
+     */
+    public void onBlockChanged(Block block) {
+        for (RaidLoot loot : tracked()) {
+            if (loot.covers(block.getWorld(), block.getX(), block.getZ())) {
+                refresh(loot, block.getX(), block.getY(), block.getZ());
+            }
+        }
+    }
+
+    /**
+     * Drop a raid's indexes
+     */
+    public void removeRaid(UUID raidId) {
+        RaidLoot loot = raids.remove(raidId);
+        if (loot != null) {
+            loot.stop();
+        }
+    }
+
+    public void clear() {
+        for (RaidLoot loot : tracked()) {
+            loot.stop();
+        }
+        raids.clear();
+        scouted.clear();
+        changedBlocks.clear();
+    }
+
+    private RaidLoot getRaidLootAt(Location location) {
+        World world = location.getWorld();
+        if (world == null) {
+            return null;
+        }
+        for (RaidLoot loot : raids.values()) {
+            if (loot.ready && loot.covers(world, location.getBlockX(), location.getBlockZ())) {
+                return loot;
+            }
+        }
+        return null;
+    }
+
+    private RaidLoot getRaidLoot(ActiveRaid raid) {
+        RaidLoot loot = raids.get(raid.getId());
+        if (loot == null) {
+            loot = scouted.remove(raid.getTownName().toLowerCase());
+            if (loot == null) {
+                Town town = plugin.getTownyHandler().getTownByName(raid.getTownName());
+                loot = town != null ? start(town, false) : new RaidLoot();
+            }
+            raids.put(raid.getId(), loot);
+        }
+        return loot;
+    }
+
+    /**
+     * Raids and scouted towns, whose indexes all follow block changes
+     */
+    private List<RaidLoot> tracked() {
+        List<RaidLoot> tracked = new ArrayList<>(raids.values());
+        tracked.addAll(scouted.values());
+        return tracked;
+    }
+
+    private RaidLoot start(Town town, boolean survey) {
+        RaidLoot loot = new RaidLoot();
+
+        for (TownBlock townBlock : town.getTownBlocks()) {
+            World world = Bukkit.getWorld(townBlock.getWorld().getName());
+            if (world == null || loot.world != null && loot.world != world) {
+                continue;
+            }
+            loot.world = world;
+            long chunk = chunkKey(townBlock.getX(), townBlock.getZ());
+            loot.chunks.add(chunk);
+            // Never load chunks just to index them; unloaded ones are picked up when they load
+            if (world.isChunkLoaded(townBlock.getX(), townBlock.getZ())) {
+                loot.pending.add(chunk);
+            } else {
+                loot.unloaded.add(chunk);
+            }
+        }
+        if (loot.world == null) {
+            return loot;
+        }
+
+        loot.index = new LootBlockIndex(loot.world);
+        loot.containers = new LootBlockIndex(loot.world);
+        loot.scanner = new ChunkMaterialScanner(plugin.getConfigManager().getStealableBlocks());
+        if (survey) {
+            loot.survey = new TownSurvey(loot.world);
+        }
+        if (loot.pending.isEmpty()) {
+            loot.ready = true;
+        } else {
+            scheduleSnapshots(loot);
+        }
+        return loot;
+    }
+
+    /**
+     * Snapshot a few pending chunks each tick and scan them off the main thread
+     */
+    private void scheduleSnapshots(RaidLoot loot) {
+        if (loot.snapshotTask != null) {
+            return;
+        }
+        loot.snapshotTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                List<ChunkSnapshot> snapshots = new ArrayList<>();
+                List<Integer> openSides = new ArrayList<>();
+                while (snapshots.size() < SNAPSHOTS_PER_TICK && !loot.pending.isEmpty()) {
+                    long chunk = loot.pending.poll();
+                    int chunkX = chunkX(chunk);
+                    int chunkZ = chunkZ(chunk);
+                    if (loot.world.isChunkLoaded(chunkX, chunkZ)) {
+                        Chunk loaded = loot.world.getChunkAt(chunkX, chunkZ);
+                        // The height map is only needed to survey the surface
+                        snapshots.add(loaded.getChunkSnapshot(loot.survey != null, false, false));
+                        openSides.add(openSides(loot, chunkX, chunkZ));
+                        indexContainers(loot, loaded);
+                    } else {
+                        loot.unloaded.add(chunk);
+                    }
+                }
+                if (!snapshots.isEmpty()) {
+                    scan(loot, snapshots, openSides);
+                }
+                if (loot.pending.isEmpty()) {
+                    loot.snapshotTask = null;
+                    cancel();
+                    finishIfDone(loot);
+                }
+            }
+        }.runTaskTimer(plugin, 0L, 1L);
+    }
+
+    /**
+     * Add a chunk's containers, found among its tile entities rather than by reading its blocks
+     */
+    private void indexContainers(RaidLoot loot, Chunk chunk) {
+        for (BlockState state : chunk.getTileEntities()) {
+            if (state instanceof Container && isLootContainer(state.getType())) {
+                loot.containers.put(state.getX(), state.getY(), state.getZ(), state.getType());
+            }
+        }
+    }
+
+    /**
+     * Which sides of a claimed chunk border chunks the town doesn't claim
+     */
+    private static int openSides(RaidLoot loot, int chunkX, int chunkZ) {
+        int open = 0;
+        if (!loot.chunks.contains(chunkKey(chunkX, chunkZ - 1))) {
+            open |= TownSurvey.OPEN_NORTH;
+        }
+        if (!loot.chunks.contains(chunkKey(chunkX, chunkZ + 1))) {
+            open |= TownSurvey.OPEN_SOUTH;
+        }
+        if (!loot.chunks.contains(chunkKey(chunkX - 1, chunkZ))) {
+            open |= TownSurvey.OPEN_WEST;
+        }
+        if (!loot.chunks.contains(chunkKey(chunkX + 1, chunkZ))) {
+            open |= TownSurvey.OPEN_EAST;
+        }
+        return open;
+    }
+
+    private void scan(RaidLoot loot, List<ChunkSnapshot> snapshots, List<Integer> openSides) {
+        int minY = loot.world.getMinHeight();
+        int maxY = loot.world.getMaxHeight();
+        boolean survey = loot.survey != null;
+        loot.scansRunning++;
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<long[]> found = new ArrayList<>();
+            List<long[]> surveyed = new ArrayList<>();
+            try {
+                for (int i = 0; i < snapshots.size(); i++) {
+                    found.add(loot.scanner.scan(snapshots.get(i), minY, maxY));
+                    if (survey) {
+                        surveyed.add(TownSurvey.surveyChunk(snapshots.get(i), openSides.get(i), minY, maxY));
+                    }
+                }
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to scan town chunks for valuable blocks", e);
+            }
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> install(loot, found, surveyed));
+            }
+        });
+    }
+
+    private void install(RaidLoot loot, List<long[]> found, List<long[]> surveyed) {
+        loot.scansRunning--;
+        if (loot.stopped) {
+            return;
+        }
+
+        Material[] types = Material.values();
+        for (long[] chunk : found) {
+            for (int i = 0; i < chunk.length; i += 2) {
+                long key = chunk[i];
+                loot.index.put(BlockKey.x(key), BlockKey.y(key), BlockKey.z(key), types[(int) chunk[i + 1]]);
+            }
+        }
+        for (long[] chunk : surveyed) {
+            loot.survey.add(chunk);
+        }
+
+        // Blocks that changed after their chunk was captured are read again
+        for (long key : loot.changedDuringScan) {
+            refresh(loot, BlockKey.x(key), BlockKey.y(key), BlockKey.z(key));
+        }
+        if (loot.scansRunning == 0) {
+            loot.changedDuringScan.clear();
+        }
+        finishIfDone(loot);
+    }
+
+    private void finishIfDone(RaidLoot loot) {
+        if (!loot.ready && loot.pending.isEmpty() && loot.scansRunning == 0) {
+            loot.index.rebuild();
+            loot.containers.rebuild();
+            loot.ready = true;
+        }
+    }
+
+    private void refresh(RaidLoot loot, int x, int y, int z) {
+        if (loot.index == null) {
+            return;
+        }
+        Material type = loot.world.getBlockAt(x, y, z).getType();
+        if (loot.scanner.isTarget(type)) {
+            loot.index.put(x, y, z, type);
+        } else {
+            loot.index.remove(x, y, z);
+        }
+        if (isLootContainer(type)) {
+            loot.containers.put(x, y, z, type);
+        } else {
+            loot.containers.remove(x, y, z);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        if (raids.isEmpty() && scouted.isEmpty()) {
+            return;
+        }
+        long chunk = chunkKey(event.getChunk().getX(), event.getChunk().getZ());
+        for (RaidLoot loot : tracked()) {
+            if (loot.world == event.getWorld() && loot.unloaded.remove(chunk)) {
+                loot.pending.add(chunk);
+                scheduleSnapshots(loot);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            markChanged(block);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            markChanged(block);
+        }
+    }
+
+    private void markChanged(Block block) {
+        if (raids.isEmpty() && scouted.isEmpty()) {
+            return;
+        }
+
+        changedBlocks.computeIfAbsent(block.getWorld(), w -> new HashSet<>())
+            .add(BlockKey.pack(block.getX(), block.getY(), block.getZ()));
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            new BukkitRunnable() {
+                @Override
+                public void run() {
+                    flushChanges();
+                }
+            }.runTask(plugin);
+        }
+    }
+
+    /**
+     * Apply changed blocks to every index covering them
+     */
+    private void flushChanges() {
+        flushScheduled = false;
+
+        List<RaidLoot> tracked = tracked();
+        for (Map.Entry<World, Set<Long>> entry : changedBlocks.entrySet()) {
+            for (RaidLoot loot : tracked) {
+                for (long key : entry.getValue()) {
+                    int x = BlockKey.x(key);
+                    int z = BlockKey.z(key);
+                    if (!loot.covers(entry.getKey(), x, z)) {
+                        continue;
+                    }
+                    if (loot.scansRunning > 0 || loot.snapshotTask != null) {
+                        loot.changedDuringScan.add(key);
+                    }
+                    refresh(loot, x, BlockKey.y(key), z);
+                }
+            }
+        }
+        changedBlocks.clear();
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static int chunkX(long chunkKey) {
+        return (int) (chunkKey >> 32);
+    }
+
+    private static int chunkZ(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    /**
+     * Index state of one raided or scouted town
+     */
+    private static class RaidLoot {
+        World world;
+        LootBlockIndex index;
+        LootBlockIndex containers;
+        ChunkMaterialScanner scanner;
+        // Only for towns scouted before their raid
+        TownSurvey survey;
+        boolean ready = false;
+
+        // Claimed chunks, those still to snapshot, and those waiting to load
+        final Set<Long> chunks = new HashSet<>();
+        final Deque<Long> pending = new ArrayDeque<>();
+        final Set<Long> unloaded = new HashSet<>();
+
+        BukkitTask snapshotTask;
+        int scansRunning = 0;
+        boolean stopped = false;
+        final Set<Long> changedDuringScan = new HashSet<>();
+
+        boolean covers(World world, int x, int z) {
+            return this.world == world && chunks.contains(chunkKey(x >> 4, z >> 4));
+        }
+
+        void stop() {
+            stopped = true;
+            if (snapshotTask != null) {
+                snapshotTask.cancel();
+                snapshotTask = null;
+            }
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package id.rnggagib.entity;
+
+import id.rnggagib.entity.ai.pathfinding.BlockKey;
+import id.rnggagib.entity.ai.pathfinding.LongIntHashMap;
+import id.rnggagib.entity.ai.pathfinding.LongObjectHashMap;
+
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Block positions in one world, each holding a value, for nearest, k-nearest and range queries without
+ * comparing against every position.
+ * Positions live in a few k-d trees of distinct sizes. A new position goes into a tree of its own, which is
+ * merged with the next smaller tree while that one is no larger, so there are at most about log n trees and
+ * each position is rebuilt into a larger tree only log n times. Removed positions are skipped when met, and
+ * everything is rebuilt into one tree once too many are stale, so queries stay logarithmic while the positions
+ * change. A raider can claim one position at a time so the others pick another, such as two zombies going for
+ * different chests. Main thread only.
+ */
+public class PointIndex<T> {
+    private static final int MIN_REBUILD_CHANGES = 64;
+
+    // What is at each indexed position now; the trees only say where to look
+    private final LongObjectHashMap<T> values = new LongObjectHashMap<>();
+
+    // Largest first; stale positions stay in their tree until the next full rebuild
+    private final List<Tree> trees = new ArrayList<>();
+    private final LongIntHashMap treeKeys = new LongIntHashMap(64);
+    private int treeSize = 0;
+    private int stale = 0;
+
+    // Who has claimed each claimed position, and the position each claimant holds
+    private final Map<Long, UUID> claimants = new HashMap<>();
+    private final Map<UUID, Long> claims = new HashMap<>();
+
+    /**
+     * Index locations by their block positions, keeping the first of any sharing a block
+     */
+    public static PointIndex<Location> of(Collection<Location> locations) {
+        PointIndex<Location> index = new PointIndex<>();
+        for (Location location : locations) {
+            if (index.get(location.getBlockX(), location.getBlockY(), location.getBlockZ()) == null) {
+                index.put(location.getBlockX(), location.getBlockY(), location.getBlockZ(), location);
+            }
+        }
+        index.rebuild();
+        return index;
+    }
+
+    /**
+     * Number of positions indexed
+     */
+    public int size() {
+        return values.size();
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Get the value at a position
+     * @return The value, or null if nothing is indexed there
+     */
+    public T get(int x, int y, int z) {
+        return values.get(BlockKey.pack(x, y, z));
+    }
+
+    /**
+     * Record a value at a position, replacing whatever was indexed there
+     */
+    public void put(int x, int y, int z, T value) {
+        long key = BlockKey.pack(x, y, z);
+        T previous = values.put(key, value);
+        if (previous != null) {
+            return;
+        }
+        if (treeKeys.containsKey(key)) {
+            stale--;
+        } else {
+            insert(key);
+        }
+    }
+
+    /**
+     * Forget the value at a position, and any claim on it
+     */
+    public void remove(int x, int y, int z) {
+        long key = BlockKey.pack(x, y, z);
+        if (values.remove(key) == null) {
+            return;
+        }
+        UUID claimant = claimants.remove(key);
+        if (claimant != null) {
+            claims.remove(claimant);
+        }
+        stale++;
+        if (stale > Math.max(MIN_REBUILD_CHANGES, treeSize / 4)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Find the closest indexed positions to a position
+     * @param k Most positions to return
+     * @param maxDistance Ignore positions further away than this
+     * @param filter Only positions whose value passes, or null for any
+     * @param claimant Skip positions claimed by anyone but this raider, or null to ignore claims
+     * @return Packed positions, see {@link BlockKey}, ordered from nearest
+     */
+    public long[] nearest(int x, int y, int z, int k, double maxDistance, Predicate<? super T> filter, UUID claimant) {
+        if (k <= 0 || values.isEmpty()) {
+            return new long[0];
+        }
+
+        Nearest found = new Nearest(k, (long) Math.floor(maxDistance * maxDistance));
+        Query query = new Query(x, y, z, filter, claimant);
+        for (Tree tree : trees) {
+            nearest(tree, 0, tree.keys.length, 0, query, found);
+        }
+        return Arrays.copyOf(found.keys, found.count);
+    }
+
+    /**
+     * Get the value at the closest indexed position to a location
+     * @return The value, or null if none passing the filter is within range
+     */
+    public T nearest(Location origin, double maxDistance, Predicate<? super T> filter) {
+        long[] found = nearest(origin.getBlockX(), origin.getBlockY(), origin.getBlockZ(), 1, maxDistance, filter, null);
+        return found.length == 0 ? null : values.get(found[0]);
+    }
+
+    /**
+     * Whether any indexed position is within a distance of a location
+     */
+    public boolean anyWithin(Location origin, double radius) {
+        return nearest(origin.getBlockX(), origin.getBlockY(), origin.getBlockZ(), 1, radius, null, null).length > 0;
+    }
+
+    /**
+     * Find every indexed position in a box around a position
+     * @param rx Half the width of the box along x, and likewise ry and rz
+     * @return Packed positions, see {@link BlockKey}
+     */
+    public long[] withinBox(int x, int y, int z, int rx, int ry, int rz) {
+        if (values.isEmpty()) {
+            return new long[0];
+        }
+
+        int[] min = {x - rx, y - ry, z - rz};
+        int[] max = {x + rx, y + ry, z + rz};
+        Found found = new Found();
+        for (Tree tree : trees) {
+            withinBox(tree, 0, tree.keys.length, 0, min, max, found);
+        }
+        return Arrays.copyOf(found.keys, found.count);
+    }
+
+    /**
+     * Find every indexed position within a distance of a position
+     * @return Packed positions, see {@link BlockKey}
+     */
+    public long[] withinRadius(int x, int y, int z, double radius) {
+        int r = (int) Math.ceil(radius);
+        double radiusSquared = radius * radius;
+        long[] inBox = withinBox(x, y, z, r, r, r);
+        int count = 0;
+        for (long key : inBox) {
+            if (distanceSquared(BlockKey.x(key) - x, BlockKey.y(key) - y, BlockKey.z(key) - z) <= radiusSquared) {
+                inBox[count++] = key;
+            }
+        }
+        return Arrays.copyOf(inBox, count);
+    }
+
+    /**
+     * Claim an indexed position for a raider, giving up the one it held before
+     * @return False if the position isn't indexed or another raider holds it
+     */
+    public boolean claim(int x, int y, int z, UUID claimant) {
+        return claim(BlockKey.pack(x, y, z), claimant);
+    }
+
+    /**
+     * Claim the closest position not claimed by another raider, giving up the one it held before
+     * @return The value there, or null if every position in range is claimed by others
+     */
+    public T claimNearest(Location origin, double maxDistance, UUID claimant) {
+        long[] found = nearest(origin.getBlockX(), origin.getBlockY(), origin.getBlockZ(), 1, maxDistance, null, claimant);
+        if (found.length == 0) {
+            return null;
+        }
+        claim(found[0], claimant);
+        return values.get(found[0]);
+    }
+
+    private boolean claim(long key, UUID claimant) {
+        UUID holder = claimants.get(key);
+        if (!values.containsKey(key) || holder != null && !holder.equals(claimant)) {
+            return false;
+        }
+        release(claimant);
+        claimants.put(key, claimant);
+        claims.put(claimant, key);
+        return true;
+    }
+
+    /**
+     * Give up the position a raider holds, if any
+     */
+    public void release(UUID claimant) {
+        Long key = claims.remove(claimant);
+        if (key != null) {
+            claimants.remove(key);
+        }
+    }
+
+    /**
+     * Get who holds a position
+     * @return The claimant, or null if the position is free
+     */
+    public UUID getClaimant(int x, int y, int z) {
+        return claimants.get(BlockKey.pack(x, y, z));
+    }
+
+    private void nearest(Tree tree, int from, int to, int depth, Query query, Nearest found) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        long key = tree.keys[mid];
+        if (query.accepts(key)) {
+            found.offer(key, distanceSquared(tree.xs[mid] - query.x, tree.ys[mid] - query.y, tree.zs[mid] - query.z));
+        }
+
+        int axis = depth % 3;
+        long delta = query.coordinate(axis) - tree.coordinate(mid, axis);
+        // Search the side holding the query point first, then the other side only if it could hold anything closer
+        if (delta < 0) {
+            nearest(tree, from, mid, depth + 1, query, found);
+            if (delta * delta <= found.limit()) {
+                nearest(tree, mid + 1, to, depth + 1, query, found);
+            }
+        } else {
+            nearest(tree, mid + 1, to, depth + 1, query, found);
+            if (delta * delta <= found.limit()) {
+                nearest(tree, from, mid, depth + 1, query, found);
+            }
+        }
+    }
+
+    private void withinBox(Tree tree, int from, int to, int depth, int[] min, int[] max, Found found) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        if (inBox(tree.xs[mid], tree.ys[mid], tree.zs[mid], min, max) && values.containsKey(tree.keys[mid])) {
+            found.add(tree.keys[mid]);
+        }
+
+        int axis = depth % 3;
+        int value = tree.coordinate(mid, axis);
+        if (min[axis] <= value) {
+            withinBox(tree, from, mid, depth + 1, min, max, found);
+        }
+        if (max[axis] >= value) {
+            withinBox(tree, mid + 1, to, depth + 1, min, max, found);
+        }
+    }
+
+    /**
+     * Add a position to the trees, merging the smallest ones while they are no larger than the new one
+     */
+    private void insert(long key) {
+        long[] merged = {key};
+        while (!trees.isEmpty() && trees.get(trees.size() - 1).keys.length <= merged.length) {
+            long[] smaller = trees.remove(trees.size() - 1).keys;
+            long[] joined = Arrays.copyOf(merged, merged.length + smaller.length);
+            System.arraycopy(smaller, 0, joined, merged.length, smaller.length);
+            merged = joined;
+        }
+        trees.add(new Tree(merged));
+        treeKeys.put(key, 0);
+        treeSize++;
+    }
+
+    /**
+     * Build one tree over every indexed position, dropping the removed ones
+     */
+    public void rebuild() {
+        long[] all = values.keys();
+        trees.clear();
+        if (all.length > 0) {
+            trees.add(new Tree(all));
+        }
+        treeKeys.clear();
+        for (long key : all) {
+            treeKeys.put(key, 0);
+        }
+        treeSize = all.length;
+        stale = 0;
+    }
+
+    private static boolean inBox(int x, int y, int z, int[] min, int[] max) {
+        return x >= min[0] && x <= max[0] && y >= min[1] && y <= max[1] && z >= min[2] && z <= max[2];
+    }
+
+    private static long distanceSquared(long dx, long dy, long dz) {
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * A nearest query's origin and which positions it wants
+     */
+    private class Query {
+        final int x;
+        final int y;
+        final int z;
+        final Predicate<? super T> filter;
+        final UUID claimant;
+
+        Query(int x, int y, int z, Predicate<? super T> filter, UUID claimant) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.filter = filter;
+            this.claimant = claimant;
+        }
+
+        int coordinate(int axis) {
+            return axis == 0 ? x : axis == 1 ? y : z;
+        }
+
+        boolean accepts(long key) {
+            T value = values.get(key);
+            if (value == null || filter != null && !filter.test(value)) {
+                return false;
+            }
+            if (claimant == null) {
+                return true;
+            }
+            UUID holder = claimants.get(key);
+            return holder == null || holder.equals(claimant);
+        }
+    }
+
+    /**
+     * A k-d tree: positions ordered so each range's middle element splits it on x, y or z by depth
+     */
+    private static class Tree {
+        final int[] xs;
+        final int[] ys;
+        final int[] zs;
+        final long[] keys;
+
+        Tree(long[] keys) {
+            this.keys = keys;
+            xs = new int[keys.length];
+            ys = new int[keys.length];
+            zs = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                xs[i] = BlockKey.x(keys[i]);
+                ys[i] = BlockKey.y(keys[i]);
+                zs[i] = BlockKey.z(keys[i]);
+            }
+            build(0, keys.length, 0);
+        }
+
+        int coordinate(int i, int axis) {
+            return axis == 0 ? xs[i] : axis == 1 ? ys[i] : zs[i];
+        }
+
+        private void build(int from, int to, int depth) {
+            if (to - from <= 1) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            select(from, to - 1, mid, depth % 3);
+            build(from, mid, depth + 1);
+            build(mid + 1, to, depth + 1);
+        }
+
+        /**
+         * Reorder a range so the element at k is the one that belongs there by the axis, smaller ones before it
+         * and larger ones after
+         */
+        private void select(int left, int right, int k, int axis) {
+            while (right > left) {
+                int pivot = partition(left, right, (left + right) >>> 1, axis);
+                if (pivot == k) {
+                    return;
+                }
+                if (k < pivot) {
+                    right = pivot - 1;
+                } else {
+                    left = pivot + 1;
+                }
+            }
+        }
+
+        private int partition(int left, int right, int pivotIndex, int axis) {
+            int pivotValue = coordinate(pivotIndex, axis);
+            swap(pivotIndex, right);
+            int store = left;
+            for (int i = left; i < right; i++) {
+                if (coordinate(i, axis) < pivotValue) {
+                    swap(store, i);
+                    store++;
+                }
+            }
+            swap(right, store);
+            return store;
+        }
+
+        private void swap(int a, int b) {
+            int x = xs[a];
+            xs[a] = xs[b];
+            xs[b] = x;
+            int y = ys[a];
+            ys[a] = ys[b];
+            ys[b] = y;
+            int z = zs[a];
+            zs[a] = zs[b];
+            zs[b] = z;
+            long key = keys[a];
+            keys[a] = keys[b];
+            keys[b] = key;
+        }
+    }
+
+    /**
+     * The k closest positions seen so far, kept sorted by distance
+     */
+    private static class Nearest {
+        final long[] keys;
+        final long[] distances;
+        final long maxDistanceSquared;
+        int count = 0;
+
+        Nearest(int k, long maxDistanceSquared) {
+            this.keys = new long[k];
+            this.distances = new long[k];
+            this.maxDistanceSquared = maxDistanceSquared;
+        }
+
+        /**
+         * Largest squared distance still worth looking at
+         */
+        long limit() {
+            return count < keys.length ? maxDistanceSquared : distances[count - 1];
+        }
+
+        void offer(long key, long distanceSquared) {
+            if (distanceSquared > limit() || count == keys.length && distanceSquared == distances[count - 1]) {
+                return;
+            }
+            int i = count < keys.length ? count++ : count - 1;
+            while (i > 0 && distances[i - 1] > distanceSquared) {
+                keys[i] = keys[i - 1];
+                distances[i] = distances[i - 1];
+                i--;
+            }
+            keys[i] = key;
+            distances[i] = distanceSquared;
+        }
+    }
+
+    /**
+     * A growable run of packed positions
+     */
+    private static class Found {
+        long[] keys = new long[16];
+        int count = 0;
+
+        void add(long key) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+            }
+            keys[count++] = key;
+        }
+    }
+}
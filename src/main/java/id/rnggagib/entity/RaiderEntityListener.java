@@ -20,6 +20,8 @@ import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.EntityTargetEvent;
 import org.bukkit.event.entity.EntityTargetLivingEntityEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
 
 import java.util.UUID;
 
@@ -155,6 +157,8 @@ public class RaiderEntityListener implements Listener {
             }
             
             plugin.getStealingManager().resetTheftCount(entity.getUniqueId());
+            plugin.getStealingManager().releaseChestClaim(entity.getUniqueId());
+            plugin.getRaiderEntityManager().untrackRaider(entity.getUniqueId());
             
             // Clear drops from raiders
             event.getDrops().clear();
@@ -218,13 +222,26 @@ public class RaiderEntityListener implements Listener {
         }
     }
     
-    private ActiveRaid getRaidById(UUID raidId) {
-        for (ActiveRaid raid : plugin.getRaidManager().getActiveRaids().values()) {
-            if (raid.getId().equals(raidId)) {
-                return raid;
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        for (Entity entity : event.getEntities()) {
+            if (entity instanceof LivingEntity && plugin.getRaiderEntityManager().isRaider(entity)) {
+                plugin.getRaiderEntityManager().trackLoadedRaider((LivingEntity) entity);
+            }
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        for (Entity entity : event.getEntities()) {
+            if (plugin.getRaiderEntityManager().isRaider(entity)) {
+                plugin.getRaiderEntityManager().untrackUnloadedRaider(entity);
             }
         }
-        return null;
+    }
+    
+    private ActiveRaid getRaidById(UUID raidId) {
+        return plugin.getRaidManager().getRaidById(raidId);
     }
     
     /**
@@ -233,12 +250,6 @@ public class RaiderEntityListener implements Listener {
      * @return true if entity is a raid entity, false otherwise
      */
     private boolean isRaidEntity(Entity entity) {
-        for (ActiveRaid raid : plugin.getRaidManager().getActiveRaids().values()) {
-            if (raid.isRaiderEntity(entity.getUniqueId())) {
-                // Process raid entity
-                return true;
-            }
-        }
-        return false;
+        return plugin.getRaidManager().isRaidEntity(entity.getUniqueId());
     }
-}
\ No newline at end of file
+}
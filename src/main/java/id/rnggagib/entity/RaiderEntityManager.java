@@ -2,6 +2,7 @@ package id.rnggagib.entity;
 
 import id.rnggagib.TownyRaider;
 import id.rnggagib.entity.ai.SimpleAiManager;
+import id.rnggagib.entity.tick.TickPhase;
 import id.rnggagib.raid.ActiveRaid;
 
 import org.bukkit.Location;
@@ -45,6 +46,7 @@ public class RaiderEntityManager {
     private final NamespacedKey raidIdKey;
     private final NamespacedKey raiderTypeKey;
     private final SimpleAiManager aiManager;
+    private final RaiderRegistry registry = new RaiderRegistry();
     
     public static final String METADATA_RAIDER = "townyraider.raider";
     public static final String METADATA_RAID_ID = "townyraider.raid_id";
@@ -147,9 +149,10 @@ public class RaiderEntityManager {
             }
             
             if (zombie != null) {
+                final Zombie spawnedZombie = zombie;
                 Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                    if (!zombie.isValid() || zombie.isDead()) {
-                        plugin.getLogger().warning("Zombie " + zombie.getUniqueId() + " despawned immediately after spawn at " + formatLocation(zombie.getLocation()));
+                    if (!spawnedZombie.isValid() || spawnedZombie.isDead()) {
+                        plugin.getLogger().warning("Zombie " + spawnedZombie.getUniqueId() + " despawned immediately after spawn at " + formatLocation(spawnedZombie.getLocation()));
                     }
                 }, 2L);
                 
@@ -192,9 +195,10 @@ public class RaiderEntityManager {
                     }
                     
                     if (skeleton != null) {
+                        final Skeleton spawnedSkeleton = skeleton;
                         Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                            if (!skeleton.isValid() || skeleton.isDead()) {
-                                plugin.getLogger().warning("Skeleton " + skeleton.getUniqueId() + " despawned immediately after spawn at " + formatLocation(skeleton.getLocation()));
+                            if (!spawnedSkeleton.isValid() || spawnedSkeleton.isDead()) {
+                                plugin.getLogger().warning("Skeleton " + spawnedSkeleton.getUniqueId() + " despawned immediately after spawn at " + formatLocation(spawnedSkeleton.getLocation()));
                             }
                         }, 2L);
                         
@@ -518,24 +522,13 @@ public class RaiderEntityManager {
         List<UUID> entityIds = new ArrayList<>(raid.getRaiderEntities());
         
         for (UUID entityId : entityIds) {
-            boolean entityExists = false;
-            
-            // Check across all loaded worlds
-            for (World world : plugin.getServer().getWorlds()) {
-                for (LivingEntity entity : world.getLivingEntities()) {
-                    if (entity.getUniqueId().equals(entityId)) {
-                        entityExists = true;
-                        found++;
-                        break;
-                    }
-                }
-                if (entityExists) break;
-            }
-            
-            if (!entityExists) {
+            if (registry.getEntity(entityId) != null) {
+                found++;
+            } else {
                 missing++;
                 // Entity missing, remove from raid
                 raid.removeRaiderEntity(entityId);
+                registry.unregister(entityId);
             }
         }
         
@@ -578,18 +571,7 @@ public class RaiderEntityManager {
      * Count existing entities belonging to a raid
      */
     private int countExistingRaidEntities(ActiveRaid raid) {
-        int count = 0;
-        for (World world : plugin.getServer().getWorlds()) {
-            for (LivingEntity entity : world.getLivingEntities()) {
-                if (isRaider(entity)) {
-                    UUID raidId = getRaidId(entity);
-                    if (raidId != null && raidId.equals(raid.getId())) {
-                        count++;
-                    }
-                }
-            }
-        }
-        return count;
+        return registry.countRaidEntities(raid.getId());
     }
 
     private Zombie spawnRaiderZombie(ActiveRaid raid, Location location, ConfigurationSection config) {
@@ -670,22 +652,15 @@ public class RaiderEntityManager {
         plugin.getVisualEffectsManager().applyGlowEffect(zombie, "baby-zombie");
         
         // Add particle trail
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!zombie.isValid() || zombie.isDead()) {
-                    this.cancel();
-                    return;
-                }
-                
-                // Gold coin particles trail
-                zombie.getWorld().spawnParticle(
-                    Particle.VILLAGER_HAPPY,
-                    zombie.getLocation().add(0, 0.5, 0),
-                    2, 0.2, 0.2, 0.2, 0.01
-                );
-            }
-        }.runTaskTimer(plugin, 20L, 20L);
+        plugin.getRaidTickEngine().schedule(zombie, TickPhase.EFFECTS, "trail", 20L, 20L, entity -> {
+            // Gold coin particles trail
+            entity.getWorld().spawnParticle(
+                Particle.VILLAGER_HAPPY,
+                entity.getLocation().add(0, 0.5, 0),
+                2, 0.2, 0.2, 0.2, 0.01
+            );
+            return true;
+        });
         
         // Apply AI behavior
         aiManager.applyRaiderAI(zombie, raid, RAIDER_TYPE_ZOMBIE);
@@ -897,21 +872,14 @@ public class RaiderEntityManager {
         
         final Particle finalParticle = particle;
         
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!skeleton.isValid() || skeleton.isDead()) {
-                    this.cancel();
-                    return;
-                }
-                
-                skeleton.getWorld().spawnParticle(
-                    finalParticle,
-                    skeleton.getLocation().add(0, 1.8, 0),
-                    3, 0.2, 0.2, 0.2, 0.01
-                );
-            }
-        }.runTaskTimer(plugin, 40L, 40L);
+        plugin.getRaidTickEngine().schedule(skeleton, TickPhase.EFFECTS, "rank-particles", 40L, 40L, entity -> {
+            entity.getWorld().spawnParticle(
+                finalParticle,
+                entity.getLocation().add(0, 1.8, 0),
+                3, 0.2, 0.2, 0.2, 0.01
+            );
+            return true;
+        });
     }
 
     private void markAsRaider(Entity entity, UUID raidId, String type) {
@@ -933,6 +901,8 @@ public class RaiderEntityManager {
         
         // Ensure the entity is properly tracked by the raid
         if (entity instanceof LivingEntity) {
+            registry.register((LivingEntity) entity, raidId);
+            
             ActiveRaid raid = plugin.getRaidManager().getActiveRaid(raidId);
             if (raid != null && !raid.getRaiderEntities().contains(entity.getUniqueId())) {
                 raid.addRaiderEntity(entity.getUniqueId());
@@ -976,40 +946,83 @@ public class RaiderEntityManager {
     }
 
     public void removeRaidMobs(ActiveRaid raid) {
-        List<UUID> toRemove = new ArrayList<>(raid.getRaiderEntities());
-        for (UUID entityId : toRemove) {
-            for (World world : plugin.getServer().getWorlds()) {
-                for (Entity entity : world.getEntities()) {
-                    if (entity.getUniqueId().equals(entityId)) {
-                        entity.remove();
-                        break;
-                    }
-                }
+        for (UUID entityId : new ArrayList<>(raid.getRaiderEntities())) {
+            Entity entity = registry.findEntity(entityId);
+            if (entity != null) {
+                entity.remove();
             }
+            registry.unregister(entityId);
+            plugin.getRaidTickEngine().remove(entityId);
+            forgetPaths(entityId);
         }
     }
 
     public void removeAllRaidMobs() {
-        for (World world : plugin.getServer().getWorlds()) {
-            for (LivingEntity entity : world.getLivingEntities()) {
-                if (isRaider(entity)) {
-                    entity.remove();
-                }
-            }
+        for (LivingEntity entity : registry.getAllEntities()) {
+            entity.remove();
         }
+        registry.clear();
+        plugin.getRaidTickEngine().clear();
         
         aiManager.cleanup();
     }
 
     public void cleanupRaidMobs(UUID raidId) {
-        for (World world : plugin.getServer().getWorlds()) {
-            for (Entity entity : world.getEntities()) {
-                UUID entityRaidId = getRaidId(entity);
-                if (entityRaidId != null && entityRaidId.equals(raidId)) {
-                    entity.remove();
-                }
-            }
+        // Members include raiders in unloaded chunks, which still hold planners
+        for (UUID entityId : new ArrayList<>(registry.getRaidMemberIds(raidId))) {
+            forgetPaths(entityId);
+        }
+        for (LivingEntity entity : registry.removeRaid(raidId)) {
+            entity.remove();
+        }
+        plugin.getRaidTickEngine().cancelRaid(raidId);
+    }
+
+    /**
+     * Re-attach a raider whose chunk was loaded again, if it still belongs to a raid
+     */
+    public void trackLoadedRaider(LivingEntity entity) {
+        UUID raidId = getRaidId(entity);
+        if (raidId != null) {
+            registry.register(entity, raidId);
+        }
+    }
+
+    /**
+     * Drop the live handle of a raider whose chunk was unloaded
+     */
+    public void untrackUnloadedRaider(Entity entity) {
+        registry.detach(entity.getUniqueId());
+    }
+
+    /**
+     * Forget a raider that died or was removed
+     */
+    public void untrackRaider(UUID entityId) {
+        registry.unregister(entityId);
+        plugin.getRaidTickEngine().remove(entityId);
+        forgetPaths(entityId);
+    }
+
+    /**
+     * Drop a raider's path requests and incremental planner, which are otherwise kept until the plugin stops
+     */
+    private void forgetPaths(UUID entityId) {
+        if (plugin.getPathfindingManager() != null) {
+            plugin.getPathfindingManager().removeEntity(entityId);
         }
+        aiManager.removeEntity(entityId);
+    }
+
+    /**
+     * Find a raider by UUID without scanning worlds
+     */
+    public Entity findRaiderEntity(UUID entityId) {
+        return registry.findEntity(entityId);
+    }
+
+    public RaiderRegistry getRegistry() {
+        return registry;
     }
 
     private Location getRandomNearbyLocation(Location center, int radius) {
@@ -0,0 +1,190 @@
+package id.rnggagib.entity;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps live references to every spawned raider, keyed by entity UUID and by raid.
+ * Lookups are O(1) and replace the old world-wide entity scans.
+ */
+public class RaiderRegistry {
+    // Live handles for raiders whose chunk is currently loaded
+    private final Map<UUID, LivingEntity> liveEntities = new HashMap<>();
+    // Raid membership survives chunk unloads so raiders can be re-attached on load
+    private final Map<UUID, UUID> entityRaids = new HashMap<>();
+    private final Map<UUID, Set<UUID>> raidMembers = new HashMap<>();
+
+    /**
+     * Register a raider under its raid
+     */
+    public void register(LivingEntity entity, UUID raidId) {
+        UUID entityId = entity.getUniqueId();
+        liveEntities.put(entityId, entity);
+
+        UUID previousRaid = entityRaids.put(entityId, raidId);
+        if (previousRaid != null && !previousRaid.equals(raidId)) {
+            removeMember(previousRaid, entityId);
+        }
+        raidMembers.computeIfAbsent(raidId, k -> new LinkedHashSet<>()).add(entityId);
+    }
+
+    /**
+     * Forget a raider completely (death or removal)
+     */
+    public void unregister(UUID entityId) {
+        liveEntities.remove(entityId);
+        UUID raidId = entityRaids.remove(entityId);
+        if (raidId != null) {
+            removeMember(raidId, entityId);
+        }
+    }
+
+    /**
+     * Drop the live handle of a raider whose chunk was unloaded, keeping its raid membership
+     */
+    public void detach(UUID entityId) {
+        liveEntities.remove(entityId);
+    }
+
+    /**
+     * Check if an entity UUID belongs to a tracked raider
+     */
+    public boolean isTracked(UUID entityId) {
+        return entityRaids.containsKey(entityId);
+    }
+
+    /**
+     * Get the raid a tracked raider belongs to
+     */
+    public UUID getRaidId(UUID entityId) {
+        return entityRaids.get(entityId);
+    }
+
+    /**
+     * Get a live raider by UUID, or null if it is dead or not loaded
+     */
+    public LivingEntity getEntity(UUID entityId) {
+        LivingEntity entity = liveEntities.get(entityId);
+        if (entity == null) {
+            return null;
+        }
+
+        if (entity.isDead()) {
+            unregister(entityId);
+            return null;
+        }
+
+        if (!entity.isValid()) {
+            // Chunk unloaded without us seeing the event
+            liveEntities.remove(entityId);
+            return null;
+        }
+
+        return entity;
+    }
+
+    /**
+     * Resolve any entity by UUID, using the registry first and the server's UUID map otherwise
+     */
+    public Entity findEntity(UUID entityId) {
+        LivingEntity raider = getEntity(entityId);
+        if (raider != null) {
+            return raider;
+        }
+        return Bukkit.getEntity(entityId);
+    }
+
+    /**
+     * Get the live raiders of a raid
+     */
+    public List<LivingEntity> getRaidEntities(UUID raidId) {
+        Set<UUID> members = raidMembers.get(raidId);
+        if (members == null || members.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<LivingEntity> result = new ArrayList<>(members.size());
+        for (UUID entityId : new ArrayList<>(members)) {
+            LivingEntity entity = getEntity(entityId);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count the live raiders of a raid
+     */
+    public int countRaidEntities(UUID raidId) {
+        return getRaidEntities(raidId).size();
+    }
+
+    /**
+     * Get the UUIDs registered for a raid, loaded or not
+     */
+    public Set<UUID> getRaidMemberIds(UUID raidId) {
+        Set<UUID> members = raidMembers.get(raidId);
+        return members == null ? Collections.emptySet() : Collections.unmodifiableSet(members);
+    }
+
+    /**
+     * Get every live raider across all raids
+     */
+    public Collection<LivingEntity> getAllEntities() {
+        List<LivingEntity> result = new ArrayList<>(liveEntities.size());
+        for (UUID entityId : new ArrayList<>(liveEntities.keySet())) {
+            LivingEntity entity = getEntity(entityId);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forget a raid and all of its members, returning the ones still loaded
+     */
+    public List<LivingEntity> removeRaid(UUID raidId) {
+        List<LivingEntity> live = getRaidEntities(raidId);
+        Set<UUID> members = raidMembers.remove(raidId);
+        if (members != null) {
+            for (UUID entityId : members) {
+                liveEntities.remove(entityId);
+                entityRaids.remove(entityId);
+            }
+        }
+        return live;
+    }
+
+    public int size() {
+        return entityRaids.size();
+    }
+
+    public void clear() {
+        liveEntities.clear();
+        entityRaids.clear();
+        raidMembers.clear();
+    }
+
+    private void removeMember(UUID raidId, UUID entityId) {
+        Set<UUID> members = raidMembers.get(raidId);
+        if (members != null) {
+            members.remove(entityId);
+            if (members.isEmpty()) {
+                raidMembers.remove(raidId);
+            }
+        }
+    }
+}
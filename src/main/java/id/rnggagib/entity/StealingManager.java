@@ -1,6 +1,9 @@
 package id.rnggagib.entity;
 
 import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.ai.pathfinding.FlowField;
+import id.rnggagib.entity.tick.RaiderTask;
+import id.rnggagib.entity.tick.TickPhase;
 import id.rnggagib.raid.ActiveRaid;
 import id.rnggagib.raid.RaidManager;
 
@@ -10,6 +13,7 @@ import org.bukkit.NamespacedKey;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.Chest;
+import org.bukkit.block.Container;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Zombie;
@@ -108,13 +112,21 @@ public class StealingManager {
             return;
         }
         
-        Chest targetChest = findNearbyChest(zombieLocation, 5);
+        Container targetChest = findNearbyContainer(zombieLocation, 5);
         if (targetChest != null && plugin.getConfigManager().isChestStealingEnabled()) {
             stealFromChest(zombie, targetChest, raid);
         }
     }
 
-    private Block findNearbyValuableBlock(Location center, int radius) {
+    Block findNearbyValuableBlock(Location center, int radius) {
+        // Inside a raided town the index answers without reading any blocks
+        LootBlockIndex index = getValuableBlocksAt(center);
+        if (index != null) {
+            List<Block> indexed = index.withinBox(center.getBlockX(), center.getBlockY(), center.getBlockZ(),
+                    radius, radius, radius);
+            return indexed.isEmpty() ? null : indexed.get(random.nextInt(indexed.size()));
+        }
+        
         Set<Material> stealableBlocks = plugin.getConfigManager().getStealableBlocks();
         List<Block> valuableBlocks = new ArrayList<>();
         
@@ -140,7 +152,26 @@ public class StealingManager {
         return valuableBlocks.get(random.nextInt(valuableBlocks.size()));
     }
 
-    private Chest findNearbyChest(Location center, int radius) {
+    /**
+     * Find the closest chest, barrel or shulker box in a cube around a location
+     */
+    Container findNearbyContainer(Location center, int radius) {
+        LootBlockIndex index = getContainersAt(center);
+        if (index != null) {
+            Block closest = null;
+            double closestDistance = Double.MAX_VALUE;
+            for (Block block : index.withinBox(center.getBlockX(), center.getBlockY(), center.getBlockZ(),
+                    radius, radius, radius)) {
+                double distance = block.getLocation().distanceSquared(center);
+                if (distance < closestDistance) {
+                    closest = block;
+                    closestDistance = distance;
+                }
+            }
+            BlockState state = closest != null ? closest.getState() : null;
+            return state instanceof Container ? (Container) state : null;
+        }
+        
         for (int x = -radius; x <= radius; x++) {
             for (int y = -radius; y <= radius; y++) {
                 for (int z = -radius; z <= radius; z++) {
@@ -149,9 +180,13 @@ public class StealingManager {
                             center.getBlockY() + y, 
                             center.getBlockZ() + z);
                     
+                    // Only containers are worth a block state snapshot
+                    if (!LootIndexManager.isLootContainer(block.getType())) {
+                        continue;
+                    }
                     BlockState state = block.getState();
-                    if (state instanceof Chest) {
-                        return (Chest) state;
+                    if (state instanceof Container) {
+                        return (Container) state;
                     }
                 }
             }
@@ -172,6 +207,7 @@ public class StealingManager {
         plugin.getVisualEffectsManager().showStealEffects(block.getLocation());
         
         block.setType(Material.AIR);
+        onBlockStolen(block);
         
         // Update raid progress
         plugin.getVisualEffectsManager().updateRaidProgress(raid);
@@ -179,7 +215,7 @@ public class StealingManager {
         plugin.getLogger().info("Raider zombie stole " + type.name() + " during raid " + raid.getId());
     }
 
-    private void stealFromChest(Zombie zombie, Chest chest, ActiveRaid raid) {
+    private void stealFromChest(Zombie zombie, Container chest, ActiveRaid raid) {
         Set<Material> stealableItems = plugin.getConfigManager().getStealableItems();
         int initialMaxItemsPerCategory = plugin.getConfigManager().getMaxItemsPerCategory();
         
@@ -396,14 +432,7 @@ public class StealingManager {
     }
 
     private Entity findEntityByUuid(UUID entityId) {
-        for (org.bukkit.World world : plugin.getServer().getWorlds()) {
-            for (Entity entity : world.getEntities()) {
-                if (entity.getUniqueId().equals(entityId)) {
-                    return entity;
-                }
-            }
-        }
-        return null;
+        return plugin.getRaiderEntityManager().findRaiderEntity(entityId);
     }
 
     public void resetTheftCount(UUID entityId) {
@@ -434,13 +463,14 @@ public class StealingManager {
         plugin.getVisualEffectsManager().showStealEffects(block.getLocation());
         
         block.setType(Material.AIR);
+        onBlockStolen(block);
         
         plugin.getVisualEffectsManager().updateRaidProgress(raid);
         
         plugin.getLogger().info("Raider zombie stole " + type.name() + " during raid " + raid.getId());
     }
 
-    public void attemptToStealFromChest(Zombie zombie, Chest chest, ActiveRaid raid) {
+    public void attemptToStealFromChest(Zombie zombie, Container chest, ActiveRaid raid) {
         if (zombie == null || !zombie.isValid() || zombie.isDead()) {
             return;
         }
@@ -477,6 +507,7 @@ public class StealingManager {
         // Set a "fleeing" flag on the zombie's PersistentDataContainer
         NamespacedKey fleeingKey = new NamespacedKey(plugin, "fleeing");
         zombie.getPersistentDataContainer().set(fleeingKey, PersistentDataType.BYTE, (byte)1);
+        releaseChestClaim(zombie.getUniqueId());
         
         // Find escape location - outside the town
         Location escapeLocation = findEscapeLocation(zombie, raid);
@@ -513,18 +544,17 @@ public class StealingManager {
             ((org.bukkit.entity.Mob)zombie).setTarget(null);
         }
         
-        // Start a task to make zombie move towards escape location
-        new BukkitRunnable() {
+        // Move zombie towards escape location every tick for smoother movement
+        plugin.getRaidTickEngine().schedule(zombie, TickPhase.MOVEMENT, "escape", 0L, 1L, new RaiderTask() {
             private int counter = 0;
             private final int maxTicks = 200; // 10 seconds
             
             @Override
-            public void run() {
+            public boolean tick(LivingEntity entity) {
                 counter++;
                 
-                if (!zombie.isValid() || zombie.isDead() || counter >= maxTicks) {
-                    this.cancel();
-                    return;
+                if (counter >= maxTicks) {
+                    return false;
                 }
                 
                 // Move zombie towards escape location
@@ -550,11 +580,11 @@ public class StealingManager {
                         50, 0.5, 1, 0.5, 0.1
                     );
                     
-                    // Cancel this task
-                    this.cancel();
+                    return false;
                 }
+                return true;
             }
-        }.runTaskTimer(plugin, 0L, 1L); // Run every tick for smoother movement
+        });
     }
 
     /**
@@ -597,7 +627,8 @@ public class StealingManager {
     }
 
     /**
-     * Finds all chests in a town - call this at the start of a raid
+     * Finds chests, barrels and shulker boxes in a town by sampling it, for when the raid's container index
+     * isn't built yet
      */
     public List<Location> findTownChests(Town town, int maxChests) {
         List<Location> chestLocations = new ArrayList<>();
@@ -649,7 +680,7 @@ public class StealingManager {
                 }
                 
                 Block block = loc.getBlock();
-                if (block.getState() instanceof Chest) {
+                if (LootIndexManager.isLootContainer(block.getType()) && block.getState() instanceof Container) {
                     chestLocations.add(loc);
                     break;
                 }
@@ -677,41 +708,73 @@ public class StealingManager {
         Town town = plugin.getTownyHandler().getTownByName(raid.getTownName());
         if (town == null) return false;
         
-        // Get or find chest locations
-        List<Location> chestLocations;
-        if (!raid.hasMetadata("chest_locations")) {
-            chestLocations = findTownChests(town, 20);
-            raid.setMetadata("chest_locations", chestLocations);
-        } else {
-            chestLocations = (List<Location>) raid.getMetadata("chest_locations");
-        }
-        
-        if (chestLocations.isEmpty()) {
-            return false;
-        }
-        
-        // Find closest chest
         Location zombieLocation = zombie.getLocation();
         Location closest = null;
-        double closestDistance = Double.MAX_VALUE;
         
-        for (Location chestLoc : chestLocations) {
-            double distance = chestLoc.distance(zombieLocation);
-            if (distance < closestDistance) {
-                closest = chestLoc;
-                closestDistance = distance;
+        // The container index knows every container in the town, so ask it for the closest
+        // one no other zombie has claimed, or the closest of all once every one is taken
+        LootBlockIndex containers = plugin.getLootIndexManager() != null
+            ? plugin.getLootIndexManager().getContainers(raid) : null;
+        if (containers != null) {
+            Block chest = containers.claimNearest(zombieLocation.getBlockX(), zombieLocation.getBlockY(),
+                zombieLocation.getBlockZ(), Double.MAX_VALUE, zombie.getUniqueId());
+            if (chest == null) {
+                List<Block> nearest = containers.nearest(zombieLocation.getBlockX(), zombieLocation.getBlockY(),
+                    zombieLocation.getBlockZ(), 1, Double.MAX_VALUE, null);
+                chest = nearest.isEmpty() ? null : nearest.get(0);
+            }
+            if (chest != null) {
+                closest = chest.getLocation();
             }
+        } else {
+            closest = findClosestSampledChest(zombie, zombieLocation, town, raid);
         }
         
         if (closest == null) {
             return false;
         }
         
-        // Rest of the method for creating pathfinding
-        // ...
+        // Every zombie heading for this chest shares one flow field instead of searching its own path
+        FlowField field = plugin.getFlowFieldManager() != null
+            ? plugin.getFlowFieldManager().getGoalField(raid, closest, zombie) : null;
+        if (!plugin.getPathfindingManager().navigateByField(zombie, field, 1.0)) {
+            plugin.getPathfindingManager().navigateTo(zombie, closest, 1.0);
+        }
         
         return true;  // Successfully found and targeted a chest
     }
+    
+    private Location findClosestSampledChest(Zombie zombie, Location zombieLocation, Town town, ActiveRaid raid) {
+        // Get or find chest locations
+        if (!raid.hasMetadata("chest_locations")) {
+            raid.setMetadata("chest_locations", findTownChests(town, 20));
+        }
+        PointIndex<Location> chests = raid.getLocationIndexMetadata("chest_locations");
+        
+        // Find closest chest no other zombie has claimed
+        Location closest = chests.claimNearest(zombieLocation, Double.MAX_VALUE, zombie.getUniqueId());
+        if (closest == null) {
+            closest = chests.nearest(zombieLocation, Double.MAX_VALUE, null);
+        }
+        
+        return closest;
+    }
+    
+    /**
+     * Give up the chest a raider was heading for, so another can take it
+     */
+    public void releaseChestClaim(UUID entityId) {
+        for (ActiveRaid raid : plugin.getRaidManager().getActiveRaids().values()) {
+            LootBlockIndex containers = plugin.getLootIndexManager() != null
+                ? plugin.getLootIndexManager().getContainers(raid) : null;
+            if (containers != null) {
+                containers.release(entityId);
+            }
+            if (raid.hasMetadata("chest_locations")) {
+                raid.getLocationIndexMetadata("chest_locations").release(entityId);
+            }
+        }
+    }
 
     // Add these methods to enhance stealing abilities for specialized roles
 
@@ -778,7 +841,12 @@ public class StealingManager {
     }
 
     // Helper method to find a specific block type
-    private Block findSpecificBlockNearby(Location center, Material material, int radius) {
+    Block findSpecificBlockNearby(Location center, Material material, int radius) {
+        LootBlockIndex index = getValuableBlocksAt(center);
+        if (index != null && plugin.getConfigManager().getStealableBlocks().contains(material)) {
+            return index.nearest(center.getBlockX(), center.getBlockY(), center.getBlockZ(), radius, material);
+        }
+        
         for (int x = -radius; x <= radius; x += 3) {
             for (int y = -radius/2; y <= radius/2; y += 2) {
                 for (int z = -radius; z <= radius; z += 3) {
@@ -793,4 +861,28 @@ public class StealingManager {
         }
         return null;
     }
+
+    /**
+     * Get the valuable block index of the raided town at a location
+     * @return The index, or null if there's none to use yet
+     */
+    private LootBlockIndex getValuableBlocksAt(Location location) {
+        LootIndexManager lootIndexManager = plugin.getLootIndexManager();
+        return lootIndexManager != null ? lootIndexManager.getValuableBlocksAt(location) : null;
+    }
+
+    /**
+     * Get the container index of the raided town at a location
+     * @return The index, or null if there's none to use yet
+     */
+    private LootBlockIndex getContainersAt(Location location) {
+        LootIndexManager lootIndexManager = plugin.getLootIndexManager();
+        return lootIndexManager != null ? lootIndexManager.getContainersAt(location) : null;
+    }
+
+    private void onBlockStolen(Block block) {
+        if (plugin.getLootIndexManager() != null) {
+            plugin.getLootIndexManager().onBlockChanged(block);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+package id.rnggagib.entity;
+
+import id.rnggagib.entity.ai.pathfinding.BlockKey;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Where raiders can stand in a scouted town: spawn points and exits along the town's border, and roofed spots
+ * to take cover in. Read from chunk snapshots off the main thread while the town is warned of the raid,
+ * so starting the raid doesn't have to search the town's blocks.
+ */
+public class TownSurvey {
+    // Sides of a chunk with no claim of the same town next to them
+    static final int OPEN_NORTH = 1;
+    static final int OPEN_SOUTH = 2;
+    static final int OPEN_WEST = 4;
+    static final int OPEN_EAST = 8;
+
+    private static final int SPAWN = 0;
+    private static final int EXIT = 1;
+    private static final int COVER = 2;
+
+    // Columns sampled per chunk side, and per chunk axis when looking for cover
+    private static final int[] SAMPLED = {2, 6, 10, 14};
+    private static final int MAX_COVER_PER_CHUNK = 4;
+    private static final int COVER_DEPTH = 12;
+
+    private final World world;
+    private final List<Location> spawnPoints = new ArrayList<>();
+    private final List<Location> exitPoints = new ArrayList<>();
+    private final List<Location> coverPoints = new ArrayList<>();
+
+    TownSurvey(World world) {
+        this.world = world;
+    }
+
+    /**
+     * Standable spots along the town's border, where the raid can arrive from
+     */
+    public List<Location> getSpawnPoints() {
+        return Collections.unmodifiableList(spawnPoints);
+    }
+
+    /**
+     * One standable spot per open side of each border chunk, for raiders leaving the town
+     */
+    public List<Location> getExitPoints() {
+        return Collections.unmodifiableList(exitPoints);
+    }
+
+    /**
+     * Standable spots with blocks overhead
+     */
+    public List<Location> getCoverPoints() {
+        return Collections.unmodifiableList(coverPoints);
+    }
+
+    /**
+     * Whether a surveyed spot can still be stood on, as the town may have changed since it was surveyed
+     */
+    public static boolean isStandable(Location location) {
+        World world = location.getWorld();
+        if (world == null || !world.isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4)) {
+            return false;
+        }
+        Block feet = location.getBlock();
+        Block ground = feet.getRelative(0, -1, 0);
+        return ground.getType().isSolid() && !feet.getType().isSolid() && !feet.isLiquid()
+            && !feet.getRelative(0, 1, 0).getType().isSolid();
+    }
+
+    /**
+     * Add one chunk's results from {@link #surveyChunk}
+     */
+    void add(long[] found) {
+        for (int i = 0; i < found.length; i += 2) {
+            long key = found[i];
+            Location location = new Location(world, BlockKey.x(key) + 0.5, BlockKey.y(key), BlockKey.z(key) + 0.5);
+            switch ((int) found[i + 1]) {
+                case SPAWN:
+                    spawnPoints.add(location);
+                    break;
+                case EXIT:
+                    exitPoints.add(location);
+                    break;
+                default:
+                    coverPoints.add(location);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Find spawn points, exits and cover in one chunk. Safe off the main thread.
+     * @param snapshot A snapshot taken with its height map
+     * @param openSides Which of the chunk's sides border land outside the town
+     * @return Packed feet positions, each followed by what the spot is
+     */
+    static long[] surveyChunk(ChunkSnapshot snapshot, int openSides, int minY, int maxY) {
+        long[] found = new long[16];
+        int count = 0;
+        int baseX = snapshot.getX() << 4;
+        int baseZ = snapshot.getZ() << 4;
+
+        // Border columns along each open side; the one nearest the side's middle is also its exit
+        int[][] sides = {{OPEN_NORTH, -1, 0}, {OPEN_SOUTH, -1, 15}, {OPEN_WEST, 0, -1}, {OPEN_EAST, 15, -1}};
+        for (int[] side : sides) {
+            if ((openSides & side[0]) == 0) {
+                continue;
+            }
+            long exit = Long.MIN_VALUE;
+            int exitOffset = Integer.MAX_VALUE;
+            for (int along : SAMPLED) {
+                int x = side[1] >= 0 ? side[1] : along;
+                int z = side[2] >= 0 ? side[2] : along;
+                int y = standingHeight(snapshot, x, z, minY, maxY);
+                if (y == Integer.MIN_VALUE) {
+                    continue;
+                }
+                long key = BlockKey.pack(baseX + x, y, baseZ + z);
+                if (count + 4 > found.length) {
+                    found = Arrays.copyOf(found, found.length * 2);
+                }
+                found[count++] = key;
+                found[count++] = SPAWN;
+                if (Math.abs(along - 8) < exitOffset) {
+                    exitOffset = Math.abs(along - 8);
+                    exit = key;
+                }
+            }
+            if (exit != Long.MIN_VALUE) {
+                found[count++] = exit;
+                found[count++] = EXIT;
+            }
+        }
+
+        // Floors under the topmost block of a column, such as inside houses
+        int cover = 0;
+        for (int x : SAMPLED) {
+            for (int z : SAMPLED) {
+                if (cover >= MAX_COVER_PER_CHUNK) {
+                    break;
+                }
+                int top = Math.min(snapshot.getHighestBlockYAt(x, z), maxY - 1);
+                for (int y = top - 2; y > top - COVER_DEPTH && y > minY; y--) {
+                    if (isGround(snapshot.getBlockType(x, y - 1, z))
+                            && isOpen(snapshot.getBlockType(x, y, z))
+                            && isOpen(snapshot.getBlockType(x, y + 1, z))) {
+                        if (count + 2 > found.length) {
+                            found = Arrays.copyOf(found, found.length * 2);
+                        }
+                        found[count++] = BlockKey.pack(baseX + x, y, baseZ + z);
+                        found[count++] = COVER;
+                        cover++;
+                        break;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Get the feet height of a column's surface
+     * @return The height, or Integer.MIN_VALUE if the surface can't be stood on
+     */
+    private static int standingHeight(ChunkSnapshot snapshot, int x, int z, int minY, int maxY) {
+        int ground = Math.min(snapshot.getHighestBlockYAt(x, z), maxY - 1);
+        // Height maps point at the highest block or the air above it depending on the server
+        if (ground > minY && isOpen(snapshot.getBlockType(x, ground, z))) {
+            ground--;
+        }
+        if (ground + 2 >= maxY || !isGround(snapshot.getBlockType(x, ground, z))
+                || !isOpen(snapshot.getBlockType(x, ground + 1, z))
+                || !isOpen(snapshot.getBlockType(x, ground + 2, z))) {
+            return Integer.MIN_VALUE;
+        }
+        return ground + 1;
+    }
+
+    private static boolean isGround(Material type) {
+        return type.isSolid() && !type.name().endsWith("LEAVES");
+    }
+
+    private static boolean isOpen(Material type) {
+        return !type.isSolid() && type != Material.WATER && type != Material.LAVA;
+    }
+}
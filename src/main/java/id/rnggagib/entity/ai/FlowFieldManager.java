@@ -0,0 +1,390 @@
+package id.rnggagib.entity.ai;
+
+import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.ai.pathfinding.AStarPathfinder;
+import id.rnggagib.entity.ai.pathfinding.BlockKey;
+import id.rnggagib.entity.ai.pathfinding.FlowField;
+import id.rnggagib.entity.ai.pathfinding.SnapshotBlockReader;
+import id.rnggagib.entity.ai.pathfinding.WorldBlockReader;
+import id.rnggagib.raid.ActiveRaid;
+
+import com.palmergames.bukkit.towny.object.Town;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps one flow field per shared raid goal (a chest, the town exits, a squad leader),
+ * so every raider heading for the same goal reads its next step from one search instead of running its own.
+ * Fields are built on path workers from chunk snapshots taken within the AI work budget.
+ */
+public class FlowFieldManager implements Listener {
+    private static final int FIELD_MARGIN = 16; // Blocks around the town the fields may cover
+    private static final int FIELD_Y_RANGE = 24; // Blocks above and below the goals
+    private static final int EXIT_OFFSET = 5; // Exits sit this far outside the town, as in retreat planning
+    private static final int EXIT_SPACING = 2; // Distance between exit seeds along the border
+    private static final int MAX_FIELDS_PER_RAID = 8;
+    private static final double GOAL_FIELD_MAX_COST = 96;
+    private static final double EXIT_FIELD_MAX_COST = 192;
+    private static final int GOAL_FIELD_MAX_NODES = 16384;
+    private static final int EXIT_FIELD_MAX_NODES = 32768;
+    private static final double LEADER_REBUILD_DISTANCE_SQUARED = 4 * 4;
+    // A build not handed back by then is assumed dropped, e.g. because its requester died
+    private static final long BUILD_TIMEOUT_MS = 10_000;
+    private static final String BUILD_TASK_PREFIX = "flowfield:";
+
+    private final TownyRaider plugin;
+    private final AStarPathfinder rules;
+    private final Map<UUID, RaidFields> raidFields = new HashMap<>();
+
+    // Block changes are applied on the next tick, once the world reflects them
+    private final Map<World, Set<Long>> changedBlocks = new HashMap<>();
+    private boolean flushScheduled = false;
+
+    public FlowFieldManager(TownyRaider plugin, AStarPathfinder rules) {
+        this.plugin = plugin;
+        this.rules = rules;
+    }
+
+    /**
+     * Get the field leading to a fixed goal, such as a chest or the loot extraction point.
+     * A missing field is built in the background, so the first raiders to ask path on their own meanwhile.
+     * @param requester The raider asking, whose AI budget the build's main-thread work is charged to
+     * @return The field, or null if it isn't built yet or the raid's town can't be resolved
+     */
+    public FlowField getGoalField(ActiveRaid raid, Location goal, LivingEntity requester) {
+        if (goal == null || goal.getWorld() == null) {
+            return null;
+        }
+
+        String key = "goal:" + BlockKey.of(goal);
+        RaidFields fields = getRaidFields(raid);
+        FlowField field = fields.fields.get(key);
+        if (field == null || field.getWorld() != goal.getWorld()) {
+            requestBuild(raid, fields, key, requester, goal.getWorld(), Collections.singletonList(goal),
+                GOAL_FIELD_MAX_COST, GOAL_FIELD_MAX_NODES, false, null);
+            return null;
+        }
+        return field;
+    }
+
+    /**
+     * Get the field leading to the nearest point just outside the town border
+     * @param requester The raider asking, whose AI budget the build's main-thread work is charged to
+     * @return The field, or null if it isn't built yet
+     */
+    public FlowField getExitField(ActiveRaid raid, LivingEntity requester) {
+        RaidFields fields = getRaidFields(raid);
+        FlowField field = fields.fields.get("exit");
+        if (field == null && !fields.isBuilding("exit")) {
+            List<Location> exits = findExitSeeds(raid);
+            if (!exits.isEmpty()) {
+                requestBuild(raid, fields, "exit", requester, exits.get(0).getWorld(), exits,
+                    EXIT_FIELD_MAX_COST, EXIT_FIELD_MAX_NODES, true, null);
+            }
+        }
+        return field;
+    }
+
+    /**
+     * Get the field leading to a squad leader. Rebuilt in the background once the leader has moved a few blocks;
+     * the previous field is kept until then.
+     */
+    public FlowField getLeaderField(ActiveRaid raid, LivingEntity leader) {
+        String key = "leader:" + leader.getUniqueId();
+        RaidFields fields = getRaidFields(raid);
+        Location leaderLocation = leader.getLocation();
+        Location builtAt = fields.leaderPositions.get(leader.getUniqueId());
+        FlowField field = fields.fields.get(key);
+
+        if (field == null || builtAt == null || builtAt.getWorld() != leaderLocation.getWorld()
+                || builtAt.distanceSquared(leaderLocation) > LEADER_REBUILD_DISTANCE_SQUARED) {
+            requestBuild(raid, fields, key, leader, leaderLocation.getWorld(), Collections.singletonList(leaderLocation),
+                GOAL_FIELD_MAX_COST, GOAL_FIELD_MAX_NODES, false, leaderLocation);
+        }
+        return field;
+    }
+
+    /**
+     * Drop every field of a raid
+     */
+    public void removeRaid(UUID raidId) {
+        raidFields.remove(raidId);
+    }
+
+    public void clear() {
+        raidFields.clear();
+        changedBlocks.clear();
+    }
+
+    private RaidFields getRaidFields(ActiveRaid raid) {
+        return raidFields.computeIfAbsent(raid.getId(), id -> new RaidFields());
+    }
+
+    /**
+     * Start building a field unless it is already being built.
+     * The area is snapshotted through the AI budget and the field computed on a path worker;
+     * blocks that change meanwhile are patched in when it is handed back.
+     * @param wholeTown Whether the field covers the whole town, or only what it can reach from its goals
+     * @param leaderPosition Where the leader stood, for leader fields, or null
+     */
+    private void requestBuild(ActiveRaid raid, RaidFields fields, String key, LivingEntity requester, World world,
+                              List<Location> goals, double maxCost, int maxNodes, boolean wholeTown,
+                              Location leaderPosition) {
+        if (requester == null || fields.isBuilding(key) || plugin.getPathService() == null) {
+            return;
+        }
+
+        Town town = plugin.getTownyHandler().getTownByName(raid.getTownName());
+        int[] townBounds = plugin.getTownyHandler().getTownBounds(town);
+        if (townBounds == null) {
+            return;
+        }
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (Location goal : goals) {
+            minX = Math.min(minX, goal.getBlockX());
+            minY = Math.min(minY, goal.getBlockY());
+            minZ = Math.min(minZ, goal.getBlockZ());
+            maxX = Math.max(maxX, goal.getBlockX());
+            maxY = Math.max(maxY, goal.getBlockY());
+            maxZ = Math.max(maxZ, goal.getBlockZ());
+        }
+
+        int[] bounds = {
+            townBounds[0] - FIELD_MARGIN,
+            Math.max(world.getMinHeight(), minY - FIELD_Y_RANGE),
+            townBounds[1] - FIELD_MARGIN,
+            townBounds[2] + FIELD_MARGIN,
+            Math.min(world.getMaxHeight() - 1, maxY + FIELD_Y_RANGE),
+            townBounds[3] + FIELD_MARGIN
+        };
+        if (!wholeTown) {
+            // Every step costs at least one, so nothing further than maxCost from a goal is ever reached
+            int reach = (int) Math.ceil(maxCost);
+            bounds[0] = Math.max(bounds[0], minX - reach);
+            bounds[2] = Math.max(bounds[2], minZ - reach);
+            bounds[3] = Math.min(bounds[3], maxX + reach);
+            bounds[5] = Math.min(bounds[5], maxZ + reach);
+            if (bounds[0] > bounds[3] || bounds[2] > bounds[5]) {
+                return;
+            }
+        }
+
+        List<Long> chunks = new ArrayList<>();
+        for (int chunkX = bounds[0] >> 4; chunkX <= bounds[3] >> 4; chunkX++) {
+            for (int chunkZ = bounds[2] >> 4; chunkZ <= bounds[5] >> 4; chunkZ++) {
+                chunks.add(SnapshotBlockReader.chunkKey(chunkX, chunkZ));
+            }
+        }
+
+        PendingField pending = new PendingField(world);
+        fields.building.put(key, pending);
+        List<Location> seeds = new ArrayList<>(goals.size());
+        for (Location goal : goals) {
+            seeds.add(goal.clone());
+        }
+
+        plugin.getPathService().submitBuild(requester, BUILD_TASK_PREFIX + raid.getId() + ":" + key, rules, world, chunks,
+            blocks -> {
+                FlowField field = new FlowField(rules, world, seeds, bounds, maxCost, maxNodes);
+                field.compute(blocks);
+                return field;
+            },
+            field -> {
+                // Dropped if the raid ended or a newer build took its place
+                if (raidFields.get(raid.getId()) != fields || fields.building.get(key) != pending) {
+                    return;
+                }
+                fields.building.remove(key);
+                if (field == null) {
+                    return;
+                }
+                if (!pending.changes.isEmpty()) {
+                    field.onBlocksChanged(new WorldBlockReader(world), pending.changes);
+                }
+                fields.fields.put(key, field);
+                if (leaderPosition != null) {
+                    fields.leaderPositions.put(requester.getUniqueId(), leaderPosition);
+                }
+            });
+    }
+
+    /**
+     * Standable points in a ring just outside the town bounds
+     */
+    private List<Location> findExitSeeds(ActiveRaid raid) {
+        List<Location> seeds = new ArrayList<>();
+        Town town = plugin.getTownyHandler().getTownByName(raid.getTownName());
+        int[] bounds = plugin.getTownyHandler().getTownBounds(town);
+        World world = town != null ? town.getWorld() : null;
+        if (bounds == null || world == null) {
+            return seeds;
+        }
+
+        int minX = bounds[0] - EXIT_OFFSET;
+        int minZ = bounds[1] - EXIT_OFFSET;
+        int maxX = bounds[2] + EXIT_OFFSET;
+        int maxZ = bounds[3] + EXIT_OFFSET;
+
+        for (int x = minX; x <= maxX; x += EXIT_SPACING) {
+            addExitSeed(seeds, world, x, minZ);
+            addExitSeed(seeds, world, x, maxZ);
+        }
+        for (int z = minZ + EXIT_SPACING; z < maxZ; z += EXIT_SPACING) {
+            addExitSeed(seeds, world, minX, z);
+            addExitSeed(seeds, world, maxX, z);
+        }
+        return seeds;
+    }
+
+    private void addExitSeed(List<Location> seeds, World world, int x, int z) {
+        // Only use loaded ground; never load chunks just to plan a retreat
+        if (!world.isChunkLoaded(x >> 4, z >> 4)) {
+            return;
+        }
+        seeds.add(new Location(world, x, world.getHighestBlockYAt(x, z) + 1, z));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            markChanged(block);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            markChanged(block);
+        }
+    }
+
+    private void markChanged(Block block) {
+        PathfindingManager pathfindingManager = plugin.getPathfindingManager();
+        if (raidFields.isEmpty() && (pathfindingManager == null || !pathfindingManager.hasPlanners())) {
+            return;
+        }
+
+        changedBlocks.computeIfAbsent(block.getWorld(), w -> new HashSet<>())
+            .add(BlockKey.pack(block.getX(), block.getY(), block.getZ()));
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            new BukkitRunnable() {
+                @Override
+                public void run() {
+                    flushChanges();
+                }
+            }.runTask(plugin);
+        }
+    }
+
+    /**
+     * Patch every field in a changed world, once per field for the whole batch
+     */
+    private void flushChanges() {
+        flushScheduled = false;
+
+        for (Map.Entry<World, Set<Long>> entry : changedBlocks.entrySet()) {
+            World world = entry.getKey();
+            Set<Long> changes = entry.getValue();
+            WorldBlockReader reader = new WorldBlockReader(world);
+
+            // Raiders' own planners patch the same changes in on their next plan
+            PathfindingManager pathfindingManager = plugin.getPathfindingManager();
+            if (pathfindingManager != null) {
+                pathfindingManager.onBlocksChanged(world, changes);
+            }
+
+            for (RaidFields fields : raidFields.values()) {
+                for (FlowField field : fields.fields.values()) {
+                    if (field.getWorld() == world) {
+                        field.onBlocksChanged(reader, changes);
+                    }
+                }
+                // Fields still being built may have snapshotted these blocks before they changed
+                for (PendingField pending : fields.building.values()) {
+                    if (pending.world == world) {
+                        pending.changes.addAll(changes);
+                    }
+                }
+            }
+        }
+        changedBlocks.clear();
+    }
+
+    /**
+     * Fields of one raid, least recently used evicted first
+     */
+    private static class RaidFields {
+        final Map<UUID, Location> leaderPositions = new HashMap<>();
+        final Map<String, PendingField> building = new HashMap<>();
+        final Map<String, FlowField> fields = new LinkedHashMap<String, FlowField>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FlowField> eldest) {
+                return size() > MAX_FIELDS_PER_RAID;
+            }
+        };
+
+        /**
+         * Check if a field is being built; a build whose requester died before it ran counts as given up
+         */
+        boolean isBuilding(String key) {
+            PendingField pending = building.get(key);
+            if (pending != null && System.currentTimeMillis() - pending.startedAt > BUILD_TIMEOUT_MS) {
+                building.remove(key);
+                return false;
+            }
+            return pending != null;
+        }
+    }
+
+    /**
+     * A field being built, and the blocks that changed since its area started being snapshotted
+     */
+    private static class PendingField {
+        final World world;
+        final long startedAt = System.currentTimeMillis();
+        final Set<Long> changes = new HashSet<>();
+
+        PendingField(World world) {
+            this.world = world;
+        }
+    }
+}
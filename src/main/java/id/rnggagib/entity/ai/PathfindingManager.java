@@ -3,8 +3,15 @@ package id.rnggagib.entity.ai;
 import id.rnggagib.TownyRaider;
 import id.rnggagib.raid.ActiveRaid;
 import id.rnggagib.entity.ai.pathfinding.AStarPathfinder;
+import id.rnggagib.entity.ai.pathfinding.FlowField;
+import id.rnggagib.entity.ai.pathfinding.HierarchicalPathfinder;
+import id.rnggagib.entity.ai.pathfinding.IncrementalPathPlanner;
+import id.rnggagib.entity.ai.pathfinding.PendingPath;
+import id.rnggagib.entity.ai.pathfinding.WorldBlockReader;
 import id.rnggagib.entity.ai.waypoint.Waypoint;
 import id.rnggagib.entity.ai.waypoint.WaypointPath;
+import id.rnggagib.entity.tick.RaiderTask;
+import id.rnggagib.entity.tick.TickPhase;
 
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -12,14 +19,15 @@ import org.bukkit.NamespacedKey;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Mob;
-import org.bukkit.entity.Player;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 
 import com.palmergames.bukkit.towny.object.Town;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -32,18 +40,30 @@ public class PathfindingManager {
     private final Map<Entity, PathCache> pathCache = new WeakHashMap<>();
     private final Set<Material> problematicBlocks;
     private final AStarPathfinder pathfinder;
+    private final HierarchicalPathfinder hierarchicalPathfinder;
     private final Map<UUID, WaypointPath> entityPaths = new HashMap<>();
     private final Map<UUID, MovementState> entityMovementStates = new HashMap<>();
+    // Latest path request per entity, pending or complete
+    private final Map<UUID, PendingPath> pathRequests = new HashMap<>();
+    // Per-raider planners that repair their last search instead of starting over
+    private final Map<UUID, IncrementalPathPlanner> planners = new HashMap<>();
     
     // Pathfinding constants
     private static final int PATH_RECALCULATION_TICKS = 40; // Recalculate path every 2 seconds
     private static final int STUCK_THRESHOLD = 3; // Number of checks before considered stuck
     private static final double STUCK_DISTANCE_SQUARED = 0.2 * 0.2; // Distance squared to consider mob stuck
+    private static final long PATH_FOLLOW_TICKS = 2L;
+    private static final String PATH_TASK = "path";
+    private static final String PATH_MONITOR_TASK = "path-monitor";
+    // Targets farther than this are reached in legs over the town's chunk graph
+    private static final double HIERARCHICAL_DISTANCE = 48.0;
+    private static final int PLANNER_MAX_NODES = 8192;
     
     public PathfindingManager(TownyRaider plugin) {
         this.plugin = plugin;
         this.problematicBlocks = initProblematicBlocks();
         this.pathfinder = new AStarPathfinder(plugin, problematicBlocks);
+        this.hierarchicalPathfinder = new HierarchicalPathfinder(plugin, pathfinder);
     }
     
     private Set<Material> initProblematicBlocks() {
@@ -66,64 +86,190 @@ public class PathfindingManager {
     }
     
     /**
-     * Navigate entity to target location using optimized pathfinding
-     * @return True if path was successfully created
+     * Navigate entity to target location using optimized pathfinding.
+     * Paths are searched off the main thread; until a new path arrives the entity keeps following its old one.
+     * @return The path request for this target (possibly already complete), or null if navigation could not start
      */
-    public boolean navigateTo(Mob entity, Location target, double speed) {
+    public PendingPath navigateTo(Mob entity, Location target, double speed) {
         if (entity == null || target == null || !entity.isValid() || entity.isDead()) {
-            return false;
+            return null;
         }
         
         // Check if target is in same world
         if (!entity.getWorld().equals(target.getWorld())) {
-            return false;
+            return null;
         }
         
         // Get or create path cache for this entity
         PathCache cache = pathCache.computeIfAbsent(entity, e -> new PathCache());
         UUID entityId = entity.getUniqueId();
+        PendingPath request = pathRequests.get(entityId);
         
         // Check if we need to recalculate the path
-        if (shouldRecalculatePath(entity, target, cache)) {
-            // Generate a path using A* algorithm
-            WaypointPath path = pathfinder.findPath(entity.getLocation(), target);
-            if (path != null) {
-                // Store the path for this entity
-                entityPaths.put(entityId, path);
-                
-                // Update cache info
-                cache.target = target.clone();
-                cache.lastCalculationTime = System.currentTimeMillis();
-                cache.isNavigating = true;
-                
-                // Store previous location to detect if entity gets stuck
-                cache.lastPosition = entity.getLocation();
-                cache.stuckCounter = 0;
-                
-                // Start following the path
-                followPath(entity, path, speed);
-                return true;
-            } else {
-                // Fallback to basic movement if no path found
-                return navigateToFallback(entity, target, speed);
+        if (shouldRecalculatePath(entity, target, cache)
+                && (request == null || request.isDone() || !request.isFor(target))) {
+            if (request != null) {
+                request.cancel();
             }
-        } else if (entityPaths.containsKey(entityId)) {
-            // Continue following existing path
-            WaypointPath path = entityPaths.get(entityId);
-            if (!path.isCompleted()) {
-                // Update progress on current path
-                path.updateProgress(entity.getLocation());
-                
-                // Move toward current waypoint
-                Waypoint currentWaypoint = path.getCurrentWaypoint();
-                if (currentWaypoint != null) {
-                    moveTowardWaypoint(entity, currentWaypoint, speed);
-                    return true;
-                }
+            
+            PendingPath newRequest = new PendingPath(target);
+            newRequest.whenComplete(path -> applyPath(entity, newRequest, speed, cache, path));
+            pathRequests.put(entityId, newRequest);
+            request = newRequest;
+            
+            // Snapshotting the corridor is main-thread work, so it goes through the per-tick AI budget
+            IncrementalPathPlanner planner = planners.computeIfAbsent(entityId,
+                k -> new IncrementalPathPlanner(pathfinder, PLANNER_MAX_NODES));
+            plugin.getRaidTickEngine().getAiBudget().submit(entity, PATH_TASK, () -> {
+                Location start = entity.getLocation();
+                plugin.getPathService().submit(planner, pathfinder, start, getSearchGoal(entity, start, target), newRequest);
+            });
+        }
+        
+        // Keep following the current path while a new one is being searched
+        followExistingPath(entity, speed);
+        return request;
+    }
+    
+    /**
+     * Move an entity along a shared flow field instead of searching its own path
+     * @return True if the entity's position is covered by the field and it is now following it
+     */
+    public boolean navigateByField(Mob entity, FlowField field, double speed) {
+        if (entity == null || field == null || !entity.isValid() || entity.isDead()) {
+            return false;
+        }
+        if (field.getNextStep(entity.getLocation()) == null) {
+            return false;
+        }
+        
+        // The field replaces whatever path the entity was on
+        UUID entityId = entity.getUniqueId();
+        PendingPath request = pathRequests.remove(entityId);
+        if (request != null) {
+            request.cancel();
+        }
+        entityPaths.remove(entityId);
+        pathCache.remove(entity);
+        plugin.getRaidTickEngine().cancel(entityId, PATH_MONITOR_TASK);
+        
+        // Same task key as path following, so the two never fight over the entity
+        plugin.getRaidTickEngine().schedule(entity, TickPhase.MOVEMENT, PATH_TASK, 0L, PATH_FOLLOW_TICKS, living -> {
+            Location location = entity.getLocation();
+            Location step = field.getNextStep(location);
+            if (step == null || field.isAtGoal(location)) {
+                entityMovementStates.remove(entityId);
+                return false;
+            }
+            moveTowardWaypoint(entity, new Waypoint(step), speed);
+            return true;
+        });
+        return true;
+    }
+    
+    /**
+     * Pick where the next block-level search should end.
+     * Long routes inside a raided town are split into legs along the town's chunk graph.
+     */
+    private Location getSearchGoal(Mob entity, Location start, Location target) {
+        if (start.distanceSquared(target) <= HIERARCHICAL_DISTANCE * HIERARCHICAL_DISTANCE
+                || plugin.getRaidManager() == null) {
+            return target;
+        }
+        
+        ActiveRaid raid = plugin.getRaidManager().getRaidForEntity(entity.getUniqueId());
+        if (raid == null) {
+            return target;
+        }
+        
+        Town town = plugin.getRaidManager().getTownyHandler().getTownByName(raid.getTownName());
+        Location legGoal = hierarchicalPathfinder.getNextLegGoal(town, entity, start, target, HIERARCHICAL_DISTANCE);
+        return legGoal != null ? legGoal : target;
+    }
+    
+    /**
+     * Let raiders' planners know which blocks changed, so their next plan repairs around them
+     */
+    public void onBlocksChanged(World world, Collection<Long> blockKeys) {
+        for (IncrementalPathPlanner planner : planners.values()) {
+            for (long key : blockKeys) {
+                planner.onBlockChanged(world, key);
             }
         }
+    }
+    
+    /**
+     * Drop a town's navigation graph, so the next raid on it starts from a fresh one
+     */
+    public void invalidateTown(String townName) {
+        hierarchicalPathfinder.invalidate(townName);
+    }
+    
+    /**
+     * Check if any raider has an incremental planner that wants block changes
+     */
+    public boolean hasPlanners() {
+        return !planners.isEmpty();
+    }
+    
+    /**
+     * Get the pathfinder, whose movement rules shared flow fields follow
+     */
+    public AStarPathfinder getPathfinder() {
+        return pathfinder;
+    }
+    
+    /**
+     * Start following a path that finished searching
+     */
+    private void applyPath(Mob entity, PendingPath request, double speed, PathCache cache, WaypointPath path) {
+        if (!entity.isValid() || entity.isDead() || pathRequests.get(entity.getUniqueId()) != request) {
+            return;
+        }
         
-        return cache.isNavigating;
+        Location target = request.getGoal();
+        if (path != null) {
+            // Store the path for this entity
+            entityPaths.put(entity.getUniqueId(), path);
+            
+            // Update cache info
+            cache.target = target;
+            cache.lastCalculationTime = System.currentTimeMillis();
+            cache.isNavigating = true;
+            
+            // Store previous location to detect if entity gets stuck
+            cache.lastPosition = entity.getLocation();
+            cache.stuckCounter = 0;
+            
+            // Start following the path
+            followPath(entity, path, speed);
+            monitorPath(entity, cache.target, cache);
+        } else {
+            // Fallback to basic movement if no path found
+            navigateToFallback(entity, target, speed);
+        }
+    }
+    
+    /**
+     * Step along the entity's current path, if it has one
+     * @return True if the entity moved toward a waypoint
+     */
+    private boolean followExistingPath(Mob entity, double speed) {
+        WaypointPath path = entityPaths.get(entity.getUniqueId());
+        if (path == null || path.isCompleted()) {
+            return false;
+        }
+        
+        // Update progress on current path
+        path.updateProgress(entity.getLocation());
+        
+        // Move toward current waypoint
+        Waypoint currentWaypoint = path.getCurrentWaypoint();
+        if (currentWaypoint != null) {
+            moveTowardWaypoint(entity, currentWaypoint, speed);
+            return true;
+        }
+        return false;
     }
     
     /**
@@ -147,9 +293,16 @@ public class PathfindingManager {
             return true;
         }
         
-        // Check if target has changed significantly
+        // Check if target has moved; the planner only repairs its last search, so this is cheap
         if (cache.target.getWorld() != target.getWorld() || 
-            cache.target.distanceSquared(target) > 4.0) { // 2 blocks distance change
+            cache.target.distanceSquared(target) > 1.0) { // 1 block distance change
+            return true;
+        }
+        
+        // The current leg of a long route is finished but the target isn't reached yet
+        WaypointPath path = entityPaths.get(entity.getUniqueId());
+        if (path != null && path.isCompleted() && entity.getLocation().distanceSquared(target) > 4.0
+                && System.currentTimeMillis() - cache.lastCalculationTime > 500) {
             return true;
         }
         
@@ -165,39 +318,35 @@ public class PathfindingManager {
      * Monitor path progress and handle issues
      */
     private void monitorPath(Mob entity, Location target, PathCache cache) {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                // Check if entity or cache is gone
-                if (!entity.isValid() || entity.isDead() || !pathCache.containsKey(entity)) {
-                    this.cancel();
-                    return;
-                }
-                
-                // Check if reached target
-                if (entity.getLocation().distanceSquared(target) < 4.0) { // 2 blocks distance
-                    cache.isNavigating = false;
-                    this.cancel();
-                    return;
-                }
+        plugin.getRaidTickEngine().schedule(entity, TickPhase.MOVEMENT, PATH_MONITOR_TASK, 10L, 10L, monitored -> {
+            // Check if cache is gone
+            if (!pathCache.containsKey(entity)) {
+                return false;
+            }
+            
+            // Check if reached target
+            if (entity.getLocation().distanceSquared(target) < 4.0) { // 2 blocks distance
+                cache.isNavigating = false;
+                return false;
+            }
+            
+            // Check if entity is stuck
+            if (entity.getLocation().distanceSquared(cache.lastPosition) < STUCK_DISTANCE_SQUARED) {
+                cache.stuckCounter++;
                 
-                // Check if entity is stuck
-                if (entity.getLocation().distanceSquared(cache.lastPosition) < STUCK_DISTANCE_SQUARED) {
-                    cache.stuckCounter++;
-                    
-                    // Handle being stuck
-                    if (cache.stuckCounter >= STUCK_THRESHOLD) {
-                        handleStuckEntity(entity, target);
-                        cache.stuckCounter = 0;
-                    }
-                } else {
+                // Handle being stuck
+                if (cache.stuckCounter >= STUCK_THRESHOLD) {
+                    handleStuckEntity(entity, target);
                     cache.stuckCounter = 0;
                 }
-                
-                // Update last position
-                cache.lastPosition = entity.getLocation();
+            } else {
+                cache.stuckCounter = 0;
             }
-        }.runTaskTimer(plugin, 10L, 10L);
+            
+            // Update last position
+            cache.lastPosition = entity.getLocation();
+            return true;
+        });
     }
     
     /**
@@ -591,23 +740,9 @@ public class PathfindingManager {
      * Check if a location is safe for entity navigation
      */
     private boolean isSafeLocation(Location loc) {
-        World world = loc.getWorld();
-        
-        // Check if there's enough space (2 blocks high)
-        if (!world.getBlockAt(loc).isEmpty() || 
-            !world.getBlockAt(loc.clone().add(0, 1, 0)).isEmpty()) {
-            return false;
-        }
-        
-        // Check if the ground is solid
-        Block ground = world.getBlockAt(loc.clone().add(0, -1, 0));
-        if (!ground.getType().isSolid() || 
-            problematicBlocks.contains(ground.getType()) ||
-            ground.isLiquid()) {
-            return false;
-        }
-        
-        return true;
+        // Needs 2 blocks of space over solid ground, with nothing problematic around
+        return pathfinder.getWalkability().isSafe(new WorldBlockReader(loc.getWorld()),
+                loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
     }
     
     /**
@@ -615,17 +750,42 @@ public class PathfindingManager {
      */
     public void removeEntity(Entity entity) {
         pathCache.remove(entity);
-        entityPaths.remove(entity.getUniqueId());
-        entityMovementStates.remove(entity.getUniqueId());
+        removeEntity(entity.getUniqueId());
+    }
+    
+    /**
+     * Clean up resources for an entity that may no longer be loaded, dropping its planner.
+     * Its path cache entry is weakly held and goes with the entity.
+     */
+    public void removeEntity(UUID entityId) {
+        PendingPath request = pathRequests.remove(entityId);
+        if (request != null) {
+            request.cancel();
+        }
+        entityPaths.remove(entityId);
+        entityMovementStates.remove(entityId);
+        planners.remove(entityId);
+        plugin.getRaidTickEngine().cancel(entityId, PATH_TASK);
+        plugin.getRaidTickEngine().cancel(entityId, PATH_MONITOR_TASK);
     }
     
     /**
      * Clean up all resources
      */
     public void cleanup() {
+        for (UUID entityId : entityPaths.keySet()) {
+            plugin.getRaidTickEngine().cancel(entityId, PATH_TASK);
+            plugin.getRaidTickEngine().cancel(entityId, PATH_MONITOR_TASK);
+        }
+        for (PendingPath request : pathRequests.values()) {
+            request.cancel();
+        }
+        pathRequests.clear();
         pathCache.clear();
         entityPaths.clear();
         entityMovementStates.clear();
+        planners.clear();
+        hierarchicalPathfinder.clear();
     }
     
     /**
@@ -666,36 +826,16 @@ public class PathfindingManager {
     private void followPath(Mob entity, WaypointPath path, double speed) {
         UUID entityId = entity.getUniqueId();
         
-        // Use longer timer intervals for distant entities
-        long updateInterval = entity.getWorld().getPlayers().stream()
-            .anyMatch(p -> p.getLocation().distance(entity.getLocation()) < 32) ? 2L : 10L;
-        
-        new BukkitRunnable() {
-            private int consecutiveSkippedUpdates = 0;
-            
+        // Keyed per entity, so a new path replaces the previous follower instead of stacking.
+        // The tick engine stretches the interval for raiders far from players.
+        plugin.getRaidTickEngine().schedule(entity, TickPhase.MOVEMENT, PATH_TASK, 1L, PATH_FOLLOW_TICKS, new RaiderTask() {
             @Override
-            public void run() {
-                // Cancel if entity is invalid
-                if (!entity.isValid() || entity.isDead() || path.isCompleted()) {
-                    this.cancel();
+            public boolean tick(LivingEntity living) {
+                // Finish if path is done
+                if (path.isCompleted()) {
                     entityPaths.remove(entityId);
                     entityMovementStates.remove(entityId); // Clean up movement state
-                    return;
-                }
-                
-                // Performance - Skip update if no players nearby and not primary entity
-                if (!isEntityImportant(entity)) {
-                    Player nearestPlayer = getNearestPlayer(entity);
-                    if (nearestPlayer == null || nearestPlayer.getLocation().distanceSquared(entity.getLocation()) > 1024) { // 32 blocks squared
-                        consecutiveSkippedUpdates++;
-                        
-                        // If we've skipped too many updates, slow down even more
-                        if (consecutiveSkippedUpdates > 5) {
-                            return; // Skip this update
-                        }
-                    } else {
-                        consecutiveSkippedUpdates = 0;
-                    }
+                    return false;
                 }
                 
                 // Update path progress based on current location
@@ -705,10 +845,9 @@ public class PathfindingManager {
                 Waypoint currentWaypoint = path.getCurrentWaypoint();
                 if (currentWaypoint == null) {
                     // End of path reached
-                    this.cancel();
                     entityPaths.remove(entityId);
                     entityMovementStates.remove(entityId);
-                    return;
+                    return false;
                 }
                 
                 // If we just reached a waypoint, perform special handling based on waypoint type
@@ -718,40 +857,9 @@ public class PathfindingManager {
                 
                 // Move toward the current waypoint
                 moveTowardWaypoint(entity, currentWaypoint, speed);
+                return true;
             }
-        }.runTaskTimer(plugin, 1L, updateInterval);
-    }
-    
-    /**
-     * Check if an entity is important enough for frequent updates
-     */
-    private boolean isEntityImportant(Mob entity) {
-        // Leaders and special entities should update more frequently
-        return entity.getPersistentDataContainer().has(
-            new NamespacedKey(plugin, "leader"), 
-            PersistentDataType.BYTE
-        ) || entity.getPersistentDataContainer().has(
-            new NamespacedKey(plugin, "important"),
-            PersistentDataType.BYTE
-        );
-    }
-    
-    /**
-     * Find the nearest player to an entity
-     */
-    private Player getNearestPlayer(Entity entity) {
-        Player nearest = null;
-        double nearestDistSquared = Double.MAX_VALUE;
-        
-        for (Player player : entity.getWorld().getPlayers()) {
-            double distSquared = player.getLocation().distanceSquared(entity.getLocation());
-            if (distSquared < nearestDistSquared) {
-                nearest = player;
-                nearestDistSquared = distSquared;
-            }
-        }
-        
-        return nearest;
+        });
     }
     
     /**
@@ -1,6 +1,12 @@
 package id.rnggagib.entity.ai;
 
 import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.LootBlockIndex;
+import id.rnggagib.entity.LootIndexManager;
+import id.rnggagib.entity.tick.AiDetailLevel;
+import id.rnggagib.entity.tick.RaidProximityGrid;
+import id.rnggagib.entity.tick.RaiderTask;
+import id.rnggagib.entity.tick.TickPhase;
 import id.rnggagib.raid.ActiveRaid;
 
 import org.bukkit.Location;
@@ -8,7 +14,8 @@ import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.block.Chest;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Mob;
@@ -40,19 +47,18 @@ public class SimpleAiManager {
     private final Map<UUID, Long> lastRetreatTime = new HashMap<>();
     private final NamespacedKey targetBlockKey;
     private final NamespacedKey retreatingKey;
-    private final Map<UUID, BukkitRunnable> aiTasks = new HashMap<>();
-    private final PathfindingManager pathfindingManager;
+    private final Set<UUID> aiEntities = new HashSet<>();
 
     private static final int RETREAT_COOLDOWN = 30000; // 30 seconds
     private static final double RETREAT_HEALTH_THRESHOLD = 0.3; // 30% health
     private static final int PATH_UPDATE_INTERVAL = 10; // ticks
     private static final int TARGET_SEARCH_RADIUS = 20; // blocks
+    private static final String AI_TASK = "ai";
 
     public SimpleAiManager(TownyRaider plugin) {
         this.plugin = plugin;
         this.targetBlockKey = new NamespacedKey(plugin, "target_block");
         this.retreatingKey = new NamespacedKey(plugin, "retreating");
-        this.pathfindingManager = new PathfindingManager(plugin);
 
         startAiTasks();
         startRescueTask();
@@ -77,19 +83,14 @@ public class SimpleAiManager {
         final int zombieIntelligence = intelligence;
         final Set<Location> exploredLocations = new HashSet<>(); // Track visited areas
 
-        BukkitRunnable aiTask = new BukkitRunnable() {
+        RaiderTask aiTask = new RaiderTask() {
             private int stuckCounter = 0;
             private Location lastLocation = zombie.getLocation();
             private int priorityChestCheckCooldown = 0;
             private int explorationCooldown = 0;
 
             @Override
-            public void run() {
-                if (!zombie.isValid() || zombie.isDead()) {
-                    this.cancel();
-                    return;
-                }
-
+            public boolean tick(LivingEntity entity) {
                 // Clear any targeting that might have occurred
                 if (zombie instanceof Mob) {
                     ((Mob) zombie).setTarget(null);
@@ -97,7 +98,7 @@ public class SimpleAiManager {
 
                 // Check if zombie is currently fleeing
                 if (isRetreating(zombie) || isZombieFleeing(zombie)) {
-                    return;
+                    return true;
                 }
 
                 // Check if zombie is stuck or not making significant progress
@@ -117,6 +118,16 @@ public class SimpleAiManager {
                 priorityChestCheckCooldown--;
                 explorationCooldown--;
 
+                // Chest scans and path planning run from the shared per-tick AI budget
+                plugin.getRaidTickEngine().getAiBudget().submit(zombie, AI_TASK, this::think);
+                return true;
+            }
+
+            private void think() {
+                if (isRetreating(zombie) || isZombieFleeing(zombie)) {
+                    return;
+                }
+
                 // High priority: Direct the zombie to nearest chest with higher intelligence
                 if (priorityChestCheckCooldown <= 0) {
                     // Intelligent zombies will check for chests more frequently
@@ -143,13 +154,18 @@ public class SimpleAiManager {
                     if (zombie.getLocation().distance(targetLocation) < 2.0) {
                         // If target is a chest, try to steal
                         Block block = targetLocation.getBlock();
-                        if (block.getState() instanceof Chest) {
-                            plugin.getStealingManager().attemptToStealFromChest(zombie, (Chest) block.getState(), raid);
+                        BlockState state = LootIndexManager.isLootContainer(block.getType()) ? block.getState() : null;
+                        if (state instanceof Container) {
+                            plugin.getStealingManager().attemptToStealFromChest(zombie, (Container) state, raid);
                             explorationCooldown = 20; // Wait a bit after trying to steal
                         }
                     } else {
-                        // Not close enough, navigate to target
-                        pathfindingManager.navigateTo(zombie, targetLocation, speed);
+                        // Not close enough, navigate to target with the plugin's shared pathfinding,
+                        // whose walkability cache and planners follow block changes
+                        PathfindingManager pathfindingManager = plugin.getPathfindingManager();
+                        if (pathfindingManager != null) {
+                            pathfindingManager.navigateTo(zombie, targetLocation, speed);
+                        }
                     }
                 } else {
                     // If no chest found or not checking for chests, handle exploration
@@ -159,7 +175,7 @@ public class SimpleAiManager {
 
                     if (shouldFindNewTarget) {
                         // First check if there's a chest nearby
-                        Chest nearbyChest = findNearbyChest(zombie.getLocation(), TARGET_SEARCH_RADIUS + (zombieIntelligence * 2));
+                        Container nearbyChest = findNearbyChest(zombie, raid, TARGET_SEARCH_RADIUS + (zombieIntelligence * 2));
                         if (nearbyChest != null) {
                             Location chestLoc = nearbyChest.getLocation();
                             targetLocations.put(zombie.getUniqueId(), chestLoc);
@@ -178,8 +194,8 @@ public class SimpleAiManager {
             }
         };
 
-        aiTask.runTaskTimer(plugin, 5L, 20L);
-        aiTasks.put(zombie.getUniqueId(), aiTask);
+        plugin.getRaidTickEngine().schedule(zombie, TickPhase.AI, AI_TASK, 5L, 20L, aiTask);
+        aiEntities.add(zombie.getUniqueId());
     }
 
     /**
@@ -329,9 +345,37 @@ public class SimpleAiManager {
         return zombie.getPersistentDataContainer().has(fleeingKey, PersistentDataType.BYTE);
     }
 
-    // Add this helper method to find nearby chests
-    private Chest findNearbyChest(Location center, int radius) {
-        Set<Material> chestTypes = Set.of(Material.CHEST, Material.TRAPPED_CHEST);
+    // Add this helper method to find nearby chests, barrels and shulker boxes
+    private Container findNearbyChest(LivingEntity entity, ActiveRaid raid, int radius) {
+        Location center = entity.getLocation();
+        List<Block> chestBlocks;
+        LootBlockIndex containers = plugin.getLootIndexManager() != null
+            ? plugin.getLootIndexManager().getContainers(raid) : null;
+        if (containers != null) {
+            chestBlocks = containers.withinBox(center.getBlockX(), center.getBlockY(), center.getBlockZ(),
+                radius, radius / 2, radius);
+        } else {
+            chestBlocks = scanNearbyChests(center, radius);
+        }
+
+        if (chestBlocks.isEmpty()) {
+            return null;
+        }
+
+        // Return the closest chest
+        Block closest = chestBlocks.stream()
+            .min(Comparator.comparingDouble(b -> 
+                b.getLocation().distanceSquared(center)))
+            .orElse(null);
+
+        BlockState state = closest != null ? closest.getState() : null;
+        if (state instanceof Container) {
+            return (Container) state;
+        }
+        return null;
+    }
+
+    private List<Block> scanNearbyChests(Location center, int radius) {
         List<Block> chestBlocks = new ArrayList<>();
 
         for (int x = -radius; x <= radius; x++) {
@@ -342,27 +386,13 @@ public class SimpleAiManager {
                             center.getBlockY() + y, 
                             center.getBlockZ() + z);
 
-                    if (chestTypes.contains(block.getType())) {
+                    if (LootIndexManager.isLootContainer(block.getType())) {
                         chestBlocks.add(block);
                     }
                 }
             }
         }
-
-        if (chestBlocks.isEmpty()) {
-            return null;
-        }
-
-        // Return the closest chest
-        Block closest = chestBlocks.stream()
-            .min(Comparator.comparingDouble(b -> 
-                b.getLocation().distanceSquared(center)))
-            .orElse(null);
-
-        if (closest != null && closest.getState() instanceof Chest) {
-            return (Chest) closest.getState();
-        }
-        return null;
+        return chestBlocks;
     }
 
     public void applySkeletonAI(Skeleton skeleton, ActiveRaid raid, UUID protectTarget) {
@@ -370,62 +400,59 @@ public class SimpleAiManager {
             protectionTargets.put(skeleton.getUniqueId(), protectTarget);
         }
 
-        BukkitRunnable aiTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!skeleton.isValid() || skeleton.isDead()) {
-                    this.cancel();
-                    return;
-                }
+        RaiderTask aiTask = entity -> {
+            if (shouldRetreat(skeleton)) {
+                handleRetreat(skeleton);
+                return true;
+            }
 
-                if (shouldRetreat(skeleton)) {
-                    handleRetreat(skeleton);
-                    return;
-                }
+            if (isRetreating(skeleton)) {
+                return true;
+            }
 
-                if (isRetreating(skeleton)) {
-                    return;
-                }
+            // Target selection runs from the shared per-tick AI budget
+            plugin.getRaidTickEngine().getAiBudget().submit(skeleton, AI_TASK, () -> selectSkeletonTarget(skeleton));
+            return true;
+        };
 
-                // Find and attack nearby town residents
-                Player nearestPlayer = findNearestPlayer(skeleton, 15);
-                if (nearestPlayer != null) {
-                    skeleton.setTarget(nearestPlayer);
-                    return;
-                }
+        plugin.getRaidTickEngine().schedule(skeleton, TickPhase.AI, AI_TASK, 5L, 20L, aiTask);
+        aiEntities.add(skeleton.getUniqueId());
+    }
 
-                // If no players to attack, stay near protected entity
-                UUID protectId = protectionTargets.get(skeleton.getUniqueId());
-                if (protectId != null) {
-                    Entity protectEntity = findEntityByUuid(protectId);
-                    if (protectEntity instanceof LivingEntity && protectEntity.isValid() && !protectEntity.isDead()) {
-                        LivingEntity protectTarget = (LivingEntity) protectEntity;
-
-                        if (skeleton.getLocation().distance(protectTarget.getLocation()) > 10) {
-                            if (skeleton instanceof Mob) {
-                                ((Mob) skeleton).setTarget(null);
-                                Location targetLoc = protectTarget.getLocation().clone();
-                                new BukkitRunnable() {
-                                    @Override
-                                    public void run() {
-                                        if (!skeleton.isValid() || skeleton.isDead() || !protectTarget.isValid() || protectTarget.isDead()) {
-                                            this.cancel();
-                                            return;
-                                        }
-                                        skeleton.teleport(skeleton.getLocation().add(
-                                            protectTarget.getLocation().clone().subtract(skeleton.getLocation()).toVector().normalize().multiply(0.2)
-                                        ));
-                                    }
-                                }.runTaskTimer(plugin, 0L, 10L);
-                            }
+    private void selectSkeletonTarget(Skeleton skeleton) {
+        if (isRetreating(skeleton)) {
+            return;
+        }
+
+        // Find and attack nearby town residents
+        Player nearestPlayer = findNearestPlayer(skeleton, 15);
+        if (nearestPlayer != null) {
+            skeleton.setTarget(nearestPlayer);
+            return;
+        }
+
+        // If no players to attack, stay near protected entity
+        UUID protectId = protectionTargets.get(skeleton.getUniqueId());
+        if (protectId != null) {
+            Entity protectEntity = findEntityByUuid(protectId);
+            if (protectEntity instanceof LivingEntity && protectEntity.isValid() && !protectEntity.isDead()) {
+                LivingEntity guarded = (LivingEntity) protectEntity;
+
+                if (skeleton.getLocation().distance(guarded.getLocation()) > 10) {
+                    skeleton.setTarget(null);
+                    // Keyed task, so repeated AI ticks refresh the follow instead of stacking timers
+                    plugin.getRaidTickEngine().schedule(skeleton, TickPhase.MOVEMENT, "guard-follow", 0L, 10L, follower -> {
+                        if (!guarded.isValid() || guarded.isDead()) {
+                            return false;
                         }
-                    }
+                        follower.teleport(follower.getLocation().add(
+                            guarded.getLocation().clone().subtract(follower.getLocation()).toVector().normalize().multiply(0.2)
+                        ));
+                        return true;
+                    });
                 }
             }
-        };
-
-        aiTask.runTaskTimer(plugin, 5L, 20L);
-        aiTasks.put(skeleton.getUniqueId(), aiTask);
+        }
     }
 
     private void startAiTasks() {
@@ -447,6 +474,11 @@ public class SimpleAiManager {
             public void run() {
                 // Iterate through all AI-managed entities
                 for (UUID entityId : new ArrayList<>(targetLocations.keySet())) {
+                    // Dormant raiders are left alone until a player comes near
+                    if (plugin.getRaidTickEngine().getDetailLevel(entityId) == AiDetailLevel.DORMANT) {
+                        continue;
+                    }
+                    
                     Entity entity = findEntityByUuid(entityId);
                     if (entity instanceof LivingEntity) {
                         LivingEntity living = (LivingEntity) entity;
@@ -483,20 +515,20 @@ public class SimpleAiManager {
             Mob mob = (Mob) entity;
             mob.setTarget(null);
             Location retreatLoc = retreatLocation.clone();
-            new BukkitRunnable() {
+            plugin.getRaidTickEngine().schedule(mob, TickPhase.MOVEMENT, "retreat", 0L, 5L, new RaiderTask() {
                 int counter = 0;
                 @Override
-                public void run() {
-                    if (!mob.isValid() || mob.isDead() || counter > 40) {
-                        this.cancel();
-                        return;
+                public boolean tick(LivingEntity retreating) {
+                    if (counter > 40) {
+                        return false;
                     }
-                    mob.teleport(mob.getLocation().add(
-                        retreatLoc.clone().subtract(mob.getLocation()).toVector().normalize().multiply(0.25)
+                    retreating.teleport(retreating.getLocation().add(
+                        retreatLoc.clone().subtract(retreating.getLocation()).toVector().normalize().multiply(0.25)
                     ));
                     counter++;
+                    return true;
                 }
-            }.runTaskTimer(plugin, 0L, 5L);
+            });
         }
 
         new BukkitRunnable() {
@@ -548,10 +580,30 @@ public class SimpleAiManager {
 
         if (town == null) return null;
 
+        int radius = TARGET_SEARCH_RADIUS;
+        List<Block> valuableBlocks;
+        // The town's index only holds blocks inside its claims, so no town check is needed
+        LootBlockIndex index = plugin.getLootIndexManager() != null
+            ? plugin.getLootIndexManager().getValuableBlocks(raid) : null;
+        if (index != null) {
+            valuableBlocks = index.withinBox(origin.getBlockX(), origin.getBlockY(), origin.getBlockZ(),
+                radius, radius / 2, radius);
+        } else {
+            valuableBlocks = scanValuableBlocks(origin, town, radius);
+        }
+
+        if (valuableBlocks.isEmpty()) {
+            return null;
+        }
+
+        Block target = valuableBlocks.get((int) (Math.random() * valuableBlocks.size()));
+        return target.getLocation().add(0.5, 0.5, 0.5);
+    }
+
+    private List<Block> scanValuableBlocks(Location origin, Town town, int radius) {
         Set<Material> stealableBlocks = plugin.getConfigManager().getStealableBlocks();
         List<Block> valuableBlocks = new ArrayList<>();
 
-        int radius = TARGET_SEARCH_RADIUS;
         for (int x = -radius; x <= radius; x++) {
             for (int y = -radius/2; y <= radius/2; y++) {
                 for (int z = -radius; z <= radius; z++) {
@@ -568,13 +620,7 @@ public class SimpleAiManager {
                 }
             }
         }
-
-        if (valuableBlocks.isEmpty()) {
-            return null;
-        }
-
-        Block target = valuableBlocks.get((int) (Math.random() * valuableBlocks.size()));
-        return target.getLocation().add(0.5, 0.5, 0.5);
+        return valuableBlocks;
     }
 
     private void handleBlockStealing(Zombie zombie, Block block, ActiveRaid raid) {
@@ -586,6 +632,11 @@ public class SimpleAiManager {
     }
 
     private List<Player> getNearbyPlayers(LivingEntity entity, int radius) {
+        RaidProximityGrid grid = plugin.getRaidTickEngine().getProximityGrid(entity);
+        if (grid != null) {
+            return grid.getPlayersWithin(entity.getLocation(), radius, radius, radius);
+        }
+
         List<Player> nearbyPlayers = new ArrayList<>();
 
         for (Entity nearby : entity.getNearbyEntities(radius, radius, radius)) {
@@ -598,6 +649,11 @@ public class SimpleAiManager {
     }
 
     private Player findNearestPlayer(LivingEntity entity, int radius) {
+        RaidProximityGrid grid = plugin.getRaidTickEngine().getProximityGrid(entity);
+        if (grid != null) {
+            return grid.getNearestPlayer(entity.getLocation(), radius);
+        }
+
         Player nearest = null;
         double nearestDistance = Double.MAX_VALUE;
 
@@ -615,14 +671,7 @@ public class SimpleAiManager {
     }
 
     private Entity findEntityByUuid(UUID entityId) {
-        for (World world : plugin.getServer().getWorlds()) {
-            for (Entity entity : world.getEntities()) {
-                if (entity.getUniqueId().equals(entityId)) {
-                    return entity;
-                }
-            }
-        }
-        return null;
+        return plugin.getRaiderEntityManager().findRaiderEntity(entityId);
     }
 
     private boolean isStuck(LivingEntity entity) {
@@ -724,16 +773,29 @@ public class SimpleAiManager {
         return new Location(world, center.getX(), center.getY() + 3, center.getZ());
     }
 
+    /**
+     * Forget a raider that died or was removed; its pathfinding state is dropped by the plugin's pathfinding manager
+     */
+    public void removeEntity(UUID entityId) {
+        targetLocations.remove(entityId);
+        protectionTargets.remove(entityId);
+        lastRetreatTime.remove(entityId);
+        aiEntities.remove(entityId);
+    }
+
     public void cleanup() {
-        for (BukkitRunnable task : aiTasks.values()) {
-            task.cancel();
+        for (UUID entityId : aiEntities) {
+            plugin.getRaidTickEngine().cancel(entityId, AI_TASK);
         }
 
         targetLocations.clear();
         protectionTargets.clear();
         lastRetreatTime.clear();
-        aiTasks.clear();
+        aiEntities.clear();
 
-        pathfindingManager.cleanup();
+        PathfindingManager pathfindingManager = plugin.getPathfindingManager();
+        if (pathfindingManager != null) {
+            pathfindingManager.cleanup();
+        }
     }
 }
\ No newline at end of file
@@ -1,13 +1,17 @@
 package id.rnggagib.entity.ai.coordination;
 
 import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.LootBlockIndex;
 import id.rnggagib.entity.ai.PathfindingManager;
+import id.rnggagib.entity.ai.pathfinding.FlowField;
 import id.rnggagib.entity.ai.retreat.StrategicRetreatManager;
 import id.rnggagib.entity.ai.retreat.StrategicRetreatManager.RetreatType;
+import id.rnggagib.entity.tick.RaidProximityGrid;
 import id.rnggagib.raid.ActiveRaid;
 
 import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
@@ -42,12 +46,14 @@ public class RaiderCoordinationManager {
     private final Map<UUID, RaidSquad> activeSquads = new ConcurrentHashMap<>();
     private final Map<UUID, UUID> entitySquadMap = new ConcurrentHashMap<>();
     private final Map<UUID, Set<Location>> sharedKnowledgeMap = new ConcurrentHashMap<>();
+    private long coordinationCycle = 0;
     
     // Constants for coordination behavior
     private static final double FORMATION_UPDATE_DISTANCE = 2.0;
     private static final double FORMATION_SPACING = 2.5;
     private static final int COORDINATION_UPDATE_TICKS = 20;
     private static final int MAX_SQUAD_SIZE = 5;
+    private static final double LEADER_FIELD_DISTANCE = 12.0;
     private static final double DEFAULT_MOVEMENT_SPEED = 1.0;
     
     public RaiderCoordinationManager(TownyRaider plugin, PathfindingManager pathfindingManager, 
@@ -80,7 +86,7 @@ public class RaiderCoordinationManager {
      * Organize entities into coordinated squads when a raid starts
      */
     public void organizeRaidSquads(ActiveRaid raid) {
-        List<UUID> raiderIds = raid.getRaiderEntities();
+        Set<UUID> raiderIds = raid.getRaiderEntities();
         Map<UUID, LivingEntity> raiders = new HashMap<>();
         
         // Collect all living raid entities
@@ -194,8 +200,15 @@ public class RaiderCoordinationManager {
      */
     private void updateAllSquadFormations() {
         List<UUID> invalidSquads = new ArrayList<>();
+        coordinationCycle++;
         
         for (RaidSquad squad : activeSquads.values()) {
+            // Squads far from players re-form less often, following their leader's level of detail
+            int multiplier = plugin.getRaidTickEngine().getIntervalMultiplier(squad.getLeaderId());
+            if (coordinationCycle % multiplier != 0) {
+                continue;
+            }
+            
             boolean valid = updateSquadFormation(squad);
             if (!valid) {
                 invalidSquads.add(squad.getId());
@@ -248,6 +261,8 @@ public class RaiderCoordinationManager {
         
         // Calculate formation positions
         Map<UUID, Location> formationPositions = calculateFormationPositions(squad, leader.getLocation());
+        ActiveRaid raid = plugin.getRaidManager().getActiveRaid(squad.getRaidId());
+        FlowField leaderField = null;
         
         // Move members to formation positions
         for (LivingEntity member : activeMembers) {
@@ -263,6 +278,17 @@ public class RaiderCoordinationManager {
                     RaiderRole role = squad.getMembers().get(member.getUniqueId());
                     double speed = getMovementSpeedForRole(role);
                     
+                    // Stragglers catch up along one shared field toward the leader; close members path to their slot
+                    if (raid != null && plugin.getFlowFieldManager() != null
+                            && member.getLocation().distanceSquared(leader.getLocation()) > LEADER_FIELD_DISTANCE * LEADER_FIELD_DISTANCE) {
+                        if (leaderField == null) {
+                            leaderField = plugin.getFlowFieldManager().getLeaderField(raid, leader);
+                        }
+                        if (pathfindingManager.navigateByField((Mob)member, leaderField, speed)) {
+                            continue;
+                        }
+                    }
+                    
                     pathfindingManager.navigateTo((Mob)member, targetPos, speed);
                 }
             }
@@ -542,6 +568,7 @@ public class RaiderCoordinationManager {
                 
             case RANGED:
                 // Ranged attackers prefer stationary targets or those focused on other squad members
+                RaidProximityGrid grid = plugin.getRaidTickEngine().getProximityGrid(entity);
                 for (LivingEntity target : potentialTargets) {
                     if (target instanceof Player) {
                         Player player = (Player)target;
@@ -549,7 +576,10 @@ public class RaiderCoordinationManager {
                         Entity targetEntity = null;
                         if (player.hasLineOfSight(entity)) {
                             // Get entities in player's line of sight
-                            for (Entity nearbyEntity : player.getNearbyEntities(10, 10, 10)) {
+                            List<? extends Entity> nearbyEntities = grid != null
+                                ? grid.getRaidersWithin(player.getLocation(), 10, 10, 10, null)
+                                : player.getNearbyEntities(10, 10, 10);
+                            for (Entity nearbyEntity : nearbyEntities) {
                                 if (nearbyEntity instanceof LivingEntity && 
                                     isInSameSquad(entity, nearbyEntity) && 
                                     player.hasLineOfSight(nearbyEntity)) {
@@ -977,6 +1007,25 @@ public class RaiderCoordinationManager {
         
         // Scan area for targets
         int radius = 50; // 50 block radius
+        
+        // The town's indexes already know where its valuable blocks and containers are
+        LootBlockIndex index = plugin.getLootIndexManager() != null
+            ? plugin.getLootIndexManager().getValuableBlocks(raid) : null;
+        LootBlockIndex containers = plugin.getLootIndexManager() != null
+            ? plugin.getLootIndexManager().getContainers(raid) : null;
+        if (index != null) {
+            for (Block block : index.withinBox(townCenter.getBlockX(), townCenter.getBlockY(), townCenter.getBlockZ(),
+                    radius, radius, radius)) {
+                valuableLocations.add(block.getLocation());
+            }
+        }
+        if (containers != null) {
+            for (Block block : containers.withinBox(townCenter.getBlockX(), townCenter.getBlockY(), townCenter.getBlockZ(),
+                    radius, radius, radius)) {
+                chestLocations.add(block.getLocation());
+            }
+        }
+        
         for (int x = -radius; x <= radius; x += 5) {
             for (int z = -radius; z <= radius; z += 5) {
                 Location loc = townCenter.clone().add(x, 0, z);
@@ -985,11 +1034,11 @@ public class RaiderCoordinationManager {
                 // Get exact block locations instead of just using the highest block
                 for (int y = -5; y <= 5; y++) {
                     Location checkLoc = loc.clone().add(0, y, 0);
-                    if (plugin.getConfigManager().getStealableBlocks().contains(checkLoc.getBlock().getType())) {
+                    if (index == null && plugin.getConfigManager().getStealableBlocks().contains(checkLoc.getBlock().getType())) {
                         valuableLocations.add(checkLoc);
                     }
                     
-                    if (checkLoc.getBlock().getState() instanceof org.bukkit.block.Chest) {
+                    if (containers == null && checkLoc.getBlock().getState() instanceof org.bukkit.block.Chest) {
                         chestLocations.add(checkLoc);
                     }
                 }
@@ -1,6 +1,7 @@
 package id.rnggagib.entity.ai.decision;
 
 import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.LootBlockIndex;
 import id.rnggagib.entity.ai.coordination.RaiderCoordinationManager;
 import id.rnggagib.entity.ai.coordination.RaiderCoordinationManager.RaidSquad;
 import id.rnggagib.entity.ai.coordination.RaiderCoordinationManager.RaiderRole;
@@ -8,11 +9,13 @@ import id.rnggagib.entity.ai.coordination.RaiderCoordinationManager.PointOfInter
 import id.rnggagib.entity.ai.coordination.RaiderCoordinationManager.SquadFormation;
 import id.rnggagib.entity.ai.coordination.TacticalBehavior;
 import id.rnggagib.entity.ai.coordination.AdvancedGroupTactics;
+import id.rnggagib.entity.tick.RaidProximityGrid;
 import id.rnggagib.raid.ActiveRaid;
 
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
@@ -34,6 +37,7 @@ public class LeaderDecisionSystem {
     private static final double DEFAULT_MOVEMENT_SPEED = 0.6; // Base movement speed
     private static final double STEALER_MOVEMENT_SPEED = 0.5; // Stealthy movement for stealers
     private static final double MINER_MOVEMENT_SPEED = 0.4;  // Slower miners to look more methodical
+    private static final String TACTICS_TASK = "tactics";
 
     public LeaderDecisionSystem(TownyRaider plugin, RaiderCoordinationManager coordinationManager,
                                TacticalBehavior tacticalBehavior, AdvancedGroupTactics advancedTactics) {
@@ -50,6 +54,13 @@ public class LeaderDecisionSystem {
         // Check cooldown
         if (isTacticalDecisionOnCooldown(leader.getUniqueId())) return;
 
+        // Threat scans and tactic selection run from the shared per-tick AI budget
+        plugin.getRaidTickEngine().getAiBudget().submit(leader, TACTICS_TASK, () -> decide(squad, leader));
+    }
+
+    private void decide(RaidSquad squad, LivingEntity leader) {
+        if (isTacticalDecisionOnCooldown(leader.getUniqueId())) return;
+
         // Get intelligence factor for more complex decisions
         int intelligence = getEntityIntelligence(leader);
         ActiveRaid raid = plugin.getRaidManager().getActiveRaid(squad.getRaidId());
@@ -349,6 +360,19 @@ public class LeaderDecisionSystem {
      * Get chest locations from raid metadata or find them if needed
      */
     private List<Location> getChestLocations(ActiveRaid raid) {
+        // The town's container index is kept current, so it is asked every time instead of caching
+        Location center = raid.getLocation();
+        LootBlockIndex containers = plugin.getLootIndexManager() != null
+            ? plugin.getLootIndexManager().getContainers(raid) : null;
+        if (containers != null && center != null) {
+            List<Location> nearest = new ArrayList<>();
+            for (Block block : containers.nearest(center.getBlockX(), center.getBlockY(), center.getBlockZ(), 20,
+                    Double.MAX_VALUE, null)) {
+                nearest.add(block.getLocation());
+            }
+            return nearest;
+        }
+
         Object chestLocationsObj = raid.getMetadata("chest_locations");
         if (chestLocationsObj instanceof List) {
             List<?> chestList = (List<?>) chestLocationsObj;
@@ -375,6 +399,18 @@ public class LeaderDecisionSystem {
      * Get valuable block locations from raid metadata or find them
      */
     private List<Location> getValuableBlockLocations(ActiveRaid raid) {
+        // The town's index is kept current, so it is asked every time instead of caching
+        Location center = raid.getLocation();
+        LootBlockIndex index = plugin.getLootIndexManager() != null
+            ? plugin.getLootIndexManager().getValuableBlocks(raid) : null;
+        if (index != null && center != null) {
+            List<Location> nearest = new ArrayList<>();
+            for (Block block : index.nearest(center.getBlockX(), center.getBlockY(), center.getBlockZ(), 30, 50, null)) {
+                nearest.add(block.getLocation());
+            }
+            return nearest;
+        }
+
         Object blockLocationsObj = raid.getMetadata("valuable_blocks");
         if (blockLocationsObj instanceof List) {
             List<?> blockList = (List<?>) blockLocationsObj;
@@ -428,6 +464,11 @@ public class LeaderDecisionSystem {
     }
 
     private List<Player> getNearbyPlayers(LivingEntity entity, int radius) {
+        RaidProximityGrid grid = plugin.getRaidTickEngine().getProximityGrid(entity);
+        if (grid != null) {
+            return grid.getPlayersWithin(entity.getLocation(), radius, radius, radius);
+        }
+
         List<Player> players = new ArrayList<>();
         for (Entity nearby : entity.getNearbyEntities(radius, radius, radius)) {
             if (nearby instanceof Player) {
@@ -457,28 +498,10 @@ public class LeaderDecisionSystem {
     }
 
     private Location findExitPoint(LivingEntity entity, ActiveRaid raid) {
-        // Get remembered exit points
-        Object exitPointsObj = raid.getMetadata("exit_points");
-        if (exitPointsObj instanceof List) {
-            List<?> exitPoints = (List<?>) exitPointsObj;
-            if (!exitPoints.isEmpty() && exitPoints.get(0) instanceof Location) {
-                @SuppressWarnings("unchecked")
-                List<Location> locations = (List<Location>) exitPoints;
-
-                // Find closest exit point
-                Location closest = null;
-                double closestDist = Double.MAX_VALUE;
-
-                for (Location exit : locations) {
-                    double dist = exit.distanceSquared(entity.getLocation());
-                    if (dist < closestDist) {
-                        closestDist = dist;
-                        closest = exit;
-                    }
-                }
-
-                return closest;
-            }
+        // Closest remembered exit point
+        Location closest = raid.getLocationIndexMetadata("exit_points").nearest(entity.getLocation(), Double.MAX_VALUE, null);
+        if (closest != null) {
+            return closest;
         }
 
         // Fallback - just move away from town center
@@ -494,37 +517,24 @@ public class LeaderDecisionSystem {
 
     private Location findNearbyLootLocation(LivingEntity entity, ActiveRaid raid) {
         // Try to find chests or valuable blocks nearby
-        for (Entity nearby : entity.getNearbyEntities(20, 10, 20)) {
-            if (nearby.getLocation().getBlock().getState() instanceof org.bukkit.block.Chest) {
-                return nearby.getLocation();
+        LootBlockIndex containers = plugin.getLootIndexManager() != null
+            ? plugin.getLootIndexManager().getContainers(raid) : null;
+        if (containers != null) {
+            Location origin = entity.getLocation();
+            List<Block> nearbyContainers = containers.nearest(origin.getBlockX(), origin.getBlockY(), origin.getBlockZ(), 1, 20, null);
+            if (!nearbyContainers.isEmpty()) {
+                return nearbyContainers.get(0).getLocation();
             }
-        }
-
-        // Check if raid has remembered loot locations
-        Object lootLocationsObj = raid.getMetadata("loot_locations");
-        if (lootLocationsObj instanceof List) {
-            List<?> lootLocations = (List<?>) lootLocationsObj;
-            if (!lootLocations.isEmpty() && lootLocations.get(0) instanceof Location) {
-                @SuppressWarnings("unchecked")
-                List<Location> locations = (List<Location>) lootLocations;
-
-                // Find closest loot location
-                Location closest = null;
-                double closestDist = Double.MAX_VALUE;
-
-                for (Location loot : locations) {
-                    double dist = loot.distanceSquared(entity.getLocation());
-                    if (dist < closestDist && dist < 400) { // Within 20 blocks
-                        closestDist = dist;
-                        closest = loot;
-                    }
+        } else {
+            for (Entity nearby : entity.getNearbyEntities(20, 10, 20)) {
+                if (nearby.getLocation().getBlock().getState() instanceof org.bukkit.block.Chest) {
+                    return nearby.getLocation();
                 }
-
-                if (closest != null) return closest;
             }
         }
 
-        return null;
+        // Check if raid has remembered loot locations within 20 blocks
+        return raid.getLocationIndexMetadata("loot_locations").nearest(entity.getLocation(), 20, null);
     }
 
     private int getEntityIntelligence(Entity entity) {
@@ -1,6 +1,7 @@
 package id.rnggagib.entity.ai.memory;
 
 import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.PointIndex;
 import org.bukkit.Location;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -136,22 +137,29 @@ public class RaiderMemoryManager {
         private final List<Location> successfulChestLocations = new ArrayList<>();
         private final List<Location> successfulValuableLocations = new ArrayList<>();
         private final List<Location> dangerousLocations = new ArrayList<>();
+        // The same locations, indexed to check for a nearby one without going through the list
+        private final PointIndex<Location> chestIndex = new PointIndex<>();
+        private final PointIndex<Location> valuableIndex = new PointIndex<>();
+        private final PointIndex<Location> dangerIndex = new PointIndex<>();
         
         public void addSuccessfulChestLocation(Location location) {
-            if (!containsNearbyLocation(successfulChestLocations, location, 2)) {
+            if (!containsNearbyLocation(chestIndex, location, 2)) {
                 successfulChestLocations.add(location);
+                index(chestIndex, location);
             }
         }
         
         public void addSuccessfulValuableLocation(Location location) {
-            if (!containsNearbyLocation(successfulValuableLocations, location, 2)) {
+            if (!containsNearbyLocation(valuableIndex, location, 2)) {
                 successfulValuableLocations.add(location);
+                index(valuableIndex, location);
             }
         }
         
         public void addDangerousLocation(Location location) {
-            if (!containsNearbyLocation(dangerousLocations, location, 5)) {
+            if (!containsNearbyLocation(dangerIndex, location, 5)) {
                 dangerousLocations.add(location);
+                index(dangerIndex, location);
             }
         }
         
@@ -173,14 +181,12 @@ public class RaiderMemoryManager {
             return dangerousLocations;
         }
         
-        private boolean containsNearbyLocation(List<Location> locations, Location check, double radius) {
-            for (Location loc : locations) {
-                if (loc.getWorld().equals(check.getWorld()) && 
-                    loc.distanceSquared(check) <= radius * radius) {
-                    return true;
-                }
-            }
-            return false;
+        private boolean containsNearbyLocation(PointIndex<Location> locations, Location check, double radius) {
+            return locations.nearest(check, radius, loc -> loc.getWorld().equals(check.getWorld())) != null;
+        }
+        
+        private void index(PointIndex<Location> locations, Location location) {
+            locations.put(location.getBlockX(), location.getBlockY(), location.getBlockZ(), location);
         }
     }
 }
\ No newline at end of file
@@ -7,117 +7,158 @@ import id.rnggagib.entity.ai.waypoint.WaypointPath;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Block;
-import org.bukkit.block.BlockFace;
 
-import java.util.*;
+import java.util.Set;
 
+/**
+ * A* search over block positions.
+ * Positions are packed into longs and all search state lives in a per-thread {@link PathSearchContext},
+ * so a search allocates nothing but the returned path. Blocks are read through a {@link BlockReader},
+ * which lets the same search run on the main thread or against chunk snapshots on a worker.
+ */
 public class AStarPathfinder {
     private final TownyRaider plugin;
-    private final Set<Material> problematicBlocks;
     private final int maxIterations;
     private final int maxPathLength;
+    private final WalkabilityCache walkability;
     
     // Direction vectors for neighbors (x, y, z) - cardinal directions + diagonals
-    private static final int[][] NEIGHBORS = {
+    static final int[][] NEIGHBORS = {
             {1, 0, 0}, {-1, 0, 0}, {0, 0, 1}, {0, 0, -1},
             {1, 0, 1}, {1, 0, -1}, {-1, 0, 1}, {-1, 0, -1},
             {0, 1, 0}, {0, -1, 0}  // Up and down for stairs/jumps
     };
     
+    // Base cost of each step in NEIGHBORS
+    private static final double[] NEIGHBOR_COSTS = new double[NEIGHBORS.length];
+    static {
+        for (int i = 0; i < NEIGHBORS.length; i++) {
+            int[] dir = NEIGHBORS[i];
+            NEIGHBOR_COSTS[i] = Math.sqrt(dir[0] * dir[0] + dir[1] * dir[1] + dir[2] * dir[2]);
+        }
+    }
+    
+    // Jump Point Search tuning: scan limit per expansion, and how open ground must be to use it
+    private static final int JUMP_SCANS_PER_ITERATION = 32;
+    private static final int JUMP_BOUNDS_MARGIN = 16;
+    private static final int MIN_JUMP_POINT_DISTANCE = 8;
+    private static final int OPEN_GROUND_SAMPLES = 8;
+    private static final double OPEN_GROUND_RATIO = 0.85;
+    
+    // Results of classifying a block for movement
+    static final int BLOCKED = -1;
+    static final int WALKABLE = 0;
+    static final int DIFFICULT = 1;
+    
+    private final ThreadLocal<PathSearchContext> contexts = ThreadLocal.withInitial(PathSearchContext::new);
+    
     public AStarPathfinder(TownyRaider plugin, Set<Material> problematicBlocks) {
         this.plugin = plugin;
-        this.problematicBlocks = problematicBlocks;
         this.maxIterations = 1000;  // Prevent infinite loops
         this.maxPathLength = 100;   // Maximum path length to search
+        this.walkability = new WalkabilityCache(problematicBlocks);
+    }
+    
+    public int getMaxPathLength() {
+        return maxPathLength;
+    }
+    
+    public int getMaxIterations() {
+        return maxIterations;
     }
     
     /**
-     * Find a path from start to end using A* algorithm
+     * Find a path from start to end using A* algorithm, reading the live world
      */
     public WaypointPath findPath(Location start, Location end) {
         if (start.getWorld() != end.getWorld()) {
             return null; // Can't path between worlds
         }
+        return findPath(new WorldBlockReader(start.getWorld()), start, end);
+    }
+    
+    /**
+     * Find a path from start to end using A* algorithm
+     * @param blocks Where block types are read from
+     */
+    public WaypointPath findPath(BlockReader blocks, Location start, Location end) {
+        if (start.getWorld() != end.getWorld()) {
+            return null; // Can't path between worlds
+        }
         
-        // Create nodes for start and end
-        PathNode startNode = new PathNode(start);
-        PathNode endNode = new PathNode(end);
+        World world = start.getWorld();
+        int goalX = end.getBlockX();
+        int goalY = end.getBlockY();
+        int goalZ = end.getBlockZ();
         
-        // Initialize open and closed sets
-        PriorityQueue<PathNode> openSet = new PriorityQueue<>();
-        Set<String> closedSet = new HashSet<>();
+        PathSearchContext ctx = contexts.get();
+        ctx.reset();
         
         // Add start node
-        startNode.g = 0;
-        startNode.h = heuristic(startNode, endNode);
-        startNode.f = startNode.g + startNode.h;
-        openSet.add(startNode);
+        int startX = start.getBlockX();
+        int startY = start.getBlockY();
+        int startZ = start.getBlockZ();
+        int startNode = ctx.add(BlockKey.pack(startX, startY, startZ), startX, startY, startZ);
+        ctx.g[startNode] = 0;
+        ctx.f[startNode] = heuristic(startX, startY, startZ, goalX, goalY, goalZ);
+        ctx.open(startNode);
         
         int iterations = 0;
         
         // Main A* loop
-        while (!openSet.isEmpty() && iterations < maxIterations) {
+        while (!ctx.isOpenEmpty() && iterations < maxIterations) {
             iterations++;
             
-            // Get node with lowest f value
-            PathNode current = openSet.poll();
+            // Get node with lowest f value; it is closed from here on
+            int current = ctx.poll();
+            int cx = ctx.x[current];
+            int cy = ctx.y[current];
+            int cz = ctx.z[current];
             
             // Check if we reached the goal
-            if (isSameBlock(current.location, end)) {
-                return reconstructPath(current);
+            if (cx == goalX && cy == goalY && cz == goalZ) {
+                return reconstructPath(ctx, world, start, current);
             }
             
-            // Add to closed set
-            closedSet.add(nodeToString(current));
-            
             // Process neighbors
-            for (int[] dir : NEIGHBORS) {
-                // Calculate neighbor location
-                Location neighborLoc = current.location.clone().add(dir[0], dir[1], dir[2]);
+            for (int d = 0; d < NEIGHBORS.length; d++) {
+                int[] dir = NEIGHBORS[d];
+                int nx = cx + dir[0];
+                int ny = cy + dir[1];
+                int nz = cz + dir[2];
+                long key = BlockKey.pack(nx, ny, nz);
                 
-                // Skip if already in closed set
-                PathNode neighborNode = new PathNode(neighborLoc);
-                if (closedSet.contains(nodeToString(neighborNode))) {
+                // Skip if already closed
+                int neighbor = ctx.find(key);
+                if (neighbor >= 0 && ctx.state[neighbor] == PathSearchContext.CLOSED) {
                     continue;
                 }
                 
-                // Check if location is valid for movement
-                if (!isValidLocation(neighborLoc, current.location)) {
-                    continue;
+                if (neighbor < 0) {
+                    // First visit: check if the block is valid for movement
+                    int terrain = classifyBlock(blocks, nx, ny, nz);
+                    neighbor = ctx.add(key, nx, ny, nz);
+                    if (terrain == BLOCKED) {
+                        // Closed straight away so the block is never looked up again
+                        ctx.state[neighbor] = PathSearchContext.CLOSED;
+                        continue;
+                    }
+                    ctx.terrain[neighbor] = (byte) terrain;
                 }
                 
                 // Calculate g score (distance from start)
-                double tentativeG = current.g + getMovementCost(current.location, neighborLoc);
+                double tentativeG = ctx.g[current] + getMovementCost(d, ctx.terrain[neighbor]);
                 
                 // Skip if path is too long
-                if (tentativeG > maxPathLength) {
+                if (tentativeG > maxPathLength || tentativeG >= ctx.g[neighbor]) {
                     continue;
                 }
                 
-                // Create or update neighbor node
-                boolean inOpenSet = false;
-                for (PathNode node : openSet) {
-                    if (isSameBlock(node.location, neighborLoc)) {
-                        inOpenSet = true;
-                        if (tentativeG < node.g) {
-                            // Found better path
-                            node.parent = current;
-                            node.g = tentativeG;
-                            node.f = node.g + node.h;
-                        }
-                        break;
-                    }
-                }
-                
-                // Add to open set if not already in it
-                if (!inOpenSet) {
-                    neighborNode.g = tentativeG;
-                    neighborNode.h = heuristic(neighborNode, endNode);
-                    neighborNode.f = neighborNode.g + neighborNode.h;
-                    neighborNode.parent = current;
-                    openSet.add(neighborNode);
-                }
+                // Found a better path; open or decrease-key
+                ctx.parent[neighbor] = current;
+                ctx.g[neighbor] = tentativeG;
+                ctx.f[neighbor] = tentativeG + heuristic(nx, ny, nz, goalX, goalY, goalZ);
+                ctx.open(neighbor);
             }
         }
         
@@ -126,135 +167,374 @@ public class AStarPathfinder {
     }
     
     /**
-     * Reconstruct path from end node to start node
+     * Find a path from start to end with the given expansion strategy
+     * @param blocks Where block types are read from
+     * @param mode STANDARD, JUMP_POINT, or AUTO to pick Jump Point Search on flat open ground
      */
-    private WaypointPath reconstructPath(PathNode endNode) {
-        WaypointPath path = new WaypointPath();
-        PathNode current = endNode;
-        
-        // Build path in reverse
-        List<Location> locations = new ArrayList<>();
-        while (current != null) {
-            locations.add(current.location.clone());
-            current = current.parent;
+    public WaypointPath findPath(BlockReader blocks, Location start, Location end, SearchMode mode) {
+        if (start.getWorld() != end.getWorld()) {
+            return null; // Can't path between worlds
         }
-        
-        // Reverse the path and create waypoints
-        for (int i = locations.size() - 1; i >= 0; i--) {
-            path.addWaypoint(locations.get(i));
+        if (resolveMode(blocks, start, end, mode) == SearchMode.JUMP_POINT) {
+            return findJumpPointPath(blocks, start, end);
+        }
+        return findPath(blocks, start, end);
+    }
+    
+    /**
+     * Decide which search to run for a request
+     * @return STANDARD or JUMP_POINT
+     */
+    public SearchMode resolveMode(BlockReader blocks, Location start, Location end, SearchMode mode) {
+        if (mode != SearchMode.AUTO) {
+            return mode;
+        }
+        return isOpenGround(blocks, start, end) ? SearchMode.JUMP_POINT : SearchMode.STANDARD;
+    }
+    
+    /**
+     * Check if the ground between start and goal is flat and mostly open, by sampling the level they stand on
+     */
+    private boolean isOpenGround(BlockReader blocks, Location start, Location end) {
+        int y = start.getBlockY();
+        if (end.getBlockY() != y) {
+            return false;
         }
         
-        // Optimize path to remove unnecessary waypoints
-        path.optimize();
+        int minX = Math.min(start.getBlockX(), end.getBlockX());
+        int maxX = Math.max(start.getBlockX(), end.getBlockX());
+        int minZ = Math.min(start.getBlockZ(), end.getBlockZ());
+        int maxZ = Math.max(start.getBlockZ(), end.getBlockZ());
         
-        return path;
+        // Short searches are cheap either way
+        if (Math.max(maxX - minX, maxZ - minZ) < MIN_JUMP_POINT_DISTANCE) {
+            return false;
+        }
+        
+        int stepX = Math.max(1, (maxX - minX) / (OPEN_GROUND_SAMPLES - 1));
+        int stepZ = Math.max(1, (maxZ - minZ) / (OPEN_GROUND_SAMPLES - 1));
+        int samples = 0;
+        int open = 0;
+        for (int x = minX; x <= maxX; x += stepX) {
+            for (int z = minZ; z <= maxZ; z += stepZ) {
+                samples++;
+                if (classifyBlock(blocks, x, y, z) == WALKABLE) {
+                    open++;
+                }
+            }
+        }
+        return open >= samples * OPEN_GROUND_RATIO;
     }
     
     /**
-     * Calculate heuristic (estimated distance to goal)
+     * Jump Point Search on the start's level.
+     * Straight and diagonal runs of plain walkable blocks are skipped in one go; searching only stops at
+     * blocks next to obstacles, on difficult terrain or at the goal. Those blocks are the only nodes
+     * the open list sees, so open ground costs a handful of expansions instead of hundreds.
      */
-    private double heuristic(PathNode a, PathNode b) {
-        // Euclidean distance
-        return a.location.distance(b.location);
+    private WaypointPath findJumpPointPath(BlockReader blocks, Location start, Location end) {
+        World world = start.getWorld();
+        int y = start.getBlockY();
+        int goalX = end.getBlockX();
+        int goalZ = end.getBlockZ();
+        if (end.getBlockY() != y) {
+            return findPath(blocks, start, end);
+        }
+        
+        PathSearchContext ctx = contexts.get();
+        ctx.reset();
+        
+        int startX = start.getBlockX();
+        int startZ = start.getBlockZ();
+        // Runs stop at the edge of the area a search may cover, as open ground would otherwise be scanned far out
+        int[] bounds = {
+            Math.min(startX, goalX) - JUMP_BOUNDS_MARGIN, Math.min(startZ, goalZ) - JUMP_BOUNDS_MARGIN,
+            Math.max(startX, goalX) + JUMP_BOUNDS_MARGIN, Math.max(startZ, goalZ) + JUMP_BOUNDS_MARGIN
+        };
+        int startNode = ctx.add(BlockKey.pack(startX, y, startZ), startX, y, startZ);
+        ctx.g[startNode] = 0;
+        ctx.f[startNode] = heuristic(startX, y, startZ, goalX, y, goalZ);
+        ctx.open(startNode);
+        
+        int iterations = 0;
+        while (!ctx.isOpenEmpty() && iterations < maxIterations) {
+            iterations++;
+            
+            int current = ctx.poll();
+            int cx = ctx.x[current];
+            int cy = ctx.y[current];
+            int cz = ctx.z[current];
+            
+            if (cx == goalX && cy == y && cz == goalZ) {
+                return reconstructPath(ctx, world, start, current);
+            }
+            
+            // Direction the node was reached from; the start and difficult blocks look everywhere
+            int parent = ctx.parent[current];
+            boolean expandAll = parent < 0 || ctx.terrain[current] == DIFFICULT || cy != y;
+            int fromX = expandAll ? 0 : Integer.signum(cx - ctx.x[parent]);
+            int fromZ = expandAll ? 0 : Integer.signum(cz - ctx.z[parent]);
+            
+            // Horizontal moves jump; the first 8 entries of NEIGHBORS are the level ones
+            for (int d = 0; d < 8 && cy == y; d++) {
+                int dx = NEIGHBORS[d][0];
+                int dz = NEIGHBORS[d][2];
+                if (!expandAll && !isPrunedNeighbor(blocks, cx, y, cz, fromX, fromZ, dx, dz)) {
+                    continue;
+                }
+                
+                int steps = jump(ctx, blocks, bounds, cx, y, cz, dx, dz, goalX, goalZ);
+                if (steps == 0) {
+                    continue;
+                }
+                int nx = cx + dx * steps;
+                int nz = cz + dz * steps;
+                int terrain = classifyBlock(blocks, nx, y, nz);
+                // Every block before the jump point was plain walkable ground
+                double cost = (steps - 1) * NEIGHBOR_COSTS[d] + getMovementCost(d, terrain);
+                relax(ctx, current, nx, y, nz, terrain, cost, goalX, y, goalZ);
+            }
+            
+            // Up and down are expanded like plain A*
+            for (int d = 8; d < NEIGHBORS.length; d++) {
+                int ny = cy + NEIGHBORS[d][1];
+                int terrain = classifyBlock(blocks, cx, ny, cz);
+                if (terrain != BLOCKED) {
+                    relax(ctx, current, cx, ny, cz, terrain, getMovementCost(d, terrain), goalX, y, goalZ);
+                }
+            }
+        }
+        
+        // No path found
+        return null;
     }
     
     /**
-     * Calculate movement cost between two locations
+     * Check if a direction survives pruning for a node reached by moving (fromX, fromZ):
+     * either it continues the move, or an obstacle beside the node forces it
      */
-    private double getMovementCost(Location from, Location to) {
-        double baseCost = from.distance(to);
-        
-        // Add penalties for difficult terrain
-        if (isDifficultTerrain(to)) {
-            baseCost *= 1.5;
+    private boolean isPrunedNeighbor(BlockReader blocks, int x, int y, int z, int fromX, int fromZ, int dx, int dz) {
+        if (fromX != 0 && fromZ != 0) {
+            // Diagonal: keep going diagonally or along either axis
+            if ((dx == fromX && dz == fromZ) || (dx == fromX && dz == 0) || (dx == 0 && dz == fromZ)) {
+                return true;
+            }
+            if (dx == -fromX && dz == fromZ) {
+                return isBlocked(blocks, x - fromX, y, z);
+            }
+            if (dx == fromX && dz == -fromZ) {
+                return isBlocked(blocks, x, y, z - fromZ);
+            }
+            return false;
         }
         
-        // Add penalty for height changes
-        if (Math.abs(from.getY() - to.getY()) > 0) {
-            baseCost *= 1.2;
+        if (fromX != 0) {
+            if (dx == fromX && dz == 0) {
+                return true;
+            }
+            return dx == fromX && isBlocked(blocks, x, y, z + dz);
         }
         
-        return baseCost;
+        if (dz == fromZ && dx == 0) {
+            return true;
+        }
+        return dz == fromZ && isBlocked(blocks, x + dx, y, z);
     }
     
     /**
-     * Check if a location is difficult terrain
+     * Walk from a block in one direction until something worth stopping at
+     * @param bounds Area the run must stay in, as {minX, minZ, maxX, maxZ}
+     * @return Number of steps to the jump point, or 0 if the run hit an obstacle or the scan limits
      */
-    private boolean isDifficultTerrain(Location location) {
-        Block block = location.getBlock();
-        Block below = block.getRelative(BlockFace.DOWN);
+    private int jump(PathSearchContext ctx, BlockReader blocks, int[] bounds, int x, int y, int z, int dx, int dz,
+                     int goalX, int goalZ) {
+        int nx = x;
+        int nz = z;
+        for (int steps = 1; steps <= maxPathLength; steps++) {
+            nx += dx;
+            nz += dz;
+            if (++ctx.scans > maxIterations * JUMP_SCANS_PER_ITERATION
+                    || nx < bounds[0] || nz < bounds[1] || nx > bounds[2] || nz > bounds[3]) {
+                return 0;
+            }
+            
+            int terrain = classifyBlock(blocks, nx, y, nz);
+            if (terrain == BLOCKED) {
+                return 0;
+            }
+            if ((nx == goalX && nz == goalZ) || terrain == DIFFICULT) {
+                return steps;
+            }
+            
+            if (dx != 0 && dz != 0) {
+                // Forced neighbours behind a diagonal move
+                if (isBlocked(blocks, nx - dx, y, nz) && !isBlocked(blocks, nx - dx, y, nz + dz)) {
+                    return steps;
+                }
+                if (isBlocked(blocks, nx, y, nz - dz) && !isBlocked(blocks, nx + dx, y, nz - dz)) {
+                    return steps;
+                }
+                // A straight run from here reaches something interesting
+                if (jump(ctx, blocks, bounds, nx, y, nz, dx, 0, goalX, goalZ) > 0
+                        || jump(ctx, blocks, bounds, nx, y, nz, 0, dz, goalX, goalZ) > 0) {
+                    return steps;
+                }
+            } else if (dx != 0) {
+                if (isBlocked(blocks, nx, y, nz + 1) && !isBlocked(blocks, nx + dx, y, nz + 1)) {
+                    return steps;
+                }
+                if (isBlocked(blocks, nx, y, nz - 1) && !isBlocked(blocks, nx + dx, y, nz - 1)) {
+                    return steps;
+                }
+            } else {
+                if (isBlocked(blocks, nx + 1, y, nz) && !isBlocked(blocks, nx + 1, y, nz + dz)) {
+                    return steps;
+                }
+                if (isBlocked(blocks, nx - 1, y, nz) && !isBlocked(blocks, nx - 1, y, nz + dz)) {
+                    return steps;
+                }
+            }
+        }
+        return 0;
+    }
+    
+    private boolean isBlocked(BlockReader blocks, int x, int y, int z) {
+        return classifyBlock(blocks, x, y, z) == BLOCKED;
+    }
+    
+    /**
+     * Open a node, or lower its cost, if the step from current is an improvement
+     */
+    private void relax(PathSearchContext ctx, int current, int x, int y, int z, int terrain, double stepCost,
+                       int goalX, int goalY, int goalZ) {
+        long key = BlockKey.pack(x, y, z);
+        int neighbor = ctx.find(key);
+        if (neighbor >= 0 && ctx.state[neighbor] == PathSearchContext.CLOSED) {
+            return;
+        }
+        
+        double tentativeG = ctx.g[current] + stepCost;
+        if (tentativeG > maxPathLength) {
+            return;
+        }
+        if (neighbor < 0) {
+            neighbor = ctx.add(key, x, y, z);
+            ctx.terrain[neighbor] = (byte) terrain;
+        } else if (tentativeG >= ctx.g[neighbor]) {
+            return;
+        }
         
-        // Check for difficult blocks
-        return block.getType() == Material.SOUL_SAND ||
-               block.getType() == Material.HONEY_BLOCK ||
-               below.getType() == Material.ICE ||
-               below.getType() == Material.PACKED_ICE ||
-               below.getType() == Material.SLIME_BLOCK;
+        ctx.parent[neighbor] = current;
+        ctx.g[neighbor] = tentativeG;
+        ctx.f[neighbor] = tentativeG + heuristic(x, y, z, goalX, goalY, goalZ);
+        ctx.open(neighbor);
     }
     
     /**
-     * Check if a location is valid for movement
+     * Reconstruct path from end node to start node
      */
-    private boolean isValidLocation(Location location, Location from) {
-        Block block = location.getBlock();
-        Block above = block.getRelative(BlockFace.UP);
-        Block below = block.getRelative(BlockFace.DOWN);
+    private WaypointPath reconstructPath(PathSearchContext ctx, World world, Location start, int endNode) {
+        // Keep the start position's offset inside its block, as the entity moves along it
+        double offsetX = start.getX() - start.getBlockX();
+        double offsetY = start.getY() - start.getBlockY();
+        double offsetZ = start.getZ() - start.getBlockZ();
         
-        // Must have 2 blocks of air for clearance
-        if (!block.isEmpty() || !above.isEmpty()) {
-            return false;
+        // Jump point searches link nodes several blocks apart along straight or diagonal lines;
+        // every block in between is put back so the path has the same shape as a plain A* one
+        int length = 1;
+        for (int node = endNode; ctx.parent[node] >= 0; node = ctx.parent[node]) {
+            length += stepsBetween(ctx, ctx.parent[node], node);
         }
         
-        // Must have solid ground below (or water for swimming)
-        if (!below.getType().isSolid() && !below.isLiquid()) {
-            return false;
+        // Build path in reverse
+        Location[] locations = new Location[length];
+        int i = length;
+        for (int node = endNode; node >= 0; node = ctx.parent[node]) {
+            int parent = ctx.parent[node];
+            int x = ctx.x[node];
+            int y = ctx.y[node];
+            int z = ctx.z[node];
+            int steps = parent >= 0 ? stepsBetween(ctx, parent, node) : 1;
+            int dx = parent >= 0 ? Integer.signum(ctx.x[parent] - x) : 0;
+            int dy = parent >= 0 ? Integer.signum(ctx.y[parent] - y) : 0;
+            int dz = parent >= 0 ? Integer.signum(ctx.z[parent] - z) : 0;
+            for (int step = 0; step < steps; step++) {
+                locations[--i] = new Location(world, x + offsetX, y + offsetY, z + offsetZ);
+                x += dx;
+                y += dy;
+                z += dz;
+            }
         }
         
-        // Avoid problematic blocks
-        if (problematicBlocks.contains(block.getType()) ||
-            problematicBlocks.contains(above.getType()) ||
-            problematicBlocks.contains(below.getType())) {
-            return false;
+        WaypointPath path = new WaypointPath();
+        for (Location location : locations) {
+            path.addWaypoint(location);
         }
         
-        return true;
+        // Optimize path to remove unnecessary waypoints
+        path.optimize();
+        
+        return path;
     }
     
     /**
-     * Check if two locations refer to the same block
+     * Number of single-block steps between two linked nodes
      */
-    private boolean isSameBlock(Location a, Location b) {
-        return a.getBlockX() == b.getBlockX() &&
-               a.getBlockY() == b.getBlockY() &&
-               a.getBlockZ() == b.getBlockZ();
+    private static int stepsBetween(PathSearchContext ctx, int from, int to) {
+        return Math.max(Math.abs(ctx.x[to] - ctx.x[from]),
+                Math.max(Math.abs(ctx.y[to] - ctx.y[from]), Math.abs(ctx.z[to] - ctx.z[from])));
     }
+
     
     /**
-     * Convert node to string key for closed set
+     * Calculate heuristic (estimated distance to goal)
      */
-    private String nodeToString(PathNode node) {
-        return node.location.getBlockX() + ":" + 
-               node.location.getBlockY() + ":" +
-               node.location.getBlockZ();
+    static double heuristic(int x, int y, int z, int goalX, int goalY, int goalZ) {
+        // Euclidean distance
+        int dx = goalX - x;
+        int dy = goalY - y;
+        int dz = goalZ - z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
     }
     
     /**
-     * Node class for A* algorithm
+     * Calculate movement cost of a step in the given direction
      */
-    private static class PathNode implements Comparable<PathNode> {
-        Location location;
-        PathNode parent;
-        double g; // Cost from start
-        double h; // Heuristic cost to end
-        double f; // Total cost (g + h)
+    static double getMovementCost(int direction, int terrain) {
+        double baseCost = NEIGHBOR_COSTS[direction];
         
-        PathNode(Location location) {
-            this.location = location.clone();
+        // Add penalties for difficult terrain
+        if (terrain == DIFFICULT) {
+            baseCost *= 1.5;
         }
         
-        @Override
-        public int compareTo(PathNode other) {
-            return Double.compare(this.f, other.f);
+        // Add penalty for height changes
+        if (NEIGHBORS[direction][1] != 0) {
+            baseCost *= 1.2;
+        }
+        
+        return baseCost;
+    }
+    
+    /**
+     * Check if a block position is valid for movement and whether it is difficult terrain
+     * @return BLOCKED, WALKABLE or DIFFICULT
+     */
+    int classifyBlock(BlockReader blocks, int x, int y, int z) {
+        int flags = walkability.getFlags(blocks, x, y, z);
+        
+        // Needs clearance and ground, and no problematic blocks around (unreadable blocks count as solid)
+        if ((flags & WalkabilityCache.STANDABLE) == 0 || (flags & WalkabilityCache.HAZARD) != 0) {
+            return BLOCKED;
         }
+        
+        return (flags & WalkabilityCache.DIFFICULT) != 0 ? DIFFICULT : WALKABLE;
+    }
+    
+    /**
+     * Get the shared walkability cache the pathfinder classifies blocks with
+     */
+    public WalkabilityCache getWalkability() {
+        return walkability;
     }
-}
\ No newline at end of file
+}
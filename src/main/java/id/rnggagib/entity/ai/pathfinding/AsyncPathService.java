@@ -0,0 +1,488 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.ai.waypoint.Waypoint;
+import id.rnggagib.entity.ai.waypoint.WaypointPath;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.LivingEntity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Runs A* searches on a worker pool.
+ * The chunks around the search corridor are captured as snapshots on the main thread,
+ * the search runs against those snapshots, and the result is handed back on the main thread.
+ * Requests from and to the same spots share one search, and recent results are reused until they
+ * expire or a block along them changes.
+ */
+public class AsyncPathService {
+    // Extra blocks around the start/goal box that the search may wander into
+    private static final int CORRIDOR_MARGIN = 16;
+    // Starts and goals within the same 2x2 column bucket share searches and cached paths
+    private static final int BUCKET_SHIFT = 1;
+    // Chunks snapshotted per AI budget job when capturing a large area for a build
+    private static final int SNAPSHOTS_PER_JOB = 4;
+
+    private final TownyRaider plugin;
+    private final ExecutorService workers;
+
+    // Snapshots taken this tick, shared by every request in the same world
+    private final Map<Long, ChunkSnapshot> tickSnapshots = new HashMap<>();
+    private World snapshotWorld;
+    private long snapshotTick = -1;
+    // Walkability cache epoch when this tick's snapshots were started
+    private long snapshotEpoch = -1;
+
+    private final AtomicInteger runningSearches = new AtomicInteger();
+
+    // Main thread only: searches in flight and recent results, by start and goal bucket
+    private final Map<PathKey, SharedSearch> inFlight = new HashMap<>();
+    private final Map<PathKey, CachedPath> recentPaths;
+    private long cacheHits = 0;
+    private long coalescedRequests = 0;
+
+    public AsyncPathService(TownyRaider plugin) {
+        this.plugin = plugin;
+
+        int cacheSize = plugin.getConfigManager().getPathCacheSize();
+        this.recentPaths = new LinkedHashMap<PathKey, CachedPath>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PathKey, CachedPath> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        int threads = plugin.getConfigManager().getPathWorkerThreads();
+        AtomicInteger threadId = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "TownyRaider-Pathfinder-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start a search for a pending path. Must be called on the main thread.
+     * @param pathfinder The pathfinder whose rules the search follows
+     * @param start Where the search starts
+     * @param request The handle to complete with the result; its search mode picks A* or Jump Point Search
+     */
+    public void submit(AStarPathfinder pathfinder, Location start, PendingPath request) {
+        submit(pathfinder, start, request.getGoal(), request);
+    }
+
+    /**
+     * Start a search toward an intermediate point, e.g. the next leg of a long route.
+     * Must be called on the main thread.
+     * @param goal Where this search ends, which may differ from the request's final goal
+     */
+    public void submit(AStarPathfinder pathfinder, Location start, Location goal, PendingPath request) {
+        SearchMode mode = request.getSearchMode();
+        run(pathfinder, start, goal, null, request, (blocks, from, to) -> pathfinder.findPath(blocks, from, to, mode));
+    }
+
+    /**
+     * Start a search with a raider's incremental planner, so it can repair its previous plan.
+     * Requests whose search mode resolves to Jump Point Search run that instead.
+     * Must be called on the main thread.
+     * @param goal Where this search ends, which may differ from the request's final goal
+     */
+    public void submit(IncrementalPathPlanner planner, AStarPathfinder rules, Location start, Location goal,
+                       PendingPath request) {
+        // The planner's tree reaches back to where it was rooted, so that area is captured too
+        SearchMode mode = request.getSearchMode();
+        run(rules, start, goal, planner.getRoot(), request, (blocks, from, to) -> {
+            // On flat open ground a fresh jump point search is cheaper than repairing the planner's tree
+            if (rules.resolveMode(blocks, from, to, mode) == SearchMode.JUMP_POINT) {
+                return rules.findPath(blocks, from, to, SearchMode.JUMP_POINT);
+            }
+            return planner.plan(blocks, from, to);
+        });
+    }
+
+    private void run(AStarPathfinder rules, Location start, Location goal, Location extent,
+                     PendingPath request, PathSearch search) {
+        if (request.isCancelled()) {
+            return;
+        }
+
+        World world = start.getWorld();
+        if (world == null || world != goal.getWorld()) {
+            request.complete(null);
+            return;
+        }
+
+        // Every step costs at least its length, so a goal beyond the length cap can't be reached
+        if (start.distanceSquared(goal) > (double) rules.getMaxPathLength() * rules.getMaxPathLength()) {
+            request.complete(null);
+            return;
+        }
+
+        PathKey key = new PathKey(world.getUID(), bucket(start), bucket(goal));
+
+        // Someone set off from here for the same spot a moment ago
+        WaypointPath cached = getRecentPath(key, rules.getWalkability());
+        if (cached != null) {
+            cacheHits++;
+            request.complete(cached.copy());
+            return;
+        }
+
+        // The same search is already running; share its result
+        SharedSearch running = inFlight.get(key);
+        if (running != null) {
+            coalescedRequests++;
+            running.requests.add(request);
+            return;
+        }
+
+        if (extent != null && extent.getWorld() != world) {
+            extent = null;
+        }
+        Map<Long, ChunkSnapshot> corridor = captureCorridor(world, start, goal, extent, rules.getWalkability().getEpoch());
+        long epoch = snapshotEpoch;
+        BlockReader reader = new SnapshotBlockReader(corridor, world, epoch);
+        Location searchStart = start.clone();
+
+        SharedSearch shared = new SharedSearch(request);
+        inFlight.put(key, shared);
+
+        try {
+            workers.execute(() -> {
+                WaypointPath path = null;
+                if (!shared.isCancelled()) {
+                    runningSearches.incrementAndGet();
+                    try {
+                        path = search.find(reader, searchStart, goal);
+                    } catch (Exception e) {
+                        plugin.getLogger().log(Level.WARNING, "Async path search failed", e);
+                    } finally {
+                        runningSearches.decrementAndGet();
+                    }
+                }
+
+                // Always report back, so the search stops being shared
+                WaypointPath result = path;
+                if (plugin.isEnabled()) {
+                    Bukkit.getScheduler().runTask(plugin, () -> finish(key, shared, world, result, epoch));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            inFlight.remove(key);
+            for (PendingPath waiting : shared.requests) {
+                waiting.cancel();
+            }
+        }
+    }
+
+    /**
+     * Build something over a large area, such as a flow field or a town's navigation graph, on a worker.
+     * Must be called on the main thread. The loaded chunks among those asked for are snapshotted a few at a time
+     * through the AI work budget, so a big area never stalls a tick, and the result is handed back on the main thread.
+     * @param owner The raider the snapshot work is charged to; if it dies first the build is dropped
+     * @param kind Budget job type, distinct per build so builds don't replace each other
+     * @param chunkKeys Chunks the build reads, packed with {@link SnapshotBlockReader#chunkKey}
+     * @param build Runs on a worker against the snapshots
+     * @param done Runs on the main thread with the result, or null if the build failed
+     */
+    public <T> void submitBuild(LivingEntity owner, String kind, AStarPathfinder rules, World world,
+                                Collection<Long> chunkKeys, Function<BlockReader, T> build, Consumer<T> done) {
+        // Blocks that change while the area is captured are older than this epoch, so caches built from it stay safe
+        long epoch = rules.getWalkability().getEpoch();
+        Map<Long, ChunkSnapshot> snapshots = new HashMap<>();
+        Iterator<Long> remaining = new ArrayList<>(chunkKeys).iterator();
+
+        captureSlice(owner, kind, world, remaining, snapshots, () -> {
+            BlockReader reader = new SnapshotBlockReader(snapshots, world, epoch);
+            try {
+                workers.execute(() -> {
+                    T result = null;
+                    runningSearches.incrementAndGet();
+                    try {
+                        result = build.apply(reader);
+                    } catch (Exception e) {
+                        plugin.getLogger().log(Level.WARNING, "Async build '" + kind + "' failed", e);
+                    } finally {
+                        runningSearches.decrementAndGet();
+                    }
+
+                    T built = result;
+                    if (plugin.isEnabled()) {
+                        Bukkit.getScheduler().runTask(plugin, () -> done.accept(built));
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        });
+    }
+
+    private void captureSlice(LivingEntity owner, String kind, World world, Iterator<Long> remaining,
+                              Map<Long, ChunkSnapshot> snapshots, Runnable captured) {
+        plugin.getRaidTickEngine().getAiBudget().submit(owner, kind, () -> {
+            int taken = 0;
+            while (taken < SNAPSHOTS_PER_JOB && remaining.hasNext()) {
+                long key = remaining.next();
+                int chunkX = (int) (key >> 32);
+                int chunkZ = (int) key;
+                // Never load chunks for a build; unloaded chunks count as impassable
+                if (world.isChunkLoaded(chunkX, chunkZ)) {
+                    snapshots.put(key, world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false));
+                    taken++;
+                }
+            }
+
+            // The rest waits for the next tick's budget
+            if (remaining.hasNext()) {
+                captureSlice(owner, kind, world, remaining, snapshots, captured);
+            } else {
+                captured.run();
+            }
+        });
+    }
+
+    /**
+     * Hand a finished search to everyone waiting on it and remember the result
+     */
+    private void finish(PathKey key, SharedSearch shared, World world, WaypointPath path, long epoch) {
+        if (inFlight.get(key) == shared) {
+            inFlight.remove(key);
+        }
+        if (path != null && plugin.getConfigManager().getPathCacheTtlMs() > 0) {
+            recentPaths.put(key, new CachedPath(path, world, epoch));
+        }
+        for (PendingPath request : shared.requests) {
+            request.complete(path != null ? path.copy() : null);
+        }
+    }
+
+    /**
+     * Get a recent path if it hasn't expired and nothing along it changed since it was found
+     */
+    private WaypointPath getRecentPath(PathKey key, WalkabilityCache walkability) {
+        CachedPath cached = recentPaths.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - cached.foundAt > plugin.getConfigManager().getPathCacheTtlMs()
+                || cached.isStale(walkability)) {
+            recentPaths.remove(key);
+            return null;
+        }
+        return cached.path;
+    }
+
+    private static long bucket(Location location) {
+        return BlockKey.pack(location.getBlockX() >> BUCKET_SHIFT, location.getBlockY(), location.getBlockZ() >> BUCKET_SHIFT);
+    }
+
+    /**
+     * Snapshot the loaded chunks covering the box between start and goal
+     * @param extent Another point the box must cover, or null
+     * @param epoch Current walkability cache epoch; snapshots from before a block change aren't reused
+     */
+    private Map<Long, ChunkSnapshot> captureCorridor(World world, Location start, Location goal, Location extent,
+                                                     long epoch) {
+        long tick = plugin.getRaidTickEngine().getCurrentTick();
+        if (tick != snapshotTick || world != snapshotWorld || epoch != snapshotEpoch) {
+            tickSnapshots.clear();
+            snapshotTick = tick;
+            snapshotWorld = world;
+            snapshotEpoch = epoch;
+        }
+
+        int minX = Math.min(start.getBlockX(), goal.getBlockX());
+        int maxX = Math.max(start.getBlockX(), goal.getBlockX());
+        int minZ = Math.min(start.getBlockZ(), goal.getBlockZ());
+        int maxZ = Math.max(start.getBlockZ(), goal.getBlockZ());
+        if (extent != null) {
+            minX = Math.min(minX, extent.getBlockX());
+            maxX = Math.max(maxX, extent.getBlockX());
+            minZ = Math.min(minZ, extent.getBlockZ());
+            maxZ = Math.max(maxZ, extent.getBlockZ());
+        }
+
+        int minChunkX = (minX - CORRIDOR_MARGIN) >> 4;
+        int maxChunkX = (maxX + CORRIDOR_MARGIN) >> 4;
+        int minChunkZ = (minZ - CORRIDOR_MARGIN) >> 4;
+        int maxChunkZ = (maxZ + CORRIDOR_MARGIN) >> 4;
+
+        Map<Long, ChunkSnapshot> corridor = new HashMap<>();
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                // Never load chunks for a search; unloaded chunks count as impassable
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    continue;
+                }
+
+                long key = SnapshotBlockReader.chunkKey(chunkX, chunkZ);
+                ChunkSnapshot snapshot = tickSnapshots.get(key);
+                if (snapshot == null) {
+                    snapshot = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+                    tickSnapshots.put(key, snapshot);
+                }
+                corridor.put(key, snapshot);
+            }
+        }
+        return corridor;
+    }
+
+    /**
+     * Get the number of searches and builds currently running on workers
+     */
+    public int getRunningSearches() {
+        return runningSearches.get();
+    }
+
+    /**
+     * Get the number of requests served from recent paths
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Get the number of requests that joined a search already running
+     */
+    public long getCoalescedRequests() {
+        return coalescedRequests;
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+        tickSnapshots.clear();
+        inFlight.clear();
+        recentPaths.clear();
+    }
+
+    /**
+     * A search to run on a worker
+     */
+    @FunctionalInterface
+    private interface PathSearch {
+        WaypointPath find(BlockReader blocks, Location start, Location goal);
+    }
+
+    /**
+     * Start and goal buckets of a search in one world
+     */
+    private static final class PathKey {
+        final UUID world;
+        final long start;
+        final long goal;
+
+        PathKey(UUID world, long start, long goal) {
+            this.world = world;
+            this.start = start;
+            this.goal = goal;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PathKey)) {
+                return false;
+            }
+            PathKey other = (PathKey) o;
+            return start == other.start && goal == other.goal && world.equals(other.world);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(world, start, goal);
+        }
+    }
+
+    /**
+     * A search running on a worker and every request waiting for it
+     */
+    private static class SharedSearch {
+        // Added to on the main thread while the worker checks for cancellation
+        final List<PendingPath> requests = new CopyOnWriteArrayList<>();
+
+        SharedSearch(PendingPath first) {
+            requests.add(first);
+        }
+
+        boolean isCancelled() {
+            for (PendingPath request : requests) {
+                if (!request.isCancelled()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A found path and the chunk sections it runs through
+     */
+    private static class CachedPath {
+        final WaypointPath path;
+        final World world;
+        final long epoch;
+        final long foundAt = System.currentTimeMillis();
+        final long[] sections;
+
+        CachedPath(WaypointPath path, World world, long epoch) {
+            this.path = path;
+            this.world = world;
+            this.epoch = epoch;
+
+            // Sections covering each leg between waypoints, with the ground below and headroom above
+            Set<Long> covered = new LinkedHashSet<>();
+            List<Waypoint> waypoints = path.getWaypoints();
+            for (int i = 0; i < waypoints.size(); i++) {
+                Location a = waypoints.get(i).getLocation();
+                Location b = waypoints.get(Math.min(i + 1, waypoints.size() - 1)).getLocation();
+                for (int sx = Math.min(a.getBlockX(), b.getBlockX()) >> 4; sx <= Math.max(a.getBlockX(), b.getBlockX()) >> 4; sx++) {
+                    for (int sy = (Math.min(a.getBlockY(), b.getBlockY()) - 1) >> 4; sy <= (Math.max(a.getBlockY(), b.getBlockY()) + 1) >> 4; sy++) {
+                        for (int sz = Math.min(a.getBlockZ(), b.getBlockZ()) >> 4; sz <= Math.max(a.getBlockZ(), b.getBlockZ()) >> 4; sz++) {
+                            covered.add(BlockKey.pack(sx, sy, sz));
+                        }
+                    }
+                }
+            }
+            this.sections = new long[covered.size()];
+            int i = 0;
+            for (long section : covered) {
+                sections[i++] = section;
+            }
+        }
+
+        boolean isStale(WalkabilityCache walkability) {
+            for (long section : sections) {
+                if (walkability.hasChangedSince(world, BlockKey.x(section) << 4, BlockKey.y(section) << 4,
+                        BlockKey.z(section) << 4, epoch)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
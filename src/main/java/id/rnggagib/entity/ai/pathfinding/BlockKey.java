@@ -0,0 +1,40 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import org.bukkit.Location;
+
+/**
+ * Packs block coordinates into a single long, so block positions can be used as
+ * hash keys without allocating.
+ * Layout: 26 bits x, 26 bits z, 12 bits y (all signed).
+ */
+public final class BlockKey {
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+    private static final int X_SHIFT = XZ_BITS + Y_BITS;
+    private static final int Z_SHIFT = Y_BITS;
+
+    private BlockKey() {
+    }
+
+    public static long pack(int x, int y, int z) {
+        return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+    }
+
+    public static long of(Location location) {
+        return pack(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public static int x(long key) {
+        return (int) (key >> X_SHIFT);
+    }
+
+    public static int y(long key) {
+        return (int) (key << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    public static int z(long key) {
+        return (int) (key << XZ_BITS >> (64 - XZ_BITS));
+    }
+}
@@ -0,0 +1,31 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * Read-only block type access for path searches, so the same search can run against
+ * the live world on the main thread or against chunk snapshots on a worker thread.
+ */
+public interface BlockReader {
+    /**
+     * Get the block type at a position
+     * @return The material, or null if the position is outside the readable area
+     */
+    Material getType(int x, int y, int z);
+
+    int getMinHeight();
+
+    int getMaxHeight();
+
+    /**
+     * Get the world the blocks belong to
+     */
+    World getWorld();
+
+    /**
+     * Get the {@link WalkabilityCache} epoch at the time the blocks were read,
+     * or Long.MAX_VALUE if they are read live
+     */
+    long getCaptureEpoch();
+}
@@ -0,0 +1,344 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Dijkstra map toward one or more goal blocks.
+ * The field is built once by searching outward from the goals; afterwards any number of raiders
+ * can look up their next step in O(1). Block changes are patched in incrementally, a batch at a time:
+ * only cells whose route ran through a changed block are re-searched.
+ * Uses the same movement rules and costs as {@link AStarPathfinder}. A field may be computed on a worker
+ * from snapshots; once handed over it is main thread only.
+ */
+public class FlowField {
+    private static final int NOT_VISITED = 0;
+    private static final int AFFECTED = 1;
+    private static final int UNAFFECTED = 2;
+    private static final int[] STANDING_PROBE = {0, 1, -1};
+
+    private final AStarPathfinder rules;
+    private final World world;
+    private final long[] goalKeys;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    private final double maxCost;
+    private final int maxNodes;
+
+    // Node storage reused from A*: g is the cost to the nearest goal, parent is the next step
+    private final PathSearchContext nodes = new PathSearchContext();
+    private long computedAt;
+
+    /**
+     * @param rules Pathfinder whose movement rules the field follows
+     * @param goals Goal blocks; raiders are led to whichever is cheapest to reach
+     * @param bounds Area the field may cover, as {minX, minY, minZ, maxX, maxY, maxZ}
+     * @param maxCost Cells farther than this from every goal are left out
+     * @param maxNodes Cap on the number of cells the field may hold
+     */
+    public FlowField(AStarPathfinder rules, World world, List<Location> goals, int[] bounds, double maxCost, int maxNodes) {
+        this.rules = rules;
+        this.world = world;
+        this.goalKeys = new long[goals.size()];
+        for (int i = 0; i < goals.size(); i++) {
+            goalKeys[i] = BlockKey.of(goals.get(i));
+        }
+        this.minX = bounds[0];
+        this.minY = bounds[1];
+        this.minZ = bounds[2];
+        this.maxX = bounds[3];
+        this.maxY = bounds[4];
+        this.maxZ = bounds[5];
+        this.maxCost = maxCost;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Build the whole field from scratch
+     */
+    public void compute(BlockReader blocks) {
+        nodes.reset();
+        for (long goalKey : goalKeys) {
+            int x = BlockKey.x(goalKey);
+            int y = BlockKey.y(goalKey);
+            int z = BlockKey.z(goalKey);
+            if (!contains(x, y, z) || nodes.find(goalKey) >= 0) {
+                continue;
+            }
+            // Goals are seeded even if not standable (a chest block, for example): raiders walk up to them
+            int goal = nodes.add(goalKey, x, y, z);
+            nodes.terrain[goal] = AStarPathfinder.WALKABLE;
+            nodes.g[goal] = 0;
+            nodes.f[goal] = 0;
+            nodes.open(goal);
+        }
+        propagate(blocks);
+        computedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Patch the field after a block changed
+     */
+    public void onBlockChanged(BlockReader blocks, int x, int y, int z) {
+        onBlocksChanged(blocks, Collections.singleton(BlockKey.pack(x, y, z)));
+    }
+
+    /**
+     * Patch the field after a batch of blocks changed, re-routing every affected cell in one pass
+     * @param blockKeys Packed positions of the changed blocks
+     */
+    public void onBlocksChanged(BlockReader blocks, Collection<Long> blockKeys) {
+        // A cell's walkability depends on the block below it, itself and the block above
+        int changed = 0;
+        int[] changedNodes = new int[blockKeys.size() * 3];
+        for (long blockKey : blockKeys) {
+            int x = BlockKey.x(blockKey);
+            int y = BlockKey.y(blockKey);
+            int z = BlockKey.z(blockKey);
+            for (int cy = y - 1; cy <= y + 1; cy++) {
+                if (!contains(x, cy, z)) {
+                    continue;
+                }
+                long key = BlockKey.pack(x, cy, z);
+                if (isGoal(key)) {
+                    continue;
+                }
+
+                int terrain = rules.classifyBlock(blocks, x, cy, z);
+                int node = nodes.find(key);
+                if (node < 0) {
+                    if (terrain != AStarPathfinder.BLOCKED && nodes.nodeCount < maxNodes) {
+                        node = nodes.add(key, x, cy, z);
+                        nodes.terrain[node] = (byte) terrain;
+                        changedNodes[changed++] = node;
+                    }
+                    continue;
+                }
+
+                if (nodes.terrain[node] != terrain) {
+                    nodes.terrain[node] = (byte) terrain;
+                    changedNodes[changed++] = node;
+                }
+            }
+        }
+
+        if (changed == 0) {
+            return;
+        }
+
+        // Every cell whose route passes through a changed cell has to be re-routed
+        byte[] marks = new byte[nodes.nodeCount];
+        for (int i = 0; i < changed; i++) {
+            marks[changedNodes[i]] = AFFECTED;
+        }
+        int[] chain = new int[nodes.nodeCount];
+        for (int node = 0; node < nodes.nodeCount; node++) {
+            markRoute(node, marks, chain);
+        }
+
+        for (int node = 0; node < nodes.nodeCount; node++) {
+            if (marks[node] == AFFECTED) {
+                nodes.g[node] = Double.MAX_VALUE;
+                nodes.parent[node] = -1;
+                nodes.state[node] = PathSearchContext.NEW;
+            }
+        }
+
+        // Re-seed affected cells from their unaffected neighbours, then let Dijkstra fill the gap
+        for (int node = 0; node < nodes.nodeCount; node++) {
+            if (marks[node] == AFFECTED) {
+                seedFromNeighbors(node);
+            }
+        }
+        for (int i = 0; i < changed; i++) {
+            // Cells that got cheaper to enter may offer neighbours a better route
+            int node = changedNodes[i];
+            if (nodes.terrain[node] != AStarPathfinder.BLOCKED && nodes.g[node] != Double.MAX_VALUE) {
+                nodes.f[node] = nodes.g[node];
+                nodes.open(node);
+            }
+        }
+        propagate(blocks);
+    }
+
+    /**
+     * Get the next cell to walk to from a position
+     * @return The centre of the next cell, or null if the position isn't covered by the field
+     */
+    public Location getNextStep(Location from) {
+        int node = findStandingNode(from);
+        if (node < 0) {
+            return null;
+        }
+        int next = nodes.parent[node];
+        if (next < 0) {
+            // Standing on a goal
+            return new Location(world, nodes.x[node] + 0.5, nodes.y[node], nodes.z[node] + 0.5);
+        }
+        return new Location(world, nodes.x[next] + 0.5, nodes.y[next], nodes.z[next] + 0.5);
+    }
+
+    /**
+     * Get the remaining cost from a position to the nearest goal
+     * @return The cost, or -1 if the position isn't covered by the field
+     */
+    public double getCost(Location from) {
+        int node = findStandingNode(from);
+        return node < 0 ? -1 : nodes.g[node];
+    }
+
+    /**
+     * Check if a position is on one of the field's goals
+     */
+    public boolean isAtGoal(Location from) {
+        int node = findStandingNode(from);
+        return node >= 0 && nodes.parent[node] < 0;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public long getComputedAt() {
+        return computedAt;
+    }
+
+    public int size() {
+        return nodes.nodeCount;
+    }
+
+    private int findStandingNode(Location from) {
+        if (from.getWorld() != world) {
+            return -1;
+        }
+        int x = from.getBlockX();
+        int y = from.getBlockY();
+        int z = from.getBlockZ();
+        // Entities can be slightly above or below the cell they stand in (slabs, jumps)
+        for (int dy : STANDING_PROBE) {
+            int node = nodes.find(BlockKey.pack(x, y + dy, z));
+            if (node >= 0 && nodes.g[node] != Double.MAX_VALUE) {
+                return node;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isGoal(long key) {
+        for (long goalKey : goalKeys) {
+            if (goalKey == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Follow a cell's route toward the goal and mark it affected if it runs through a changed cell
+     */
+    private void markRoute(int start, byte[] marks, int[] chain) {
+        int length = 0;
+        int node = start;
+        byte result = UNAFFECTED;
+        while (node >= 0) {
+            if (marks[node] != NOT_VISITED) {
+                result = marks[node];
+                break;
+            }
+            chain[length++] = node;
+            node = nodes.parent[node];
+        }
+        for (int i = 0; i < length; i++) {
+            marks[chain[i]] = result;
+        }
+    }
+
+    private void seedFromNeighbors(int node) {
+        if (nodes.terrain[node] == AStarPathfinder.BLOCKED) {
+            nodes.state[node] = PathSearchContext.CLOSED;
+            return;
+        }
+
+        int[][] neighbors = AStarPathfinder.NEIGHBORS;
+        for (int d = 0; d < neighbors.length; d++) {
+            int neighbor = nodes.find(BlockKey.pack(
+                nodes.x[node] + neighbors[d][0], nodes.y[node] + neighbors[d][1], nodes.z[node] + neighbors[d][2]));
+            if (neighbor < 0 || nodes.g[neighbor] == Double.MAX_VALUE || nodes.terrain[neighbor] == AStarPathfinder.BLOCKED) {
+                continue;
+            }
+            double cost = nodes.g[neighbor] + AStarPathfinder.getMovementCost(d, nodes.terrain[neighbor]);
+            if (cost < nodes.g[node] && cost <= maxCost) {
+                nodes.g[node] = cost;
+                nodes.f[node] = cost;
+                nodes.parent[node] = neighbor;
+            }
+        }
+
+        if (nodes.g[node] != Double.MAX_VALUE) {
+            nodes.open(node);
+        }
+    }
+
+    /**
+     * Dijkstra outward from the open cells
+     */
+    private void propagate(BlockReader blocks) {
+        int[][] neighbors = AStarPathfinder.NEIGHBORS;
+        while (!nodes.isOpenEmpty()) {
+            int current = nodes.poll();
+            int cx = nodes.x[current];
+            int cy = nodes.y[current];
+            int cz = nodes.z[current];
+            byte currentTerrain = nodes.terrain[current];
+
+            for (int d = 0; d < neighbors.length; d++) {
+                int nx = cx - neighbors[d][0];
+                int ny = cy - neighbors[d][1];
+                int nz = cz - neighbors[d][2];
+                if (!contains(nx, ny, nz)) {
+                    continue;
+                }
+
+                long key = BlockKey.pack(nx, ny, nz);
+                int neighbor = nodes.find(key);
+                if (neighbor < 0) {
+                    if (nodes.nodeCount >= maxNodes) {
+                        continue;
+                    }
+                    int terrain = rules.classifyBlock(blocks, nx, ny, nz);
+                    neighbor = nodes.add(key, nx, ny, nz);
+                    nodes.terrain[neighbor] = (byte) terrain;
+                    if (terrain == AStarPathfinder.BLOCKED) {
+                        nodes.state[neighbor] = PathSearchContext.CLOSED;
+                        continue;
+                    }
+                } else if (nodes.terrain[neighbor] == AStarPathfinder.BLOCKED) {
+                    continue;
+                }
+
+                // Step d leads from the neighbour into the current cell
+                double cost = nodes.g[current] + AStarPathfinder.getMovementCost(d, currentTerrain);
+                if (cost > maxCost || cost >= nodes.g[neighbor]) {
+                    continue;
+                }
+
+                nodes.g[neighbor] = cost;
+                nodes.f[neighbor] = cost;
+                nodes.parent[neighbor] = current;
+                nodes.open(neighbor);
+            }
+        }
+    }
+}
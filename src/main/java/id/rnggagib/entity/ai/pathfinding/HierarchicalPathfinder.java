@@ -0,0 +1,158 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import com.palmergames.bukkit.towny.object.Town;
+import com.palmergames.bukkit.towny.object.TownBlock;
+import id.rnggagib.TownyRaider;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.LivingEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits long routes through a town into short legs.
+ * A coarse route is planned over the town's chunk graph, and only the next leg is handed to
+ * block-level A*, so crossing a large town never runs into the A* iteration and length caps.
+ * Graphs are built on path workers from chunk snapshots; a stale graph is used until its rebuild lands.
+ */
+public class HierarchicalPathfinder {
+    // Rebuild a town's graph after this long, so new walls and holes are picked up
+    private static final long GRAPH_TTL_MS = 30_000;
+    // A build not handed back by then is assumed dropped, e.g. because its requester died
+    private static final long BUILD_TIMEOUT_MS = 10_000;
+
+    private final TownyRaider plugin;
+    private final AStarPathfinder rules;
+    private final Map<String, TownNavGraph> graphs = new HashMap<>();
+    // Each town's pending build
+    private final Map<String, PendingBuild> building = new HashMap<>();
+
+    public HierarchicalPathfinder(TownyRaider plugin, AStarPathfinder rules) {
+        this.plugin = plugin;
+        this.rules = rules;
+    }
+
+    /**
+     * Pick the point the next block-level search should aim for
+     * @param town The town the route runs through
+     * @param requester The raider asking, whose AI budget a graph build's main-thread work is charged to
+     * @param start Current position
+     * @param goal Final destination
+     * @param maxLeg Longest straight-line distance a single leg may cover
+     * @return An intermediate portal on the coarse route, or null to search for the goal directly
+     */
+    public Location getNextLegGoal(Town town, LivingEntity requester, Location start, Location goal, double maxLeg) {
+        if (town == null || start.getWorld() != goal.getWorld()) {
+            return null;
+        }
+
+        TownNavGraph graph = getGraph(town, start.getWorld(), requester, start.getBlockY());
+        if (graph == null) {
+            return null;
+        }
+
+        List<Location> route = graph.findRoute(start, goal);
+        if (route == null || route.isEmpty()) {
+            return null;
+        }
+
+        // Go as far along the route as one leg allows
+        double maxLegSquared = maxLeg * maxLeg;
+        Location legGoal = route.get(0);
+        for (Location portal : route) {
+            if (start.distanceSquared(portal) > maxLegSquared) {
+                break;
+            }
+            legGoal = portal;
+        }
+
+        // The goal itself is closer than the next useful portal
+        if (start.distanceSquared(goal) <= start.distanceSquared(legGoal)) {
+            return null;
+        }
+        return legGoal;
+    }
+
+    /**
+     * Get a town's graph, starting a rebuild if it is missing or stale
+     * @param referenceY Height of the ground the requester walks on
+     * @return The graph, or null if none has been built for the world yet
+     */
+    private TownNavGraph getGraph(Town town, World world, LivingEntity requester, int referenceY) {
+        String key = town.getName();
+        TownNavGraph graph = graphs.get(key);
+        if (graph != null && graph.getWorld() != world) {
+            graph = null;
+        }
+        if (graph == null || System.currentTimeMillis() - graph.getBuiltAt() >= GRAPH_TTL_MS) {
+            requestBuild(town, world, requester, referenceY);
+        }
+        return graph;
+    }
+
+    private void requestBuild(Town town, World world, LivingEntity requester, int referenceY) {
+        String key = town.getName();
+        PendingBuild started = building.get(key);
+        long now = System.currentTimeMillis();
+        if (started != null && now - started.startedAt < BUILD_TIMEOUT_MS) {
+            return;
+        }
+
+        List<int[]> chunks = new ArrayList<>();
+        List<Long> chunkKeys = new ArrayList<>();
+        for (TownBlock townBlock : town.getTownBlocks()) {
+            if (!world.getName().equals(townBlock.getWorld().getName())) {
+                continue;
+            }
+            chunks.add(new int[] {townBlock.getX(), townBlock.getZ()});
+            chunkKeys.add(SnapshotBlockReader.chunkKey(townBlock.getX(), townBlock.getZ()));
+        }
+        if (chunks.isEmpty()) {
+            graphs.remove(key);
+            return;
+        }
+
+        PendingBuild pending = new PendingBuild(now);
+        building.put(key, pending);
+        plugin.getPathService().submitBuild(requester, "navgraph:" + key, rules, world, chunkKeys,
+            blocks -> TownNavGraph.build(rules, blocks, chunks, referenceY),
+            graph -> {
+                // Dropped if the town was invalidated or a newer build took its place
+                if (building.get(key) != pending) {
+                    return;
+                }
+                building.remove(key);
+                if (graph != null) {
+                    graphs.put(key, graph);
+                }
+            });
+    }
+
+    /**
+     * Drop a town's graph, e.g. when its raid ends
+     */
+    public void invalidate(String townName) {
+        graphs.remove(townName);
+        building.remove(townName);
+    }
+
+    public void clear() {
+        graphs.clear();
+        building.clear();
+    }
+
+    /**
+     * A graph build on its way, compared by identity so a stale hand-back can't replace a newer one
+     */
+    private static class PendingBuild {
+        final long startedAt;
+
+        PendingBuild(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+}
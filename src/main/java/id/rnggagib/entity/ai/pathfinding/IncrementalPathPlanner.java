@@ -0,0 +1,467 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import id.rnggagib.entity.ai.waypoint.WaypointPath;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Per-raider path planner that repairs its previous search instead of starting over (D* Lite).
+ * The search tree is rooted at the block where the raider was when the plan was first made and
+ * grows toward the target. When the target drifts, only the key offset changes and the search
+ * picks up where it left off; when blocks change, only the routes through them are re-searched.
+ * The tree is rebuilt from the raider's position once the raider strays off it.
+ * Uses the same movement rules and costs as {@link AStarPathfinder}. Calls are serialised, so a
+ * planner may be driven from a worker thread.
+ */
+public class IncrementalPathPlanner {
+    private static final double INF = Double.MAX_VALUE;
+    private static final double KEY_EPSILON = 1e-9;
+    // How far the raider may be from every node of the new path before the tree is rebuilt
+    private static final int ON_PATH_DISTANCE_SQUARED = 4;
+    // Rebuild once the raider has walked this far from the root, so the tree doesn't grow lopsided
+    private static final int MAX_ROOT_DISTANCE_SQUARED = 24 * 24;
+    // Too many block changes since the last plan are cheaper handled by a rebuild
+    private static final int MAX_PENDING_CHANGES = 256;
+    // Terrain of a block outside the snapshots it was first reached with; re-read on each plan
+    private static final int UNREAD = -2;
+
+    private final AStarPathfinder rules;
+    private final int maxNodes;
+
+    // g is the cost from the root, f holds the queue key
+    private final PathSearchContext nodes = new PathSearchContext();
+    private double[] rhs = new double[0];
+    // Nodes still UNREAD
+    private int[] unread = new int[0];
+    private int unreadCount = 0;
+
+    private final ConcurrentLinkedQueue<Long> changedBlocks = new ConcurrentLinkedQueue<>();
+    private volatile boolean rebuildRequested = false;
+
+    private volatile World world;
+    private int root = -1;
+    // Root block for readers on other threads
+    private volatile Location rootLocation;
+    private int targetX;
+    private int targetY;
+    private int targetZ;
+    private double keyOffset;
+
+    private int lastExpansions = 0;
+    private boolean lastRebuilt = false;
+    private boolean retryFresh = false;
+
+    /**
+     * @param rules Pathfinder whose movement rules and limits the planner follows
+     * @param maxNodes Cap on the number of blocks the planner keeps; it rebuilds when exceeded
+     */
+    public IncrementalPathPlanner(AStarPathfinder rules, int maxNodes) {
+        this.rules = rules;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Plan a path, reusing the previous search where possible
+     * @param blocks Where block types are read from
+     * @return The path from the start to the goal, or null if none was found
+     */
+    public synchronized WaypointPath plan(BlockReader blocks, Location start, Location goal) {
+        if (start.getWorld() != goal.getWorld()) {
+            return null;
+        }
+
+        lastRebuilt = false;
+        lastExpansions = 0;
+        if (mustRebuild(start)) {
+            rebuild(start);
+        } else {
+            applyChanges(blocks);
+            readUnread(blocks);
+        }
+
+        WaypointPath path = search(blocks, start, goal);
+        if (path == null && retryFresh && !lastRebuilt) {
+            // The raider walked off the old tree; try once more from where it stands
+            rebuild(start);
+            path = search(blocks, start, goal);
+        }
+        return path;
+    }
+
+    /**
+     * Note that a block changed, to be patched in before the next plan
+     */
+    public void onBlockChanged(World world, long key) {
+        if (world != this.world) {
+            return;
+        }
+        if (changedBlocks.size() >= MAX_PENDING_CHANGES) {
+            rebuildRequested = true;
+            changedBlocks.clear();
+            return;
+        }
+        changedBlocks.add(key);
+    }
+
+    /**
+     * Drop the search tree
+     */
+    public synchronized void reset() {
+        nodes.reset();
+        unreadCount = 0;
+        changedBlocks.clear();
+        root = -1;
+        rootLocation = null;
+        world = null;
+    }
+
+    /**
+     * Get the block the current search tree is rooted at
+     * @return The root, or null if there is no tree yet
+     */
+    public Location getRoot() {
+        Location location = rootLocation;
+        return location != null ? location.clone() : null;
+    }
+
+    /**
+     * Number of blocks expanded by the last plan
+     */
+    public int getLastExpansions() {
+        return lastExpansions;
+    }
+
+    /**
+     * Check if the last plan had to rebuild the search tree
+     */
+    public boolean wasLastRebuilt() {
+        return lastRebuilt;
+    }
+
+    private boolean mustRebuild(Location start) {
+        if (root < 0 || rebuildRequested || start.getWorld() != world || nodes.nodeCount >= maxNodes) {
+            return true;
+        }
+        int dx = start.getBlockX() - nodes.x[root];
+        int dy = start.getBlockY() - nodes.y[root];
+        int dz = start.getBlockZ() - nodes.z[root];
+        return dx * dx + dy * dy + dz * dz > MAX_ROOT_DISTANCE_SQUARED;
+    }
+
+    /**
+     * Start a fresh tree rooted at the raider's block
+     */
+    private void rebuild(Location start) {
+        nodes.reset();
+        unreadCount = 0;
+        changedBlocks.clear();
+        rebuildRequested = false;
+        lastRebuilt = true;
+        world = start.getWorld();
+        keyOffset = 0;
+
+        int x = start.getBlockX();
+        int y = start.getBlockY();
+        int z = start.getBlockZ();
+        root = addNode(BlockKey.pack(x, y, z), x, y, z, AStarPathfinder.WALKABLE);
+        rootLocation = new Location(world, x, y, z);
+        rhs[root] = 0;
+        targetX = x;
+        targetY = y;
+        targetZ = z;
+        nodes.f[root] = 0;
+        nodes.open(root);
+    }
+
+    private WaypointPath search(BlockReader blocks, Location start, Location goal) {
+        int goalX = goal.getBlockX();
+        int goalY = goal.getBlockY();
+        int goalZ = goal.getBlockZ();
+
+        // Moving the target shifts every heuristic by at most the distance moved
+        keyOffset += AStarPathfinder.heuristic(targetX, targetY, targetZ, goalX, goalY, goalZ);
+        targetX = goalX;
+        targetY = goalY;
+        targetZ = goalZ;
+
+        retryFresh = false;
+        int target = getOrCreate(blocks, goalX, goalY, goalZ);
+        if (target < 0) {
+            return null;
+        }
+        if (!computeShortestPath(blocks, target) || nodes.g[target] == INF) {
+            return null;
+        }
+        return extractPath(start, target);
+    }
+
+    /**
+     * Expand nodes until the target's cost is settled
+     * @return False if the iteration cap ran out first; the search resumes on the next plan
+     */
+    private boolean computeShortestPath(BlockReader blocks, int target) {
+        int iterations = 0;
+        int maxIterations = rules.getMaxIterations();
+
+        while (!nodes.isOpenEmpty()) {
+            int top = nodes.peek();
+            double targetKey = key(target);
+            // Ties with the target's key are expanded too: they may lie on its cheapest route
+            if (nodes.f[top] > targetKey + KEY_EPSILON && rhs[target] == nodes.g[target]) {
+                return true;
+            }
+            if (++iterations > maxIterations) {
+                return false;
+            }
+            lastExpansions++;
+
+            double oldKey = nodes.f[top];
+            double newKey = key(top);
+            if (oldKey < newKey) {
+                nodes.f[top] = newKey;
+                nodes.update(top);
+            } else if (nodes.g[top] > rhs[top]) {
+                nodes.g[top] = rhs[top];
+                nodes.remove(top);
+                updateSuccessors(blocks, top);
+            } else {
+                nodes.g[top] = INF;
+                updateVertex(top);
+                updateSuccessors(blocks, top);
+            }
+        }
+        return true;
+    }
+
+    private void updateSuccessors(BlockReader blocks, int node) {
+        int x = nodes.x[node];
+        int y = nodes.y[node];
+        int z = nodes.z[node];
+        for (int[] dir : AStarPathfinder.NEIGHBORS) {
+            int successor = getOrCreate(blocks, x + dir[0], y + dir[1], z + dir[2]);
+            if (successor >= 0) {
+                updateVertex(successor);
+            }
+        }
+    }
+
+    /**
+     * Recompute a node's best cost from its neighbours and queue it if it is inconsistent
+     */
+    private void updateVertex(int node) {
+        if (node != root) {
+            rhs[node] = bestIncomingCost(node);
+        }
+        if (nodes.g[node] != rhs[node]) {
+            nodes.f[node] = key(node);
+            nodes.update(node);
+        } else {
+            nodes.remove(node);
+        }
+    }
+
+    private double bestIncomingCost(int node) {
+        int terrain = nodes.terrain[node];
+        if (terrain == AStarPathfinder.BLOCKED || terrain == UNREAD) {
+            return INF;
+        }
+
+        double best = INF;
+        int x = nodes.x[node];
+        int y = nodes.y[node];
+        int z = nodes.z[node];
+        for (int d = 0; d < AStarPathfinder.NEIGHBORS.length; d++) {
+            int[] dir = AStarPathfinder.NEIGHBORS[d];
+            int predecessor = nodes.find(BlockKey.pack(x - dir[0], y - dir[1], z - dir[2]));
+            if (predecessor < 0 || nodes.g[predecessor] == INF) {
+                continue;
+            }
+            double cost = nodes.g[predecessor] + AStarPathfinder.getMovementCost(d, terrain);
+            if (cost < best) {
+                best = cost;
+            }
+        }
+
+        // Same length cap as a fresh A* search
+        return best > rules.getMaxPathLength() ? INF : best;
+    }
+
+    private double key(int node) {
+        double cost = Math.min(nodes.g[node], rhs[node]);
+        if (cost == INF) {
+            return INF;
+        }
+        return cost + AStarPathfinder.heuristic(nodes.x[node], nodes.y[node], nodes.z[node], targetX, targetY, targetZ)
+                + keyOffset;
+    }
+
+    /**
+     * Re-classify blocks that changed since the last plan
+     */
+    private void applyChanges(BlockReader blocks) {
+        Long key;
+        while ((key = changedBlocks.poll()) != null) {
+            int x = BlockKey.x(key);
+            int y = BlockKey.y(key);
+            int z = BlockKey.z(key);
+
+            // A block's walkability depends on the block below it, itself and the block above
+            for (int cy = y - 1; cy <= y + 1; cy++) {
+                int node = nodes.find(BlockKey.pack(x, cy, z));
+                if (node < 0 || node == root || nodes.terrain[node] == UNREAD) {
+                    continue;
+                }
+                // Blocks outside this plan's snapshots keep what they were
+                if (blocks.getType(x, cy, z) == null) {
+                    continue;
+                }
+                int terrain = rules.classifyBlock(blocks, x, cy, z);
+                if (nodes.terrain[node] != terrain) {
+                    nodes.terrain[node] = (byte) terrain;
+                    updateVertex(node);
+                }
+            }
+        }
+    }
+
+    private int getOrCreate(BlockReader blocks, int x, int y, int z) {
+        long key = BlockKey.pack(x, y, z);
+        int node = nodes.find(key);
+        if (node >= 0) {
+            return node;
+        }
+        if (nodes.nodeCount >= maxNodes) {
+            return -1;
+        }
+        if (isUnread(blocks, x, y, z)) {
+            // Not BLOCKED: the tree outlives these snapshots, and a later plan may be able to read it
+            node = addNode(key, x, y, z, UNREAD);
+            if (unreadCount == unread.length) {
+                unread = Arrays.copyOf(unread, Math.max(64, unreadCount << 1));
+            }
+            unread[unreadCount++] = node;
+            return node;
+        }
+        return addNode(key, x, y, z, rules.classifyBlock(blocks, x, y, z));
+    }
+
+    /**
+     * Classify the UNREAD nodes that this plan's snapshots cover
+     */
+    private void readUnread(BlockReader blocks) {
+        int kept = 0;
+        for (int i = 0; i < unreadCount; i++) {
+            int node = unread[i];
+            int x = nodes.x[node];
+            int y = nodes.y[node];
+            int z = nodes.z[node];
+            if (isUnread(blocks, x, y, z)) {
+                unread[kept++] = node;
+                continue;
+            }
+            nodes.terrain[node] = (byte) rules.classifyBlock(blocks, x, y, z);
+            updateVertex(node);
+        }
+        unreadCount = kept;
+    }
+
+    private static boolean isUnread(BlockReader blocks, int x, int y, int z) {
+        return y >= blocks.getMinHeight() && y < blocks.getMaxHeight() && blocks.getType(x, y, z) == null;
+    }
+
+    private int addNode(long key, int x, int y, int z, int terrain) {
+        int node = nodes.add(key, x, y, z);
+        nodes.terrain[node] = (byte) terrain;
+        if (node >= rhs.length) {
+            int capacity = Math.max(1024, rhs.length << 1);
+            rhs = Arrays.copyOf(rhs, capacity);
+        }
+        rhs[node] = INF;
+        return node;
+    }
+
+    /**
+     * Walk back from the target along the cheapest predecessors, then keep the part from the raider on
+     */
+    private WaypointPath extractPath(Location start, int target) {
+        int[] chain = new int[16];
+        int length = 0;
+        int node = target;
+        while (true) {
+            if (length == chain.length) {
+                chain = Arrays.copyOf(chain, length << 1);
+            }
+            chain[length++] = node;
+            if (node == root) {
+                break;
+            }
+            int predecessor = cheapestPredecessor(node);
+            if (predecessor < 0 || length > nodes.nodeCount) {
+                return null;
+            }
+            node = predecessor;
+        }
+
+        // The raider has usually moved along since the root was set; start from its closest node
+        int startX = start.getBlockX();
+        int startY = start.getBlockY();
+        int startZ = start.getBlockZ();
+        int from = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < length; i++) {
+            int n = chain[i];
+            int dx = nodes.x[n] - startX;
+            int dy = nodes.y[n] - startY;
+            int dz = nodes.z[n] - startZ;
+            int distance = dx * dx + dy * dy + dz * dz;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                from = i;
+            }
+        }
+        if (bestDistance > ON_PATH_DISTANCE_SQUARED) {
+            retryFresh = true;
+            return null;
+        }
+
+        // Keep the start position's offset inside its block, as A* does
+        double offsetX = start.getX() - startX;
+        double offsetY = start.getY() - startY;
+        double offsetZ = start.getZ() - startZ;
+
+        WaypointPath path = new WaypointPath();
+        for (int i = from; i >= 0; i--) {
+            int n = chain[i];
+            path.addWaypoint(new Location(world, nodes.x[n] + offsetX, nodes.y[n] + offsetY, nodes.z[n] + offsetZ));
+        }
+        path.optimize();
+        return path;
+    }
+
+    private int cheapestPredecessor(int node) {
+        int terrain = nodes.terrain[node];
+        int x = nodes.x[node];
+        int y = nodes.y[node];
+        int z = nodes.z[node];
+
+        int best = -1;
+        double bestCost = INF;
+        for (int d = 0; d < AStarPathfinder.NEIGHBORS.length; d++) {
+            int[] dir = AStarPathfinder.NEIGHBORS[d];
+            int predecessor = nodes.find(BlockKey.pack(x - dir[0], y - dir[1], z - dir[2]));
+            if (predecessor < 0 || nodes.g[predecessor] == INF) {
+                continue;
+            }
+            double cost = nodes.g[predecessor] + AStarPathfinder.getMovementCost(d, terrain);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = predecessor;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,121 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive long keys to int values.
+ * Clearing is O(1): slots are stamped with a generation and stale slots count as empty,
+ * so one instance can be reused for many searches without allocating.
+ */
+public class LongIntHashMap {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int[] stamps;
+    private int generation = 1;
+    private int size = 0;
+    private int mask;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        stamps = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Get the value for a key
+     * @return The value, or missingValue if the key is absent
+     */
+    public int get(long key, int missingValue) {
+        int slot = mix(key) & mask;
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    public boolean containsKey(long key) {
+        int slot = mix(key) & mask;
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void put(long key, int value) {
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+
+        int slot = mix(key) & mask;
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        stamps[slot] = generation;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every entry without touching the backing arrays
+     */
+    public void clear() {
+        size = 0;
+        generation++;
+        if (generation == 0) {
+            // Stamp counter wrapped; reset so stale slots can't look live
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldStamps = stamps;
+        int oldGeneration = generation;
+
+        allocate(capacity);
+        generation = 1;
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == oldGeneration) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    static int mix(long key) {
+        // Murmur3 finalizer, spreads nearby block positions over the table
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,210 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Reusable working memory for one A* search, or a longer-lived incremental one.
+ * Nodes live in parallel primitive arrays and are addressed by index; the open list is a binary
+ * heap of node indices that tracks each node's heap slot, so decrease-key is O(log n).
+ * Arrays only grow, so after warm-up a search allocates nothing but its result.
+ */
+class PathSearchContext {
+    static final byte NEW = 0;
+    static final byte OPEN = 1;
+    static final byte CLOSED = 2;
+
+    private static final int INITIAL_NODES = 1024;
+
+    final LongIntHashMap index = new LongIntHashMap(INITIAL_NODES);
+
+    int[] x = new int[INITIAL_NODES];
+    int[] y = new int[INITIAL_NODES];
+    int[] z = new int[INITIAL_NODES];
+    double[] g = new double[INITIAL_NODES];
+    double[] f = new double[INITIAL_NODES];
+    int[] parent = new int[INITIAL_NODES];
+    byte[] state = new byte[INITIAL_NODES];
+    byte[] terrain = new byte[INITIAL_NODES];
+    int[] heapSlot = new int[INITIAL_NODES];
+    int nodeCount = 0;
+    // Nodes taken off the open list, and blocks stepped over by jump point scans
+    int expansions = 0;
+    int scans = 0;
+
+    private int[] heap = new int[INITIAL_NODES];
+    private int heapSize = 0;
+
+    /**
+     * Forget the previous search
+     */
+    void reset() {
+        index.clear();
+        nodeCount = 0;
+        heapSize = 0;
+        expansions = 0;
+        scans = 0;
+    }
+
+    /**
+     * Find the node for a packed block key
+     * @return The node index, or -1 if the block hasn't been seen in this search
+     */
+    int find(long key) {
+        return index.get(key, -1);
+    }
+
+    /**
+     * Create a node for a block that hasn't been seen yet
+     */
+    int add(long key, int bx, int by, int bz) {
+        if (nodeCount == x.length) {
+            grow();
+        }
+
+        int node = nodeCount++;
+        x[node] = bx;
+        y[node] = by;
+        z[node] = bz;
+        g[node] = Double.MAX_VALUE;
+        f[node] = Double.MAX_VALUE;
+        parent[node] = -1;
+        state[node] = NEW;
+        terrain[node] = 0;
+        heapSlot[node] = -1;
+        index.put(key, node);
+        return node;
+    }
+
+    boolean isOpenEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * Add a node to the open list, or move it up after its f score dropped
+     */
+    void open(int node) {
+        if (state[node] == OPEN) {
+            siftUp(heapSlot[node]);
+            return;
+        }
+
+        state[node] = OPEN;
+        heap[heapSize] = node;
+        heapSlot[node] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    /**
+     * Re-sort an open node after its f score changed in either direction, or open it
+     */
+    void update(int node) {
+        if (state[node] != OPEN) {
+            open(node);
+            return;
+        }
+        int slot = heapSlot[node];
+        siftUp(slot);
+        if (heapSlot[node] == slot) {
+            siftDown(slot);
+        }
+    }
+
+    /**
+     * Take a node off the open list without it being the lowest, and close it
+     */
+    void remove(int node) {
+        if (state[node] != OPEN) {
+            return;
+        }
+        int slot = heapSlot[node];
+        int last = heap[--heapSize];
+        heapSlot[node] = -1;
+        state[node] = CLOSED;
+        if (slot == heapSize) {
+            return;
+        }
+        heap[slot] = last;
+        heapSlot[last] = slot;
+        siftUp(slot);
+        if (heapSlot[last] == slot) {
+            siftDown(slot);
+        }
+    }
+
+    /**
+     * Get the open node with the lowest f score without removing it
+     */
+    int peek() {
+        return heap[0];
+    }
+
+    /**
+     * Remove the open node with the lowest f score and close it
+     */
+    int poll() {
+        expansions++;
+        int top = heap[0];
+        int last = heap[--heapSize];
+        if (heapSize > 0) {
+            heap[0] = last;
+            heapSlot[last] = 0;
+            siftDown(0);
+        }
+
+        heapSlot[top] = -1;
+        state[top] = CLOSED;
+        return top;
+    }
+
+    private void siftUp(int slot) {
+        int node = heap[slot];
+        double score = f[node];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            int parentNode = heap[parentSlot];
+            if (f[parentNode] <= score) {
+                break;
+            }
+            heap[slot] = parentNode;
+            heapSlot[parentNode] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = node;
+        heapSlot[node] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int node = heap[slot];
+        double score = f[node];
+        int half = heapSize >>> 1;
+        while (slot < half) {
+            int child = (slot << 1) + 1;
+            int right = child + 1;
+            if (right < heapSize && f[heap[right]] < f[heap[child]]) {
+                child = right;
+            }
+            if (score <= f[heap[child]]) {
+                break;
+            }
+            heap[slot] = heap[child];
+            heapSlot[heap[slot]] = slot;
+            slot = child;
+        }
+        heap[slot] = node;
+        heapSlot[node] = slot;
+    }
+
+    private void grow() {
+        int capacity = x.length << 1;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        g = Arrays.copyOf(g, capacity);
+        f = Arrays.copyOf(f, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        state = Arrays.copyOf(state, capacity);
+        terrain = Arrays.copyOf(terrain, capacity);
+        heapSlot = Arrays.copyOf(heapSlot, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+    }
+}
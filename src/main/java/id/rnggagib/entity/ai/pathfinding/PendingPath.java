@@ -0,0 +1,100 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import id.rnggagib.entity.ai.waypoint.WaypointPath;
+
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Handle for a path that is being computed off the main thread.
+ * Completion and callbacks always happen on the main thread.
+ */
+public class PendingPath {
+    private final Location goal;
+    private final SearchMode searchMode;
+    private final List<Consumer<WaypointPath>> callbacks = new ArrayList<>(1);
+    private WaypointPath path;
+    private boolean done = false;
+    private volatile boolean cancelled = false;
+
+    public PendingPath(Location goal) {
+        this(goal, SearchMode.AUTO);
+    }
+
+    public PendingPath(Location goal, SearchMode searchMode) {
+        this.goal = goal.clone();
+        this.searchMode = searchMode;
+    }
+
+    public Location getGoal() {
+        return goal.clone();
+    }
+
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    /**
+     * Check if this request is heading for roughly the same target
+     */
+    public boolean isFor(Location target) {
+        return target.getWorld() == goal.getWorld() && target.distanceSquared(goal) <= 4.0;
+    }
+
+    /**
+     * Check if the search has finished or the request was cancelled
+     */
+    public boolean isDone() {
+        return done || cancelled;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Get the computed path
+     * @return The path, or null if still pending or no path was found
+     */
+    public WaypointPath getPath() {
+        return path;
+    }
+
+    /**
+     * Run a callback with the path once it arrives (null if no path was found).
+     * Runs immediately if the search already finished; never runs if cancelled.
+     */
+    public void whenComplete(Consumer<WaypointPath> callback) {
+        if (cancelled) {
+            return;
+        }
+        if (done) {
+            callback.accept(path);
+        } else {
+            callbacks.add(callback);
+        }
+    }
+
+    /**
+     * Drop the request; a search already running finishes but its result is discarded
+     */
+    public void cancel() {
+        cancelled = true;
+        callbacks.clear();
+    }
+
+    void complete(WaypointPath result) {
+        if (done || cancelled) {
+            return;
+        }
+        path = result;
+        done = true;
+        for (Consumer<WaypointPath> callback : callbacks) {
+            callback.accept(result);
+        }
+        callbacks.clear();
+    }
+}
@@ -0,0 +1,13 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+/**
+ * How a path search expands the grid
+ */
+public enum SearchMode {
+    /** Plain A* over every neighbouring block */
+    STANDARD,
+    /** Jump Point Search: skips runs of equivalent open blocks, for flat open ground */
+    JUMP_POINT,
+    /** Jump Point Search when the ground between start and goal is mostly flat and open, A* otherwise */
+    AUTO
+}
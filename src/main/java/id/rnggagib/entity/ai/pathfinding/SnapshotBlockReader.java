@@ -0,0 +1,81 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.Map;
+
+/**
+ * Reads blocks from chunk snapshots captured on the main thread.
+ * Snapshots are immutable, so this can be used from any thread; blocks in chunks
+ * that weren't captured read as null and are treated as impassable.
+ */
+public class SnapshotBlockReader implements BlockReader {
+    private final Map<Long, ChunkSnapshot> snapshots;
+    private final World world;
+    private final long captureEpoch;
+    private final int minHeight;
+    private final int maxHeight;
+
+    // Searches are local, so the last chunk looked up is usually the next one too
+    private long lastChunkKey = Long.MIN_VALUE;
+    private ChunkSnapshot lastSnapshot;
+
+    /**
+     * @param captureEpoch The walkability cache epoch when the snapshots were taken
+     */
+    public SnapshotBlockReader(Map<Long, ChunkSnapshot> snapshots, World world, long captureEpoch) {
+        this.snapshots = snapshots;
+        this.world = world;
+        this.captureEpoch = captureEpoch;
+        this.minHeight = world.getMinHeight();
+        this.maxHeight = world.getMaxHeight();
+    }
+
+    /**
+     * Pack chunk coordinates into a map key
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xffffffffL);
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        if (y < minHeight || y >= maxHeight) {
+            return null;
+        }
+
+        long key = chunkKey(x >> 4, z >> 4);
+        ChunkSnapshot snapshot;
+        if (key == lastChunkKey) {
+            snapshot = lastSnapshot;
+        } else {
+            snapshot = snapshots.get(key);
+            lastChunkKey = key;
+            lastSnapshot = snapshot;
+        }
+
+        return snapshot == null ? null : snapshot.getBlockType(x & 15, y, z & 15);
+    }
+
+    @Override
+    public int getMinHeight() {
+        return minHeight;
+    }
+
+    @Override
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+
+    @Override
+    public World getWorld() {
+        return world;
+    }
+
+    @Override
+    public long getCaptureEpoch() {
+        return captureEpoch;
+    }
+}
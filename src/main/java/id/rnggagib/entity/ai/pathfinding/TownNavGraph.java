@@ -0,0 +1,408 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Coarse navigation graph over a town's claimed chunks, for HPA*-style route planning.
+ * Each chunk is a cluster of floor cells, one walkable floor per column. Where two neighbouring chunks share a walkable stretch
+ * of border, a pair of portals links them; portals inside one chunk are linked by their walking
+ * cost through that chunk. A route across town is searched on portals only, and the caller refines
+ * just the next leg at block level.
+ */
+public class TownNavGraph {
+    private static final int SIZE = 16;
+    private static final int CELLS = SIZE * SIZE;
+    private static final int NO_HEIGHT = Integer.MIN_VALUE;
+    private static final double DIAGONAL_COST = Math.sqrt(2);
+    // How far above or below its neighbour a column's floor is looked for
+    private static final int FLOOR_SEARCH_RANGE = 24;
+
+    private final World world;
+    private final Map<Long, Cluster> clusters = new HashMap<>();
+    private final List<Portal> portals = new ArrayList<>();
+    private final long builtAt;
+
+    private TownNavGraph(World world) {
+        this.world = world;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Build the graph for a set of chunks. Safe to run on a worker against snapshots; chunks the reader
+     * has no blocks for, such as unloaded ones, are left out.
+     * @param chunks Chunk coordinates as {x, z} pairs
+     * @param referenceY Height of the ground the raiders walk on, which each chunk's floors are traced from
+     */
+    public static TownNavGraph build(AStarPathfinder rules, BlockReader blocks, Collection<int[]> chunks, int referenceY) {
+        TownNavGraph graph = new TownNavGraph(blocks.getWorld());
+
+        for (int[] chunk : chunks) {
+            if (blocks.getType(chunk[0] << 4, blocks.getMinHeight(), chunk[1] << 4) != null) {
+                Cluster cluster = graph.new Cluster(chunk[0], chunk[1]);
+                cluster.scan(rules, blocks, referenceY);
+                graph.clusters.put(SnapshotBlockReader.chunkKey(chunk[0], chunk[1]), cluster);
+            }
+        }
+
+        // Link each chunk to its east and south neighbour, so every shared border is visited once
+        for (Cluster cluster : graph.clusters.values()) {
+            Cluster east = graph.clusters.get(SnapshotBlockReader.chunkKey(cluster.chunkX + 1, cluster.chunkZ));
+            if (east != null) {
+                graph.linkBorder(cluster, east, true);
+            }
+            Cluster south = graph.clusters.get(SnapshotBlockReader.chunkKey(cluster.chunkX, cluster.chunkZ + 1));
+            if (south != null) {
+                graph.linkBorder(cluster, south, false);
+            }
+        }
+
+        for (Cluster cluster : graph.clusters.values()) {
+            cluster.connectPortals();
+        }
+        return graph;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public int getPortalCount() {
+        return portals.size();
+    }
+
+    /**
+     * Plan a coarse route between two positions
+     * @return Portal cells to pass through in order, or null if either end is outside the graph,
+     *         both are in the same chunk, or no route exists
+     */
+    public List<Location> findRoute(Location start, Location goal) {
+        Cluster startCluster = clusterAt(start);
+        Cluster goalCluster = clusterAt(goal);
+        if (startCluster == null || goalCluster == null || startCluster == goalCluster) {
+            return null;
+        }
+
+        double[] fromStart = startCluster.costsFrom(startCluster.cellIndex(start.getBlockX(), start.getBlockZ()));
+        double[] toGoal = goalCluster.costsFrom(goalCluster.cellIndex(goal.getBlockX(), goal.getBlockZ()));
+
+        int count = portals.size();
+        double[] g = new double[count];
+        int[] parent = new int[count];
+        boolean[] closed = new boolean[count];
+        Arrays.fill(g, Double.MAX_VALUE);
+        Arrays.fill(parent, -1);
+
+        PriorityQueue<double[]> open = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        for (Portal portal : startCluster.portals) {
+            double cost = fromStart[portal.cell];
+            if (cost != Double.MAX_VALUE) {
+                g[portal.id] = cost;
+                open.add(new double[] {cost + heuristic(portal, goal), portal.id});
+            }
+        }
+
+        int best = -1;
+        double bestCost = Double.MAX_VALUE;
+
+        while (!open.isEmpty()) {
+            double[] entry = open.poll();
+            int current = (int) entry[1];
+            if (closed[current]) {
+                continue;
+            }
+            closed[current] = true;
+            if (entry[0] >= bestCost) {
+                break;
+            }
+
+            Portal portal = portals.get(current);
+            if (portal.cluster == goalCluster) {
+                double cost = g[current] + toGoal[portal.cell];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = current;
+                }
+            }
+
+            // Cross the border
+            relax(open, g, parent, closed, current, portal.partner, portal.crossingCost, goal);
+
+            // Walk to the other portals of this chunk
+            for (int i = 0; i < portal.cluster.portals.size(); i++) {
+                double cost = portal.intraCosts[i];
+                if (cost != Double.MAX_VALUE) {
+                    relax(open, g, parent, closed, current, portal.cluster.portals.get(i), cost, goal);
+                }
+            }
+        }
+
+        if (best < 0) {
+            return null;
+        }
+
+        List<Location> route = new ArrayList<>();
+        for (int node = best; node >= 0; node = parent[node]) {
+            route.add(portals.get(node).toLocation());
+        }
+        java.util.Collections.reverse(route);
+        return route;
+    }
+
+    private void relax(PriorityQueue<double[]> open, double[] g, int[] parent, boolean[] closed,
+                       int from, Portal to, double stepCost, Location goal) {
+        if (closed[to.id]) {
+            return;
+        }
+        double cost = g[from] + stepCost;
+        if (cost < g[to.id]) {
+            g[to.id] = cost;
+            parent[to.id] = from;
+            open.add(new double[] {cost + heuristic(to, goal), to.id});
+        }
+    }
+
+    private double heuristic(Portal portal, Location goal) {
+        double dx = portal.x + 0.5 - goal.getX();
+        double dz = portal.z + 0.5 - goal.getZ();
+        return Math.sqrt(dx * dx + dz * dz);
+    }
+
+    private Cluster clusterAt(Location location) {
+        if (location.getWorld() != world) {
+            return null;
+        }
+        return clusters.get(SnapshotBlockReader.chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+    }
+
+    /**
+     * Create portal pairs along the border between two neighbouring chunks
+     * @param eastward True if b lies east of a, false if south
+     */
+    private void linkBorder(Cluster a, Cluster b, boolean eastward) {
+        int runStart = -1;
+        for (int i = 0; i <= SIZE; i++) {
+            boolean open = i < SIZE && isOpenCrossing(a, b, eastward, i);
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                // One portal pair in the middle of each walkable stretch
+                int mid = (runStart + i - 1) / 2;
+                int cellA = eastward ? a.index(SIZE - 1, mid) : a.index(mid, SIZE - 1);
+                int cellB = eastward ? b.index(0, mid) : b.index(mid, 0);
+                Portal portalA = new Portal(a, cellA);
+                Portal portalB = new Portal(b, cellB);
+                double cost = a.heights[cellA] == b.heights[cellB] ? 1.0 : 1.2;
+                portalA.partner = portalB;
+                portalB.partner = portalA;
+                portalA.crossingCost = cost;
+                portalB.crossingCost = cost;
+                runStart = -1;
+            }
+        }
+    }
+
+    private boolean isOpenCrossing(Cluster a, Cluster b, boolean eastward, int i) {
+        int cellA = eastward ? a.index(SIZE - 1, i) : a.index(i, SIZE - 1);
+        int cellB = eastward ? b.index(0, i) : b.index(i, 0);
+        int heightA = a.heights[cellA];
+        int heightB = b.heights[cellB];
+        return heightA != NO_HEIGHT && heightB != NO_HEIGHT && Math.abs(heightA - heightB) <= 1;
+    }
+
+    /**
+     * Surface cells of one chunk
+     */
+    private class Cluster {
+        final int chunkX;
+        final int chunkZ;
+        final int[] heights = new int[CELLS];
+        final boolean[] difficult = new boolean[CELLS];
+        final List<Portal> portals = new ArrayList<>();
+
+        Cluster(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        int index(int localX, int localZ) {
+            return localZ * SIZE + localX;
+        }
+
+        int cellIndex(int blockX, int blockZ) {
+            return index(blockX & 15, blockZ & 15);
+        }
+
+        /**
+         * Find each column's walkable floor. Floors are traced from cell to cell, starting at the reference height,
+         * so the graph follows the ground up and down hills and skips roofs, canopies and caves above or below it.
+         */
+        void scan(AStarPathfinder rules, BlockReader blocks, int referenceY) {
+            int baseX = chunkX << 4;
+            int baseZ = chunkZ << 4;
+            int last = referenceY;
+            for (int localZ = 0; localZ < SIZE; localZ++) {
+                for (int localX = 0; localX < SIZE; localX++) {
+                    int cell = index(localX, localZ);
+                    int left = localX > 0 ? heights[cell - 1] : NO_HEIGHT;
+                    int up = localZ > 0 ? heights[cell - SIZE] : NO_HEIGHT;
+                    int x = baseX + localX;
+                    int z = baseZ + localZ;
+
+                    heights[cell] = NO_HEIGHT;
+                    if (left != NO_HEIGHT || up != NO_HEIGHT) {
+                        // Stay within a step of the neighbours' floor; a wall or a drop leaves the column empty
+                        if (left != NO_HEIGHT) {
+                            findFloor(rules, blocks, cell, x, z, left, 1);
+                        }
+                        if (heights[cell] == NO_HEIGHT && up != NO_HEIGHT) {
+                            findFloor(rules, blocks, cell, x, z, up, 1);
+                        }
+                    } else {
+                        // Nothing to follow here, so take the floor nearest the ground seen last
+                        findFloor(rules, blocks, cell, x, z, last, FLOOR_SEARCH_RANGE);
+                    }
+                    if (heights[cell] != NO_HEIGHT) {
+                        last = heights[cell];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Record the standable floor nearest a height, looking no more than a range above or below it
+         */
+        private void findFloor(AStarPathfinder rules, BlockReader blocks, int cell, int x, int z, int around, int range) {
+            int minY = blocks.getMinHeight() + 1;
+            int maxY = blocks.getMaxHeight() - 2;
+            for (int d = 0; d <= range; d++) {
+                if (tryFloor(rules, blocks, cell, x, around - d, z, minY, maxY)
+                        || (d > 0 && tryFloor(rules, blocks, cell, x, around + d, z, minY, maxY))) {
+                    return;
+                }
+            }
+        }
+
+        private boolean tryFloor(AStarPathfinder rules, BlockReader blocks, int cell, int x, int y, int z,
+                                 int minY, int maxY) {
+            if (y < minY || y > maxY) {
+                return false;
+            }
+            int terrain = rules.classifyBlock(blocks, x, y, z);
+            if (terrain == AStarPathfinder.BLOCKED) {
+                return false;
+            }
+            heights[cell] = y;
+            difficult[cell] = terrain == AStarPathfinder.DIFFICULT;
+            return true;
+        }
+
+        void connectPortals() {
+            for (Portal portal : portals) {
+                double[] costs = costsFrom(portal.cell);
+                portal.intraCosts = new double[portals.size()];
+                for (int i = 0; i < portals.size(); i++) {
+                    Portal other = portals.get(i);
+                    portal.intraCosts[i] = other == portal ? Double.MAX_VALUE : costs[other.cell];
+                }
+            }
+        }
+
+        /**
+         * Walking cost from one cell to every other cell of the chunk, over the surface
+         */
+        double[] costsFrom(int source) {
+            double[] costs = new double[CELLS];
+            Arrays.fill(costs, Double.MAX_VALUE);
+            if (heights[source] == NO_HEIGHT) {
+                return costs;
+            }
+
+            PriorityQueue<double[]> open = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+            costs[source] = 0;
+            open.add(new double[] {0, source});
+
+            while (!open.isEmpty()) {
+                double[] entry = open.poll();
+                int cell = (int) entry[1];
+                if (entry[0] > costs[cell]) {
+                    continue;
+                }
+                int cx = cell % SIZE;
+                int cz = cell / SIZE;
+
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        int nx = cx + dx;
+                        int nz = cz + dz;
+                        if ((dx == 0 && dz == 0) || nx < 0 || nx >= SIZE || nz < 0 || nz >= SIZE) {
+                            continue;
+                        }
+                        int next = index(nx, nz);
+                        if (heights[next] == NO_HEIGHT || Math.abs(heights[next] - heights[cell]) > 1) {
+                            continue;
+                        }
+
+                        // Same step costs as block-level A*
+                        double step = dx != 0 && dz != 0 ? DIAGONAL_COST : 1.0;
+                        if (difficult[next]) {
+                            step *= 1.5;
+                        }
+                        if (heights[next] != heights[cell]) {
+                            step *= 1.2;
+                        }
+
+                        double cost = costs[cell] + step;
+                        if (cost < costs[next]) {
+                            costs[next] = cost;
+                            open.add(new double[] {cost, next});
+                        }
+                    }
+                }
+            }
+            return costs;
+        }
+    }
+
+    /**
+     * One side of a border crossing
+     */
+    private class Portal {
+        final int id;
+        final Cluster cluster;
+        final int cell;
+        final int x;
+        final int y;
+        final int z;
+        Portal partner;
+        double crossingCost;
+        double[] intraCosts;
+
+        Portal(Cluster cluster, int cell) {
+            this.id = portals.size();
+            this.cluster = cluster;
+            this.cell = cell;
+            this.x = (cluster.chunkX << 4) + cell % SIZE;
+            this.z = (cluster.chunkZ << 4) + cell / SIZE;
+            this.y = cluster.heights[cell];
+            portals.add(this);
+            cluster.portals.add(this);
+        }
+
+        Location toLocation() {
+            return new Location(world, x + 0.5, y, z + 0.5);
+        }
+    }
+}
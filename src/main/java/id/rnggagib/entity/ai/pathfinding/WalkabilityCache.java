@@ -0,0 +1,432 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPistonEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Walkability of every block position, cached per 16x16x16 chunk section as packed bit sets.
+ * A section is classified in one pass the first time any search touches it and is shared by every
+ * raider and replan until a block in or next to it changes. Safe to read from worker threads:
+ * sections built from snapshots older than the latest change to them are used once but not stored.
+ */
+public class WalkabilityCache implements Listener {
+    /** Two blocks of air over ground that can be stood on */
+    public static final int STANDABLE = 1;
+    /** Slow ground such as ice or soul sand */
+    public static final int DIFFICULT = 2;
+    /** A dangerous or obstructive block in the feet, head or ground position */
+    public static final int HAZARD = 4;
+
+    private static final int SECTION_CELLS = 16 * 16 * 16;
+    private static final int WORDS = SECTION_CELLS / 64;
+    // Past this many cached sections per world the cache starts over
+    private static final int MAX_SECTIONS = 2048;
+    // Past this many invalidation records per world, old snapshots stop being cached at all
+    private static final int MAX_INVALIDATIONS = 4096;
+
+    private final Set<Material> hazards;
+    private final Map<UUID, WorldSections> worlds = new ConcurrentHashMap<>();
+
+    // Bumped on every change; readers remember the value from when their blocks were read
+    private final AtomicLong epoch = new AtomicLong();
+
+    public WalkabilityCache(Set<Material> hazards) {
+        this.hazards = hazards;
+    }
+
+    /**
+     * Get the walkability flags of a block position
+     * @param blocks Where block types are read from if the section isn't cached
+     * @return A combination of {@link #STANDABLE}, {@link #DIFFICULT} and {@link #HAZARD}
+     */
+    public int getFlags(BlockReader blocks, int x, int y, int z) {
+        World world = blocks.getWorld();
+        if (world == null || y < blocks.getMinHeight() || y >= blocks.getMaxHeight()) {
+            return 0;
+        }
+
+        long key = BlockKey.pack(x >> 4, y >> 4, z >> 4);
+        WorldSections sections = worlds.computeIfAbsent(world.getUID(), k -> new WorldSections());
+        Section section = sections.cached.get(key);
+        if (section == null) {
+            section = buildSection(blocks, x >> 4, y >> 4, z >> 4);
+            if (section == null) {
+                // The section isn't readable as a whole; classify just this block
+                return classify(blocks, x, y, z);
+            }
+            sections.store(key, section, blocks.getCaptureEpoch());
+        }
+        return section.get(x & 15, y & 15, z & 15);
+    }
+
+    /**
+     * Check if a position can be stood on without danger
+     */
+    public boolean isSafe(BlockReader blocks, int x, int y, int z) {
+        int flags = getFlags(blocks, x, y, z);
+        return (flags & STANDABLE) != 0 && (flags & HAZARD) == 0;
+    }
+
+    /**
+     * Check if the section holding a position changed after an epoch
+     * @param epoch Capture epoch of the blocks something was worked out from
+     */
+    public boolean hasChangedSince(World world, int x, int y, int z, long epoch) {
+        WorldSections sections = worlds.get(world.getUID());
+        if (sections == null || epoch < sections.oldestTrusted) {
+            // No records to go by
+            return true;
+        }
+        Long changed = sections.changedAt.get(BlockKey.pack(x >> 4, y >> 4, z >> 4));
+        return changed != null && changed > epoch;
+    }
+
+    /**
+     * Current change counter, for readers that capture blocks now
+     */
+    public long getEpoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Number of sections cached across all worlds
+     */
+    public int getCachedSections() {
+        int count = 0;
+        for (WorldSections sections : worlds.values()) {
+            count += sections.cached.size();
+        }
+        return count;
+    }
+
+    public void clear() {
+        epoch.incrementAndGet();
+        worlds.clear();
+    }
+
+    /**
+     * Drop the cached sections a block change can affect
+     */
+    public void invalidate(Block block) {
+        WorldSections sections = worlds.get(block.getWorld().getUID());
+        if (sections == null) {
+            return;
+        }
+
+        int chunkX = block.getX() >> 4;
+        int chunkZ = block.getZ() >> 4;
+        int y = block.getY();
+        long changed = epoch.incrementAndGet();
+
+        // A position's flags depend on the blocks below and above it, which may sit in the next section
+        sections.invalidate(BlockKey.pack(chunkX, y >> 4, chunkZ), changed);
+        if ((y & 15) == 0) {
+            sections.invalidate(BlockKey.pack(chunkX, (y >> 4) - 1, chunkZ), changed);
+        } else if ((y & 15) == 15) {
+            sections.invalidate(BlockKey.pack(chunkX, (y >> 4) + 1, chunkZ), changed);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFromTo(BlockFromToEvent event) {
+        // Flowing liquid takes the type of the block it flows from
+        invalidate(event.getToBlock(), event.getBlock().getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        invalidate(event.getBlock(), event.getNewState().getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        invalidate(event.getBlock(), event.getNewState().getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        invalidate(event.getBlock(), Material.AIR);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent event) {
+        invalidate(event.getBlock(), Material.AIR);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        invalidate(event.getBlock(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        invalidateMoved(event, event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        invalidateMoved(event, event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            invalidate(block);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            invalidate(block);
+        }
+    }
+
+    /**
+     * Drop the cached sections a block change can affect, if the new type classifies differently
+     */
+    private void invalidate(Block block, Material to) {
+        Material from = block.getType();
+        if (from != to && (from.isAir() != to.isAir() || isGround(from) != isGround(to)
+                || hazards.contains(from) != hazards.contains(to) || isDifficult(from) != isDifficult(to))) {
+            invalidate(block);
+        }
+    }
+
+    /**
+     * Drop the sections around a piston's head and the blocks it moves, on both sides of each
+     */
+    private void invalidateMoved(BlockPistonEvent event, List<Block> moved) {
+        BlockFace direction = event.getDirection();
+        Block piston = event.getBlock();
+        invalidate(piston.getRelative(direction));
+        invalidate(piston.getRelative(direction.getOppositeFace()));
+        for (Block block : moved) {
+            invalidate(block);
+            invalidate(block.getRelative(direction));
+            invalidate(block.getRelative(direction.getOppositeFace()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        // Unloaded chunks must read as impassable again, as they do without the cache
+        WorldSections sections = worlds.get(event.getWorld().getUID());
+        if (sections == null) {
+            return;
+        }
+        World world = event.getWorld();
+        int chunkX = event.getChunk().getX();
+        int chunkZ = event.getChunk().getZ();
+        long changed = epoch.incrementAndGet();
+        for (int sectionY = world.getMinHeight() >> 4; sectionY < world.getMaxHeight() >> 4; sectionY++) {
+            sections.invalidate(BlockKey.pack(chunkX, sectionY, chunkZ), changed);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        worlds.remove(event.getWorld().getUID());
+    }
+
+    /**
+     * Classify a whole section in one pass, reading each column once
+     * @return The section, or null if part of it couldn't be read
+     */
+    private Section buildSection(BlockReader blocks, int sectionX, int sectionY, int sectionZ) {
+        int baseX = sectionX << 4;
+        int baseY = sectionY << 4;
+        int baseZ = sectionZ << 4;
+        int minHeight = blocks.getMinHeight();
+        int maxHeight = blocks.getMaxHeight();
+
+        Section section = new Section();
+        // The column plus the block below and the block above it
+        Material[] column = new Material[18];
+
+        for (int localX = 0; localX < 16; localX++) {
+            for (int localZ = 0; localZ < 16; localZ++) {
+                int x = baseX + localX;
+                int z = baseZ + localZ;
+                for (int i = 0; i < column.length; i++) {
+                    int y = baseY - 1 + i;
+                    if (y < minHeight || y >= maxHeight) {
+                        column[i] = null;
+                        continue;
+                    }
+                    Material type = blocks.getType(x, y, z);
+                    if (type == null) {
+                        return null;
+                    }
+                    column[i] = type;
+                }
+
+                for (int localY = 0; localY < 16; localY++) {
+                    int flags = flags(column[localY + 1], column[localY + 2], column[localY], baseY + localY,
+                            minHeight, maxHeight);
+                    section.set(localX, localY, localZ, flags);
+                }
+            }
+        }
+        return section;
+    }
+
+    private int classify(BlockReader blocks, int x, int y, int z) {
+        return flags(blocks.getType(x, y, z), blocks.getType(x, y + 1, z), blocks.getType(x, y - 1, z), y,
+                blocks.getMinHeight(), blocks.getMaxHeight());
+    }
+
+    private static boolean isGround(Material type) {
+        return type.isSolid() || type == Material.WATER || type == Material.LAVA;
+    }
+
+    private static boolean isDifficult(Material type) {
+        return type == Material.SOUL_SAND || type == Material.HONEY_BLOCK
+                || type == Material.ICE || type == Material.PACKED_ICE || type == Material.SLIME_BLOCK;
+    }
+
+    /**
+     * Walkability flags of a position from its feet, head and ground blocks
+     */
+    private int flags(Material type, Material above, Material below, int y, int minHeight, int maxHeight) {
+        int flags = 0;
+
+        // Must have 2 blocks of air for clearance and solid ground below (or liquid for swimming);
+        // unreadable blocks count as solid
+        if (y > minHeight && y + 1 < maxHeight
+                && type != null && above != null && below != null
+                && type.isAir() && above.isAir()
+                && isGround(below)) {
+            flags |= STANDABLE;
+        }
+
+        if (hazards.contains(type) || hazards.contains(above) || hazards.contains(below)) {
+            flags |= HAZARD;
+        }
+
+        if (type == Material.SOUL_SAND || type == Material.HONEY_BLOCK ||
+            below == Material.ICE || below == Material.PACKED_ICE || below == Material.SLIME_BLOCK) {
+            flags |= DIFFICULT;
+        }
+        return flags;
+    }
+
+    /**
+     * Cached sections of one world
+     */
+    private static class WorldSections {
+        final Map<Long, Section> cached = new ConcurrentHashMap<>();
+        // When each section last changed
+        final Map<Long, Long> changedAt = new ConcurrentHashMap<>();
+        // Anything read before this is too old to cache, since its change records were dropped
+        volatile long oldestTrusted = 0;
+
+        void store(long key, Section section, long readAt) {
+            Long changed = changedAt.get(key);
+            if (readAt < oldestTrusted || changed != null && readAt < changed) {
+                return;
+            }
+            if (cached.size() >= MAX_SECTIONS) {
+                cached.clear();
+            }
+            cached.put(key, section);
+
+            // The section may have changed while it was being stored
+            changed = changedAt.get(key);
+            if (changed != null && readAt < changed) {
+                cached.remove(key, section);
+            }
+        }
+
+        void invalidate(long key, long changed) {
+            cached.remove(key);
+            if (changedAt.size() >= MAX_INVALIDATIONS) {
+                changedAt.clear();
+                oldestTrusted = changed;
+            }
+            changedAt.put(key, changed);
+        }
+    }
+
+    /**
+     * Three bit sets over the 4096 positions of a section
+     */
+    private static class Section {
+        final long[] standable = new long[WORDS];
+        final long[] difficult = new long[WORDS];
+        final long[] hazard = new long[WORDS];
+
+        static int index(int x, int y, int z) {
+            return (y << 8) | (z << 4) | x;
+        }
+
+        void set(int x, int y, int z, int flags) {
+            int index = index(x, y, z);
+            long bit = 1L << (index & 63);
+            int word = index >>> 6;
+            if ((flags & STANDABLE) != 0) {
+                standable[word] |= bit;
+            }
+            if ((flags & DIFFICULT) != 0) {
+                difficult[word] |= bit;
+            }
+            if ((flags & HAZARD) != 0) {
+                hazard[word] |= bit;
+            }
+        }
+
+        int get(int x, int y, int z) {
+            int index = index(x, y, z);
+            long bit = 1L << (index & 63);
+            int word = index >>> 6;
+            int flags = 0;
+            if ((standable[word] & bit) != 0) {
+                flags |= STANDABLE;
+            }
+            if ((difficult[word] & bit) != 0) {
+                flags |= DIFFICULT;
+            }
+            if ((hazard[word] & bit) != 0) {
+                flags |= HAZARD;
+            }
+            return flags;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package id.rnggagib.entity.ai.pathfinding;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * Reads blocks straight from a loaded world. Main thread only.
+ */
+public class WorldBlockReader implements BlockReader {
+    private final World world;
+
+    public WorldBlockReader(World world) {
+        this.world = world;
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        return world.getType(x, y, z);
+    }
+
+    @Override
+    public int getMinHeight() {
+        return world.getMinHeight();
+    }
+
+    @Override
+    public int getMaxHeight() {
+        return world.getMaxHeight();
+    }
+
+    @Override
+    public World getWorld() {
+        return world;
+    }
+
+    @Override
+    public long getCaptureEpoch() {
+        return Long.MAX_VALUE;
+    }
+}
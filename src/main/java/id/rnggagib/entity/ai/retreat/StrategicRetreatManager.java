@@ -2,6 +2,9 @@ package id.rnggagib.entity.ai.retreat;
 
 import id.rnggagib.TownyRaider;
 import id.rnggagib.entity.ai.PathfindingManager;
+import id.rnggagib.entity.ai.pathfinding.FlowField;
+import id.rnggagib.entity.ai.pathfinding.WorldBlockReader;
+import id.rnggagib.entity.tick.RaidProximityGrid;
 import id.rnggagib.raid.ActiveRaid;
 
 import org.bukkit.Location;
@@ -299,7 +302,7 @@ public class StrategicRetreatManager {
         switch (retreatType) {
             case TACTICAL:
                 // Find cover position behind obstacles
-                return findCoverPosition(entity);
+                return findCoverPosition(entity, raid);
                 
             case EMERGENCY:
                 // Find fastest way outside town
@@ -323,7 +326,7 @@ public class StrategicRetreatManager {
     /**
      * Find a position behind cover for tactical retreat
      */
-    private Location findCoverPosition(LivingEntity entity) {
+    private Location findCoverPosition(LivingEntity entity, ActiveRaid raid) {
         Location entityLoc = entity.getLocation();
         List<Player> nearbyPlayers = getNearbyPlayers(entity, 20);
         if (nearbyPlayers.isEmpty()) {
@@ -339,6 +342,16 @@ public class StrategicRetreatManager {
         avgPlayerLoc.setY(avgPlayerLoc.getY() / nearbyPlayers.size());
         avgPlayerLoc.setZ(avgPlayerLoc.getZ() / nearbyPlayers.size());
         
+        // Cover found when the town was scouted, taking the nearest spot that is further from the players
+        if (raid != null) {
+            double playerDistSq = entityLoc.distanceSquared(avgPlayerLoc);
+            Location scoutedCover = raid.getLocationIndexMetadata("cover_points").nearest(entityLoc, 15,
+                cover -> cover.getWorld() == entityLoc.getWorld() && cover.distanceSquared(avgPlayerLoc) > playerDistSq);
+            if (scoutedCover != null) {
+                return scoutedCover.clone();
+            }
+        }
+        
         // Direction from players to entity
         Vector retreatDir = entityLoc.toVector().subtract(avgPlayerLoc.toVector()).normalize();
         
@@ -582,8 +595,12 @@ public class StrategicRetreatManager {
                 break;
         }
         
-        // Use pathfinder for movement
-        pathfindingManager.navigateTo(entity, retreatLocation, speed);
+        // Exits and the loot extraction point are shared by the whole raid, so follow its flow field when possible
+        FlowField sharedField = getSharedRetreatField(entity, retreatLocation, retreatType);
+        if (!pathfindingManager.navigateByField(entity, sharedField, speed)) {
+            // Use pathfinder for movement
+            pathfindingManager.navigateTo(entity, retreatLocation, speed);
+        }
         
         // Setup backup movement system
         new BukkitRunnable() {
@@ -633,18 +650,37 @@ public class StrategicRetreatManager {
         }.runTaskTimer(plugin, 5L, 1L);
     }
     
+    /**
+     * Get the raid-wide flow field for retreat types that head for a shared goal
+     * @return The field, or null if this retreat has no shared goal
+     */
+    private FlowField getSharedRetreatField(LivingEntity entity, Location retreatLocation, RetreatType retreatType) {
+        if (plugin.getFlowFieldManager() == null || plugin.getRaidManager() == null) {
+            return null;
+        }
+        
+        ActiveRaid raid = plugin.getRaidManager().getRaidForEntity(entity.getUniqueId());
+        if (raid == null) {
+            return null;
+        }
+        
+        switch (retreatType) {
+            case EMERGENCY:
+                return plugin.getFlowFieldManager().getExitField(raid, entity);
+            case LOOT_CARRIER:
+                return plugin.getFlowFieldManager().getGoalField(raid, retreatLocation, entity);
+            default:
+                return null;
+        }
+    }
+    
     /**
      * Check if a location is valid for movement
      */
     private boolean isValidLocation(Location location) {
-        Block block = location.getBlock();
-        Block above = location.clone().add(0, 1, 0).getBlock();
-        Block below = location.clone().add(0, -1, 0).getBlock();
-        
-        // Needs empty space and solid ground
-        return block.isEmpty() &&
-               above.isEmpty() &&
-               below.getType().isSolid();
+        // Needs empty space and solid ground, read from the shared walkability cache
+        return pathfindingManager.getPathfinder().getWalkability().isSafe(new WorldBlockReader(location.getWorld()),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ());
     }
     
     /**
@@ -682,6 +718,11 @@ public class StrategicRetreatManager {
      * Get nearby players to an entity
      */
     private List<Player> getNearbyPlayers(Entity entity, double range) {
+        RaidProximityGrid grid = plugin.getRaidTickEngine().getProximityGrid(entity);
+        if (grid != null) {
+            return grid.getPlayersWithin(entity.getLocation(), range, range, range);
+        }
+        
         List<Player> result = new ArrayList<>();
         
         for (Entity nearby : entity.getNearbyEntities(range, range, range)) {
@@ -726,7 +767,10 @@ public class StrategicRetreatManager {
             return;
         }
         
-        List<Entity> nearbyEntities = entity.getNearbyEntities(10, 10, 10);
+        RaidProximityGrid grid = plugin.getRaidTickEngine().getProximityGrid(entity);
+        List<? extends Entity> nearbyEntities = grid != null
+            ? grid.getRaidersWithin(entity.getLocation(), 10, 10, 10, entity.getUniqueId())
+            : entity.getNearbyEntities(10, 10, 10);
         for (Entity nearby : nearbyEntities) {
             // Only notify raid entities
             if (raid.isRaiderEntity(nearby.getUniqueId()) && nearby instanceof LivingEntity) {
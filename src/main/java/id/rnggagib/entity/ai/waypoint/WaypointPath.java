@@ -94,6 +94,15 @@ public class WaypointPath {
         return new ArrayList<>(waypoints);
     }
     
+    /**
+     * Creates a copy of this path with its own progress, sharing the waypoints
+     */
+    public WaypointPath copy() {
+        WaypointPath copy = new WaypointPath();
+        copy.waypoints.addAll(waypoints);
+        return copy;
+    }
+    
     /**
      * Optimizes the path by removing unnecessary waypoints
      */
@@ -0,0 +1,13 @@
+package id.rnggagib.entity.tick;
+
+/**
+ * How much simulation a raider gets, based on the distance to the nearest player
+ */
+public enum AiDetailLevel {
+    /** A player is close by: every task runs at its normal rate */
+    FULL,
+    /** A player is in view range: tasks run at a stretched interval */
+    REDUCED,
+    /** Nobody is around: AI and movement barely tick, effects are skipped */
+    DORMANT
+}
@@ -0,0 +1,178 @@
+package id.rnggagib.entity.tick;
+
+import id.rnggagib.TownyRaider;
+
+import org.bukkit.entity.LivingEntity;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Time-sliced queue for expensive raider AI work (pathfinding, target selection, block scans).
+ * Each tick runs queued jobs until the configured millisecond budget is spent; the rest carry over
+ * to the next tick in round-robin order, so every raider's decision latency stays bounded.
+ */
+public class AiWorkBudget {
+    private final TownyRaider plugin;
+    private final ArrayDeque<Job> queue = new ArrayDeque<>();
+    // One pending job per raider and kind; re-submitting replaces the work but keeps the queue position
+    private final Map<UUID, Map<String, Job>> pending = new HashMap<>();
+
+    private long currentTick = 0;
+    private long lastDrainNanos = 0;
+    private int lastJobsRun = 0;
+    private long maxLatencyTicks = 0;
+
+    public AiWorkBudget(TownyRaider plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Queue AI work for a raider
+     * @param owner The raider the work belongs to; the job is dropped if it dies first
+     * @param kind Job type, so a raider can have one pending job per kind
+     * @param work The work to run on the main thread
+     */
+    public void submit(LivingEntity owner, String kind, Runnable work) {
+        UUID ownerId = owner.getUniqueId();
+        Map<String, Job> ownerJobs = pending.computeIfAbsent(ownerId, k -> new HashMap<>(4));
+
+        Job existing = ownerJobs.get(kind);
+        if (existing != null) {
+            // Latest request wins, but it keeps its place in line
+            existing.owner = owner;
+            existing.work = work;
+            return;
+        }
+
+        Job job = new Job(owner, ownerId, kind, work, currentTick);
+        ownerJobs.put(kind, job);
+        queue.addLast(job);
+    }
+
+    /**
+     * Check if a raider has pending work of a kind
+     */
+    public boolean isPending(UUID ownerId, String kind) {
+        Map<String, Job> ownerJobs = pending.get(ownerId);
+        return ownerJobs != null && ownerJobs.containsKey(kind);
+    }
+
+    /**
+     * Drop all pending work of a raider
+     */
+    public void cancel(UUID ownerId) {
+        Map<String, Job> ownerJobs = pending.remove(ownerId);
+        if (ownerJobs != null) {
+            for (Job job : ownerJobs.values()) {
+                job.cancelled = true;
+            }
+        }
+    }
+
+    /**
+     * Run queued jobs until the tick budget is used up
+     */
+    void drain() {
+        currentTick++;
+        long start = System.nanoTime();
+        long deadline = start + (long) (plugin.getConfigManager().getAiTickBudgetMs() * 1_000_000L);
+
+        // Work queued while draining waits for the next tick
+        int available = queue.size();
+        int ran = 0;
+
+        while (available-- > 0) {
+            // Always make progress on at least one job per tick
+            if (ran > 0 && System.nanoTime() >= deadline) {
+                break;
+            }
+
+            Job job = queue.pollFirst();
+            if (job == null) {
+                break;
+            }
+            if (job.cancelled) {
+                continue;
+            }
+            removePending(job);
+
+            LivingEntity owner = job.owner;
+            if (!owner.isValid() || owner.isDead()) {
+                continue;
+            }
+
+            long latency = currentTick - job.submitTick;
+            if (latency > maxLatencyTicks) {
+                maxLatencyTicks = latency;
+            }
+
+            try {
+                job.work.run();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "AI job '" + job.kind + "' failed for " + job.ownerId, e);
+            }
+            ran++;
+        }
+
+        lastJobsRun = ran;
+        lastDrainNanos = System.nanoTime() - start;
+    }
+
+    private void removePending(Job job) {
+        Map<String, Job> ownerJobs = pending.get(job.ownerId);
+        if (ownerJobs != null && ownerJobs.get(job.kind) == job) {
+            ownerJobs.remove(job.kind);
+            if (ownerJobs.isEmpty()) {
+                pending.remove(job.ownerId);
+            }
+        }
+    }
+
+    public int getQueuedJobs() {
+        return queue.size();
+    }
+
+    public long getLastDrainNanos() {
+        return lastDrainNanos;
+    }
+
+    public int getLastJobsRun() {
+        return lastJobsRun;
+    }
+
+    /**
+     * Longest time any job has waited in the queue, in ticks
+     */
+    public long getMaxLatencyTicks() {
+        return maxLatencyTicks;
+    }
+
+    public void clear() {
+        for (Job job : queue) {
+            job.cancelled = true;
+        }
+        queue.clear();
+        pending.clear();
+    }
+
+    private static class Job {
+        final UUID ownerId;
+        final String kind;
+        final long submitTick;
+        LivingEntity owner;
+        Runnable work;
+        boolean cancelled = false;
+
+        Job(LivingEntity owner, UUID ownerId, String kind, Runnable work, long submitTick) {
+            this.owner = owner;
+            this.ownerId = ownerId;
+            this.kind = kind;
+            this.work = work;
+            this.submitTick = submitTick;
+        }
+    }
+}
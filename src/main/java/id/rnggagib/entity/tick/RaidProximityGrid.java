@@ -0,0 +1,236 @@
+package id.rnggagib.entity.tick;
+
+import org.bukkit.Location;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Positions of one raid's raiders and the players in its world, captured once per tick,
+ * for range and nearest lookups without asking the server for nearby entities.
+ * Entries are bucketed into a uniform grid of vertical columns, stored in flat arrays ordered by cell
+ * with an open-addressed table from cell to its run of entries. Main thread only.
+ */
+public class RaidProximityGrid {
+    private static final int CELL_SHIFT = 3;
+
+    private long builtTick = -1;
+    private int size = 0;
+
+    // Entries in cell order
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+    private double[] zs = new double[16];
+    private LivingEntity[] entities = new LivingEntity[16];
+    private boolean[] players = new boolean[16];
+    // Scratch space for query results
+    private int[] matches = new int[16];
+
+    // Cell table: where each occupied cell's entries start, and how many there are
+    private long[] cellKeys = new long[32];
+    private int[] cellStarts = new int[32];
+    private int[] cellCounts = new int[32];
+    private boolean[] cellUsed = new boolean[32];
+
+    long getBuiltTick() {
+        return builtTick;
+    }
+
+    /**
+     * Capture the positions of raiders and players
+     */
+    void rebuild(long tick, List<LivingEntity> raiders, List<Player> worldPlayers) {
+        builtTick = tick;
+        int count = raiders.size() + worldPlayers.size();
+        double[] rawX = new double[count];
+        double[] rawY = new double[count];
+        double[] rawZ = new double[count];
+        long[] rawCells = new long[count];
+        for (int i = 0; i < count; i++) {
+            LivingEntity entity = i < raiders.size() ? raiders.get(i) : worldPlayers.get(i - raiders.size());
+            Location location = entity.getLocation();
+            rawX[i] = location.getX();
+            rawY[i] = location.getY();
+            rawZ[i] = location.getZ();
+            rawCells[i] = cellKey(cell(rawX[i]), cell(rawZ[i]));
+        }
+
+        ensureCapacity(count);
+        Arrays.fill(cellUsed, false);
+        for (long key : rawCells) {
+            cellCounts[slot(key, true)]++;
+        }
+        // Each cell's entries follow the previous cell's
+        int next = 0;
+        for (int slot = 0; slot < cellUsed.length; slot++) {
+            if (cellUsed[slot]) {
+                cellStarts[slot] = next;
+                next += cellCounts[slot];
+                cellCounts[slot] = 0;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int slot = slot(rawCells[i], false);
+            int at = cellStarts[slot] + cellCounts[slot]++;
+            xs[at] = rawX[i];
+            ys[at] = rawY[i];
+            zs[at] = rawZ[i];
+            entities[at] = i < raiders.size() ? raiders.get(i) : worldPlayers.get(i - raiders.size());
+            players[at] = i >= raiders.size();
+        }
+        if (count < size) {
+            Arrays.fill(entities, count, size, null);
+        }
+        size = count;
+    }
+
+    /**
+     * Get the players within a box around a location, like {@code getNearbyEntities} filtered to players
+     */
+    public List<Player> getPlayersWithin(Location center, double rangeX, double rangeY, double rangeZ) {
+        int found = collect(center, rangeX, rangeY, rangeZ, true, null);
+        List<Player> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add((Player) entities[matches[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Get the raiders within a box around a location
+     * @param exclude A raider to leave out, such as the one asking, or null
+     */
+    public List<LivingEntity> getRaidersWithin(Location center, double rangeX, double rangeY, double rangeZ, UUID exclude) {
+        int found = collect(center, rangeX, rangeY, rangeZ, false, exclude);
+        List<LivingEntity> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(entities[matches[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Get the nearest player within a box around a location
+     * @return The player, or null if none is in range
+     */
+    public Player getNearestPlayer(Location center, double range) {
+        List<Player> nearest = getNearestPlayers(center, 1, range);
+        return nearest.isEmpty() ? null : nearest.get(0);
+    }
+
+    /**
+     * Get up to k players within a box around a location, nearest first
+     */
+    public List<Player> getNearestPlayers(Location center, int k, double range) {
+        int found = collect(center, range, range, range, true, null);
+        double[] distances = new double[found];
+        for (int i = 0; i < found; i++) {
+            int entry = matches[i];
+            double dx = xs[entry] - center.getX();
+            double dy = ys[entry] - center.getY();
+            double dz = zs[entry] - center.getZ();
+            double distance = dx * dx + dy * dy + dz * dz;
+            // Few enough players near a raider for an insertion sort
+            int j = i - 1;
+            while (j >= 0 && distances[j] > distance) {
+                distances[j + 1] = distances[j];
+                matches[j + 1] = matches[j];
+                j--;
+            }
+            distances[j + 1] = distance;
+            matches[j + 1] = entry;
+        }
+
+        int count = Math.min(k, found);
+        List<Player> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add((Player) entities[matches[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Find the entries of one kind within a box, into {@link #matches}
+     * @return How many were found
+     */
+    private int collect(Location center, double rangeX, double rangeY, double rangeZ, boolean wantPlayers, UUID exclude) {
+        double x = center.getX();
+        double y = center.getY();
+        double z = center.getZ();
+        int found = 0;
+        for (int cellX = cell(x - rangeX); cellX <= cell(x + rangeX); cellX++) {
+            for (int cellZ = cell(z - rangeZ); cellZ <= cell(z + rangeZ); cellZ++) {
+                int slot = slot(cellKey(cellX, cellZ), false);
+                if (slot < 0) {
+                    continue;
+                }
+                int end = cellStarts[slot] + cellCounts[slot];
+                for (int i = cellStarts[slot]; i < end; i++) {
+                    if (players[i] != wantPlayers
+                            || Math.abs(xs[i] - x) > rangeX || Math.abs(ys[i] - y) > rangeY || Math.abs(zs[i] - z) > rangeZ) {
+                        continue;
+                    }
+                    LivingEntity entity = entities[i];
+                    if (!entity.isValid() || exclude != null && exclude.equals(entity.getUniqueId())) {
+                        continue;
+                    }
+                    matches[found++] = i;
+                }
+            }
+        }
+        return found;
+    }
+
+    private void ensureCapacity(int count) {
+        if (count > xs.length) {
+            int capacity = Math.max(count, xs.length * 2);
+            xs = new double[capacity];
+            ys = new double[capacity];
+            zs = new double[capacity];
+            entities = Arrays.copyOf(entities, capacity);
+            players = new boolean[capacity];
+            matches = new int[capacity];
+        }
+        if (count * 2 > cellKeys.length) {
+            int capacity = Integer.highestOneBit(count * 2) << 1;
+            cellKeys = new long[capacity];
+            cellStarts = new int[capacity];
+            cellCounts = new int[capacity];
+            cellUsed = new boolean[capacity];
+        }
+    }
+
+    /**
+     * Find a cell's slot in the table, claiming a free one if asked
+     * @return The slot, or -1 if the cell isn't in the table and wasn't to be added
+     */
+    private int slot(long key, boolean add) {
+        int mask = cellKeys.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (cellUsed[slot]) {
+            if (cellKeys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!add) {
+            return -1;
+        }
+        cellUsed[slot] = true;
+        cellKeys[slot] = key;
+        cellCounts[slot] = 0;
+        return slot;
+    }
+
+    private static int cell(double coordinate) {
+        return (int) Math.floor(coordinate) >> CELL_SHIFT;
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,475 @@
+package id.rnggagib.entity.tick;
+
+import id.rnggagib.TownyRaider;
+
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * Single scheduler entry driving all per-raider work.
+ * Each tick runs the AI, movement and effects phases in that order over a compact list of raider states,
+ * so per-raid cost can be measured and cancelled in one place. Expensive AI work queued on the
+ * {@link AiWorkBudget} is drained between the AI and movement phases.
+ * Raiders far from every player drop to a lower {@link AiDetailLevel}, which stretches their task intervals.
+ * Each raid's raiders and the players around them are captured once per tick in a {@link RaidProximityGrid}
+ * that the AI queries instead of the server's nearby entity lookups.
+ */
+public class RaidTickEngine {
+    private static final TickPhase[] PHASES = TickPhase.values();
+    private static final int LOD_REFRESH_TICKS = 10;
+
+    private final TownyRaider plugin;
+    private final Map<UUID, RaiderState> states = new HashMap<>();
+    private final List<RaiderState> stateList = new ArrayList<>();
+    private final Map<UUID, RaidCost> raidCosts = new HashMap<>();
+    private final Map<UUID, RaidProximityGrid> proximityGrids = new HashMap<>();
+    private final AiWorkBudget aiBudget;
+    private BukkitTask task;
+    private long currentTick = 0;
+    private long lastTickNanos = 0;
+
+    public RaidTickEngine(TownyRaider plugin) {
+        this.plugin = plugin;
+        this.aiBudget = new AiWorkBudget(plugin);
+        start();
+    }
+
+    public void start() {
+        if (task != null) {
+            return;
+        }
+
+        task = new BukkitRunnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }.runTaskTimer(plugin, 1L, 1L);
+    }
+
+    /**
+     * Schedule a repeating task for a raider, replacing any task with the same key
+     * @param entity The raider entity
+     * @param phase The phase the task runs in
+     * @param key Unique name of the task for this entity
+     * @param delay Ticks before the first run
+     * @param period Ticks between runs
+     * @param raiderTask The work to run
+     */
+    public void schedule(LivingEntity entity, TickPhase phase, String key, long delay, long period, RaiderTask raiderTask) {
+        if (entity == null || !entity.isValid() || entity.isDead()) {
+            return;
+        }
+
+        RaiderState state = states.get(entity.getUniqueId());
+        if (state == null) {
+            state = new RaiderState(entity, resolveRaidId(entity));
+            states.put(entity.getUniqueId(), state);
+            stateList.add(state);
+        } else {
+            // Entity handle may have changed after a chunk reload
+            state.entity = entity;
+        }
+
+        state.cancel(key);
+        state.tasks.add(new ScheduledTask(key, phase, Math.max(1L, period), currentTick + Math.max(0L, delay), raiderTask));
+    }
+
+    /**
+     * Cancel a single task of a raider
+     */
+    public void cancel(UUID entityId, String key) {
+        RaiderState state = states.get(entityId);
+        if (state != null) {
+            state.cancel(key);
+        }
+    }
+
+    /**
+     * Check if a raider has a task with the given key
+     */
+    public boolean isScheduled(UUID entityId, String key) {
+        RaiderState state = states.get(entityId);
+        return state != null && state.find(key) != null;
+    }
+
+    /**
+     * Remove a raider and all of its tasks
+     */
+    public void remove(UUID entityId) {
+        RaiderState state = states.remove(entityId);
+        if (state != null) {
+            state.removed = true;
+        }
+        aiBudget.cancel(entityId);
+    }
+
+    /**
+     * Remove every raider belonging to a raid
+     */
+    public void cancelRaid(UUID raidId) {
+        for (RaiderState state : stateList) {
+            if (!state.removed && raidId.equals(state.raidId)) {
+                remove(state.entityId);
+            }
+        }
+        raidCosts.remove(raidId);
+        proximityGrids.remove(raidId);
+    }
+
+    /**
+     * Get the time spent on a raid's raiders during the last tick
+     * @return Nanoseconds, or 0 if the raid has no tracked raiders
+     */
+    public long getRaidTickNanos(UUID raidId) {
+        RaidCost cost = raidCosts.get(raidId);
+        return cost == null ? 0L : cost.lastNanos;
+    }
+
+    /**
+     * Get the total time spent in the last engine tick
+     */
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    public int getTrackedRaiderCount() {
+        return states.size();
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Get where the players and the other raiders of a raider's raid are this tick,
+     * capturing them on the first lookup of the tick
+     * @return The grid, or null if the raider isn't tracked or belongs to no raid
+     */
+    public RaidProximityGrid getProximityGrid(Entity raider) {
+        RaiderState state = states.get(raider.getUniqueId());
+        if (state == null || state.raidId == null) {
+            return null;
+        }
+
+        RaidProximityGrid grid = proximityGrids.computeIfAbsent(state.raidId, id -> new RaidProximityGrid());
+        if (grid.getBuiltTick() != currentTick) {
+            World world = raider.getWorld();
+            List<LivingEntity> raiders = new ArrayList<>();
+            for (int i = 0; i < stateList.size(); i++) {
+                RaiderState other = stateList.get(i);
+                if (!other.removed && state.raidId.equals(other.raidId) && other.entity.isValid()
+                        && other.entity.getWorld() == world) {
+                    raiders.add(other.entity);
+                }
+            }
+            grid.rebuild(currentTick, raiders, world.getPlayers());
+        }
+        return grid;
+    }
+
+    /**
+     * Get the time-sliced queue for expensive AI work
+     */
+    public AiWorkBudget getAiBudget() {
+        return aiBudget;
+    }
+
+    /**
+     * Get the current level of detail of a raider
+     * @return The level, or FULL if the raider is not tracked
+     */
+    public AiDetailLevel getDetailLevel(UUID entityId) {
+        RaiderState state = states.get(entityId);
+        return state == null ? AiDetailLevel.FULL : state.level;
+    }
+
+    /**
+     * Get how much a raider's task intervals are currently stretched by its level of detail
+     */
+    public int getIntervalMultiplier(UUID entityId) {
+        RaiderState state = states.get(entityId);
+        return state == null ? 1 : state.intervalMultiplier;
+    }
+
+    /**
+     * Get the level of detail for anything at a location, such as one-off effects
+     */
+    public AiDetailLevel getDetailLevel(Location location) {
+        if (location == null || location.getWorld() == null || !plugin.getConfigManager().isAiLodEnabled()) {
+            return AiDetailLevel.FULL;
+        }
+        return classify(nearestPlayerDistanceSquared(location, location.getWorld().getPlayers()));
+    }
+
+    private void tick() {
+        long tickStart = System.nanoTime();
+        currentTick++;
+        
+        if (currentTick % LOD_REFRESH_TICKS == 0) {
+            refreshDetailLevels();
+        }
+
+        for (TickPhase phase : PHASES) {
+            // Index loop so raiders added during the tick are picked up safely
+            for (int i = 0; i < stateList.size(); i++) {
+                RaiderState state = stateList.get(i);
+                if (state.removed) {
+                    continue;
+                }
+
+                LivingEntity entity = state.entity;
+                if (!entity.isValid() || entity.isDead()) {
+                    remove(state.entityId);
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                runPhase(state, phase);
+                state.tickNanos += System.nanoTime() - start;
+            }
+            
+            if (phase == TickPhase.AI) {
+                // Budgeted AI work runs after decisions are queued and before raiders move
+                aiBudget.drain();
+            }
+        }
+
+        finishTick();
+        lastTickNanos = System.nanoTime() - tickStart;
+    }
+
+    private void runPhase(RaiderState state, TickPhase phase) {
+        List<ScheduledTask> tasks = state.tasks;
+        for (int i = 0; i < tasks.size(); i++) {
+            ScheduledTask scheduled = tasks.get(i);
+            if (scheduled.cancelled || scheduled.phase != phase || scheduled.nextTick > currentTick) {
+                continue;
+            }
+            
+            // Nobody can see a dormant raider's effects
+            if (phase == TickPhase.EFFECTS && state.level == AiDetailLevel.DORMANT) {
+                scheduled.nextTick = currentTick + scheduled.period;
+                continue;
+            }
+
+            boolean keep;
+            try {
+                keep = scheduled.task.tick(state.entity);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Raider task '" + scheduled.key + "' failed for " + state.entityId, e);
+                keep = false;
+            }
+
+            if (state.removed) {
+                return;
+            }
+
+            if (keep) {
+                scheduled.nextTick = currentTick + scheduled.period * state.intervalMultiplier;
+            } else {
+                scheduled.cancelled = true;
+            }
+        }
+    }
+
+    /**
+     * Re-classify every raider by the distance to the nearest player in its world
+     */
+    private void refreshDetailLevels() {
+        boolean enabled = plugin.getConfigManager().isAiLodEnabled();
+        int reducedMultiplier = plugin.getConfigManager().getAiLodReducedMultiplier();
+        int dormantMultiplier = plugin.getConfigManager().getAiLodDormantMultiplier();
+        Map<World, List<Player>> playersByWorld = new HashMap<>();
+
+        for (int i = 0; i < stateList.size(); i++) {
+            RaiderState state = stateList.get(i);
+            if (state.removed) {
+                continue;
+            }
+
+            AiDetailLevel level = AiDetailLevel.FULL;
+            if (enabled) {
+                Location location = state.entity.getLocation();
+                List<Player> players = playersByWorld.computeIfAbsent(location.getWorld(), World::getPlayers);
+                level = classify(nearestPlayerDistanceSquared(location, players));
+            }
+
+            if (level == state.level) {
+                continue;
+            }
+
+            boolean promoted = level.ordinal() < state.level.ordinal();
+            state.level = level;
+            state.intervalMultiplier = level == AiDetailLevel.FULL ? 1
+                : level == AiDetailLevel.REDUCED ? reducedMultiplier : dormantMultiplier;
+
+            if (promoted) {
+                // A player just walked up: don't make them wait out a dormant interval
+                for (ScheduledTask scheduled : state.tasks) {
+                    scheduled.nextTick = Math.min(scheduled.nextTick, currentTick + scheduled.period * state.intervalMultiplier);
+                }
+            }
+        }
+    }
+
+    private AiDetailLevel classify(double distanceSquared) {
+        double fullRange = plugin.getConfigManager().getAiLodFullRange();
+        if (distanceSquared <= fullRange * fullRange) {
+            return AiDetailLevel.FULL;
+        }
+        double reducedRange = plugin.getConfigManager().getAiLodReducedRange();
+        if (distanceSquared <= reducedRange * reducedRange) {
+            return AiDetailLevel.REDUCED;
+        }
+        return AiDetailLevel.DORMANT;
+    }
+
+    private double nearestPlayerDistanceSquared(Location location, List<Player> players) {
+        double nearest = Double.MAX_VALUE;
+        for (Player player : players) {
+            if (player.getGameMode() == GameMode.SPECTATOR) {
+                continue;
+            }
+            double distanceSquared = player.getLocation().distanceSquared(location);
+            if (distanceSquared < nearest) {
+                nearest = distanceSquared;
+            }
+        }
+        return nearest;
+    }
+
+    private void finishTick() {
+        for (RaidCost cost : raidCosts.values()) {
+            cost.accumulated = 0L;
+        }
+
+        int write = 0;
+        for (int read = 0; read < stateList.size(); read++) {
+            RaiderState state = stateList.get(read);
+            if (state.removed) {
+                continue;
+            }
+
+            state.tasks.removeIf(scheduled -> scheduled.cancelled);
+            if (state.tasks.isEmpty()) {
+                states.remove(state.entityId);
+                state.removed = true;
+                continue;
+            }
+
+            if (state.raidId != null) {
+                raidCosts.computeIfAbsent(state.raidId, k -> new RaidCost()).accumulated += state.tickNanos;
+            }
+            state.tickNanos = 0L;
+            stateList.set(write++, state);
+        }
+
+        // Trim removed states from the tail of the list
+        for (int i = stateList.size() - 1; i >= write; i--) {
+            stateList.remove(i);
+        }
+
+        raidCosts.values().removeIf(cost -> {
+            cost.lastNanos = cost.accumulated;
+            return cost.accumulated == 0L;
+        });
+    }
+
+    private UUID resolveRaidId(LivingEntity entity) {
+        if (plugin.getRaiderEntityManager() == null) {
+            return null;
+        }
+        return plugin.getRaiderEntityManager().getRaidId(entity);
+    }
+
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        clear();
+    }
+
+    public void clear() {
+        for (RaiderState state : stateList) {
+            state.removed = true;
+        }
+        states.clear();
+        stateList.clear();
+        raidCosts.clear();
+        proximityGrids.clear();
+        aiBudget.clear();
+    }
+
+    /**
+     * Per-raider bookkeeping
+     */
+    private static class RaiderState {
+        final UUID entityId;
+        final UUID raidId;
+        final List<ScheduledTask> tasks = new ArrayList<>(4);
+        LivingEntity entity;
+        AiDetailLevel level = AiDetailLevel.FULL;
+        int intervalMultiplier = 1;
+        long tickNanos = 0L;
+        boolean removed = false;
+
+        RaiderState(LivingEntity entity, UUID raidId) {
+            this.entity = entity;
+            this.entityId = entity.getUniqueId();
+            this.raidId = raidId;
+        }
+
+        ScheduledTask find(String key) {
+            for (ScheduledTask scheduled : tasks) {
+                if (!scheduled.cancelled && scheduled.key.equals(key)) {
+                    return scheduled;
+                }
+            }
+            return null;
+        }
+
+        void cancel(String key) {
+            ScheduledTask existing = find(key);
+            if (existing != null) {
+                existing.cancelled = true;
+            }
+        }
+    }
+
+    private static class ScheduledTask {
+        final String key;
+        final TickPhase phase;
+        final long period;
+        final RaiderTask task;
+        long nextTick;
+        boolean cancelled = false;
+
+        ScheduledTask(String key, TickPhase phase, long period, long nextTick, RaiderTask task) {
+            this.key = key;
+            this.phase = phase;
+            this.period = period;
+            this.nextTick = nextTick;
+            this.task = task;
+        }
+    }
+
+    private static class RaidCost {
+        long accumulated = 0L;
+        long lastNanos = 0L;
+    }
+}
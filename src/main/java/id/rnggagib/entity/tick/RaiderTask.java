@@ -0,0 +1,16 @@
+package id.rnggagib.entity.tick;
+
+import org.bukkit.entity.LivingEntity;
+
+/**
+ * A unit of per-raider work run by the raid tick engine
+ */
+@FunctionalInterface
+public interface RaiderTask {
+    /**
+     * Run the task for the given raider
+     * @param entity The raider entity, guaranteed valid and alive
+     * @return true to keep the task scheduled, false to finish it
+     */
+    boolean tick(LivingEntity entity);
+}
@@ -0,0 +1,10 @@
+package id.rnggagib.entity.tick;
+
+/**
+ * Phases of a raid tick, dispatched in declaration order
+ */
+public enum TickPhase {
+    AI,
+    MOVEMENT,
+    EFFECTS
+}
@@ -24,8 +24,15 @@ public class MessageManager {
     private final MiniMessage miniMessage;
 
     public MessageManager(TownyRaider plugin) {
+        this(plugin, BukkitAudiences.create(plugin));
+    }
+
+    /**
+     * Create a message manager over an existing audience provider, or none when only formatting
+     */
+    MessageManager(TownyRaider plugin, BukkitAudiences adventure) {
         this.plugin = plugin;
-        this.adventure = BukkitAudiences.create(plugin);
+        this.adventure = adventure;
         this.miniMessage = MiniMessage.miniMessage();
     }
 
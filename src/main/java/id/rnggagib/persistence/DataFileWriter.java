@@ -0,0 +1,145 @@
+package id.rnggagib.persistence;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes data files on a background thread. Each file is written to a temporary file next to it, synced to disk
+ * and renamed over the old one, so a crash mid-write leaves the previous file whole.
+ * A file queued again before its write starts is written once, with the newest content.
+ */
+class DataFileWriter {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final Logger logger;
+    private final Gson gson;
+    private final ExecutorService worker;
+    // Newest content for each file whose write is queued but not started
+    private final Map<File, Supplier<JsonElement>> pending = new ConcurrentHashMap<>();
+
+    DataFileWriter(Logger logger, Gson gson) {
+        this.logger = logger;
+        this.gson = gson;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TownyRaider-DataWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a file to be written
+     * @param content Builds the file's JSON on the writer thread, from data that no longer changes
+     */
+    void write(File file, Supplier<JsonElement> content) {
+        if (pending.put(file, content) != null) {
+            return;
+        }
+        try {
+            worker.execute(() -> writeQueued(file));
+        } catch (RejectedExecutionException e) {
+            // Shut down, so write it here
+            writeQueued(file);
+        }
+    }
+
+    /**
+     * Queue other file work, such as an append, to run in order with the writes
+     */
+    void run(Runnable task) {
+        try {
+            worker.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * Wait for every queued write to finish
+     */
+    void flush() {
+        try {
+            worker.submit(() -> { }).get();
+        } catch (RejectedExecutionException | ExecutionException e) {
+            // Nothing left running
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Finish the queued writes and stop the writer thread; later writes happen on the caller's thread
+     */
+    void shutdown() {
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for data files to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (File file : new ArrayList<>(pending.keySet())) {
+            writeQueued(file);
+        }
+    }
+
+    private void writeQueued(File file) {
+        Supplier<JsonElement> content = pending.remove(file);
+        if (content == null) {
+            return;
+        }
+        try {
+            writeAtomically(file, content.get());
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.SEVERE, "Failed to write data to " + file.getName(), e);
+        }
+    }
+
+    private void writeAtomically(File file, JsonElement json) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        File temp = new File(directory, file.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out))) {
+            gson.toJson(json, writer);
+            writer.flush();
+            out.getFD().sync();
+        }
+
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // Make the rename itself durable where the platform allows syncing a directory
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Not supported on every platform
+        }
+    }
+}
@@ -17,14 +17,15 @@ import org.bukkit.World;
 
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public class PersistenceManager {
@@ -34,8 +35,21 @@ public class PersistenceManager {
     private final File cooldownDataFile;
     private final File historyDataFile;
     private final Gson gson;
+    private final DataFileWriter writer;
+    private RaidJournal raidJournal;
+    // Datasets changed since they were last saved; main thread only
+    private final Set<Dataset> dirty = EnumSet.noneOf(Dataset.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
+    /**
+     * The data files, each saved on its own
+     */
+    public enum Dataset {
+        ACTIVE_RAIDS,
+        COOLDOWNS,
+        HISTORY
+    }
+
     public PersistenceManager(TownyRaider plugin) {
         this.plugin = plugin;
         this.dataFolder = new File(plugin.getDataFolder(), "data");
@@ -44,13 +58,32 @@ public class PersistenceManager {
         this.historyDataFile = new File(dataFolder, "history.json");
         
         this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.writer = new DataFileWriter(plugin.getLogger(), gson);
         
         if (!dataFolder.exists()) {
             dataFolder.mkdirs();
         }
     }
     
+    /**
+     * Note that a dataset changed and should be saved
+     */
+    public void markDirty(Dataset dataset) {
+        dirty.add(dataset);
+    }
+    
+    /**
+     * Check whether a dataset changed since it was last saved
+     */
+    public boolean isDirty(Dataset dataset) {
+        return dirty.contains(dataset);
+    }
+    
+    /**
+     * Save active raids. Raids change while they run, so they are captured as JSON here and written in the background.
+     */
     public void saveActiveRaids(List<ActiveRaid> raids) {
+        dirty.remove(Dataset.ACTIVE_RAIDS);
         JsonArray raidsArray = new JsonArray();
         
         for (ActiveRaid raid : raids) {
@@ -119,9 +152,10 @@ public class PersistenceManager {
             }
             
             raidsArray.add(raidObj);
+            raid.markSaved();
         }
         
-        writeJsonToFile(raidsArray, raidDataFile);
+        writer.write(raidDataFile, () -> raidsArray);
     }
     
     public List<ActiveRaid> loadActiveRaids() {
@@ -225,14 +259,21 @@ public class PersistenceManager {
         return raids;
     }
     
+    /**
+     * Save town cooldowns from a copy, written in the background
+     */
     public void saveTownCooldowns(Map<String, LocalDateTime> townCooldowns) {
-        JsonObject cooldownsObj = new JsonObject();
-        
-        for (Map.Entry<String, LocalDateTime> entry : townCooldowns.entrySet()) {
-            cooldownsObj.addProperty(entry.getKey(), entry.getValue().format(DATE_FORMATTER));
-        }
-        
-        writeJsonToFile(cooldownsObj, cooldownDataFile);
+        dirty.remove(Dataset.COOLDOWNS);
+        Map<String, LocalDateTime> snapshot = new HashMap<>(townCooldowns);
+        writer.write(cooldownDataFile, () -> {
+            JsonObject cooldownsObj = new JsonObject();
+            
+            for (Map.Entry<String, LocalDateTime> entry : snapshot.entrySet()) {
+                cooldownsObj.addProperty(entry.getKey(), entry.getValue().format(DATE_FORMATTER));
+            }
+            
+            return cooldownsObj;
+        });
     }
     
     public Map<String, LocalDateTime> loadTownCooldowns() {
@@ -258,33 +299,81 @@ public class PersistenceManager {
         return cooldowns;
     }
     
-    public void saveRaidHistory(List<RaidHistory> raidHistory) {
-        JsonArray historyArray = new JsonArray();
+    /**
+     * Open the raid history journal from its index, importing an old history file if there is one,
+     * and drop the segments past the retention period
+     */
+    public RaidJournal openRaidHistory() {
+        File historyFolder = new File(dataFolder, "history");
+        raidJournal = new RaidJournal(historyFolder, writer, plugin.getLogger(),
+                plugin.getConfigManager().getHistorySegmentMaxKb() * 1024L,
+                plugin.getConfigManager().getHistoryRetentionDays());
+        if (raidJournal.open()) {
+            dirty.add(Dataset.HISTORY);
+        }
         
-        for (RaidHistory history : raidHistory) {
-            JsonObject historyObj = new JsonObject();
-            historyObj.addProperty("id", history.getId().toString());
-            historyObj.addProperty("townName", history.getTownName());
-            historyObj.addProperty("startTime", history.getStartTime().format(DATE_FORMATTER));
-            historyObj.addProperty("endTime", history.getEndTime().format(DATE_FORMATTER));
-            historyObj.addProperty("stolenItems", history.getStolenItems());
-            historyObj.addProperty("successful", history.isSuccessful());
-            
-            historyArray.add(historyObj);
+        // An import that was cut short before the old file was moved leaves a journal behind, which is kept as is
+        if (historyDataFile.exists() && raidJournal.size() == 0) {
+            List<RaidHistory> legacy = loadLegacyRaidHistory();
+            if (legacy != null) {
+                try {
+                    raidJournal.appendAll(legacy);
+                    dirty.add(Dataset.HISTORY);
+                    plugin.getLogger().info("Moved " + legacy.size() + " raid history records into the history journal");
+                } catch (IOException e) {
+                    plugin.getLogger().severe("Failed to import raid history: " + e.getMessage());
+                    legacy = null;
+                }
+            }
+            if (legacy != null && !historyDataFile.renameTo(new File(dataFolder, "history.json.migrated"))) {
+                plugin.getLogger().warning("Could not rename history.json after importing it");
+            }
+        } else if (historyDataFile.exists()) {
+            plugin.getLogger().warning("Ignoring history.json, the history journal already has records");
         }
         
-        writeJsonToFile(historyArray, historyDataFile);
+        compactRaidHistory();
+        return raidJournal;
     }
     
-    public List<RaidHistory> loadRaidHistory() {
-        List<RaidHistory> history = new ArrayList<>();
-        
-        if (!historyDataFile.exists()) {
-            return history;
+    /**
+     * Add an ended raid to the history journal; the record is appended in the background
+     */
+    public void appendRaidHistory(RaidHistory history) {
+        raidJournal.append(history);
+        dirty.add(Dataset.HISTORY);
+    }
+    
+    /**
+     * Drop the history segments past the retention period
+     */
+    public void compactRaidHistory() {
+        if (raidJournal.compact()) {
+            dirty.remove(Dataset.HISTORY);
         }
+    }
+    
+    /**
+     * Save the history journal's index, written in the background; the records themselves are already on disk
+     */
+    public void saveRaidHistory() {
+        dirty.remove(Dataset.HISTORY);
+        raidJournal.saveIndex();
+    }
+    
+    public RaidJournal getRaidJournal() {
+        return raidJournal;
+    }
+    
+    /**
+     * Read the history file written before the journal, which held every raid in one array
+     * @return The raids, or null if the file couldn't be read
+     */
+    private List<RaidHistory> loadLegacyRaidHistory() {
+        List<RaidHistory> history = new ArrayList<>();
         
-        try {
-            JsonArray historyArray = JsonParser.parseReader(new FileReader(historyDataFile)).getAsJsonArray();
+        try (FileReader reader = new FileReader(historyDataFile)) {
+            JsonArray historyArray = JsonParser.parseReader(reader).getAsJsonArray();
             
             for (JsonElement element : historyArray) {
                 JsonObject historyObj = element.getAsJsonObject();
@@ -302,18 +391,24 @@ public class PersistenceManager {
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to load raid history: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
         
         return history;
     }
     
-    private void writeJsonToFile(JsonElement jsonElement, File file) {
-        try (FileWriter writer = new FileWriter(file)) {
-            gson.toJson(jsonElement, writer);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to write data to " + file.getName() + ": " + e.getMessage());
-            e.printStackTrace();
-        }
+    /**
+     * Wait for the saves queued so far to reach the disk
+     */
+    public void flush() {
+        writer.flush();
+    }
+    
+    /**
+     * Finish the queued saves and stop the background writer; saves after this are written right away
+     */
+    public void shutdown() {
+        writer.shutdown();
     }
     
     public void cleanupExpiredCooldowns() {
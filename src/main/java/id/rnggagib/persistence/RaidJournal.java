@@ -0,0 +1,421 @@
+package id.rnggagib.persistence;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import id.rnggagib.raid.RaidHistory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Raid history as an append-only journal: one compact JSON line per ended raid, in segment files that roll over
+ * on a new day or once they reach a size limit. A small index holds each segment's size and per-town raid counts,
+ * so starting up reads the index and only rescans segments that don't match it, such as one cut short by a crash.
+ * Segments whose newest raid is past the retention period are deleted whole.
+ * Appends, deletes and index writes run in order on the data writer's thread; the journal's state is main thread only.
+ */
+public class RaidJournal {
+    private static final String SEGMENT_PREFIX = "history-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final DateTimeFormatter SEGMENT_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final TownStats NO_RAIDS = new TownStats();
+
+    private final File directory;
+    private final File indexFile;
+    private final DataFileWriter writer;
+    private final Logger logger;
+    private final Gson gson = new Gson();
+    private final long segmentMaxBytes;
+    private final int retentionDays;
+
+    // Oldest first
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<String, TownStats> towns = new HashMap<>();
+    private int records = 0;
+
+    RaidJournal(File directory, DataFileWriter writer, Logger logger, long segmentMaxBytes, int retentionDays) {
+        this.directory = directory;
+        this.indexFile = new File(directory, "index.json");
+        this.writer = writer;
+        this.logger = logger;
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Number of raids in the journal
+     */
+    public int size() {
+        return records;
+    }
+
+    /**
+     * Get how often a town was raided and how many of those raids the raiders won
+     */
+    public TownStats getTownStats(String townName) {
+        TownStats stats = towns.get(townName);
+        return stats != null ? stats : NO_RAIDS;
+    }
+
+    /**
+     * Read the index, rescanning the segments it doesn't match
+     * @return True if the index was out of date and should be saved
+     */
+    boolean open() {
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        segments.clear();
+
+        Map<String, Segment> indexed = readIndex();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            files = new File[0];
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+
+        boolean changed = indexed.size() != files.length;
+        for (File file : files) {
+            Segment segment = indexed.get(file.getName());
+            if (segment == null || segment.bytes != file.length()) {
+                segment = scan(file);
+                changed = true;
+            }
+            segments.add(segment);
+        }
+        recount();
+        return changed;
+    }
+
+    /**
+     * Append a raid to the current segment, starting a new one if the day changed or the segment is full
+     */
+    void append(RaidHistory history) {
+        byte[] line = toLine(history);
+        Segment segment = segmentFor(history.getEndTime().toLocalDate(), line.length);
+        segment.add(history, line.length);
+        count(history.getTownName(), history.isSuccessful(), 1);
+        records++;
+
+        File file = new File(directory, segment.name);
+        writer.run(() -> {
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                out.write(line);
+                out.getFD().sync();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to append raid history to " + file.getName(), e);
+            }
+        });
+    }
+
+    /**
+     * Write many raids at once, such as when importing an older history file. Writes on the caller's thread.
+     */
+    void appendAll(List<RaidHistory> histories) throws IOException {
+        List<RaidHistory> sorted = new ArrayList<>(histories);
+        sorted.sort(Comparator.comparing(RaidHistory::getEndTime));
+
+        Segment current = null;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for (RaidHistory history : sorted) {
+            byte[] line = toLine(history);
+            Segment segment = segmentFor(history.getEndTime().toLocalDate(), line.length);
+            if (segment != current) {
+                writeOut(current, buffer);
+                current = segment;
+            }
+            segment.add(history, line.length);
+            count(history.getTownName(), history.isSuccessful(), 1);
+            records++;
+            buffer.write(line);
+        }
+        writeOut(current, buffer);
+    }
+
+    /**
+     * Delete the segments whose newest raid is past the retention period
+     * @return True if any were deleted and the index should be saved
+     */
+    boolean compact() {
+        if (retentionDays <= 0) {
+            return false;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        List<File> expired = new ArrayList<>();
+        Iterator<Segment> iterator = segments.iterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next();
+            if (segment.lastEnd == null || !segment.lastEnd.isBefore(cutoff)) {
+                continue;
+            }
+            iterator.remove();
+            expired.add(new File(directory, segment.name));
+        }
+        if (expired.isEmpty()) {
+            return false;
+        }
+        recount();
+
+        // The index no longer lists them, so a crash before they are deleted only means they are rescanned
+        saveIndex();
+        writer.run(() -> {
+            for (File file : expired) {
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Failed to delete raid history segment " + file.getName(), e);
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Write the index in the background
+     */
+    void saveIndex() {
+        JsonArray segmentsArray = new JsonArray();
+        for (Segment segment : segments) {
+            JsonObject segmentObj = new JsonObject();
+            segmentObj.addProperty("name", segment.name);
+            segmentObj.addProperty("bytes", segment.bytes);
+            segmentObj.addProperty("records", segment.records);
+            if (segment.lastEnd != null) {
+                segmentObj.addProperty("lastEnd", segment.lastEnd.format(DATE_FORMATTER));
+            }
+            JsonObject townsObj = new JsonObject();
+            for (Map.Entry<String, TownStats> entry : segment.towns.entrySet()) {
+                JsonArray counts = new JsonArray();
+                counts.add(entry.getValue().totalRaids);
+                counts.add(entry.getValue().successfulRaids);
+                townsObj.add(entry.getKey(), counts);
+            }
+            segmentObj.add("towns", townsObj);
+            segmentsArray.add(segmentObj);
+        }
+        JsonObject indexObj = new JsonObject();
+        indexObj.add("segments", segmentsArray);
+        writer.write(indexFile, () -> indexObj);
+    }
+
+    private Map<String, Segment> readIndex() {
+        Map<String, Segment> indexed = new HashMap<>();
+        if (!indexFile.exists()) {
+            return indexed;
+        }
+        try (FileReader reader = new FileReader(indexFile)) {
+            JsonObject indexObj = JsonParser.parseReader(reader).getAsJsonObject();
+            for (JsonElement element : indexObj.getAsJsonArray("segments")) {
+                JsonObject segmentObj = element.getAsJsonObject();
+                Segment segment = new Segment(segmentObj.get("name").getAsString());
+                segment.bytes = segmentObj.get("bytes").getAsLong();
+                segment.records = segmentObj.get("records").getAsInt();
+                if (segmentObj.has("lastEnd")) {
+                    segment.lastEnd = LocalDateTime.parse(segmentObj.get("lastEnd").getAsString(), DATE_FORMATTER);
+                }
+                for (Map.Entry<String, JsonElement> entry : segmentObj.getAsJsonObject("towns").entrySet()) {
+                    JsonArray counts = entry.getValue().getAsJsonArray();
+                    TownStats stats = new TownStats();
+                    stats.totalRaids = counts.get(0).getAsInt();
+                    stats.successfulRaids = counts.get(1).getAsInt();
+                    segment.towns.put(entry.getKey(), stats);
+                }
+                indexed.put(segment.name, segment);
+            }
+        } catch (Exception e) {
+            logger.warning("Raid history index is unreadable, rescanning the journal: " + e.getMessage());
+            indexed.clear();
+        }
+        return indexed;
+    }
+
+    /**
+     * Read a segment's raids, cutting off a last line left unfinished by a crash
+     */
+    private Segment scan(File file) {
+        Segment segment = new Segment(file.getName());
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to read raid history segment " + file.getName(), e);
+            return segment;
+        }
+
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            int lineBytes = i + 1 - lineStart;
+            RaidHistory history = fromLine(new String(bytes, lineStart, lineBytes - 1, StandardCharsets.UTF_8));
+            if (history != null) {
+                segment.add(history, lineBytes);
+            } else {
+                segment.bytes += lineBytes;
+            }
+            lineStart = i + 1;
+        }
+
+        if (lineStart < bytes.length) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(lineStart);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to trim raid history segment " + file.getName(), e);
+            }
+        }
+        return segment;
+    }
+
+    private Segment segmentFor(LocalDate date, int lineBytes) {
+        Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        String day = date.format(SEGMENT_DATE);
+        if (last != null && last.name.startsWith(SEGMENT_PREFIX + day + "-")
+                && (last.bytes + lineBytes <= segmentMaxBytes || last.records == 0)) {
+            return last;
+        }
+
+        int sequence = 1;
+        if (last != null && last.name.startsWith(SEGMENT_PREFIX + day + "-")) {
+            sequence = last.sequence() + 1;
+        }
+        Segment segment = new Segment(String.format("%s%s-%04d%s", SEGMENT_PREFIX, day, sequence, SEGMENT_SUFFIX));
+        segments.add(segment);
+        return segment;
+    }
+
+    private void writeOut(Segment segment, ByteArrayOutputStream buffer) throws IOException {
+        if (segment == null || buffer.size() == 0) {
+            return;
+        }
+        try (FileOutputStream out = new FileOutputStream(new File(directory, segment.name), true)) {
+            buffer.writeTo(out);
+            out.getFD().sync();
+        }
+        buffer.reset();
+    }
+
+    private void recount() {
+        towns.clear();
+        records = 0;
+        for (Segment segment : segments) {
+            records += segment.records;
+            for (Map.Entry<String, TownStats> entry : segment.towns.entrySet()) {
+                TownStats total = towns.computeIfAbsent(entry.getKey(), k -> new TownStats());
+                total.totalRaids += entry.getValue().totalRaids;
+                total.successfulRaids += entry.getValue().successfulRaids;
+            }
+        }
+    }
+
+    private void count(String townName, boolean successful, int raids) {
+        TownStats stats = towns.computeIfAbsent(townName, k -> new TownStats());
+        stats.totalRaids += raids;
+        if (successful) {
+            stats.successfulRaids += raids;
+        }
+    }
+
+    private byte[] toLine(RaidHistory history) {
+        JsonObject historyObj = new JsonObject();
+        historyObj.addProperty("id", history.getId().toString());
+        historyObj.addProperty("townName", history.getTownName());
+        historyObj.addProperty("startTime", history.getStartTime().format(DATE_FORMATTER));
+        historyObj.addProperty("endTime", history.getEndTime().format(DATE_FORMATTER));
+        historyObj.addProperty("stolenItems", history.getStolenItems());
+        historyObj.addProperty("successful", history.isSuccessful());
+        return (gson.toJson(historyObj) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private RaidHistory fromLine(String line) {
+        try {
+            JsonObject historyObj = JsonParser.parseString(line).getAsJsonObject();
+            return new RaidHistory(
+                UUID.fromString(historyObj.get("id").getAsString()),
+                historyObj.get("townName").getAsString(),
+                LocalDateTime.parse(historyObj.get("endTime").getAsString(), DATE_FORMATTER),
+                LocalDateTime.parse(historyObj.get("startTime").getAsString(), DATE_FORMATTER),
+                historyObj.get("stolenItems").getAsInt(),
+                historyObj.get("successful").getAsBoolean()
+            );
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * How often a town was raided, and how many of those raids the raiders won
+     */
+    public static class TownStats {
+        private int totalRaids;
+        private int successfulRaids;
+
+        public int getTotalRaids() {
+            return totalRaids;
+        }
+
+        public int getSuccessfulRaids() {
+            return successfulRaids;
+        }
+    }
+
+    /**
+     * One segment file as the index knows it
+     */
+    private static class Segment {
+        final String name;
+        final Map<String, TownStats> towns = new HashMap<>();
+        long bytes = 0;
+        int records = 0;
+        LocalDateTime lastEnd;
+
+        Segment(String name) {
+            this.name = name;
+        }
+
+        void add(RaidHistory history, int lineBytes) {
+            bytes += lineBytes;
+            records++;
+            if (lastEnd == null || history.getEndTime().isAfter(lastEnd)) {
+                lastEnd = history.getEndTime();
+            }
+            TownStats stats = towns.computeIfAbsent(history.getTownName(), k -> new TownStats());
+            stats.totalRaids++;
+            if (history.isSuccessful()) {
+                stats.successfulRaids++;
+            }
+        }
+
+        int sequence() {
+            String stem = name.substring(0, name.length() - SEGMENT_SUFFIX.length());
+            try {
+                return Integer.parseInt(stem.substring(stem.lastIndexOf('-') + 1));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+}
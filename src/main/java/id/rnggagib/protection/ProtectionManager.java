@@ -38,6 +38,8 @@ public class ProtectionManager implements Listener {
     private final TownyRaider plugin;
     private final TownyAPI townyAPI;
     private final Map<String, List<Location>> raidProtectedLocations = new HashMap<>();
+    // The zones around the protected locations, redrawn whenever they or the radius change
+    private final RaidZoneIndex raidZones = new RaidZoneIndex();
     private static final String METADATA_RAID_PROTECTED = "townyraider.raid_protected";
     
     public ProtectionManager(TownyRaider plugin) {
@@ -51,22 +53,27 @@ public class ProtectionManager implements Listener {
             raidProtectedLocations.put(townName, new ArrayList<>());
         }
         raidProtectedLocations.get(townName).add(location);
+        refreshRaidZones();
     }
     
     public void clearRaidProtection(String townName) {
         raidProtectedLocations.remove(townName);
+        refreshRaidZones();
     }
     
-    public boolean isLocationInRaidZone(Location location) {
+    /**
+     * Redraw the raid zones, such as after the protection radius was reloaded
+     */
+    public void refreshRaidZones() {
+        List<Location> centers = new ArrayList<>();
         for (List<Location> locations : raidProtectedLocations.values()) {
-            for (Location raidLoc : locations) {
-                if (raidLoc.getWorld().equals(location.getWorld()) &&
-                    raidLoc.distance(location) <= plugin.getConfigManager().getRaidProtectionRadius()) {
-                    return true;
-                }
-            }
+            centers.addAll(locations);
         }
-        return false;
+        raidZones.rebuild(centers, getRaidProtectionRadius());
+    }
+    
+    public boolean isLocationInRaidZone(Location location) {
+        return raidZones.contains(location);
     }
     
     public boolean isBlockProtectedDuringRaid(Block block) {
@@ -293,17 +300,25 @@ public class ProtectionManager implements Listener {
     public void onPlayerMove(PlayerMoveEvent event) {
         if (event.isCancelled()) return;
         
-        Player player = event.getPlayer();
         Location to = event.getTo();
         Location from = event.getFrom();
+        if (to == null || raidZones.isEmpty()) return;
+        
+        // Turning the head or moving within a block can't cross into a zone
+        if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY() &&
+            from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld()) {
+            return;
+        }
         
-        if (!isLocationInRaidZone(from) && isLocationInRaidZone(to)) {
+        Player player = event.getPlayer();
+        if (isLocationInRaidZone(to) && !isLocationInRaidZone(from)) {
             plugin.getMessageManager().send(player, "entering-raid-zone");
         }
     }
     
     public void cleanup() {
         raidProtectedLocations.clear();
+        raidZones.clear();
     }
     
     public int getRaidProtectionRadius() {
@@ -0,0 +1,132 @@
+package id.rnggagib.protection;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Raid zones, spheres around each raid's protected locations, rasterized into the chunks they overlap,
+ * so a location is tested against only the zones reaching its chunk.
+ * Zones whose horizontal extent covers a whole chunk are tested on height alone there; only chunks on a zone's
+ * edge need the full distance. A location in a world or chunk without zones costs one hash lookup.
+ */
+public class RaidZoneIndex {
+    private final Map<World, Map<Long, List<Zone>>> chunksByWorld = new HashMap<>();
+
+    /**
+     * Rasterize the zones around a set of locations, replacing the previous ones
+     */
+    public void rebuild(Collection<Location> centers, double radius) {
+        chunksByWorld.clear();
+        double radiusSquared = radius * radius;
+        for (Location center : centers) {
+            World world = center.getWorld();
+            if (world == null) {
+                continue;
+            }
+            Map<Long, List<Zone>> chunks = chunksByWorld.computeIfAbsent(world, w -> new HashMap<>());
+            double x = center.getX();
+            double z = center.getZ();
+            int minChunkX = (int) Math.floor(x - radius) >> 4;
+            int maxChunkX = (int) Math.floor(x + radius) >> 4;
+            int minChunkZ = (int) Math.floor(z - radius) >> 4;
+            int maxChunkZ = (int) Math.floor(z + radius) >> 4;
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    double nearest = horizontalDistanceSquared(x, z, chunkX, chunkZ, false);
+                    if (nearest > radiusSquared) {
+                        continue;
+                    }
+                    double farthest = horizontalDistanceSquared(x, z, chunkX, chunkZ, true);
+                    chunks.computeIfAbsent(chunkKey(chunkX, chunkZ), k -> new ArrayList<>(1))
+                        .add(new Zone(x, center.getY(), z, radiusSquared, farthest));
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a location is within any zone
+     */
+    public boolean contains(Location location) {
+        Map<Long, List<Zone>> chunks = chunksByWorld.get(location.getWorld());
+        if (chunks == null) {
+            return false;
+        }
+        List<Zone> zones = chunks.get(chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+        if (zones == null) {
+            return false;
+        }
+
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+        for (Zone zone : zones) {
+            double dy = y - zone.y;
+            // Every point of the chunk is at most this far away horizontally
+            if (dy * dy + zone.farthestSquared <= zone.radiusSquared) {
+                return true;
+            }
+            double dx = x - zone.x;
+            double dz = z - zone.z;
+            if (dx * dx + dy * dy + dz * dz <= zone.radiusSquared) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return chunksByWorld.isEmpty();
+    }
+
+    public void clear() {
+        chunksByWorld.clear();
+    }
+
+    /**
+     * Squared horizontal distance from a point to the nearest or farthest point of a chunk
+     */
+    private static double horizontalDistanceSquared(double x, double z, int chunkX, int chunkZ, boolean farthest) {
+        double minX = chunkX << 4;
+        double minZ = chunkZ << 4;
+        double dx;
+        double dz;
+        if (farthest) {
+            dx = Math.max(Math.abs(x - minX), Math.abs(x - (minX + 16)));
+            dz = Math.max(Math.abs(z - minZ), Math.abs(z - (minZ + 16)));
+        } else {
+            dx = Math.max(0, Math.max(minX - x, x - (minX + 16)));
+            dz = Math.max(0, Math.max(minZ - z, z - (minZ + 16)));
+        }
+        return dx * dx + dz * dz;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * One zone as seen from one chunk
+     */
+    private static class Zone {
+        final double x;
+        final double y;
+        final double z;
+        final double radiusSquared;
+        final double farthestSquared;
+
+        Zone(double x, double y, double z, double radiusSquared, double farthestSquared) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.radiusSquared = radiusSquared;
+            this.farthestSquared = farthestSquared;
+        }
+    }
+}
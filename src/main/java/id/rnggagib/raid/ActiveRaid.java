@@ -1,14 +1,16 @@
 package id.rnggagib.raid;
 
 import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.PointIndex;
 import org.bukkit.Location;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public class ActiveRaid {
@@ -16,13 +18,17 @@ public class ActiveRaid {
     private final String townName;
     private LocalDateTime startTime;
     private int stolenItems;
-    private final List<UUID> raiderEntities;
+    private final Set<UUID> raiderEntities;
     private Location location;
     private final Map<String, Object> metadata;
     private final TownyRaider plugin;
+    // Whether the raid changed since it was last saved
+    private boolean dirty = true;
     
     // Static empty list for optimization
     private static final List<Location> EMPTY_LOCATION_LIST = Collections.emptyList();
+    // Metadata key suffix for the cached index of a location list
+    private static final String INDEX_SUFFIX = "_index";
     
     public ActiveRaid(UUID id, String townName, TownyRaider plugin) {
         this.id = id;
@@ -30,7 +36,7 @@ public class ActiveRaid {
         this.plugin = plugin;
         this.startTime = LocalDateTime.now();
         this.stolenItems = 0;
-        this.raiderEntities = new ArrayList<>();
+        this.raiderEntities = new LinkedHashSet<>();
         this.metadata = new HashMap<>();
     }
     
@@ -48,18 +54,32 @@ public class ActiveRaid {
     
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
+        dirty = true;
     }
     
-    public List<UUID> getRaiderEntities() {
+    public Set<UUID> getRaiderEntities() {
         return raiderEntities;
     }
     
     public void addRaiderEntity(UUID entityId) {
-        raiderEntities.add(entityId);
+        if (raiderEntities.add(entityId)) {
+            dirty = true;
+            // Keep the raid manager's entity index in sync
+            RaidManager raidManager = plugin.getRaidManager();
+            if (raidManager != null) {
+                raidManager.indexRaider(entityId, this);
+            }
+        }
     }
     
     public void removeRaiderEntity(UUID entityId) {
-        raiderEntities.remove(entityId);
+        if (raiderEntities.remove(entityId)) {
+            dirty = true;
+            RaidManager raidManager = plugin.getRaidManager();
+            if (raidManager != null) {
+                raidManager.unindexRaider(entityId, this);
+            }
+        }
     }
     
     public boolean isRaiderEntity(UUID entityId) {
@@ -72,6 +92,7 @@ public class ActiveRaid {
     
     public void setLocation(Location location) {
         this.location = location;
+        dirty = true;
     }
     
     public int getStolenItems() {
@@ -80,6 +101,7 @@ public class ActiveRaid {
     
     public void setStolenItems(int stolenItems) {
         this.stolenItems = stolenItems;
+        dirty = true;
     }
     
     /**
@@ -88,6 +110,7 @@ public class ActiveRaid {
      */
     public void incrementStolenItems(int amount) {
         stolenItems += amount;
+        dirty = true;
     }
 
     /**
@@ -95,10 +118,13 @@ public class ActiveRaid {
      */
     public void incrementStolenItems() {
         stolenItems++;
+        dirty = true;
     }
     
     public void setMetadata(String key, Object value) {
         metadata.put(key, value);
+        metadata.remove(key + INDEX_SUFFIX);
+        dirty = true;
     }
     
     public Object getMetadata(String key) {
@@ -144,6 +170,37 @@ public class ActiveRaid {
         return EMPTY_LOCATION_LIST;
     }
 
+    /**
+     * Gets a List of Locations metadata value as a point index, built on first use and kept
+     * until the value is set again
+     * @param key The metadata key
+     * @return The index, empty if the value is not found
+     */
+    @SuppressWarnings("unchecked")
+    public PointIndex<Location> getLocationIndexMetadata(String key) {
+        Object cached = metadata.get(key + INDEX_SUFFIX);
+        if (cached instanceof PointIndex) {
+            return (PointIndex<Location>) cached;
+        }
+        PointIndex<Location> index = PointIndex.of(getLocationListMetadata(key));
+        metadata.put(key + INDEX_SUFFIX, index);
+        return index;
+    }
+
+    /**
+     * Check whether the raid changed since it was last saved
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+    
+    /**
+     * Note that the raid was saved as it is now
+     */
+    public void markSaved() {
+        dirty = false;
+    }
+
     /**
      * Starts the raid and organizes raid squads.
      */
@@ -2,6 +2,7 @@ package id.rnggagib.raid;
 
 import com.palmergames.bukkit.towny.object.Town;
 import id.rnggagib.TownyRaider;
+import id.rnggagib.persistence.RaidJournal;
 import org.bukkit.configuration.ConfigurationSection;
 
 /**
@@ -116,17 +117,9 @@ public class DifficultyManager {
     
     private double calculateHistoryFactor(Town town) {
         // Check past raid history to scale difficulty
-        int successfulRaids = 0;
-        int totalRaids = 0;
-        
-        for (RaidHistory history : plugin.getRaidManager().getRaidHistory()) {
-            if (history.getTownName().equals(town.getName())) {
-                totalRaids++;
-                if (history.isSuccessful()) {
-                    successfulRaids++;
-                }
-            }
-        }
+        RaidJournal.TownStats stats = plugin.getRaidManager().getTownRaidStats(town.getName());
+        int successfulRaids = stats.getSuccessfulRaids();
+        int totalRaids = stats.getTotalRaids();
         
         if (totalRaids == 0) return 0;
         
@@ -2,8 +2,10 @@ package id.rnggagib.raid;
 
 import com.palmergames.bukkit.towny.object.Town;
 import id.rnggagib.TownyRaider;
+import id.rnggagib.entity.TownSurvey;
 import id.rnggagib.towny.TownyHandler;
 import id.rnggagib.persistence.PersistenceManager;
+import id.rnggagib.persistence.RaidJournal;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.configuration.ConfigurationSection;
@@ -12,6 +14,7 @@ import org.bukkit.scheduler.BukkitTask;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,12 +25,16 @@ import java.util.stream.Collectors;
 public class RaidManager {
     private final TownyRaider plugin;
     private final Map<UUID, ActiveRaid> activeRaids = new ConcurrentHashMap<>();
-    private final List<RaidHistory> raidHistory = new ArrayList<>();
+    // Reverse index from raider entity UUID to its raid
+    private final Map<UUID, ActiveRaid> raidsByEntity = new ConcurrentHashMap<>();
     private boolean raidsEnabled = true;
     private BukkitTask schedulerTask;
+    private BukkitTask autosaveTask;
     private TownyHandler townyHandler;
     private PersistenceManager persistenceManager;
     private DifficultyManager difficultyManager;
+    // Difficulty of towns scouted during their raid warning, by lowercase name
+    private final Map<String, Double> scoutedDifficulty = new HashMap<>();
     
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
 
@@ -38,20 +45,22 @@ public class RaidManager {
         this.difficultyManager = new DifficultyManager(plugin);
         loadPersistentData();
         startRaidScheduler();
+        
+        // Save whatever changed every five minutes, so a crash loses little
+        autosaveTask = Bukkit.getScheduler().runTaskTimer(plugin, this::savePersistentData, 20L * 60 * 5, 20L * 60 * 5);
     }
 
     private void loadPersistentData() {
         // Load active raids
         List<ActiveRaid> savedRaids = persistenceManager.loadActiveRaids();
         for (ActiveRaid raid : savedRaids) {
-            activeRaids.put(raid.getId(), raid);
+            registerActiveRaid(raid);
             plugin.getLogger().info("Loaded active raid for town: " + raid.getTownName());
         }
         
         // Load raid history
-        List<RaidHistory> savedHistory = persistenceManager.loadRaidHistory();
-        raidHistory.addAll(savedHistory);
-        plugin.getLogger().info("Loaded " + savedHistory.size() + " historical raid records");
+        RaidJournal journal = persistenceManager.openRaidHistory();
+        plugin.getLogger().info("Loaded " + journal.size() + " historical raid records");
         
         // Load town cooldowns
         Map<String, LocalDateTime> savedCooldowns = persistenceManager.loadTownCooldowns();
@@ -119,6 +128,7 @@ public class RaidManager {
         
         Bukkit.getScheduler().runTaskLater(plugin, () -> {
             sendRaidWarning(town);
+            scoutTown(town);
             scheduleRaidStart(town);
         }, 20L * 60 * warningTime);
     }
@@ -137,15 +147,82 @@ public class RaidManager {
         townyHandler.notifyTownMembers(town, "pre-raid-warning", placeholders);
     }
 
+    /**
+     * Do the work of starting a town's raid ahead of time, while the town is warned: score its difficulty,
+     * and index and survey its chunks a few per tick
+     */
+    private void scoutTown(Town town) {
+        scoutedDifficulty.put(town.getName().toLowerCase(), difficultyManager.calculateDifficultyScore(town));
+        if (plugin.getLootIndexManager() != null) {
+            plugin.getLootIndexManager().scoutTown(town);
+        }
+    }
+
+    /**
+     * Get what scouting found out about a town, if it's done
+     */
+    private TownSurvey getTownSurvey(Town town) {
+        if (plugin.getLootIndexManager() == null) {
+            return null;
+        }
+        return plugin.getLootIndexManager().getTownSurvey(town.getName());
+    }
+
+    /**
+     * Pick one of a survey's spawn points that can still be stood on
+     * @return The spawn point, or null if there's no survey or none is usable
+     */
+    private Location pickScoutedLocation(TownSurvey survey) {
+        if (survey == null || survey.getSpawnPoints().isEmpty()) {
+            return null;
+        }
+        List<Location> spawnPoints = new ArrayList<>(survey.getSpawnPoints());
+        Collections.shuffle(spawnPoints);
+        for (Location spawnPoint : spawnPoints) {
+            if (TownSurvey.isStandable(spawnPoint)) {
+                return spawnPoint.clone();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hand a survey's exits and cover to the raiders
+     */
+    private void applyTownSurvey(ActiveRaid raid, TownSurvey survey) {
+        if (survey == null) {
+            return;
+        }
+        if (!survey.getExitPoints().isEmpty()) {
+            raid.setMetadata("exit_points", new ArrayList<>(survey.getExitPoints()));
+        }
+        if (!survey.getCoverPoints().isEmpty()) {
+            raid.setMetadata("cover_points", new ArrayList<>(survey.getCoverPoints()));
+        }
+    }
+
+    private void forgetScouting(Town town) {
+        scoutedDifficulty.remove(town.getName().toLowerCase());
+        if (plugin.getLootIndexManager() != null) {
+            plugin.getLootIndexManager().discardTown(town.getName());
+        }
+    }
+
     private void startRaid(Town town) {
-        Location raidLocation = townyHandler.findSuitableRaidLocation(town);
+        TownSurvey survey = getTownSurvey(town);
+        Location raidLocation = pickScoutedLocation(survey);
+        if (raidLocation == null) {
+            raidLocation = townyHandler.findSuitableRaidLocation(town);
+        }
         if (raidLocation == null) {
             plugin.getLogger().warning("Could not find suitable location for raid in town: " + town.getName());
+            forgetScouting(town);
             return;
         }
         
-        // Calculate difficulty score based on town properties
-        double difficultyScore = difficultyManager.calculateDifficultyScore(town);
+        // Calculate difficulty score based on town properties, unless that was done while the town was warned
+        Double scoutedScore = scoutedDifficulty.remove(town.getName().toLowerCase());
+        double difficultyScore = scoutedScore != null ? scoutedScore : difficultyManager.calculateDifficultyScore(town);
         
         UUID raidId = UUID.randomUUID();
         ActiveRaid raid = new ActiveRaid(raidId, town.getName(), plugin);
@@ -153,8 +230,9 @@ public class RaidManager {
         
         // Store the difficulty score in raid metadata
         raid.setMetadata("difficulty_score", difficultyScore);
+        applyTownSurvey(raid, survey);
         
-        activeRaids.put(raidId, raid);
+        registerActiveRaid(raid);
         
         // Override config values with difficulty-scaled values
         ConfigurationSection zombieConfig = plugin.getConfigManager().getMobConfig("baby-zombie");
@@ -190,6 +268,11 @@ public class RaidManager {
         // After spawning raid mobs, keep the chunks loaded
         plugin.getRaiderEntityManager().keepRaidChunksLoaded(raid);
         
+        // Index the town's valuable blocks for the raiders, or take over the indexes built while scouting
+        if (plugin.getLootIndexManager() != null) {
+            plugin.getLootIndexManager().indexRaid(raid);
+        }
+        
         // Create visual effects for the raid
         plugin.getVisualEffectsManager().createRaidBossBar(raid);
         plugin.getVisualEffectsManager().createRaidBorderEffects(raid);
@@ -203,6 +286,7 @@ public class RaidManager {
         townyHandler.notifyTownMembers(town, "raid-start", placeholders);
         
         townyHandler.putTownOnCooldown(town);
+        persistenceManager.markDirty(PersistenceManager.Dataset.COOLDOWNS);
         
         // Scale raid duration based on difficulty
         int raidDuration = difficultyManager.getRaidDuration(difficultyScore);
@@ -212,8 +296,22 @@ public class RaidManager {
     }
 
     public void endRaid(UUID raidId) {
+        endRaid(raidId, true);
+    }
+
+    /**
+     * End a raid
+     * @param recordHistory False when the raid is only stopped for a shutdown and resumes from the saved raids,
+     *                      so it is journaled once, when it really ends
+     */
+    public void endRaid(UUID raidId, boolean recordHistory) {
         ActiveRaid raid = activeRaids.remove(raidId);
         if (raid != null) {
+            persistenceManager.markDirty(PersistenceManager.Dataset.ACTIVE_RAIDS);
+            for (UUID entityId : raid.getRaiderEntities()) {
+                raidsByEntity.remove(entityId, raid);
+            }
+            
             // Cleanup raid protection
             plugin.getProtectionManager().cleanupRaidProtection(raid);
             
@@ -226,6 +324,23 @@ public class RaidManager {
             // Clean up visual effects
             plugin.getVisualEffectsManager().removeRaidBossBar(raidId);
             
+            // Drop the raid's shared flow fields
+            if (plugin.getFlowFieldManager() != null) {
+                plugin.getFlowFieldManager().removeRaid(raidId);
+            }
+            
+            // Drop the index of the town's valuable blocks
+            if (plugin.getLootIndexManager() != null) {
+                plugin.getLootIndexManager().removeRaid(raidId);
+            }
+            
+            // Drop the town's navigation graph, which would be long stale by its next raid
+            if (plugin.getPathfindingManager() != null) {
+                plugin.getPathfindingManager().invalidateTown(raid.getTownName());
+            }
+            
+            townyHandler.getClaimCache().removeRaid(raidId);
+            
             Town town = townyHandler.getTownByName(raid.getTownName());
             
             // Determine if raid was successful based on stolen items
@@ -244,7 +359,9 @@ public class RaidManager {
                 successful
             );
             
-            raidHistory.add(history);
+            if (recordHistory) {
+                persistenceManager.appendRaidHistory(history);
+            }
             
             // Process economy for the raid
             plugin.getEconomyManager().processRaidEconomy(raid, successful);
@@ -293,6 +410,54 @@ public class RaidManager {
         return getRaidById(raidId);
     }
     
+    /**
+     * Get the active raid an entity belongs to
+     * @param entityId The UUID of the raider entity
+     * @return The ActiveRaid object, or null if the entity is not part of an active raid
+     */
+    public ActiveRaid getRaidForEntity(UUID entityId) {
+        return raidsByEntity.get(entityId);
+    }
+    
+    /**
+     * Check if an entity belongs to an active raid
+     * @param entityId The UUID of the entity
+     * @return true if the entity is a raider of an active raid
+     */
+    public boolean isRaidEntity(UUID entityId) {
+        return raidsByEntity.containsKey(entityId);
+    }
+    
+    /**
+     * Add a raider to the entity index, called by ActiveRaid when a raider joins
+     */
+    void indexRaider(UUID entityId, ActiveRaid raid) {
+        if (activeRaids.get(raid.getId()) == raid) {
+            raidsByEntity.put(entityId, raid);
+        }
+    }
+    
+    /**
+     * Remove a raider from the entity index, called by ActiveRaid when a raider leaves
+     */
+    void unindexRaider(UUID entityId, ActiveRaid raid) {
+        raidsByEntity.remove(entityId, raid);
+    }
+    
+    private void registerActiveRaid(ActiveRaid raid) {
+        activeRaids.put(raid.getId(), raid);
+        persistenceManager.markDirty(PersistenceManager.Dataset.ACTIVE_RAIDS);
+        for (UUID entityId : raid.getRaiderEntities()) {
+            raidsByEntity.put(entityId, raid);
+        }
+        
+        // In-town checks during the raid read the town's claims from the cache
+        Town town = townyHandler.getTownByName(raid.getTownName());
+        if (town != null) {
+            townyHandler.getClaimCache().cacheRaid(raid.getId(), town);
+        }
+    }
+    
     /**
      * Get all active raids
      * @return Map of active raids by their IDs
@@ -309,8 +474,11 @@ public class RaidManager {
         return new ArrayList<>(activeRaids.values());
     }
 
-    public List<RaidHistory> getRaidHistory() {
-        return new ArrayList<>(raidHistory);
+    /**
+     * Get how often a town was raided, and how many of those raids the raiders won
+     */
+    public RaidJournal.TownStats getTownRaidStats(String townName) {
+        return persistenceManager.getRaidJournal().getTownStats(townName);
     }
 
     public boolean isRaidsEnabled() {
@@ -329,17 +497,31 @@ public class RaidManager {
         return townyHandler;
     }
 
+    /**
+     * Save the data that changed since it was last saved; the files are written in the background
+     */
     public void savePersistentData() {
         // Save active raids
-        persistenceManager.saveActiveRaids(new ArrayList<>(activeRaids.values()));
+        for (ActiveRaid raid : activeRaids.values()) {
+            if (raid.isDirty()) {
+                persistenceManager.markDirty(PersistenceManager.Dataset.ACTIVE_RAIDS);
+                break;
+            }
+        }
+        if (persistenceManager.isDirty(PersistenceManager.Dataset.ACTIVE_RAIDS)) {
+            persistenceManager.saveActiveRaids(new ArrayList<>(activeRaids.values()));
+        }
         
-        // Save raid history
-        persistenceManager.saveRaidHistory(raidHistory);
+        // Save raid history, dropping what is past the retention period
+        persistenceManager.compactRaidHistory();
+        if (persistenceManager.isDirty(PersistenceManager.Dataset.HISTORY)) {
+            persistenceManager.saveRaidHistory();
+        }
         
         // Save town cooldowns
-        persistenceManager.saveTownCooldowns(townyHandler.getTownRaidCooldowns());
-        
-        plugin.getLogger().info("Saved raid data to disk");
+        if (persistenceManager.isDirty(PersistenceManager.Dataset.COOLDOWNS)) {
+            persistenceManager.saveTownCooldowns(townyHandler.getTownRaidCooldowns());
+        }
     }
 
     public void shutdown() {
@@ -347,10 +529,15 @@ public class RaidManager {
             schedulerTask.cancel();
         }
         
+        if (autosaveTask != null) {
+            autosaveTask.cancel();
+        }
+        
         savePersistentData();
+        plugin.getLogger().info("Saved raid data to disk");
         
         for (ActiveRaid raid : activeRaids.values()) {
-            endRaid(raid.getId());
+            endRaid(raid.getId(), false);
         }
     }
 
@@ -379,18 +566,29 @@ public class RaidManager {
         }
         
         try {
-            Location raidLocation = townyHandler.getRandomLocationInTown(town);
+            // A town already scouted for a scheduled raid is raided where scouting suggests
+            TownSurvey survey = getTownSurvey(town);
+            Location raidLocation = pickScoutedLocation(survey);
+            if (raidLocation == null) {
+                raidLocation = townyHandler.getRandomLocationInTown(town);
+            }
             if (raidLocation == null) {
                 return false;
             }
+            scoutedDifficulty.remove(town.getName().toLowerCase());
             
             UUID raidId = UUID.randomUUID();
             ActiveRaid raid = new ActiveRaid(raidId, town.getName(), plugin);
             raid.setLocation(raidLocation);
-            activeRaids.put(raidId, raid);
+            applyTownSurvey(raid, survey);
+            registerActiveRaid(raid);
             
             plugin.getRaiderEntityManager().spawnRaidMobs(raid, raidLocation);
             
+            if (plugin.getLootIndexManager() != null) {
+                plugin.getLootIndexManager().indexRaid(raid);
+            }
+            
             plugin.getVisualEffectsManager().createRaidBossBar(raid);
             plugin.getVisualEffectsManager().createRaidBorderEffects(raid);
             
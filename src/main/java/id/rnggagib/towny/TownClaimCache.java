@@ -0,0 +1,202 @@
+package id.rnggagib.towny;
+
+import com.palmergames.bukkit.towny.event.TownClaimEvent;
+import com.palmergames.bukkit.towny.event.town.TownUnclaimEvent;
+import com.palmergames.bukkit.towny.object.Town;
+import com.palmergames.bukkit.towny.object.TownBlock;
+import com.palmergames.bukkit.towny.object.WorldCoord;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The claimed chunks of each raided town, so asking whether a location is in the town is a lookup of its
+ * packed chunk coordinates instead of a trip through Towny's universe.
+ * Built from the town's blocks when its raid starts and kept in step with Towny's claim and unclaim events.
+ * Main thread only.
+ */
+public class TownClaimCache implements Listener {
+    private final Map<UUID, TownClaims> raids = new HashMap<>();
+
+    /**
+     * Cache the claims of a raid's town, replacing any the raid had
+     */
+    public void cacheRaid(UUID raidId, Town town) {
+        TownClaims claims = new TownClaims(town);
+        for (TownBlock block : town.getTownBlocks()) {
+            claims.add(block.getWorld().getName(), block.getX(), block.getZ());
+        }
+        raids.put(raidId, claims);
+    }
+
+    public void removeRaid(UUID raidId) {
+        raids.remove(raidId);
+    }
+
+    public void clear() {
+        raids.clear();
+    }
+
+    /**
+     * Get a town's cached claims
+     * @return The claims, or null if no raid on the town is cached
+     */
+    TownClaims getClaims(Town town) {
+        String name = town.getName();
+        for (TownClaims claims : raids.values()) {
+            if (claims.townName.equals(name)) {
+                return claims;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the raided town a location is claimed by
+     * @return The town, or null if the location isn't in any cached town
+     */
+    Town getTownAt(Location location) {
+        for (TownClaims claims : raids.values()) {
+            if (claims.contains(location)) {
+                return claims.town;
+            }
+        }
+        return null;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTownClaim(TownClaimEvent event) {
+        TownBlock block = event.getTownBlock();
+        Town town = block.getTownOrNull();
+        if (town == null) {
+            return;
+        }
+        for (TownClaims claims : raids.values()) {
+            if (claims.townName.equals(town.getName())) {
+                claims.add(block.getWorld().getName(), block.getX(), block.getZ());
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onTownUnclaim(TownUnclaimEvent event) {
+        WorldCoord coord = event.getWorldCoord();
+        // A chunk has one owner, so whichever town lost it no longer has it
+        for (TownClaims claims : raids.values()) {
+            claims.remove(coord.getWorldName(), coord.getX(), coord.getZ());
+        }
+    }
+
+    /**
+     * One town's claimed chunks, per world
+     */
+    static class TownClaims {
+        private final Town town;
+        private final String townName;
+        private final Map<String, ChunkKeySet> worlds = new HashMap<>(2);
+
+        TownClaims(Town town) {
+            this.town = town;
+            this.townName = town.getName();
+        }
+
+        boolean contains(Location location) {
+            World world = location.getWorld();
+            if (world == null) {
+                return false;
+            }
+            ChunkKeySet chunks = worlds.get(world.getName());
+            return chunks != null && chunks.contains(chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+        }
+
+        void add(String worldName, int chunkX, int chunkZ) {
+            worlds.computeIfAbsent(worldName, w -> new ChunkKeySet()).add(chunkKey(chunkX, chunkZ));
+        }
+
+        void remove(String worldName, int chunkX, int chunkZ) {
+            ChunkKeySet chunks = worlds.get(worldName);
+            if (chunks != null) {
+                chunks.remove(chunkKey(chunkX, chunkZ));
+            }
+        }
+    }
+
+    /**
+     * An open-addressed set of packed chunk coordinates
+     */
+    private static class ChunkKeySet {
+        // No chunk is this far out, so it marks a free slot
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys = newTable(16);
+        private int size = 0;
+
+        boolean contains(long key) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            long found;
+            while ((found = keys[slot]) != EMPTY) {
+                if (found == key) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        void add(long key) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2, EMPTY);
+            }
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            size++;
+        }
+
+        void remove(long key) {
+            if (contains(key)) {
+                // Unclaims are rare enough to rebuild the table rather than mend the probe chains
+                rehash(keys.length, key);
+            }
+        }
+
+        private void rehash(int capacity, long skip) {
+            long[] old = keys;
+            keys = newTable(capacity);
+            size = 0;
+            for (long key : old) {
+                if (key != EMPTY && key != skip) {
+                    add(key);
+                }
+            }
+        }
+
+        private static long[] newTable(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, EMPTY);
+            return table;
+        }
+
+        private static int slot(long key, int mask) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
@@ -32,6 +32,7 @@ public class TownyHandler {
     private final TownyAPI townyAPI;
     private Economy economy;
     private final Map<String, LocalDateTime> townRaidCooldowns = new HashMap<>();
+    private final TownClaimCache claimCache = new TownClaimCache();
 
     public TownyHandler(TownyRaider plugin) {
         this.plugin = plugin;
@@ -53,6 +54,13 @@ public class TownyHandler {
         return economy != null;
     }
 
+    /**
+     * Get the cache of raided towns' claims
+     */
+    public TownClaimCache getClaimCache() {
+        return claimCache;
+    }
+
     /**
      * Get the economy provider
      */
@@ -261,10 +269,20 @@ public class TownyHandler {
     }
     
     public Town getTownAt(Location location) {
+        Town cached = claimCache.getTownAt(location);
+        if (cached != null) {
+            return cached;
+        }
         return townyAPI.getTown(location);
     }
     
     public boolean isLocationInTown(Location location, Town town) {
+        // Raided towns answer from their cached claims
+        TownClaimCache.TownClaims claims = claimCache.getClaims(town);
+        if (claims != null) {
+            return claims.contains(location);
+        }
+        
         Town locationTown = getTownAt(location);
         return locationTown != null && locationTown.getName().equals(town.getName());
     }